@@ -0,0 +1,198 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.opentest4j.AssertionFailedError;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static java.lang.String.format;
+
+/**
+ * Baseline database times for {@link DatabaseBudget} tests.
+ *
+ * Baselines are stored in one properties file per test class. Files are loaded when first
+ * needed and, in {@link Mode#RECORD record} mode, written once all tests have completed.
+ */
+final class BudgetBaselines implements ExtensionContext.Store.CloseableResource {
+    private final Path directory;
+    private final Mode mode;
+    private final Map<String, Properties> baselines = new HashMap<>();
+    private final Set<String> modified = new HashSet<>();
+
+    BudgetBaselines(final Path directory, final Mode mode) {
+        this.directory = directory;
+        this.mode = mode;
+    }
+
+    /**
+     * Read the baseline configuration from system properties.
+     */
+    static BudgetBaselines readSystemProperties() {
+        return new BudgetBaselines(
+                Paths.get(System.getProperty("jupiterdb.budget.baselineDir", "src/test/db-budgets")),
+                Mode.valueOf(System.getProperty("jupiterdb.budget.mode", "check").trim().toUpperCase(Locale.ROOT)));
+    }
+
+    Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Compare the time a test spent in the database with the baseline for the test.
+     *
+     * @param context      Context of the test.
+     * @param budget       Budget settings for the test.
+     * @param elapsedNanos Time the test spent in the database.
+     * @throws AssertionFailedError If the baseline is exceeded and the test should fail.
+     */
+    void check(final ExtensionContext context, final DatabaseBudget budget, final long elapsedNanos) {
+        final String testClass = context.getRequiredTestClass().getName();
+        final String testKey = testKey(context);
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+
+        if (mode == Mode.RECORD) {
+            setBaselineMillis(testClass, testKey, elapsedMillis);
+            context.publishReportEntry("databaseTime", format("%d ms (recorded as baseline)", elapsedMillis));
+            return;
+        }
+
+        final Long baselineMillis = getBaselineMillis(testClass, testKey);
+
+        if (baselineMillis == null) {
+            context.publishReportEntry("databaseTime", format(
+                    "%d ms (no baseline for %s in %s)",
+                    elapsedMillis,
+                    testKey,
+                    baselineFile(testClass)));
+            return;
+        }
+
+        final long limitMillis = (long) (baselineMillis * (1 + budget.tolerance())) + budget.slackMillis();
+
+        context.publishReportEntry("databaseTime", format(
+                "%d ms (baseline %d ms, limit %d ms)",
+                elapsedMillis,
+                baselineMillis,
+                limitMillis));
+
+        if (elapsedMillis <= limitMillis) {
+            return;
+        }
+
+        final String message = format(
+                "Test spent %d ms in the database, which exceeds the baseline of %d ms (limit %d ms)",
+                elapsedMillis,
+                baselineMillis,
+                limitMillis);
+
+        if (mode == Mode.CHECK && budget.onRegression() == DatabaseBudget.Action.FAIL) {
+            throw new AssertionFailedError(message);
+        }
+
+        context.publishReportEntry("databaseBudget", message);
+    }
+
+    private synchronized Long getBaselineMillis(final String testClass, final String testKey) {
+        final String value = load(testClass).getProperty(testKey);
+
+        return value == null ? null : Long.valueOf(value.trim());
+    }
+
+    private synchronized void setBaselineMillis(final String testClass, final String testKey, final long millis) {
+        load(testClass).setProperty(testKey, Long.toString(millis));
+        modified.add(testClass);
+    }
+
+    private Properties load(final String testClass) {
+        return baselines.computeIfAbsent(testClass, c -> {
+            final Properties properties = new Properties();
+            final Path file = baselineFile(c);
+
+            if (Files.exists(file)) {
+                try (final Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    properties.load(reader);
+                } catch (final IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+
+            return properties;
+        });
+    }
+
+    private Path baselineFile(final String testClass) {
+        return directory.resolve(testClass + ".properties");
+    }
+
+    /**
+     * Write the baselines that were recorded.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        for (final String testClass : modified) {
+            // Write sorted and without the timestamp comment so the files diff cleanly
+            final StringWriter content = new StringWriter();
+            baselines.get(testClass).store(content, null);
+
+            final String lines = Arrays.stream(content.toString().split("\\R"))
+                    .filter(line -> !line.startsWith("#") && !line.isEmpty())
+                    .sorted()
+                    .collect(Collectors.joining(System.lineSeparator(), "", System.lineSeparator()));
+
+            final Path file = baselineFile(testClass);
+            Files.createDirectories(file.toAbsolutePath().getParent());
+
+            try (final Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writer.write("# Database time baselines in milliseconds, see @DatabaseBudget" + System.lineSeparator());
+                writer.write(lines);
+            }
+        }
+
+        modified.clear();
+    }
+
+    /**
+     * Key of a test within its class file.
+     *
+     * This is built from the parts of the unique id after the test class, for example
+     * {@code find(int)/#2} for the second invocation of a parameterized test.
+     */
+    static String testKey(final ExtensionContext context) {
+        final String[] segments = context.getUniqueId().split("/");
+        int start = 0;
+
+        for (int i = 0; i < segments.length; i += 1) {
+            if (segments[i].startsWith("[class:") || segments[i].startsWith("[nested-class:")) {
+                start = i + 1;
+            }
+        }
+
+        return Arrays.stream(segments, start, segments.length)
+                .map(s -> s.substring(s.indexOf(':') + 1, s.length() - 1))
+                .collect(Collectors.joining("/"));
+    }
+
+    enum Mode {
+        CHECK,
+        WARN,
+        RECORD,
+        OFF,
+    }
+}
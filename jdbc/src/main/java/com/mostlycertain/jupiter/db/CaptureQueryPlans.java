@@ -0,0 +1,25 @@
+package com.mostlycertain.jupiter.db;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Capture the execution plan of each statement executed by the test.
+ *
+ * Each distinct statement executed on an injected connection is run through {@code EXPLAIN}
+ * using the {@link DatabaseDialect} for the database. The plans are published as test report
+ * entries.
+ *
+ * Plan capture can be enabled for all tests with the {@code jupiterdb.queryPlans} system
+ * property.
+ *
+ * @see ExpectIndexUsage
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+public @interface CaptureQueryPlans {
+}
@@ -0,0 +1,268 @@
+package com.mostlycertain.jupiter.db;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.lang.String.format;
+
+/**
+ * Opens connections for a {@link DatabaseConnectionConfig}.
+ *
+ * The driver or data source for each configuration is resolved once and reused, so opening a
+ * connection does not go through the synchronized driver scan in {@link DriverManager}.
+ *
+ * A connection opened ahead of time by {@link #warmUp(DatabaseConnectionConfig)} is handed out by
+ * the next {@link #connect(DatabaseConnectionConfig)} for the same configuration.
+ */
+final class ConnectionFactories {
+    private static final ConcurrentMap<String, ConnectionFactory> FACTORIES = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Connection> WARM_CONNECTIONS = new ConcurrentHashMap<>();
+
+    private ConnectionFactories() {
+        // Private so instances can not be created
+    }
+
+    /**
+     * Open a connection.
+     *
+     * @param config Connection configuration.
+     * @return New connection.
+     * @throws SQLException If a database access error occurs.
+     */
+    static Connection connect(final DatabaseConnectionConfig config) throws SQLException {
+        final Connection warmConnection = WARM_CONNECTIONS.remove(key(config));
+
+        if (warmConnection != null && !warmConnection.isClosed()) {
+            return warmConnection;
+        }
+
+        return factory(config).connect();
+    }
+
+    /**
+     * Open a connection to be handed out by the next {@link #connect(DatabaseConnectionConfig)},
+     * so the first connection of the tests does not pay for driver setup, authentication and
+     * server caches.
+     *
+     * @param config Connection configuration.
+     * @throws SQLException If a database access error occurs.
+     */
+    static void warmUp(final DatabaseConnectionConfig config) throws SQLException {
+        final Connection connection = factory(config).connect();
+
+        if (WARM_CONNECTIONS.putIfAbsent(key(config), connection) != null) {
+            connection.close();
+        }
+    }
+
+    /**
+     * Check if a warm connection is waiting to be handed out.
+     *
+     * @param config Connection configuration.
+     * @return True if the next {@link #connect(DatabaseConnectionConfig)} may use a warm connection.
+     */
+    static boolean hasWarmConnection(final DatabaseConnectionConfig config) {
+        return WARM_CONNECTIONS.containsKey(key(config));
+    }
+
+    /**
+     * Close the warm connections that were not used.
+     */
+    static void closeWarmConnections() {
+        for (final String key : WARM_CONNECTIONS.keySet()) {
+            final Connection connection = WARM_CONNECTIONS.remove(key);
+
+            if (connection != null) {
+                try {
+                    connection.close();
+                } catch (final SQLException ex) {
+                    // The tests are done with the database
+                }
+            }
+        }
+    }
+
+    private static String key(final DatabaseConnectionConfig config) {
+        return config.getDriver() + "\n" + config.getUrl() + "\n" + config.getUser() + "\n"
+                + config.getPassword() + "\n" + config.getProperties();
+    }
+
+    private static ConnectionFactory factory(final DatabaseConnectionConfig config) throws SQLException {
+        final String key = key(config);
+        ConnectionFactory factory = FACTORIES.get(key);
+
+        if (factory == null) {
+            factory = createFactory(config);
+            final ConnectionFactory existing = FACTORIES.putIfAbsent(key, factory);
+
+            if (existing != null) {
+                factory = existing;
+            }
+        }
+
+        return factory;
+    }
+
+    private static ConnectionFactory createFactory(final DatabaseConnectionConfig config) throws SQLException {
+        if (config.getDriver().isEmpty()) {
+            final Driver driver = DriverManager.getDriver(config.getUrl());
+            final Properties properties = driverProperties(config);
+
+            return () -> connect(driver, config.getUrl(), properties);
+        }
+
+        final Object instance;
+
+        try {
+            instance = Class.forName(config.getDriver(), true, Thread.currentThread().getContextClassLoader())
+                    .getConstructor()
+                    .newInstance();
+        } catch (final ReflectiveOperationException ex) {
+            throw new SQLException("Error creating database driver: " + config.getDriver(), ex);
+        }
+
+        if (instance instanceof Driver) {
+            final Properties properties = driverProperties(config);
+
+            return () -> connect((Driver) instance, config.getUrl(), properties);
+        } else if (instance instanceof DataSource) {
+            final DataSource dataSource = (DataSource) instance;
+
+            configureDataSource(dataSource, config);
+
+            return config.getUser().isEmpty()
+                    ? dataSource::getConnection
+                    : () -> dataSource.getConnection(config.getUser(), config.getPassword());
+        }
+
+        throw new SQLException(format(
+                "Database driver must implement %s or %s: %s",
+                Driver.class.getName(),
+                DataSource.class.getName(),
+                config.getDriver()));
+    }
+
+    private static Connection connect(final Driver driver, final String url, final Properties properties) throws SQLException {
+        final Connection connection = driver.connect(url, properties);
+
+        if (connection == null) {
+            throw new SQLException(format("Driver %s does not accept url: %s", driver.getClass().getName(), url));
+        }
+
+        return connection;
+    }
+
+    private static Properties driverProperties(final DatabaseConnectionConfig config) {
+        final Properties properties = new Properties();
+
+        properties.putAll(config.getProperties());
+        properties.setProperty("user", config.getUser());
+        properties.setProperty("password", config.getPassword());
+
+        return properties;
+    }
+
+    /**
+     * Set the url and connection properties with the bean setters of the data source.
+     */
+    private static void configureDataSource(final DataSource dataSource, final DatabaseConnectionConfig config) throws SQLException {
+        if (!config.getUrl().isEmpty()) {
+            if (!setProperty(dataSource, "URL", config.getUrl()) && !setProperty(dataSource, "Url", config.getUrl())) {
+                throw new SQLException("Data source does not have a URL property: " + dataSource.getClass().getName());
+            }
+        }
+
+        for (final Map.Entry<String, String> property : config.getProperties().entrySet()) {
+            if (!setProperty(dataSource, property.getKey(), property.getValue())) {
+                throw new SQLException(format(
+                        "Data source does not have a property: property=%s dataSource=%s",
+                        property.getKey(),
+                        dataSource.getClass().getName()));
+            }
+        }
+    }
+
+    /**
+     * Call the setter of a property with the value converted to the type of its parameter.
+     *
+     * @return True if the property was set, false if the target does not have a setter for it.
+     * @throws SQLException If the value can not be converted to the type of any of the setters.
+     */
+    private static boolean setProperty(final Object target, final String name, final String value) throws SQLException {
+        final String setterName = "set" + name.substring(0, 1).toUpperCase(Locale.ROOT) + name.substring(1);
+        final List<String> unsupportedTypes = new ArrayList<>();
+        NumberFormatException conversionError = null;
+
+        for (final Method method : target.getClass().getMethods()) {
+            if (!method.getName().equals(setterName) || method.getParameterCount() != 1) {
+                continue;
+            }
+
+            final Object argument;
+
+            try {
+                argument = convert(value, method.getParameterTypes()[0]);
+            } catch (final NumberFormatException ex) {
+                // Another overload of the setter may accept the value
+                conversionError = ex;
+                continue;
+            }
+
+            if (argument == null) {
+                unsupportedTypes.add(method.getParameterTypes()[0].getName());
+                continue;
+            }
+
+            try {
+                method.invoke(target, argument);
+                return true;
+            } catch (final ReflectiveOperationException ex) {
+                throw new SQLException(format("Error setting data source property: property=%s", name), ex);
+            }
+        }
+
+        if (conversionError != null) {
+            throw new SQLException(
+                    format("Invalid data source property value, expected a number: property=%s value=%s", name, value),
+                    conversionError);
+        } else if (!unsupportedTypes.isEmpty()) {
+            throw new SQLException(format(
+                    "Data source property type is not supported, expected String, int, long or boolean: property=%s type=%s dataSource=%s",
+                    name,
+                    String.join(",", unsupportedTypes),
+                    target.getClass().getName()));
+        }
+
+        return false;
+    }
+
+    private static Object convert(final String value, final Class<?> type) {
+        if (type == String.class) {
+            return value;
+        } else if (type == int.class || type == Integer.class) {
+            return Integer.valueOf(value.trim());
+        } else if (type == long.class || type == Long.class) {
+            return Long.valueOf(value.trim());
+        } else if (type == boolean.class || type == Boolean.class) {
+            return Boolean.valueOf(value.trim());
+        }
+
+        return null;
+    }
+
+    @FunctionalInterface
+    private interface ConnectionFactory {
+        Connection connect() throws SQLException;
+    }
+}
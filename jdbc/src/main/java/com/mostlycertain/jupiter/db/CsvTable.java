@@ -0,0 +1,143 @@
+package com.mostlycertain.jupiter.db;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.lang.String.format;
+
+/**
+ * Rows of a CSV file with a header row.
+ *
+ * Fields are separated by commas and can be quoted with double quotes, with {@code ""} for a
+ * quote in a quoted field. An empty unquoted field is {@code null}. Blank lines are ignored.
+ */
+final class CsvTable {
+    private final List<String> columns;
+    private final List<List<String>> rows;
+
+    private CsvTable(final List<String> columns, final List<List<String>> rows) {
+        this.columns = Collections.unmodifiableList(columns);
+        this.rows = Collections.unmodifiableList(rows);
+    }
+
+    List<String> getColumns() {
+        return columns;
+    }
+
+    List<List<String>> getRows() {
+        return rows;
+    }
+
+    /**
+     * Parse CSV text.
+     *
+     * @param text CSV text.
+     * @return Header and rows.
+     * @throws IllegalArgumentException If the text is not valid CSV or a row does not have the
+     *                                  same number of fields as the header.
+     */
+    static CsvTable parse(final String text) {
+        final List<List<String>> records = new ArrayList<>();
+        final List<Integer> lineNumbers = new ArrayList<>();
+        int index = 0;
+        int lineNumber = 1;
+
+        while (index < text.length()) {
+            final int recordLine = lineNumber;
+            final List<String> record = new ArrayList<>();
+            final StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean endOfRecord = false;
+
+            while (!endOfRecord) {
+                final char c = index < text.length() ? text.charAt(index) : '\n';
+                index += 1;
+
+                if (c == '"' && field.length() == 0 && !quoted) {
+                    quoted = true;
+                    index = readQuoted(text, index, field, recordLine);
+                    lineNumber += countLines(field);
+                } else if (c == ',' || c == '\n') {
+                    record.add(quoted || field.length() > 0 ? field.toString() : null);
+                    field.setLength(0);
+                    quoted = false;
+                    endOfRecord = c == '\n';
+                } else if (c != '\r') {
+                    if (quoted) {
+                        throw new IllegalArgumentException(format(
+                                "Unexpected character after quoted field: line=%d", recordLine));
+                    }
+
+                    field.append(c);
+                }
+            }
+
+            lineNumber += 1;
+
+            if (record.size() > 1 || record.get(0) != null) {
+                records.add(record);
+                lineNumbers.add(recordLine);
+            }
+        }
+
+        if (records.isEmpty()) {
+            throw new IllegalArgumentException("CSV does not have a header row");
+        }
+
+        final List<String> columns = records.get(0);
+
+        for (int i = 1; i < records.size(); i += 1) {
+            if (records.get(i).size() != columns.size()) {
+                throw new IllegalArgumentException(format(
+                        "CSV row has %d fields, but the header has %d: line=%d",
+                        records.get(i).size(),
+                        columns.size(),
+                        lineNumbers.get(i)));
+            }
+        }
+
+        if (columns.contains(null)) {
+            throw new IllegalArgumentException("CSV header has an empty column name");
+        }
+
+        return new CsvTable(columns, new ArrayList<>(records.subList(1, records.size())));
+    }
+
+    /**
+     * Read a quoted field, starting after the opening quote.
+     *
+     * @return Index after the closing quote.
+     */
+    private static int readQuoted(final String text, final int start, final StringBuilder field, final int lineNumber) {
+        int index = start;
+
+        while (index < text.length()) {
+            final char c = text.charAt(index);
+            index += 1;
+
+            if (c != '"') {
+                field.append(c);
+            } else if (index < text.length() && text.charAt(index) == '"') {
+                field.append('"');
+                index += 1;
+            } else {
+                return index;
+            }
+        }
+
+        throw new IllegalArgumentException(format("Unterminated quoted field: line=%d", lineNumber));
+    }
+
+    private static int countLines(final CharSequence text) {
+        int count = 0;
+
+        for (int i = 0; i < text.length(); i += 1) {
+            if (text.charAt(i) == '\n') {
+                count += 1;
+            }
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,337 @@
+package com.mostlycertain.jupiter.db;
+
+import org.opentest4j.AssertionFailedError;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.mostlycertain.jupiter.db.AnnotationUtil.getAnnotations;
+import static com.mostlycertain.jupiter.db.ResourceUtil.loadTextResource;
+import static java.lang.String.format;
+
+/**
+ * Compare the contents of a table with the rows of a CSV file.
+ *
+ * The expected rows are sent to the database as a {@code VALUES} list, cast to the types of the
+ * table columns, so both sides are converted the same way. If the {@link DatabaseDialect} supports
+ * {@link DatabaseDialect#checksumQuery(String, List) checksums}, the table and the expected rows
+ * are compared by checksum in the database first. The rows are only read to report the
+ * differences if the checksums do not match.
+ */
+public final class DataSetAssertions {
+    /**
+     * Number of expected rows sent in each query, and fetch size for reading the table.
+     */
+    private static final int CHUNK_ROWS = 500;
+
+    /**
+     * Number of missing and unexpected rows to include in the failure message.
+     */
+    private static final int MAX_REPORTED_ROWS = 20;
+
+    private DataSetAssertions() {
+        // Private so instances can not be created
+    }
+
+    /**
+     * Assert that a table contains the rows of a CSV data set, in any order.
+     *
+     * @param connection Connection to query the table with.
+     * @param table      Table to check.
+     * @param csv        Expected rows, with a header row of the column names to compare. An empty
+     *                   field is {@code NULL} and a quoted empty field is an empty string.
+     * @throws SQLException If a database access error occurs.
+     */
+    public static void assertTableEquals(
+            final Connection connection,
+            final String table,
+            final String csv
+    ) throws SQLException {
+        assertTableEquals(connection, table, CsvTable.parse(csv), "data set");
+    }
+
+    /**
+     * Check the {@link ExpectedDataSet} annotations of a test.
+     *
+     * @param testClass   Unit test class.
+     * @param testMethod  Unit test method.
+     * @param connections Finds the connection for a connection name, or the only connection for
+     *                    an empty name.
+     * @throws SQLException If a database access error occurs.
+     */
+    static void verifyAnnotations(
+            final Class<?> testClass,
+            final Method testMethod,
+            final Function<String, Connection> connections
+    ) throws SQLException {
+        // Resource names are relative to the class the annotation is attached to
+        verifyDataSets(testClass, getAnnotations(testClass, ExpectedDataSet.class), connections);
+        verifyDataSets(testMethod.getDeclaringClass(), getAnnotations(testMethod, ExpectedDataSet.class), connections);
+    }
+
+    private static void verifyDataSets(
+            final Class<?> resourceClass,
+            final Stream<ExpectedDataSet> dataSets,
+            final Function<String, Connection> connections
+    ) throws SQLException {
+        for (final ExpectedDataSet dataSet : (Iterable<ExpectedDataSet>) dataSets::iterator) {
+            final String csv = loadTextResource(resourceClass, dataSet.value())
+                    .orElseThrow(() -> new RuntimeException(format(
+                            "@ExpectedDataSet resource not found: resource=%s test=%s",
+                            dataSet.value(),
+                            resourceClass.getName())));
+
+            assertTableEquals(
+                    connections.apply(dataSet.connection()),
+                    dataSet.table().isEmpty() ? tableName(dataSet.value()) : dataSet.table(),
+                    CsvTable.parse(csv),
+                    dataSet.value());
+        }
+    }
+
+    private static String tableName(final String resourceName) {
+        final String fileName = resourceName.substring(resourceName.lastIndexOf('/') + 1);
+        final int extension = fileName.lastIndexOf('.');
+
+        return extension > 0 ? fileName.substring(0, extension) : fileName;
+    }
+
+    private static void assertTableEquals(
+            final Connection connection,
+            final String table,
+            final CsvTable expected,
+            final String source
+    ) throws SQLException {
+        final List<String> columns = expected.getColumns();
+        final String tableQuery = format("SELECT %s FROM %s", String.join(", ", columns), table);
+        final List<String> expectedQueries = expectedQueries(connection, tableQuery, expected);
+        final Optional<DatabaseDialect> dialect = DatabaseDialects.forConnection(connection);
+
+        if (dialect.isPresent() && checksumsMatch(connection, dialect.get(), tableQuery, expectedQueries, expected)) {
+            return;
+        }
+
+        final Map<List<String>, Integer> missingRows = new HashMap<>();
+        final List<List<String>> unexpectedRows = new ArrayList<>();
+        int unexpectedCount = 0;
+        int actualCount = 0;
+
+        for (int i = 0; i < expectedQueries.size(); i += 1) {
+            try (final PreparedStatement statement = connection.prepareStatement(expectedQueries.get(i))) {
+                bindChunk(statement, expected, i);
+
+                try (final ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        missingRows.merge(readRow(resultSet, columns.size()), 1, Integer::sum);
+                    }
+                }
+            }
+        }
+
+        try (final PreparedStatement statement = connection.prepareStatement(tableQuery)) {
+            statement.setFetchSize(CHUNK_ROWS);
+
+            try (final ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    final List<String> row = readRow(resultSet, columns.size());
+
+                    actualCount += 1;
+
+                    final Integer count = missingRows.get(row);
+
+                    if (count == null) {
+                        // Not expected, or more copies than expected
+                        unexpectedCount += 1;
+
+                        if (unexpectedRows.size() < MAX_REPORTED_ROWS) {
+                            unexpectedRows.add(row);
+                        }
+                    } else if (count == 1) {
+                        missingRows.remove(row);
+                    } else {
+                        missingRows.put(row, count - 1);
+                    }
+                }
+            }
+        }
+
+        if (unexpectedCount == 0 && missingRows.isEmpty()) {
+            return;
+        }
+
+        final List<List<String>> missing = missingRows.entrySet().stream()
+                .flatMap(e -> Collections.nCopies(e.getValue(), e.getKey()).stream())
+                .collect(Collectors.toList());
+
+        throw new AssertionFailedError(format(
+                "Table %s does not match %s: expectedRows=%d actualRows=%d columns=%s%n"
+                        + "Missing rows (%d):%s%n"
+                        + "Unexpected rows (%d):%s",
+                table,
+                source,
+                expected.getRows().size(),
+                actualCount,
+                columns,
+                missing.size(),
+                describeRows(missing, missing.size()),
+                unexpectedCount,
+                describeRows(unexpectedRows, unexpectedCount)));
+    }
+
+    private static boolean checksumsMatch(
+            final Connection connection,
+            final DatabaseDialect dialect,
+            final String tableQuery,
+            final List<String> expectedQueries,
+            final CsvTable expected
+    ) throws SQLException {
+        final List<String> columns = expected.getColumns();
+        final Optional<String> tableChecksum = dialect.checksumQuery(tableQuery, columns);
+
+        if (!tableChecksum.isPresent()) {
+            return false;
+        }
+
+        final long[] actual = checksum(connection, tableChecksum.get(), expected, -1);
+        final long[] expectedSum = {0, 0};
+
+        for (int i = 0; i < expectedQueries.size(); i += 1) {
+            final long[] chunk = checksum(connection, dialect.checksumQuery(expectedQueries.get(i), columns).get(), expected, i);
+
+            expectedSum[0] += chunk[0];
+            expectedSum[1] += chunk[1];
+        }
+
+        return actual[0] == expectedSum[0] && actual[1] == expectedSum[1];
+    }
+
+    /**
+     * Run a checksum query.
+     *
+     * @param chunk Index of the expected rows to bind to the query, or -1 for none.
+     * @return Row count and checksum.
+     */
+    private static long[] checksum(
+            final Connection connection,
+            final String sql,
+            final CsvTable expected,
+            final int chunk
+    ) throws SQLException {
+        try (final PreparedStatement statement = connection.prepareStatement(sql)) {
+            if (chunk >= 0) {
+                bindChunk(statement, expected, chunk);
+            }
+
+            try (final ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+
+                return new long[]{resultSet.getLong(1), resultSet.getLong(2)};
+            }
+        }
+    }
+
+    /**
+     * Build the queries that return the expected rows, {@link #CHUNK_ROWS} rows per query.
+     */
+    private static List<String> expectedQueries(
+            final Connection connection,
+            final String tableQuery,
+            final CsvTable expected
+    ) throws SQLException {
+        final List<String> castTypes = new ArrayList<>();
+
+        try (final PreparedStatement statement = connection.prepareStatement(tableQuery + " WHERE 1 = 0");
+             final ResultSet resultSet = statement.executeQuery()) {
+            final ResultSetMetaData metaData = resultSet.getMetaData();
+
+            for (int i = 1; i <= metaData.getColumnCount(); i += 1) {
+                castTypes.add(castType(metaData, i));
+            }
+        }
+
+        final String row = castTypes.stream()
+                .map(t -> format("CAST(? AS %s)", t))
+                .collect(Collectors.joining(", ", "(", ")"));
+        final List<String> queries = new ArrayList<>();
+
+        for (int start = 0; start < expected.getRows().size(); start += CHUNK_ROWS) {
+            final int rowCount = Math.min(CHUNK_ROWS, expected.getRows().size() - start);
+
+            queries.add(format(
+                    "SELECT * FROM (VALUES %s) expected_rows(%s)",
+                    String.join(", ", Collections.nCopies(rowCount, row)),
+                    String.join(", ", expected.getColumns())));
+        }
+
+        return queries;
+    }
+
+    private static String castType(final ResultSetMetaData metaData, final int column) throws SQLException {
+        final String typeName = metaData.getColumnTypeName(column);
+
+        switch (metaData.getColumnType(column)) {
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return format("%s(%d, %d)", typeName, metaData.getPrecision(column), metaData.getScale(column));
+            case Types.CHAR:
+            case Types.NCHAR:
+            case Types.VARCHAR:
+            case Types.NVARCHAR:
+                return metaData.getPrecision(column) > 0
+                        ? format("%s(%d)", typeName, metaData.getPrecision(column))
+                        : typeName;
+            default:
+                return typeName;
+        }
+    }
+
+    private static void bindChunk(final PreparedStatement statement, final CsvTable expected, final int chunk) throws SQLException {
+        final List<List<String>> rows = expected.getRows();
+        int parameter = 1;
+
+        for (int i = chunk * CHUNK_ROWS; i < Math.min(rows.size(), (chunk + 1) * CHUNK_ROWS); i += 1) {
+            for (final String value : rows.get(i)) {
+                statement.setString(parameter, value);
+                parameter += 1;
+            }
+        }
+    }
+
+    private static List<String> readRow(final ResultSet resultSet, final int columnCount) throws SQLException {
+        final List<String> row = new ArrayList<>(columnCount);
+
+        for (int i = 1; i <= columnCount; i += 1) {
+            row.add(resultSet.getString(i));
+        }
+
+        return row;
+    }
+
+    private static String describeRows(final List<List<String>> rows, final int rowCount) {
+        final StringBuilder output = new StringBuilder();
+
+        for (int i = 0; i < rows.size() && i < MAX_REPORTED_ROWS; i += 1) {
+            output.append(System.lineSeparator()).append("  ").append(rows.get(i));
+        }
+
+        if (rowCount > MAX_REPORTED_ROWS) {
+            output.append(System.lineSeparator()).append("  ...");
+        }
+
+        return output.toString();
+    }
+}
@@ -0,0 +1,59 @@
+package com.mostlycertain.jupiter.db;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Compare the time the test spends in the database with a stored baseline.
+ *
+ * The time spent executing statements and reading result sets on injected connections during the
+ * test method is measured. Fixture SQL is not included. The measurement is compared with the
+ * baseline for the test, stored in {@code <baselineDir>/<test class name>.properties}.
+ *
+ * The baseline directory is set with the {@code jupiterdb.budget.baselineDir} system property
+ * and defaults to {@code src/test/db-budgets}. The {@code jupiterdb.budget.mode} system property
+ * controls how the budget is applied:
+ * <ul>
+ *     <li>{@code check} (default) - Apply {@link #onRegression()} if the baseline is exceeded</li>
+ *     <li>{@code warn} - Only publish a report entry if the baseline is exceeded</li>
+ *     <li>{@code record} - Rewrite the baselines with the measured times</li>
+ *     <li>{@code off} - Do not measure the tests</li>
+ * </ul>
+ *
+ * The annotation on the test method takes precedence over the annotation on the test class.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+public @interface DatabaseBudget {
+    /**
+     * Fraction of the baseline the measured time may exceed it by.
+     */
+    double tolerance() default 0.5;
+
+    /**
+     * Milliseconds the measured time may exceed the baseline by, in addition to the
+     * {@link #tolerance()}. This keeps very fast tests from failing on timing noise.
+     */
+    long slackMillis() default 10;
+
+    /**
+     * What to do when the measured time exceeds the baseline.
+     */
+    Action onRegression() default Action.FAIL;
+
+    enum Action {
+        /**
+         * Fail the test.
+         */
+        FAIL,
+
+        /**
+         * Publish a report entry.
+         */
+        WARN,
+    }
+}
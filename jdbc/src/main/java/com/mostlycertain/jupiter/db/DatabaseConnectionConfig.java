@@ -1,9 +1,13 @@
 package com.mostlycertain.jupiter.db;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
 
+import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -18,15 +22,22 @@ public final class DatabaseConnectionConfig {
 
     private final String password;
 
+    private final String driver;
+
+    private final Map<String, String> properties;
+
     private DatabaseConnectionConfig(final Builder builder) {
         this.url = builder.url;
         this.user = builder.user;
         this.password = builder.password;
+        this.driver = builder.driver;
+        this.properties = Collections.unmodifiableMap(new TreeMap<>(builder.properties));
     }
 
     @Override
     public String toString() {
-        return "url=" + getUrl() + " user=" + getUser() + " password=" + getPassword();
+        return "url=" + getUrl() + " user=" + getUser() + " password=" + getPassword()
+                + " driver=" + getDriver() + " properties=" + getProperties();
     }
 
     /**
@@ -50,6 +61,21 @@ public final class DatabaseConnectionConfig {
         return password;
     }
 
+    /**
+     * Class name of the {@link java.sql.Driver} or {@link javax.sql.DataSource} to connect with,
+     * or empty string to find the driver for the {@link #getUrl() url}.
+     */
+    public String getDriver() {
+        return driver;
+    }
+
+    /**
+     * Connection properties passed to the driver, or set on the data source.
+     */
+    public Map<String, String> getProperties() {
+        return properties;
+    }
+
     /**
      * True if none of the properties are set.
      *
@@ -64,7 +90,7 @@ public final class DatabaseConnectionConfig {
      * @throws SQLException If a database access error occurs.
      */
     public Connection createConnection() throws SQLException {
-        return DriverManager.getConnection(this.url, this.user, this.password);
+        return ConnectionFactories.connect(this);
     }
 
     public static Builder builder() {
@@ -83,19 +109,41 @@ public final class DatabaseConnectionConfig {
      *
      * System property names:
      * <ul>
-     *     <li>{@code jupterdb.database.url} JDBC URL</li>
-     *     <li>{@code jupterdb.database.user} Database user</li>
-     *     <li>{@code jupterdb.database.password} Database password</li>
+     *     <li>{@code jupiterdb.database.url} JDBC URL</li>
+     *     <li>{@code jupiterdb.database.user} Database user</li>
+     *     <li>{@code jupiterdb.database.password} Database password</li>
+     *     <li>{@code jupiterdb.database.driver} Driver or data source class name</li>
+     *     <li>{@code jupiterdb.database.properties.<name>} Connection property</li>
      * </ul>
      *
+     * The properties are also read with the misspelled {@code jupterdb} prefix that was used by
+     * earlier versions.
+     *
      * @return Connection configuration from system properties.
      */
     public static DatabaseConnectionConfig readSystemProperties() {
-        return DatabaseConnectionConfig.builder()
-                .url(System.getProperty("jupterdb.database.url", "").trim())
-                .user(System.getProperty("jupterdb.database.user", "").trim())
-                .password(System.getProperty("jupterdb.database.password", "").trim())
-                .build();
+        final Builder builder = DatabaseConnectionConfig.builder()
+                .url(systemProperty("url"))
+                .user(systemProperty("user"))
+                .password(systemProperty("password"))
+                .driver(systemProperty("driver"));
+        final Properties systemProperties = System.getProperties();
+
+        for (final String prefix : new String[]{"jupterdb.database.properties.", "jupiterdb.database.properties."}) {
+            for (final String name : systemProperties.stringPropertyNames()) {
+                if (name.startsWith(prefix)) {
+                    builder.property(name.substring(prefix.length()), systemProperties.getProperty(name));
+                }
+            }
+        }
+
+        return builder.build();
+    }
+
+    private static String systemProperty(final String name) {
+        return System.getProperty(
+                "jupiterdb.database." + name,
+                System.getProperty("jupterdb.database." + name, "")).trim();
     }
 
     /**
@@ -112,11 +160,26 @@ public final class DatabaseConnectionConfig {
             return DatabaseConnectionConfig.getDefault();
         }
 
-        return DatabaseConnectionConfig.builder()
+        final Builder builder = DatabaseConnectionConfig.builder()
                 .url(annotation.url())
                 .user(annotation.user())
                 .password(annotation.password())
-                .build();
+                .driver(annotation.driver());
+
+        for (final String property : annotation.properties()) {
+            final int separator = property.indexOf('=');
+
+            if (separator < 0) {
+                throw new IllegalArgumentException(format(
+                        "@DatabaseTest property must be name=value: property=%s test=%s",
+                        property,
+                        testClass.getName()));
+            }
+
+            builder.property(property.substring(0, separator).trim(), property.substring(separator + 1).trim());
+        }
+
+        return builder.build();
     }
 
     public DatabaseConnectionConfig merge(final DatabaseConnectionConfig config) {
@@ -126,17 +189,24 @@ public final class DatabaseConnectionConfig {
             return this;
         }
 
-        return builder()
+        final Builder builder = builder()
                 .url(config.url.isEmpty() ? url : config.url)
                 .user(config.user.isEmpty() ? user : config.user)
                 .password(config.password.isEmpty() ? password : config.password)
-                .build();
+                .driver(config.driver.isEmpty() ? driver : config.driver);
+
+        properties.forEach(builder::property);
+        config.properties.forEach(builder::property);
+
+        return builder.build();
     }
 
     public static class Builder {
         private String url = "";
         private String user = "";
         private String password = "";
+        private String driver = "";
+        private final Map<String, String> properties = new TreeMap<>();
 
         /**
          * JDBC url or empty string if not set.
@@ -162,8 +232,25 @@ public final class DatabaseConnectionConfig {
             return this;
         }
 
+        /**
+         * Class name of the {@link java.sql.Driver} or {@link javax.sql.DataSource} to connect
+         * with or empty string if not set.
+         */
+        public Builder driver(final String driver) {
+            this.driver = requireNonNull(driver);
+            return this;
+        }
+
+        /**
+         * Set a connection property.
+         */
+        public Builder property(final String name, final String value) {
+            this.properties.put(requireNonNull(name), requireNonNull(value));
+            return this;
+        }
+
         public DatabaseConnectionConfig build() {
-            if (url.isEmpty() && user.isEmpty() && password.isEmpty()) {
+            if (url.isEmpty() && user.isEmpty() && password.isEmpty() && driver.isEmpty() && properties.isEmpty()) {
                 return getDefault();
             }
 
@@ -0,0 +1,76 @@
+package com.mostlycertain.jupiter.db;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Plugin for features that need database specific SQL.
+ *
+ * The dialects are loaded via {@link java.util.ServiceLoader} by the {@link DatabaseTestExtension}.
+ * To create a dialect, implement this interface and then add the full implementation class
+ * name to a file named {@code META-INF/services/com.mostlycertain.jupiter.db.DatabaseDialect}.
+ *
+ * Dialect methods are called with the connection of a running test. Implementations must leave
+ * the transaction usable, even if the database reports an error.
+ */
+public interface DatabaseDialect {
+    /**
+     * Test if this dialect handles the given database.
+     *
+     * @param metaData Metadata of the database connection.
+     * @return True if this dialect handles the database.
+     * @throws SQLException If a database access error occurs.
+     */
+    boolean supports(DatabaseMetaData metaData) throws SQLException;
+
+    /**
+     * Get the execution plan of a statement.
+     *
+     * @param connection Connection to explain the statement with.
+     * @param sql        Statement to explain.
+     * @param bindValues Values bound to the statement parameters, in parameter order.
+     * @return Execution plan or {@link Optional#empty() empty} if the statement can not be
+     *         explained.
+     * @throws SQLException If a database access error occurs.
+     */
+    default Optional<QueryPlan> explain(
+            final Connection connection,
+            final String sql,
+            final List<Object> bindValues
+    ) throws SQLException {
+        return Optional.empty();
+    }
+
+    /**
+     * Describe the locks held and waited on in the database, to diagnose a test that timed out.
+     *
+     * This is called with a separate connection, while the test connection may be blocked.
+     *
+     * @param connection Connection to query the lock information with.
+     * @return Lock description or {@link Optional#empty() empty} if not supported.
+     * @throws SQLException If a database access error occurs.
+     */
+    default Optional<String> lockSnapshot(final Connection connection) throws SQLException {
+        return Optional.empty();
+    }
+
+    /**
+     * Build a query that computes an order independent checksum of the rows of a query, so
+     * {@link ExpectedDataSet data sets} can be compared without reading the rows.
+     *
+     * The checksum query must return one row with the number of rows and the checksum. The
+     * checksum must be the sum of a hash of each row, so the checksums of parts of a data set
+     * can be added. Columns must be converted to text in the same way for every query, so
+     * equal values have the same hash.
+     *
+     * @param query   Query that returns the rows.
+     * @param columns Column names of the query.
+     * @return Checksum query or {@link Optional#empty() empty} if not supported.
+     */
+    default Optional<String> checksumQuery(final String query, final List<String> columns) {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,48 @@
+package com.mostlycertain.jupiter.db;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.ServiceLoader;
+
+/**
+ * Finds the {@link DatabaseDialect} plugin for a connection.
+ */
+final class DatabaseDialects {
+    private static final List<DatabaseDialect> DIALECTS = loadDialects();
+
+    private DatabaseDialects() {
+        // Private so instances can not be created
+    }
+
+    /**
+     * Find the dialect that supports the database of a connection.
+     *
+     * @param connection Database connection.
+     * @return Dialect or {@link Optional#empty() empty} if no dialect supports the database.
+     * @throws SQLException If a database access error occurs.
+     */
+    static Optional<DatabaseDialect> forConnection(final Connection connection) throws SQLException {
+        final DatabaseMetaData metaData = connection.getMetaData();
+
+        for (final DatabaseDialect dialect : DIALECTS) {
+            if (dialect.supports(metaData)) {
+                return Optional.of(dialect);
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    private static List<DatabaseDialect> loadDialects() {
+        final List<DatabaseDialect> dialects = new ArrayList<>();
+
+        ServiceLoader.load(DatabaseDialect.class).forEach(dialects::add);
+
+        return Collections.unmodifiableList(dialects);
+    }
+}
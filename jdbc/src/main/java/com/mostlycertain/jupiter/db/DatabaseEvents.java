@@ -0,0 +1,84 @@
+package com.mostlycertain.jupiter.db;
+
+/**
+ * Emits JDK Flight Recorder events for the database work done by the extension.
+ *
+ * Each {@code begin} method returns a handle that is passed to the matching {@code end} method.
+ * The handle is null if the event will not be recorded. Events are only recorded while a
+ * recording with the event enabled is running, so the cost is a single check otherwise.
+ *
+ * This class does not reference the {@code jdk.jfr} API directly so the extension still loads on
+ * Java 8 runtimes without Flight Recorder.
+ */
+final class DatabaseEvents {
+    private static final boolean AVAILABLE = isAvailable();
+
+    private DatabaseEvents() {
+        // Private so instances can not be created
+    }
+
+    static Object beginConnectionAcquire() {
+        return AVAILABLE ? JfrEvents.beginConnectionAcquire() : null;
+    }
+
+    static void endConnectionAcquire(final Object event, final String connectionName, final String url) {
+        if (event != null) {
+            JfrEvents.endConnectionAcquire(event, connectionName, url);
+        }
+    }
+
+    static Object beginSavepoint() {
+        return AVAILABLE ? JfrEvents.beginSavepoint() : null;
+    }
+
+    static Object beginRollback() {
+        return AVAILABLE ? JfrEvents.beginRollback() : null;
+    }
+
+    static Object beginClose() {
+        return AVAILABLE ? JfrEvents.beginClose() : null;
+    }
+
+    /**
+     * End a savepoint, rollback or close event.
+     */
+    static void endConnectionEvent(final Object event, final String connectionName) {
+        if (event != null) {
+            JfrEvents.endConnectionEvent(event, connectionName);
+        }
+    }
+
+    static Object beginFixtureScript() {
+        return AVAILABLE ? JfrEvents.beginFixtureScript() : null;
+    }
+
+    static void endFixtureScript(final Object event, final String script, final int statementCount) {
+        if (event != null) {
+            JfrEvents.endFixtureScript(event, script, statementCount);
+        }
+    }
+
+    static Object beginStatement() {
+        return AVAILABLE ? JfrEvents.beginStatement() : null;
+    }
+
+    static void endStatement(
+            final Object event,
+            final String connectionName,
+            final StatementExecution execution,
+            final boolean fixture
+    ) {
+        if (event != null) {
+            JfrEvents.endStatement(event, connectionName, execution, fixture);
+        }
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, DatabaseEvents.class.getClassLoader());
+            return true;
+        } catch (final ClassNotFoundException | LinkageError ex) {
+            return false;
+        }
+    }
+}
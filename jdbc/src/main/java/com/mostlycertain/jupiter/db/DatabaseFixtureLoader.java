@@ -0,0 +1,34 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Plugin that inserts test data defined in code.
+ *
+ * Loaders run after the {@link InitializeSql} statements and before the {@link FinalizeSql}
+ * statements of each connection, in the test transaction.
+ *
+ * The loaders are loaded via {@link java.util.ServiceLoader} by the {@link DatabaseTestExtension}.
+ * To create a loader, implement this interface and then add the full implementation class
+ * name to a file named {@code META-INF/services/com.mostlycertain.jupiter.db.DatabaseFixtureLoader}.
+ */
+public interface DatabaseFixtureLoader {
+    /**
+     * Insert the test data for a test.
+     *
+     * @param extensionContext  Context for the {@link DatabaseTestExtension}.
+     * @param connection        Connection the test data is for.
+     * @param fixtureConnection Connection to insert the test data with. This shares the
+     *                          transaction of {@code connection}, but statements executed on it
+     *                          are not attributed to the test.
+     * @throws SQLException If a database access error occurs.
+     */
+    void load(
+            ExtensionContext extensionContext,
+            DatabaseTestConnection connection,
+            Connection fixtureConnection
+    ) throws SQLException;
+}
@@ -0,0 +1,32 @@
+package com.mostlycertain.jupiter.db;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Record the statements a test executes and their results, and replay them on later runs without
+ * a database.
+ *
+ * Each test has a recording file in the {@code jupiterdb.recording.dir} directory (default
+ * {@code src/test/db-recordings}). The {@code jupiterdb.recording.mode} system property selects
+ * what happens:
+ * <ul>
+ *     <li>{@code auto} (default) - replay if the recording exists, otherwise record it</li>
+ *     <li>{@code record} - run against the database and write the recording</li>
+ *     <li>{@code replay} - run without a database, failing if the test executes a statement
+ *     that differs from the recording</li>
+ *     <li>{@code verify} - run against the database and fail if the recording differs</li>
+ *     <li>{@code off} - ignore the recordings</li>
+ * </ul>
+ *
+ * Only statements executed on the injected connections are recorded. While replaying, fixture
+ * SQL is not executed and the result sets only support forward reads.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+public @interface DatabaseRecording {
+}
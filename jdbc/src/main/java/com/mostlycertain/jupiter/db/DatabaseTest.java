@@ -28,4 +28,18 @@ public @interface DatabaseTest {
      * Database password.
      */
     String password() default "";
+
+    /**
+     * Class name of the {@link java.sql.Driver} or {@link javax.sql.DataSource} to connect with.
+     *
+     * By default the driver is found with {@link java.sql.DriverManager} using the url.
+     */
+    String driver() default "";
+
+    /**
+     * Connection properties, each formatted as {@code name=value}.
+     *
+     * The properties are passed to the driver, or set with the bean setters of the data source.
+     */
+    String[] properties() default {};
 }
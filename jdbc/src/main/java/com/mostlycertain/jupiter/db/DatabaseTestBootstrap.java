@@ -0,0 +1,213 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.platform.engine.TestSource;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+import org.junit.platform.engine.support.descriptor.MethodSource;
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.TestPlan;
+
+import java.lang.reflect.Method;
+import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static java.lang.String.format;
+
+/**
+ * Warms up the extension in the background once the test plan is discovered.
+ *
+ * The JDBC drivers and extension plugins are loaded, and for each {@link DatabaseTest} class in
+ * the plan the connection configuration is resolved, the fixture SQL is read and split into
+ * statements, the {@link EmbeddedDatabase embedded database} is started and a first connection is
+ * opened. The fixture SQL is shared with the extension, and the first connection is handed to the
+ * first test that connects with the same configuration.
+ *
+ * The work runs on a small pool of low priority threads while the tests start, so the first test
+ * class does not absorb all of the startup cost and the warm-up does not compete with the tests for
+ * every CPU. The number of threads is set by {@code jupiterdb.bootstrap.threads} (default 2).
+ *
+ * Errors are only logged at {@code FINE} here. The same work is repeated lazily by the extension,
+ * which reports the error on the test that needs it.
+ *
+ * Set the {@code jupiterdb.bootstrap} system property to {@code false} to disable.
+ */
+public final class DatabaseTestBootstrap implements TestExecutionListener {
+    private static final Logger LOGGER = Logger.getLogger(DatabaseTestBootstrap.class.getName());
+
+    static final int DEFAULT_THREADS = 2;
+
+    /**
+     * How long to wait for the warm-up work that is running when the test plan finishes.
+     */
+    static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private ForkJoinPool pool;
+
+    @Override
+    public void testPlanExecutionStarted(final TestPlan testPlan) {
+        if (System.getProperty("jupiterdb.bootstrap", "true").trim().equalsIgnoreCase("false")) {
+            return;
+        }
+
+        final Map<Class<?>, Set<Method>> testClasses = findTestClasses(testPlan);
+
+        if (testClasses.isEmpty()) {
+            return;
+        }
+
+        final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        pool = new ForkJoinPool(
+                Math.max(1, Integer.getInteger("jupiterdb.bootstrap.threads", DEFAULT_THREADS)),
+                p -> {
+                    final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                    thread.setName("jupiterdb-bootstrap-" + thread.getPoolIndex());
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                },
+                null,
+                false);
+
+        run(classLoader, () -> {
+            DriverManager.getDrivers();
+            Class.forName(DatabaseTestExtension.class.getName(), true, classLoader);
+            Class.forName(DatabaseDialects.class.getName(), true, classLoader);
+        });
+
+        final Map<String, DatabaseConnectionConfig> configs = new LinkedHashMap<>();
+
+        for (final Map.Entry<Class<?>, Set<Method>> testClass : testClasses.entrySet()) {
+            run(classLoader, () -> {
+                SqlRunner.readAnnotations(testClass.getKey()).prepare();
+
+                for (final Method testMethod : testClass.getValue()) {
+                    SqlRunner.readAnnotations(testMethod).prepare();
+                }
+            });
+
+            readConnectionConfig(testClass.getKey())
+                    .filter(config -> !config.getUrl().isEmpty())
+                    .ifPresent(config -> configs.putIfAbsent(config.toString(), config));
+        }
+
+        for (final DatabaseConnectionConfig config : configs.values()) {
+            // The first connection pays for driver setup, authentication and server caches
+            run(classLoader, () -> ConnectionFactories.warmUp(config));
+        }
+
+        for (final Class<?> testClass : testClasses.keySet()) {
+            run(classLoader, () -> {
+                if (readConnectionConfig(testClass).map(DatabaseConnectionConfig::getUrl).orElse("").isEmpty()) {
+                    EmbeddedDatabases.readAnnotations(testClass);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void testPlanExecutionFinished(final TestPlan testPlan) {
+        if (pool == null) {
+            return;
+        }
+
+        pool.shutdownNow();
+
+        // A connection that is still being opened is only closed if the warm-up has finished
+        try {
+            if (!pool.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.log(Level.WARNING, format(
+                        "Bootstrap did not finish, a warm connection may not be closed: timeoutSeconds=%d",
+                        SHUTDOWN_TIMEOUT_SECONDS));
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool = null;
+            ConnectionFactories.closeWarmConnections();
+        }
+    }
+
+    private void run(final ClassLoader classLoader, final Task task) {
+        CompletableFuture.runAsync(() -> {
+            final Thread thread = Thread.currentThread();
+            final ClassLoader previous = thread.getContextClassLoader();
+            thread.setContextClassLoader(classLoader);
+
+            try {
+                task.run();
+            } catch (final Exception | LinkageError ex) {
+                // Reported by the extension when the test runs
+                LOGGER.log(Level.FINE, "Error warming up, repeated by the extension when a test needs it", ex);
+            } finally {
+                thread.setContextClassLoader(previous);
+            }
+        }, pool);
+    }
+
+    private static Optional<DatabaseConnectionConfig> readConnectionConfig(final Class<?> testClass) {
+        try {
+            return Optional.of(DatabaseConnectionConfig.readAnnotation(testClass)
+                    .merge(DatabaseConnectionConfig.readSystemProperties()));
+        } catch (final RuntimeException ex) {
+            return Optional.empty();
+        }
+    }
+
+    private static Map<Class<?>, Set<Method>> findTestClasses(final TestPlan testPlan) {
+        final Map<Class<?>, Set<Method>> testClasses = new LinkedHashMap<>();
+        final List<TestIdentifier> identifiers = new ArrayList<>();
+
+        for (final TestIdentifier root : testPlan.getRoots()) {
+            identifiers.addAll(testPlan.getDescendants(root));
+        }
+
+        for (final TestIdentifier identifier : identifiers) {
+            final Optional<TestSource> source = identifier.getSource();
+
+            if (source.isPresent() && source.get() instanceof ClassSource) {
+                addTestClass(testClasses, ((ClassSource) source.get()).getJavaClass());
+            } else if (source.isPresent() && source.get() instanceof MethodSource) {
+                final MethodSource methodSource = (MethodSource) source.get();
+
+                addTestClass(testClasses, methodSource.getJavaClass())
+                        .ifPresent(methods -> methods.add(methodSource.getJavaMethod()));
+            }
+        }
+
+        return testClasses;
+    }
+
+    private static Optional<Set<Method>> addTestClass(final Map<Class<?>, Set<Method>> testClasses, final Class<?> testClass) {
+        if (!isDatabaseTest(testClass)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(testClasses.computeIfAbsent(testClass, c -> new LinkedHashSet<>()));
+    }
+
+    private static boolean isDatabaseTest(final Class<?> testClass) {
+        for (Class<?> c = testClass; c != null; c = c.getEnclosingClass()) {
+            if (c.isAnnotationPresent(DatabaseTest.class)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        void run() throws Exception;
+    }
+}
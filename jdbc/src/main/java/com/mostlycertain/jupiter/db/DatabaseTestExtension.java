@@ -1,24 +1,32 @@
 package com.mostlycertain.jupiter.db;
 
+import org.junit.jupiter.api.extension.AfterAllCallback;
 import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
 import org.junit.jupiter.api.extension.BeforeAllCallback;
 import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
 import org.junit.jupiter.api.extension.ExtensionContext;
 import org.junit.jupiter.api.extension.ParameterContext;
 import org.junit.jupiter.api.extension.ParameterResolutionException;
 import org.junit.jupiter.api.extension.ParameterResolver;
 import org.opentest4j.AssertionFailedError;
 
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.ServiceLoader;
-import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
 import static com.mostlycertain.jupiter.db.ExtensionStoreUtils.addToList;
 import static com.mostlycertain.jupiter.db.ExtensionStoreUtils.get;
@@ -26,18 +34,46 @@ import static com.mostlycertain.jupiter.db.ExtensionStoreUtils.getList;
 import static java.lang.String.format;
 import static java.util.stream.Collectors.joining;
 
-public class DatabaseTestExtension implements BeforeAllCallback, BeforeEachCallback, AfterEachCallback, ParameterResolver {
+public class DatabaseTestExtension implements
+        BeforeAllCallback,
+        BeforeEachCallback,
+        BeforeTestExecutionCallback,
+        AfterTestExecutionCallback,
+        AfterEachCallback,
+        AfterAllCallback,
+        ParameterResolver {
     private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(DatabaseTestExtension.class);
     private static final String SYSTEM_PROPERTY_CONNECTION_CONFIG_KEY = "systemPropertyConnectionConfig";
     private static final String CLASS_CONNECTION_CONFIG_KEY = "classConnectionConfig";
+    private static final String EMBEDDED_CONNECTION_CONFIG_KEY = "embeddedConnectionConfig";
     private static final String CLASS_SQL_KEY = "classSql";
     private static final String METHOD_SQL_KEY = "methodSql";
     private static final String CONNECTIONS_KEY = "connections";
-
-    private static final ServiceLoader<DatabaseConnectionAdapter> ADAPTERS = ServiceLoader.load(DatabaseConnectionAdapter.class);
+    private static final String QUERY_COUNTER_KEY = "queryCounter";
+    private static final String SLOW_STATEMENTS_KEY = "slowStatements";
+    private static final String SLOW_FIXTURE_STATEMENTS_KEY = "slowFixtureStatements";
+    private static final String QUERY_PLANS_KEY = "queryPlans";
+    private static final String DATABASE_BUDGET_KEY = "databaseBudget";
+    private static final String DATABASE_TIMER_KEY = "databaseTimer";
+    private static final String BUDGET_BASELINES_KEY = "budgetBaselines";
+    private static final String TEST_LISTENERS_KEY = "testListeners";
+    private static final String FIXTURE_LISTENERS_KEY = "fixtureListeners";
+    private static final String RECORDING_KEY = "recording";
+    private static final String SHARED_CONNECTIONS_KEY = "sharedConnections";
+    private static final String WATCHDOG_KEY = "watchdog";
+    private static final String CLASS_TIMING_KEY = "classTiming";
+    private static final String TEST_TIMINGS_KEY = "testTimings";
+    private static final String FIXTURE_PROFILE_KEY = "fixtureProfile";
+    private static final String PRIMARY_CONNECTION_KEY = "primaryConnection";
+
+    private static final List<DatabaseConnectionAdapter> ADAPTERS = loadServices(DatabaseConnectionAdapter.class);
+    private static final List<FixtureSqlTranslator> TRANSLATORS = loadServices(FixtureSqlTranslator.class);
+    private static final List<DatabaseFixtureLoader> FIXTURE_LOADERS = loadServices(DatabaseFixtureLoader.class);
 
     @Override
     public void beforeAll(final ExtensionContext context) {
+        TestTimings.verifyShardFilterApplied();
+
         final ExtensionContext.Store store = context.getStore(NAMESPACE);
 
         store.put(
@@ -48,9 +84,26 @@ public class DatabaseTestExtension implements BeforeAllCallback, BeforeEachCallb
                 .map(DatabaseConnectionConfig::readAnnotation)
                 .ifPresent(c -> store.put(CLASS_CONNECTION_CONFIG_KEY, c));
 
+        if (getConnectionConfig(store).getUrl().isEmpty()) {
+            context.getTestClass()
+                    .flatMap(EmbeddedDatabases::readAnnotations)
+                    .ifPresent(c -> store.put(EMBEDDED_CONNECTION_CONFIG_KEY, c));
+        }
+
         context.getTestClass()
                 .map(SqlRunner::readAnnotations)
                 .ifPresent(c -> store.put(CLASS_SQL_KEY, c));
+
+        context.getTestClass()
+                .filter(c -> c.isAnnotationPresent(ReadOnlyDatabaseTest.class) || c.isAnnotationPresent(SharedFixtures.class))
+                .ifPresent(c -> store.put(sharedConnectionsKey(c), new SharedConnections(
+                        Optional.ofNullable(c.getAnnotation(ReadOnlyDatabaseTest.class)),
+                        c.isAnnotationPresent(SharedFixtures.class))));
+
+        // Nested classes are timed as part of the top level class
+        if (TestTimings.isRecording() && !context.getParent().flatMap(ExtensionContext::getTestClass).isPresent()) {
+            store.put(CLASS_TIMING_KEY, new TestTimings.ClassTiming());
+        }
     }
 
     @Override
@@ -60,16 +113,288 @@ public class DatabaseTestExtension implements BeforeAllCallback, BeforeEachCallb
         context.getTestMethod()
                 .map(SqlRunner::readAnnotations)
                 .ifPresent(c -> store.put(METHOD_SQL_KEY, c));
+
+        // Class annotations are read from the test class, which may extend the class that
+        // declares the test method
+        final Class<?> testClass = context.getRequiredTestClass();
+        final Optional<QueryCounter> queryCounter = context.getTestMethod()
+                .flatMap(m -> QueryCounter.readAnnotations(testClass, m));
+        final Optional<SlowStatementLog> slowStatements = context.getTestMethod()
+                .flatMap(m -> SlowStatementLog.readAnnotations(testClass, m));
+        final Optional<SlowStatementLog> slowFixtureStatements = context.getTestMethod()
+                .flatMap(m -> SlowStatementLog.readFixtureAnnotations(testClass, m));
+        final Optional<QueryPlanCapture> queryPlans = context.getTestMethod()
+                .flatMap(m -> QueryPlanCapture.readAnnotations(testClass, m));
+        final Optional<DatabaseBudget> databaseBudget = context.getTestMethod()
+                .flatMap(m -> readDatabaseBudget(testClass, m))
+                .filter(b -> getBudgetBaselines(context).getMode() != BudgetBaselines.Mode.OFF);
+        final Optional<DatabaseTimer> databaseTimer = databaseBudget.map(b -> new DatabaseTimer());
+        final Optional<StatementWatchdog> watchdog = context.getTestMethod()
+                .flatMap(m -> StatementWatchdog.readAnnotations(testClass, m, getConnectionConfig(store)));
+        final Optional<TestTimings.ClassTiming> classTiming = get(store, CLASS_TIMING_KEY, TestTimings.ClassTiming.class);
+
+        queryCounter.ifPresent(c -> store.put(QUERY_COUNTER_KEY, c));
+        slowStatements.ifPresent(l -> store.put(SLOW_STATEMENTS_KEY, l));
+        slowFixtureStatements.ifPresent(l -> store.put(SLOW_FIXTURE_STATEMENTS_KEY, l));
+        queryPlans.ifPresent(p -> store.put(QUERY_PLANS_KEY, p));
+        databaseBudget.ifPresent(b -> store.put(DATABASE_BUDGET_KEY, b));
+        databaseTimer.ifPresent(t -> store.put(DATABASE_TIMER_KEY, t));
+        watchdog.ifPresent(w -> store.put(WATCHDOG_KEY, w));
+
+        JdbcRecording.readAnnotations(context).ifPresent(r -> store.put(RECORDING_KEY, r));
+
+        // Statements executed by the test are only recorded while the test method runs
+        final StatementListeners testListeners = new StatementListeners(
+                listeners(queryCounter, slowStatements, databaseTimer, queryPlans, watchdog, classTiming.map(t -> t.database)),
+                false);
+        final StatementListeners fixtureListeners = new StatementListeners(
+                listeners(slowFixtureStatements, watchdog, classTiming.map(t -> t.fixture)),
+                true);
+
+        store.put(TEST_LISTENERS_KEY, testListeners);
+        store.put(FIXTURE_LISTENERS_KEY, fixtureListeners);
+
+        getSharedConnections(context)
+                .ifPresent(c -> c.setListeners(testListeners, fixtureListeners));
+
+        watchdog.ifPresent(StatementWatchdog::start);
+    }
+
+    @Override
+    public void beforeTestExecution(final ExtensionContext context) {
+        final ExtensionContext.Store store = context.getStore(NAMESPACE);
+
+        get(store, TEST_LISTENERS_KEY, StatementListeners.class).ifPresent(l -> l.setEnabled(true));
+    }
+
+    @Override
+    public void afterTestExecution(final ExtensionContext context) {
+        final ExtensionContext.Store store = context.getStore(NAMESPACE);
+
+        get(store, TEST_LISTENERS_KEY, StatementListeners.class).ifPresent(l -> l.setEnabled(false));
+
+        get(store, SLOW_STATEMENTS_KEY, SlowStatementLog.class)
+                .ifPresent(l -> l.publish(context, "slowStatement"));
+        get(store, SLOW_FIXTURE_STATEMENTS_KEY, SlowStatementLog.class)
+                .ifPresent(l -> l.publish(context, "slowFixtureStatement"));
+        get(store, QUERY_PLANS_KEY, QueryPlanCapture.class)
+                .ifPresent(p -> p.publish(context));
+
+        // Only check the statements if the test did not already fail for some other reason
+        if (!context.getExecutionException().isPresent()) {
+            get(store, QUERY_COUNTER_KEY, QueryCounter.class).ifPresent(QueryCounter::verify);
+            get(store, QUERY_PLANS_KEY, QueryPlanCapture.class).ifPresent(QueryPlanCapture::verify);
+
+            final Optional<DatabaseBudget> databaseBudget = get(store, DATABASE_BUDGET_KEY, DatabaseBudget.class);
+            final Optional<DatabaseTimer> databaseTimer = get(store, DATABASE_TIMER_KEY, DatabaseTimer.class);
+
+            if (databaseBudget.isPresent() && databaseTimer.isPresent()) {
+                getBudgetBaselines(context).check(
+                        context,
+                        databaseBudget.get(),
+                        databaseTimer.get().getElapsedNanos());
+            }
+
+            get(store, RECORDING_KEY, JdbcRecording.class).ifPresent(JdbcRecording::finish);
+
+            verifyDataSets(context, store);
+        }
+    }
+
+    /**
+     * Check the {@link ExpectedDataSet} annotations, unless the test is replayed without a database.
+     */
+    private static void verifyDataSets(final ExtensionContext context, final ExtensionContext.Store store) {
+        if (get(store, RECORDING_KEY, JdbcRecording.class).filter(r -> r.getMode() == JdbcRecording.Mode.REPLAY).isPresent()) {
+            return;
+        }
+
+        try {
+            DataSetAssertions.verifyAnnotations(
+                    context.getRequiredTestClass(),
+                    context.getRequiredTestMethod(),
+                    name -> {
+                        final List<ManagedDatabaseConnection> connections = testConnections(context)
+                                .filter(c -> name.isEmpty() || c.name.equals(name))
+                                .collect(Collectors.toList());
+
+                        if (connections.size() != 1) {
+                            throw new AssertionFailedError(format(
+                                    "@ExpectedDataSet connection must be one of the test connections: connection=%s connections=%s",
+                                    name,
+                                    testConnections(context).map(c -> c.name).collect(joining(", "))));
+                        }
+
+                        // Shares the test transaction, but is not counted as test statements
+                        return connections.get(0).getFixtureConnection();
+                    });
+        } catch (final SQLException ex) {
+            throw new RuntimeException("Error checking expected data sets", ex);
+        }
+    }
+
+    /**
+     * Connections used by the current test.
+     */
+    private static Stream<ManagedDatabaseConnection> testConnections(final ExtensionContext context) {
+        final List<ManagedDatabaseConnection> connections = getList(context.getStore(NAMESPACE), CONNECTIONS_KEY);
+
+        return Stream.concat(
+                connections.stream(),
+                getSharedConnections(context)
+                        .map(c -> c.getUsed().stream())
+                        .orElseGet(Stream::empty));
+    }
+
+    /**
+     * Key of the connections shared by the tests of a class. The key includes the class, so the
+     * tests of a {@code @Nested} class do not find the connections of the enclosing class in the
+     * parent store.
+     */
+    private static String sharedConnectionsKey(final Class<?> testClass) {
+        return SHARED_CONNECTIONS_KEY + ":" + testClass.getName();
+    }
+
+    /**
+     * Connections shared by the tests of the class of a test or class context.
+     */
+    private static Optional<SharedConnections> getSharedConnections(final ExtensionContext context) {
+        return context.getTestClass().flatMap(c -> get(
+                context.getStore(NAMESPACE),
+                sharedConnectionsKey(c),
+                SharedConnections.class));
+    }
+
+    private static Optional<DatabaseBudget> readDatabaseBudget(final Class<?> testClass, final Method testMethod) {
+        final DatabaseBudget budget = testMethod.getAnnotation(DatabaseBudget.class);
+
+        return budget != null
+                ? Optional.of(budget)
+                : Optional.ofNullable(testClass.getAnnotation(DatabaseBudget.class));
+    }
+
+    /**
+     * Baselines are shared by all tests so each baseline file is read and written once.
+     */
+    private static BudgetBaselines getBudgetBaselines(final ExtensionContext context) {
+        return context.getRoot().getStore(NAMESPACE).getOrComputeIfAbsent(
+                BUDGET_BASELINES_KEY,
+                k -> BudgetBaselines.readSystemProperties(),
+                BudgetBaselines.class);
+    }
+
+    @SafeVarargs
+    private static List<StatementListener> listeners(final Optional<? extends StatementListener>... listeners) {
+        return Stream.of(listeners)
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .collect(Collectors.toList());
     }
 
     @Override
     public void afterEach(final ExtensionContext context) {
         final ExtensionContext.Store store = context.getStore(NAMESPACE);
+        final Optional<StatementWatchdog> watchdog = get(store, WATCHDOG_KEY, StatementWatchdog.class);
+
+        watchdog.ifPresent(StatementWatchdog::stop);
+
+        // Rolling back an aborted connection would only add a second error to the timeout
+        watchdog.ifPresent(w -> testConnections(context).forEach(c -> c.markAborted(w.getAbortedConnections())));
+
         final List<ManagedDatabaseConnection> connections = getList(store, CONNECTIONS_KEY);
+        final Optional<SharedConnections> sharedConnections = getSharedConnections(context);
+        final Optional<AssertionFailedError> leakError = checkOpenResources(context, testConnections(context));
+
         final List<ManagedDatabaseConnection> failedToClose = connections.stream()
                 .filter(c -> !c.close())
                 .collect(Collectors.toList());
 
+        if (context.getExecutionException().isPresent()) {
+            // The failed test may have left the shared transaction unusable
+            sharedConnections.ifPresent(c -> failedToClose.addAll(c.close()));
+        } else {
+            sharedConnections.ifPresent(c -> failedToClose.addAll(c.rollbackTest()));
+        }
+
+        final Optional<AssertionFailedError> timeoutError = watchdog.flatMap(StatementWatchdog::getTimeoutError);
+
+        if (timeoutError.isPresent()) {
+            failedToClose.forEach(c -> timeoutError.get().addSuppressed(c.closeError));
+            throw timeoutError.get();
+        }
+
+        if (leakError.isPresent()) {
+            failedToClose.forEach(c -> leakError.get().addSuppressed(c.closeError));
+            throw leakError.get();
+        }
+
+        throwCloseErrors(failedToClose);
+    }
+
+    /**
+     * Report the statements and result sets the test left open.
+     *
+     * @return Error to fail the test with, if leaks fail the test.
+     */
+    private static Optional<AssertionFailedError> checkOpenResources(
+            final ExtensionContext context,
+            final Stream<ManagedDatabaseConnection> connections
+    ) {
+        final LeakDetection.Mode mode = ResourceTracker.readMode(context);
+        final List<String> leakedConnections = new ArrayList<>();
+        final List<Throwable> leaks = new ArrayList<>();
+
+        connections.forEach(connection -> {
+            final List<Throwable> openResources = connection.takeOpenResources();
+
+            if (!openResources.isEmpty()) {
+                leakedConnections.add(connection.name);
+                leaks.addAll(openResources);
+            }
+        });
+
+        // A failed test is expected to leave statements open, and its own error is more useful
+        if (leaks.isEmpty() || mode == LeakDetection.Mode.OFF || context.getExecutionException().isPresent()) {
+            return Optional.empty();
+        }
+
+        if (mode == LeakDetection.Mode.WARN) {
+            for (int i = 0; i < leaks.size(); i += 1) {
+                context.publishReportEntry("resourceLeak." + (i + 1), ResourceTracker.describe(leaks.get(i)));
+            }
+
+            return Optional.empty();
+        }
+
+        final AssertionFailedError error = new AssertionFailedError(format(
+                "%d statements or result sets were not closed: connections=%s",
+                leaks.size(),
+                String.join(", ", leakedConnections)));
+
+        leaks.forEach(error::addSuppressed);
+
+        return Optional.of(error);
+    }
+
+    @Override
+    public void afterAll(final ExtensionContext context) {
+        final ExtensionContext.Store store = context.getStore(NAMESPACE);
+        final Optional<TestTimings.ClassTiming> classTiming = Optional.ofNullable(
+                store.remove(CLASS_TIMING_KEY, TestTimings.ClassTiming.class));
+
+        classTiming.ifPresent(t -> context.getRoot().getStore(NAMESPACE)
+                .getOrComputeIfAbsent(TEST_TIMINGS_KEY, k -> new TestTimings(TestTimings.historyFile()), TestTimings.class)
+                .add(
+                        context.getRequiredTestClass().getName(),
+                        System.nanoTime() - t.startNanos,
+                        t.database.getElapsedNanos(),
+                        t.fixture.getElapsedNanos()));
+
+        getSharedConnections(context)
+                .ifPresent(c -> throwCloseErrors(c.close()));
+    }
+
+    private static void throwCloseErrors(final List<ManagedDatabaseConnection> failedToClose) {
         if (failedToClose.size() > 0) {
             final AssertionFailedError error = new AssertionFailedError(format(
                     "Error rolling back and closing database connections: %s",
@@ -89,6 +414,8 @@ public class DatabaseTestExtension implements BeforeAllCallback, BeforeEachCallb
         final Class<?> parameterType = parameterContext.getParameter().getType();
 
         return Connection.class.isAssignableFrom(parameterType)
+                || parameterType == DataSource.class
+                || parameterType == LoadHarness.class
                 || adapters().anyMatch(a -> a.supportsParameter(parameterContext, extensionContext));
     }
 
@@ -100,12 +427,16 @@ public class DatabaseTestExtension implements BeforeAllCallback, BeforeEachCallb
         final Class<?> parameterType = parameterContext.getParameter().getType();
 
         if (Connection.class.isAssignableFrom(parameterType)) {
-            return getConnection(parameterContext, extensionContext).getConnection();
+            return getTestConnection(parameterContext, extensionContext).getConnection();
+        } else if (parameterType == DataSource.class) {
+            return PinnedDataSource.create(getPrimaryConnection(parameterContext, extensionContext).getConnection());
+        } else if (parameterType == LoadHarness.class) {
+            return getLoadHarness(parameterContext, extensionContext);
         } else {
             return adapters()
                     .filter(a -> a.supportsParameter(parameterContext, extensionContext))
                     .map(adapter -> adapter.resolveParameter(
-                            getConnection(parameterContext, extensionContext),
+                            getTestConnection(parameterContext, extensionContext),
                             parameterContext,
                             extensionContext))
                     .findFirst()
@@ -115,7 +446,64 @@ public class DatabaseTestExtension implements BeforeAllCallback, BeforeEachCallb
     }
 
     private static Stream<DatabaseConnectionAdapter> adapters() {
-        return StreamSupport.stream(ADAPTERS.spliterator(), false);
+        return ADAPTERS.stream();
+    }
+
+    /**
+     * Get the connection for a connection parameter.
+     *
+     * The first connection of a test is its primary connection, which is shared with the injected
+     * {@link DataSource}. If the data source is injected first, the first connection parameter
+     * resolved after it gets the same connection.
+     */
+    private ManagedDatabaseConnection getTestConnection(
+            final ParameterContext parameterContext,
+            final ExtensionContext extensionContext
+    ) throws ParameterResolutionException {
+        final ExtensionContext.Store store = extensionContext.getStore(NAMESPACE);
+        final String primaryKey = primaryConnectionKey(extensionContext);
+        final PrimaryConnection primary = store.get(primaryKey, PrimaryConnection.class);
+
+        if (primary != null && primary.claim()) {
+            return primary.connection;
+        }
+
+        final ManagedDatabaseConnection connection = getConnection(parameterContext, extensionContext);
+
+        if (primary == null) {
+            store.put(primaryKey, new PrimaryConnection(connection, true));
+        }
+
+        return connection;
+    }
+
+    /**
+     * Get the primary connection of the test, opening it if no connection is open yet.
+     */
+    private ManagedDatabaseConnection getPrimaryConnection(
+            final ParameterContext parameterContext,
+            final ExtensionContext extensionContext
+    ) throws ParameterResolutionException {
+        final ExtensionContext.Store store = extensionContext.getStore(NAMESPACE);
+        final String primaryKey = primaryConnectionKey(extensionContext);
+        final PrimaryConnection primary = store.get(primaryKey, PrimaryConnection.class);
+
+        if (primary != null) {
+            return primary.connection;
+        }
+
+        final ManagedDatabaseConnection connection = getConnection(parameterContext, extensionContext);
+        store.put(primaryKey, new PrimaryConnection(connection, false));
+
+        return connection;
+    }
+
+    /**
+     * Key of the primary connection, unique to the context so a test does not see the primary
+     * connection of its class in the parent store.
+     */
+    private static String primaryConnectionKey(final ExtensionContext extensionContext) {
+        return PRIMARY_CONNECTION_KEY + ":" + extensionContext.getUniqueId();
     }
 
     private ManagedDatabaseConnection getConnection(
@@ -125,16 +513,36 @@ public class DatabaseTestExtension implements BeforeAllCallback, BeforeEachCallb
         final ExtensionContext.Store store = extensionContext.getStore(NAMESPACE);
         final String connectionName = parameterContext.getParameter().getName();
         final DatabaseConnectionConfig connectionConfig = getConnectionConfig(store);
+        final Optional<ReadOnlyDatabaseTest> readOnly = readReadOnly(extensionContext);
+        final Optional<SharedConnections> sharedConnections = getSharedConnections(extensionContext)
+                .filter(c -> isSharedConnectionTest(extensionContext, store, c));
         ManagedDatabaseConnection connection = null;
 
         try {
-            connection = new ManagedDatabaseConnection(connectionName, connectionConfig);
-
             final Optional<SqlRunner> classSql = get(store, CLASS_SQL_KEY, SqlRunner.class);
             final Optional<SqlRunner> methodSql = get(store, METHOD_SQL_KEY, SqlRunner.class);
 
-            executeInitializeSql(connection, classSql, methodSql);
-            executeFinalizeSql(connection, classSql, methodSql);
+            if (sharedConnections.isPresent()) {
+                return getSharedConnection(
+                        extensionContext,
+                        sharedConnections.get(),
+                        connectionName,
+                        connectionConfig,
+                        readOnly,
+                        classSql,
+                        methodSql);
+            }
+
+            connection = new ManagedDatabaseConnection(
+                    connectionName,
+                    connectionConfig,
+                    get(store, TEST_LISTENERS_KEY, StatementListeners.class).flatMap(StatementListeners::asListener),
+                    get(store, FIXTURE_LISTENERS_KEY, StatementListeners.class).flatMap(StatementListeners::asListener),
+                    get(store, RECORDING_KEY, JdbcRecording.class),
+                    readOnly,
+                    resourceTracker(extensionContext, connectionName));
+
+            applyFixtures(extensionContext, connection, classSql, methodSql);
 
             addToList(store, CONNECTIONS_KEY, connection);
 
@@ -152,14 +560,244 @@ public class DatabaseTestExtension implements BeforeAllCallback, BeforeEachCallb
         }
     }
 
+    /**
+     * Open the connections of a {@link LoadHarness}.
+     *
+     * The connections are closed with the other connections of the test. They only report to the
+     * {@link DatabaseTimeout} watchdog and the harness, since the other listeners are not used
+     * concurrently.
+     */
+    private LoadHarness getLoadHarness(
+            final ParameterContext parameterContext,
+            final ExtensionContext extensionContext
+    ) throws ParameterResolutionException {
+        final ExtensionContext.Store store = extensionContext.getStore(NAMESPACE);
+        final String harnessName = parameterContext.getParameter().getName();
+        final DatabaseConnectionConfig connectionConfig = getConnectionConfig(store);
+        final Optional<LoadTest> methodSettings = extensionContext.getTestMethod().map(m -> m.getAnnotation(LoadTest.class));
+        final LoadTest settings = methodSettings.isPresent()
+                ? methodSettings.get()
+                : extensionContext.getTestClass()
+                        .map(c -> c.getAnnotation(LoadTest.class))
+                        .orElseGet(() -> DefaultLoadTest.class.getAnnotation(LoadTest.class));
+        final Map<Connection, LoadHarness.RunningStatements> connections = new LinkedHashMap<>();
+
+        if (get(store, RECORDING_KEY, JdbcRecording.class).isPresent()) {
+            throw new ParameterResolutionException("LoadHarness can not be used in a recorded test: " + harnessName);
+        }
+
+        for (int i = 1; i <= settings.connections(); i += 1) {
+            final String connectionName = harnessName + "-" + i;
+            final LoadHarness.RunningStatements running = new LoadHarness.RunningStatements();
+            final List<StatementListener> listeners = new ArrayList<>();
+
+            get(store, WATCHDOG_KEY, StatementListener.class).ifPresent(listeners::add);
+            listeners.add(running);
+
+            try {
+                final ManagedDatabaseConnection connection = new ManagedDatabaseConnection(
+                        connectionName,
+                        connectionConfig,
+                        new StatementListeners(listeners, true).asListener(),
+                        Optional.empty(),
+                        Optional.empty(),
+                        Optional.empty(),
+                        Optional.empty());
+
+                addToList(store, CONNECTIONS_KEY, connection);
+                connections.put(connection.getConnection(), running);
+            } catch (final SQLException ex) {
+                throw new ParameterResolutionException(
+                        format("Error establishing connection to database : name=%s %s",
+                                connectionName,
+                                connectionConfig),
+                        ex);
+            }
+        }
+
+        return new LoadHarness(
+                connections,
+                settings.iterations(),
+                TimeUnit.MILLISECONDS.toNanos(settings.durationMillis()),
+                TimeUnit.MILLISECONDS.toNanos(settings.iterationTimeoutMillis()),
+                extensionContext::publishReportEntry);
+    }
+
+    /**
+     * Get a connection shared by the tests in a class, applying the fixtures that are not
+     * applied yet.
+     */
+    private static ManagedDatabaseConnection getSharedConnection(
+            final ExtensionContext extensionContext,
+            final SharedConnections sharedConnections,
+            final String connectionName,
+            final DatabaseConnectionConfig connectionConfig,
+            final Optional<ReadOnlyDatabaseTest> readOnly,
+            final Optional<SqlRunner> classSql,
+            final Optional<SqlRunner> methodSql
+    ) throws SQLException {
+        SharedConnections.SharedConnection sharedConnection = sharedConnections.get(connectionName).orElse(null);
+
+        if (sharedConnection == null) {
+            // Only the class fixtures apply to a connection that outlives the test
+            final ExtensionContext classContext = extensionContext.getParent().orElse(extensionContext);
+            final ManagedDatabaseConnection connection = new ManagedDatabaseConnection(
+                    connectionName,
+                    connectionConfig,
+                    Optional.of(sharedConnections.getTestListener()),
+                    Optional.of(sharedConnections.getFixtureListener()),
+                    Optional.empty(),
+                    readOnly,
+                    resourceTracker(classContext, connectionName));
+
+            try {
+                final BiFunction<String, List<String>, List<String>> translator = translator(classContext, connection);
+
+                executeInitializeSql(connection, translator, fixtureProfile(classContext), classSql);
+
+                for (final DatabaseFixtureLoader loader : FIXTURE_LOADERS) {
+                    loader.load(classContext, connection, connection.getFixtureConnection());
+                }
+
+                if (sharedConnections.usesSavepoints()) {
+                    connection.pushSavepoint();
+                }
+            } catch (final SQLException | RuntimeException ex) {
+                connection.close();
+                throw ex;
+            }
+
+            sharedConnection = sharedConnections.put(connection);
+        }
+
+        final ManagedDatabaseConnection connection = sharedConnection.connection;
+        final Optional<String> fixtureKey = methodSql.map(SqlRunner::getFixtureKey);
+
+        sharedConnection.used = true;
+
+        if (!sharedConnection.fixtureKey.isPresent() || !sharedConnection.fixtureKey.equals(fixtureKey)) {
+            if (sharedConnection.fixtureKey.isPresent() && sharedConnections.usesSavepoints()) {
+                // Back to the class fixtures
+                connection.popSavepoint();
+            }
+
+            // Mark the fixtures unknown until they are applied, so a failure is not reused
+            sharedConnection.fixtureKey = Optional.empty();
+
+            final BiFunction<String, List<String>, List<String>> translator = translator(extensionContext, connection);
+
+            final Optional<FixtureProfile> profile = fixtureProfile(extensionContext);
+
+            executeInitializeSql(connection, translator, profile, methodSql);
+            executeFinalizeSql(connection, translator, profile, classSql, methodSql);
+
+            if (sharedConnections.usesSavepoints()) {
+                connection.pushSavepoint();
+            }
+
+            connection.enterReadOnly();
+            sharedConnection.fixtureKey = fixtureKey.isPresent() ? fixtureKey : Optional.of("");
+        }
+
+        return connection;
+    }
+
+    @SafeVarargs
+    private static void applyFixtures(
+            final ExtensionContext extensionContext,
+            final ManagedDatabaseConnection connection,
+            final Optional<SqlRunner>... runners
+    ) throws SQLException {
+        final BiFunction<String, List<String>, List<String>> translator = translator(extensionContext, connection);
+        final Optional<FixtureProfile> profile = fixtureProfile(extensionContext);
+
+        executeInitializeSql(connection, translator, profile, runners);
+
+        for (final DatabaseFixtureLoader loader : FIXTURE_LOADERS) {
+            loader.load(extensionContext, connection, connection.getFixtureConnection());
+        }
+
+        executeFinalizeSql(connection, translator, profile, runners);
+
+        connection.enterReadOnly();
+    }
+
+    /**
+     * Profile of the fixture statements, shared by every test in the run.
+     */
+    private static Optional<FixtureProfile> fixtureProfile(final ExtensionContext context) {
+        if (!FixtureProfile.isEnabled()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(context.getRoot().getStore(NAMESPACE).getOrComputeIfAbsent(
+                FIXTURE_PROFILE_KEY,
+                k -> FixtureProfile.readSystemProperties(),
+                FixtureProfile.class));
+    }
+
+    private static Optional<ResourceTracker> resourceTracker(final ExtensionContext context, final String connectionName) {
+        return ResourceTracker.readMode(context) == LeakDetection.Mode.OFF
+                ? Optional.empty()
+                : Optional.of(new ResourceTracker(connectionName));
+    }
+
+    private static Optional<ReadOnlyDatabaseTest> readReadOnly(final ExtensionContext context) {
+        final Optional<ReadOnlyDatabaseTest> methodReadOnly = context.getTestMethod()
+                .map(m -> m.getAnnotation(ReadOnlyDatabaseTest.class));
+
+        return methodReadOnly.isPresent()
+                ? methodReadOnly
+                : context.getTestClass().map(c -> c.getAnnotation(ReadOnlyDatabaseTest.class));
+    }
+
+    /**
+     * Check if a test in a {@link ReadOnlyDatabaseTest} class can use the shared connections.
+     */
+    private static boolean isSharedConnectionTest(
+            final ExtensionContext context,
+            final ExtensionContext.Store store,
+            final SharedConnections sharedConnections
+    ) {
+        return context.getTestMethod().isPresent()
+                && !context.getRequiredTestMethod().isAnnotationPresent(ReadOnlyDatabaseTest.class)
+                && get(store, METHOD_SQL_KEY, SqlRunner.class).map(sharedConnections::canShare).orElse(true)
+                && !get(store, RECORDING_KEY, JdbcRecording.class).isPresent();
+    }
+
+    private static BiFunction<String, List<String>, List<String>> translator(
+            final ExtensionContext extensionContext,
+            final ManagedDatabaseConnection connection
+    ) {
+        return (script, statements) -> {
+            List<String> result = statements;
+
+            for (final FixtureSqlTranslator translator : TRANSLATORS) {
+                result = translator.translate(extensionContext, connection, script, result);
+            }
+
+            return result;
+        };
+    }
+
+    private static <T> List<T> loadServices(final Class<T> serviceClass) {
+        final List<T> services = new ArrayList<>();
+
+        ServiceLoader.load(serviceClass).forEach(services::add);
+
+        return Collections.unmodifiableList(services);
+    }
+
     @SafeVarargs
     private static void executeInitializeSql(
             final ManagedDatabaseConnection connection,
+            final BiFunction<String, List<String>, List<String>> translator,
+            final Optional<FixtureProfile> profile,
             final Optional<SqlRunner>... runners
     ) throws SQLException {
         for (final Optional<SqlRunner> runner : runners) {
             if (runner.isPresent()) {
-                runner.get().executeInitializeSql(connection.getConnection());
+                runner.get().executeInitializeSql(connection.getFixtureConnection(), translator, profile);
             }
         }
     }
@@ -167,11 +805,13 @@ public class DatabaseTestExtension implements BeforeAllCallback, BeforeEachCallb
     @SafeVarargs
     private static void executeFinalizeSql(
             final ManagedDatabaseConnection connection,
+            final BiFunction<String, List<String>, List<String>> translator,
+            final Optional<FixtureProfile> profile,
             final Optional<SqlRunner>... runners
     ) throws SQLException {
         for (final Optional<SqlRunner> runner : runners) {
             if (runner.isPresent()) {
-                runner.get().executeFinalizeSql(connection.getConnection());
+                runner.get().executeFinalizeSql(connection.getFixtureConnection(), translator, profile);
             }
         }
     }
@@ -186,56 +826,46 @@ public class DatabaseTestExtension implements BeforeAllCallback, BeforeEachCallb
                 DatabaseConnectionConfig.class,
                 DatabaseConnectionConfig.getDefault());
 
-        return classConfig.merge(systemPropertyConfig);
-    }
-
-    private static class ManagedDatabaseConnection implements DatabaseTestConnection {
-        final String name;
-        final DatabaseConnectionConfig configuration;
-        final Connection connection;
-        final Savepoint savePoint;
-        SQLException closeError;
+        final DatabaseConnectionConfig embeddedConfig = store.get(
+                EMBEDDED_CONNECTION_CONFIG_KEY,
+                DatabaseConnectionConfig.class);
 
-        ManagedDatabaseConnection(
-                final String name,
-                final DatabaseConnectionConfig configuration
-        ) throws SQLException {
-            this.name = name;
-            this.configuration = configuration;
-            this.connection = configuration.createConnection();
-
-            connection.setAutoCommit(false);
-            this.savePoint = connection.setSavepoint("test" + UUID.randomUUID().toString().replace("-", ""));
-        }
-
-        @Override
-        public String getName() {
-            return name;
-        }
+        // The embedded database was created with its own driver and user, so the other settings
+        // do not apply to it
+        return embeddedConfig != null ? embeddedConfig : classConfig.merge(systemPropertyConfig);
+    }
 
-        @Override
-        public DatabaseConnectionConfig getConfig() {
-            return configuration;
-        }
+    /**
+     * First connection opened for a test or class.
+     */
+    private static final class PrimaryConnection {
+        final ManagedDatabaseConnection connection;
+        private boolean claimed;
 
-        @Override
-        public Connection getConnection() {
-            return connection;
+        PrimaryConnection(final ManagedDatabaseConnection connection, final boolean claimed) {
+            this.connection = connection;
+            this.claimed = claimed;
         }
 
-        boolean close() {
-            try {
-                try {
-                    connection.rollback(savePoint);
-                    connection.releaseSavepoint(savePoint);
-                } finally {
-                    connection.close();
-                }
-            } catch (final SQLException ex) {
-                this.closeError = ex;
+        /**
+         * Claim the connection for a connection parameter.
+         *
+         * @return False if a connection parameter already has the connection.
+         */
+        synchronized boolean claim() {
+            if (claimed) {
+                return false;
             }
 
-            return this.closeError == null;
+            claimed = true;
+            return true;
         }
     }
+
+    /**
+     * Holds the default {@link LoadTest} settings.
+     */
+    @LoadTest
+    private static final class DefaultLoadTest {
+    }
 }
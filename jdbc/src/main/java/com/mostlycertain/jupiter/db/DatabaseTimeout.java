@@ -0,0 +1,34 @@
+package com.mostlycertain.jupiter.db;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Limit the time a test can spend waiting on the database.
+ *
+ * When a limit is reached, a snapshot of the database locks is captured with a separate
+ * connection, then the running statements are cancelled. Connections that do not respond to the
+ * cancel are aborted. The test fails with the lock snapshot in the error message.
+ *
+ * The annotation on the test method takes precedence over the annotation on the test class,
+ * which takes precedence over the {@code jupiterdb.timeout.testMillis} and
+ * {@code jupiterdb.timeout.statementMillis} system properties.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+public @interface DatabaseTimeout {
+    /**
+     * Maximum time, in milliseconds, from the start of the test until it completes, including the
+     * fixture SQL. Zero for no limit.
+     */
+    long testMillis() default 0;
+
+    /**
+     * Maximum time, in milliseconds, for a single statement to execute. Zero for no limit.
+     */
+    long statementMillis() default 0;
+}
@@ -0,0 +1,37 @@
+package com.mostlycertain.jupiter.db;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the total time spent executing statements and reading result sets.
+ */
+final class DatabaseTimer implements StatementListener {
+    private static final int COMPACT_SIZE = 256;
+
+    private final List<StatementExecution> pending = new ArrayList<>();
+    private long completedNanos;
+
+    @Override
+    public synchronized void statementExecuted(final StatementExecution execution) {
+        pending.add(execution);
+
+        if (pending.size() >= COMPACT_SIZE) {
+            pending.removeIf(e -> {
+                if (e.isComplete()) {
+                    completedNanos += e.getElapsedNanos();
+                    return true;
+                }
+
+                return false;
+            });
+        }
+    }
+
+    /**
+     * Total time spent in the database so far.
+     */
+    synchronized long getElapsedNanos() {
+        return completedNanos + pending.stream().mapToLong(StatementExecution::getElapsedNanos).sum();
+    }
+}
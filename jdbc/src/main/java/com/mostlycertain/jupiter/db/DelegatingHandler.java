@@ -0,0 +1,36 @@
+package com.mostlycertain.jupiter.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Proxy handler that passes calls through to a delegate object.
+ */
+abstract class DelegatingHandler implements InvocationHandler {
+    private final Object delegate;
+
+    DelegatingHandler(final Object delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return invokeDelegate(method, args);
+        }
+    }
+
+    final Object invokeDelegate(final Method method, final Object[] args) throws Throwable {
+        try {
+            return method.invoke(delegate, args);
+        } catch (final InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+}
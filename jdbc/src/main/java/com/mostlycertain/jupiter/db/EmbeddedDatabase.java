@@ -0,0 +1,34 @@
+package com.mostlycertain.jupiter.db;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Run the tests against an in-memory database when no connection url is configured.
+ *
+ * An H2 database is used if H2 is on the classpath, otherwise HSQLDB. The database is created the
+ * first time it is needed and the {@link #schema() schema} is applied once. Every test class with
+ * the same schema shares the database for the rest of the JVM, and each test still runs in a
+ * transaction that is rolled back.
+ *
+ * The driver, user, password and properties of the embedded database are used as they are. Other
+ * connection settings of the test class or system properties, without a url, do not apply to it.
+ *
+ * Setting the {@code jupiterdb.database.embedded} system property to {@code true} enables the
+ * embedded database for tests without this annotation. Setting it to {@code false} disables it.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+public @interface EmbeddedDatabase {
+    /**
+     * Names of resources containing the schema SQL.
+     *
+     * The resource names are relative to the test class. Each resource can contain multiple
+     * statements, separated by semicolons.
+     */
+    String[] schema() default {};
+}
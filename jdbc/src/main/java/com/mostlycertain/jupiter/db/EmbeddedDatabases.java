@@ -0,0 +1,114 @@
+package com.mostlycertain.jupiter.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.mostlycertain.jupiter.db.ResourceUtil.loadTextResource;
+import static java.lang.String.format;
+
+/**
+ * In-memory databases started for {@link EmbeddedDatabase}.
+ *
+ * A database is started for each distinct schema and kept open until the JVM exits, so the
+ * schema is only applied once per test worker.
+ */
+final class EmbeddedDatabases {
+    private static final String SYSTEM_PROPERTY = "jupiterdb.database.embedded";
+
+    private static final ConcurrentMap<String, DatabaseConnectionConfig> DATABASES = new ConcurrentHashMap<>();
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    private EmbeddedDatabases() {
+        // Private so instances can not be created
+    }
+
+    /**
+     * Get the embedded database configuration for a test class.
+     *
+     * @param testClass Test class.
+     * @return Configuration of the started database or {@link Optional#empty() empty} if the
+     * embedded database is not enabled.
+     */
+    static Optional<DatabaseConnectionConfig> readAnnotations(final Class<?> testClass) {
+        final EmbeddedDatabase annotation = testClass.getAnnotation(EmbeddedDatabase.class);
+        final String enabled = System.getProperty(SYSTEM_PROPERTY, "").trim();
+
+        if (enabled.equalsIgnoreCase("false") || (annotation == null && !enabled.equalsIgnoreCase("true"))) {
+            return Optional.empty();
+        }
+
+        final List<String> schema = annotation == null ? Collections.emptyList() : Arrays.asList(annotation.schema());
+        final StringBuilder key = new StringBuilder();
+
+        for (final String resourceName : schema) {
+            // Resolve the name so the same resource referenced from different packages shares a database
+            key.append(Optional.ofNullable(testClass.getResource(resourceName))
+                    .map(Object::toString)
+                    .orElse(resourceName)).append('\n');
+        }
+
+        return Optional.of(DATABASES.computeIfAbsent(key.toString(), k -> start(testClass, schema)));
+    }
+
+    private static DatabaseConnectionConfig start(final Class<?> testClass, final List<String> schema) {
+        final DatabaseConnectionConfig config = createConfig("jupiterdb_" + NEXT_ID.incrementAndGet());
+
+        try (final Connection connection = config.createConnection();
+             final Statement statement = connection.createStatement()) {
+            for (final String resourceName : schema) {
+                final String sql = loadTextResource(testClass, resourceName)
+                        .orElseThrow(() -> new RuntimeException(format(
+                                "@EmbeddedDatabase resource not found: resource=%s test=%s",
+                                resourceName,
+                                testClass.getName())));
+
+                for (final String sqlStatement : SqlRunner.splitStatements(sql)) {
+                    statement.execute(sqlStatement);
+                }
+            }
+
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+        } catch (final SQLException ex) {
+            throw new RuntimeException(format("Error creating embedded database: test=%s %s", testClass.getName(), config), ex);
+        }
+
+        return config;
+    }
+
+    private static DatabaseConnectionConfig createConfig(final String name) {
+        if (isAvailable("org.h2.Driver")) {
+            // Keep the database open when the last connection closes
+            return DatabaseConnectionConfig.builder()
+                    .url("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1")
+                    .driver("org.h2.Driver")
+                    .build();
+        } else if (isAvailable("org.hsqldb.jdbc.JDBCDriver")) {
+            return DatabaseConnectionConfig.builder()
+                    .url("jdbc:hsqldb:mem:" + name)
+                    .user("SA")
+                    .driver("org.hsqldb.jdbc.JDBCDriver")
+                    .build();
+        }
+
+        throw new IllegalStateException("@EmbeddedDatabase requires H2 (com.h2database:h2) or HSQLDB (org.hsqldb:hsqldb) on the classpath");
+    }
+
+    private static boolean isAvailable(final String className) {
+        try {
+            Class.forName(className, false, Thread.currentThread().getContextClassLoader());
+            return true;
+        } catch (final ClassNotFoundException ex) {
+            return false;
+        }
+    }
+}
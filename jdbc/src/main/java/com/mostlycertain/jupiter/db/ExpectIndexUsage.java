@@ -0,0 +1,27 @@
+package com.mostlycertain.jupiter.db;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fail the test if a statement executed by the test reads a table with a full table scan.
+ *
+ * This enables {@link CaptureQueryPlans query plan capture} and checks the plans once the test
+ * completes.
+ *
+ * The annotation on the test method takes precedence over the annotation on the test class.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+public @interface ExpectIndexUsage {
+    /**
+     * Names of the tables that must not be scanned, not qualified with the schema name.
+     *
+     * If no tables are given, a full scan of any table fails the test.
+     */
+    String[] tables() default {};
+}
@@ -0,0 +1,40 @@
+package com.mostlycertain.jupiter.db;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Contents a table must have after a test.
+ *
+ * The expected rows are read from a CSV file with a header row of column names. Only the columns
+ * in the header are compared and the order of the rows does not matter. An empty field is
+ * {@code NULL} and a quoted empty field ({@code ""}) is an empty string.
+ *
+ * The table is checked after the test method returns, before the changes are rolled back. See
+ * {@link DataSetAssertions#assertTableEquals(java.sql.Connection, String, String)}.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Repeatable(ExpectedDataSets.class)
+public @interface ExpectedDataSet {
+    /**
+     * Name of the resource file with the expected rows.
+     *
+     * The resource name can be relative to the test class the annotation is attached to.
+     */
+    String value();
+
+    /**
+     * Table to check. Defaults to the resource file name without the extension.
+     */
+    String table() default "";
+
+    /**
+     * Name of the connection parameter to check the table with. Can be omitted if the test
+     * has only one connection.
+     */
+    String connection() default "";
+}
@@ -0,0 +1,181 @@
+package com.mostlycertain.jupiter.db;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import static com.mostlycertain.jupiter.db.ResourceUtil.loadTextResource;
+
+/**
+ * Index of the {@link InitializeSql} and {@link FinalizeSql} scripts of test classes, written at
+ * compile time by the {@code jupiter-db-processor} annotation processor in the
+ * {@link FixtureIndexFormat format} it shares with the extension.
+ *
+ * The index has the scripts already read and split into statements, so
+ * {@link SqlRunner#readAnnotations(Class)} does not need to read the annotations or the resources
+ * or split the scripts. An element that is not in the index, such as a method without fixtures,
+ * has its annotations read at runtime.
+ *
+ * Resources can change without the test classes being compiled again. The
+ * {@code jupiterdb.fixtureIndex} system property selects how the index is used: {@code verify}
+ * (default) uses an entry only if its resources have the same text as when it was indexed, which
+ * reads each resource once per run, {@code trust} uses the entries without checking the resources
+ * and {@code off} ignores the index. An index that can not be read is ignored.
+ */
+final class FixtureIndex {
+    private static final Logger LOGGER = Logger.getLogger(FixtureIndex.class.getName());
+
+    private FixtureIndex() {
+        // Private so instances can not be created
+    }
+
+    /**
+     * Find the indexed fixtures of a test class or method.
+     *
+     * @param testClass Class the element is declared in, that resource names are relative to.
+     * @param element   Test class or method.
+     * @return Fixtures or {@link Optional#empty() empty} if the element is not indexed or the
+     *         entry is out of date.
+     */
+    static Optional<Element> find(final Class<?> testClass, final AnnotatedElement element) {
+        final Map<String, Element> classEntries = Holder.INDEX.get(testClass.getName());
+
+        if (classEntries == null) {
+            return Optional.empty();
+        }
+
+        final Element entry = classEntries.get(elementKey(element));
+
+        return entry == null || Holder.VERIFY && !entry.isCurrent(testClass)
+                ? Optional.empty()
+                : Optional.of(entry);
+    }
+
+    /**
+     * Key of an element in the index.
+     */
+    static String elementKey(final AnnotatedElement element) {
+        return element instanceof Method
+                ? FixtureIndexFormat.methodKey((Method) element)
+                : FixtureIndexFormat.CLASS_KEY;
+    }
+
+    /**
+     * Load the indexes on the class path. An index that can not be read is skipped, so the
+     * annotations of its classes are read when the tests run.
+     */
+    private static Map<String, Map<String, Element>> load() {
+        final Map<String, Map<String, Element>> index = new HashMap<>();
+        final Enumeration<URL> resources;
+
+        try {
+            resources = Thread.currentThread().getContextClassLoader().getResources(FixtureIndexFormat.RESOURCE_NAME);
+        } catch (final IOException ex) {
+            LOGGER.log(Level.WARNING, "Error finding fixture indexes, annotations are read at runtime", ex);
+            return index;
+        }
+
+        while (resources.hasMoreElements()) {
+            final URL resource = resources.nextElement();
+
+            try (final InputStream stream = resource.openStream();
+                 final DataInputStream input = new DataInputStream(new BufferedInputStream(stream))) {
+                FixtureIndexFormat.read(input).forEach((className, entries) -> index.put(
+                        className,
+                        entries.entrySet().stream().collect(Collectors.toMap(
+                                Map.Entry::getKey,
+                                e -> new Element(e.getValue())))));
+            } catch (final IOException | RuntimeException ex) {
+                LOGGER.log(Level.WARNING, "Error reading fixture index, annotations are read at runtime: " + resource, ex);
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * Loads the index the first time it is used.
+     */
+    private static final class Holder {
+        private static final String MODE = System.getProperty("jupiterdb.fixtureIndex", "verify").trim().toLowerCase(Locale.ROOT);
+        static final boolean VERIFY = !MODE.equals("trust");
+        static final Map<String, Map<String, Element>> INDEX = MODE.equals("off") ? Collections.emptyMap() : load();
+    }
+
+    /**
+     * Indexed fixtures of a test class or method.
+     */
+    static final class Element {
+        final List<Script> initializeSql;
+        final List<Script> finalizeSql;
+
+        Element(final FixtureIndexFormat.Entry entry) {
+            this.initializeSql = entry.getInitializeSql().stream().map(Script::new).collect(Collectors.toList());
+            this.finalizeSql = entry.getFinalizeSql().stream().map(Script::new).collect(Collectors.toList());
+        }
+
+        /**
+         * Check if the resources still have the text that was indexed.
+         */
+        private boolean isCurrent(final Class<?> testClass) {
+            final List<Script> scripts = new ArrayList<>(initializeSql);
+            scripts.addAll(finalizeSql);
+
+            return scripts.stream()
+                    .filter(s -> s.indexed.isResource())
+                    .allMatch(s -> s.isCurrent(testClass));
+        }
+    }
+
+    /**
+     * Indexed script.
+     */
+    static final class Script {
+        private final FixtureIndexFormat.Script indexed;
+        private final SqlScript sqlScript;
+        private Boolean current;
+
+        Script(final FixtureIndexFormat.Script indexed) {
+            this.indexed = indexed;
+            this.sqlScript = new SqlScript(indexed.getName(), indexed.getSql(), indexed.getStatements());
+        }
+
+        /**
+         * Script to execute, with the statements that were split when it was indexed.
+         */
+        SqlScript toSqlScript() {
+            return sqlScript;
+        }
+
+        /**
+         * Check if the resource still has the text that was indexed, reading it the first time.
+         */
+        private synchronized boolean isCurrent(final Class<?> testClass) {
+            if (current == null) {
+                current = loadTextResource(testClass, indexed.getName()).map(indexed.getSql()::equals).orElse(false);
+            }
+
+            return current;
+        }
+
+        @Override
+        public String toString() {
+            return indexed.toString();
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.mostlycertain.jupiter.db;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static java.lang.String.format;
+
+/**
+ * Binary format of the fixture index, written at compile time by the {@code jupiter-db-processor}
+ * annotation processor and read by the extension when the tests run.
+ *
+ * The processor and the extension share this class so they agree on the format and on the keys of
+ * test methods. It is not meant to be used by tests.
+ */
+public final class FixtureIndexFormat {
+    /**
+     * Name of the index resource in the test classes.
+     */
+    public static final String RESOURCE_NAME = "META-INF/jupiter-db/fixture-index.bin";
+
+    /**
+     * Key of the fixtures of the test class itself.
+     */
+    public static final String CLASS_KEY = "";
+
+    private static final int MAGIC = 0x4A444249;
+    private static final int VERSION = 3;
+
+    private FixtureIndexFormat() {
+        // Private so instances can not be created
+    }
+
+    /**
+     * Key of a test method.
+     *
+     * @param methodName     Name of the method.
+     * @param parameterTypes Names of the erased parameter types, as returned by
+     *                       {@link #typeName(Class)}.
+     * @return Method key.
+     */
+    public static String methodKey(final String methodName, final List<String> parameterTypes) {
+        return methodName + "(" + String.join(",", parameterTypes) + ")";
+    }
+
+    /**
+     * Key of a test method.
+     *
+     * @param method Test method.
+     * @return Method key.
+     */
+    public static String methodKey(final Method method) {
+        return methodKey(method.getName(), Arrays.stream(method.getParameterTypes())
+                .map(FixtureIndexFormat::typeName)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Name of a parameter type in a method key: the binary name of the type, such as
+     * {@code java.util.Map$Entry} or {@code int}, followed by {@code []} for each array dimension.
+     * A variable arity parameter is an array.
+     *
+     * @param type Parameter type.
+     * @return Type name.
+     */
+    public static String typeName(final Class<?> type) {
+        return type.isArray() ? arrayTypeName(typeName(type.getComponentType())) : type.getName();
+    }
+
+    /**
+     * Name of an array type in a method key.
+     *
+     * @param componentTypeName Name of the component type.
+     * @return Type name.
+     */
+    public static String arrayTypeName(final String componentTypeName) {
+        return componentTypeName + "[]";
+    }
+
+    /**
+     * Write an index.
+     *
+     * @param output Stream to write to.
+     * @param index  Entries by element key ({@link #CLASS_KEY} or a {@link #methodKey method key}),
+     *               by binary class name.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void write(final DataOutputStream output, final Map<String, Map<String, Entry>> index) throws IOException {
+        final Map<String, Integer> strings = new LinkedHashMap<>();
+
+        // Scripts and statements shared by several tests are only written once
+        for (final Map.Entry<String, Map<String, Entry>> classEntry : index.entrySet()) {
+            strings.putIfAbsent(classEntry.getKey(), strings.size());
+
+            for (final Map.Entry<String, Entry> element : classEntry.getValue().entrySet()) {
+                strings.putIfAbsent(element.getKey(), strings.size());
+
+                for (final Script script : element.getValue().scripts()) {
+                    strings.putIfAbsent(script.name, strings.size());
+                    strings.putIfAbsent(script.sql, strings.size());
+                    script.statements.forEach(s -> strings.putIfAbsent(s, strings.size()));
+                }
+            }
+        }
+
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(strings.size());
+
+        for (final String string : strings.keySet()) {
+            final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+
+        output.writeInt(index.size());
+
+        for (final Map.Entry<String, Map<String, Entry>> classEntry : index.entrySet()) {
+            output.writeInt(strings.get(classEntry.getKey()));
+            output.writeInt(classEntry.getValue().size());
+
+            for (final Map.Entry<String, Entry> element : classEntry.getValue().entrySet()) {
+                output.writeInt(strings.get(element.getKey()));
+                writeScripts(output, strings, element.getValue().initializeSql);
+                writeScripts(output, strings, element.getValue().finalizeSql);
+            }
+        }
+    }
+
+    private static void writeScripts(
+            final DataOutputStream output,
+            final Map<String, Integer> strings,
+            final List<Script> scripts
+    ) throws IOException {
+        output.writeInt(scripts.size());
+
+        for (final Script script : scripts) {
+            output.writeBoolean(script.resource);
+            output.writeInt(strings.get(script.name));
+            output.writeInt(strings.get(script.sql));
+            output.writeInt(script.statements.size());
+
+            for (final String statement : script.statements) {
+                output.writeInt(strings.get(statement));
+            }
+        }
+    }
+
+    /**
+     * Read an index.
+     *
+     * @param input Stream to read from.
+     * @return Entries by element key, by binary class name.
+     * @throws IOException If an I/O error occurs or the index is not valid.
+     */
+    public static Map<String, Map<String, Entry>> read(final DataInputStream input) throws IOException {
+        final int magic = input.readInt();
+        final int version = input.readInt();
+
+        if (magic != MAGIC || version != VERSION) {
+            throw new IOException(format("Unsupported fixture index format: version=%d", version));
+        }
+
+        final String[] strings = new String[input.readInt()];
+
+        for (int i = 0; i < strings.length; i += 1) {
+            final byte[] bytes = new byte[input.readInt()];
+
+            input.readFully(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        final int classCount = input.readInt();
+        final Map<String, Map<String, Entry>> index = new HashMap<>(classCount * 2);
+
+        for (int i = 0; i < classCount; i += 1) {
+            final String className = strings[input.readInt()];
+            final int elementCount = input.readInt();
+            final Map<String, Entry> elements = new HashMap<>(elementCount * 2);
+
+            for (int j = 0; j < elementCount; j += 1) {
+                final String elementKey = strings[input.readInt()];
+
+                elements.put(elementKey, new Entry(readScripts(input, strings), readScripts(input, strings)));
+            }
+
+            index.put(className, elements);
+        }
+
+        return index;
+    }
+
+    private static List<Script> readScripts(final DataInputStream input, final String[] strings) throws IOException {
+        final int count = input.readInt();
+        final List<Script> scripts = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i += 1) {
+            final boolean resource = input.readBoolean();
+            final String name = strings[input.readInt()];
+            final String sql = strings[input.readInt()];
+            final String[] statements = new String[input.readInt()];
+
+            for (int j = 0; j < statements.length; j += 1) {
+                statements[j] = strings[input.readInt()];
+            }
+
+            scripts.add(new Script(resource, name, sql, Arrays.asList(statements)));
+        }
+
+        return scripts;
+    }
+
+    /**
+     * Fixtures of a test class or method.
+     */
+    public static final class Entry {
+        private final List<Script> initializeSql;
+        private final List<Script> finalizeSql;
+
+        /**
+         * @param initializeSql {@link InitializeSql} scripts, in the order they are executed.
+         * @param finalizeSql   {@link FinalizeSql} scripts, in the order they are executed.
+         */
+        public Entry(final List<Script> initializeSql, final List<Script> finalizeSql) {
+            this.initializeSql = Collections.unmodifiableList(initializeSql);
+            this.finalizeSql = Collections.unmodifiableList(finalizeSql);
+        }
+
+        public List<Script> getInitializeSql() {
+            return initializeSql;
+        }
+
+        public List<Script> getFinalizeSql() {
+            return finalizeSql;
+        }
+
+        private List<Script> scripts() {
+            final List<Script> scripts = new ArrayList<>(initializeSql);
+            scripts.addAll(finalizeSql);
+            return scripts;
+        }
+    }
+
+    /**
+     * Script of a fixture, split into statements.
+     */
+    public static final class Script {
+        private final boolean resource;
+        private final String name;
+        private final String sql;
+        private final List<String> statements;
+
+        /**
+         * @param resource   True if the script was read from a resource.
+         * @param name       Resource name or description of where inline SQL was declared.
+         * @param sql        Script text.
+         * @param statements Statements of the script, as split by
+         *                   {@link SqlRunner#splitStatements(String)}.
+         */
+        public Script(final boolean resource, final String name, final String sql, final List<String> statements) {
+            this.resource = resource;
+            this.name = name;
+            this.sql = sql;
+            this.statements = Collections.unmodifiableList(statements);
+        }
+
+        public boolean isResource() {
+            return resource;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public List<String> getStatements() {
+            return statements;
+        }
+
+        @Override
+        public String toString() {
+            return format("%s (%d statements)", name, statements.size());
+        }
+    }
+}
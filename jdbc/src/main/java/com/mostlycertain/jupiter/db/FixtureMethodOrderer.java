@@ -0,0 +1,35 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.MethodDescriptor;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.MethodOrdererContext;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Orders tests so that tests with the same method {@link InitializeSql} and {@link FinalizeSql}
+ * run one after the other.
+ *
+ * Groups run in the order of their first test in the default order, and tests keep the default
+ * order within a group. Used by {@link SharedFixtures}, but can also be set with
+ * {@link org.junit.jupiter.api.TestMethodOrder}.
+ */
+public class FixtureMethodOrderer implements MethodOrderer {
+    @Override
+    public void orderMethods(final MethodOrdererContext context) {
+        final Map<String, Integer> groups = new HashMap<>();
+        final Map<MethodDescriptor, Integer> methodGroups = new HashMap<>();
+
+        for (final MethodDescriptor method : context.getMethodDescriptors()) {
+            final String fixtureKey = SqlRunner.readAnnotations(method.getMethod()).getFixtureKey();
+            final Integer group = groups.computeIfAbsent(fixtureKey, k -> groups.size());
+
+            methodGroups.put(method, group);
+        }
+
+        // The sort is stable, so the default order is kept within a group
+        context.getMethodDescriptors().sort(Comparator.comparing(methodGroups::get));
+    }
+}
@@ -0,0 +1,253 @@
+package com.mostlycertain.jupiter.db;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import static java.lang.String.format;
+
+/**
+ * Executes fixture statements in batches, so a script costs one round trip per batch instead of
+ * one per statement.
+ *
+ * Statements are sent with {@link Statement#executeBatch()}, which drivers send to the database
+ * together. Statements that may return results, such as {@code SELECT}, {@code CALL} or
+ * {@code INSERT ... RETURNING}, can not be batched. The pending batch is sent before them and they
+ * are executed on their own. Statements run in the same order as without batching, and the batch
+ * is sent at the end of each script.
+ *
+ * Enable with the {@code jupiterdb.fixturePipeline} system property, set to the maximum number of
+ * statements sent in one batch.
+ */
+final class FixturePipeline {
+    private static final int MAX_SQL_LENGTH = 200;
+
+    /**
+     * First keywords of statements that may return a result set.
+     */
+    private static final Set<String> QUERY_KEYWORDS = new HashSet<>(Arrays.asList(
+            "CALL",
+            "DESC",
+            "DESCRIBE",
+            "DO",
+            "EXEC",
+            "EXECUTE",
+            "EXPLAIN",
+            "PRAGMA",
+            "SELECT",
+            "SHOW",
+            "TABLE",
+            "VALUES",
+            "WITH"));
+
+    /**
+     * Keywords that make a data change statement return a result set.
+     */
+    private static final Set<String> RESULT_CLAUSE_KEYWORDS = new HashSet<>(Arrays.asList(
+            // Postgres, Oracle, H2 and others
+            "RETURNING",
+            // SQL Server
+            "OUTPUT"));
+
+    private FixturePipeline() {
+        // Private so instances can not be created
+    }
+
+    /**
+     * Maximum number of statements to send in one batch on a connection.
+     *
+     * @param connection Connection the fixtures are executed on.
+     * @return Batch size, or zero if the statements should be executed one at a time.
+     */
+    static int batchSize(final Connection connection) {
+        final int batchSize = Integer.getInteger("jupiterdb.fixturePipeline", 0);
+
+        if (batchSize <= 1) {
+            return 0;
+        }
+
+        try {
+            return connection.getMetaData().supportsBatchUpdates() ? batchSize : 0;
+        } catch (final SQLException ex) {
+            // For example a connection replaying a recording
+            return 0;
+        }
+    }
+
+    /**
+     * Execute the statements of a script.
+     *
+     * @param statement  Statement to execute the SQL with.
+     * @param script     Script the statements came from.
+     * @param statements Statements to execute.
+     * @param batchSize  Maximum number of statements in a batch.
+     * @throws SQLException If a statement fails. The message names the script and line of the
+     *                      statement that failed.
+     */
+    static void execute(
+            final Statement statement,
+            final SqlScript script,
+            final List<String> statements,
+            final int batchSize
+    ) throws SQLException {
+        int batchStart = 0;
+
+        for (int i = 0; i < statements.size(); i += 1) {
+            final String sql = statements.get(i);
+
+            if (mayReturnResults(sql)) {
+                executeBatch(statement, script, statements, batchStart, i);
+
+                try {
+                    statement.execute(sql);
+                } catch (final SQLException ex) {
+                    throw statementError(script, statements, i, ex);
+                }
+
+                batchStart = i + 1;
+            } else {
+                statement.addBatch(sql);
+
+                if (i + 1 - batchStart >= batchSize) {
+                    executeBatch(statement, script, statements, batchStart, i + 1);
+                    batchStart = i + 1;
+                }
+            }
+        }
+
+        executeBatch(statement, script, statements, batchStart, statements.size());
+    }
+
+    private static void executeBatch(
+            final Statement statement,
+            final SqlScript script,
+            final List<String> statements,
+            final int start,
+            final int end
+    ) throws SQLException {
+        if (start >= end) {
+            return;
+        }
+
+        try {
+            statement.executeBatch();
+        } catch (final BatchUpdateException ex) {
+            statement.clearBatch();
+            throw statementError(script, statements, start + failedIndex(ex.getUpdateCounts(), end - start), ex);
+        } catch (final SQLException ex) {
+            statement.clearBatch();
+            throw new SQLException(
+                    format("Fixture batch failed: %s statements %d to %d", script.getName(), start + 1, end),
+                    ex.getSQLState(),
+                    ex.getErrorCode(),
+                    ex);
+        }
+    }
+
+    /**
+     * Find the statement of a batch that failed.
+     *
+     * Drivers either stop at the first failure and return the counts of the statements before it,
+     * or continue and mark each failed statement.
+     */
+    static int failedIndex(final int[] updateCounts, final int batchLength) {
+        if (updateCounts == null) {
+            return 0;
+        }
+
+        for (int i = 0; i < updateCounts.length; i += 1) {
+            if (updateCounts[i] == Statement.EXECUTE_FAILED) {
+                return i;
+            }
+        }
+
+        return Math.min(updateCounts.length, batchLength - 1);
+    }
+
+    private static SQLException statementError(
+            final SqlScript script,
+            final List<String> statements,
+            final int index,
+            final SQLException cause
+    ) {
+        final String sql = statements.get(index).trim();
+
+        return new SQLException(
+                format(
+                        "Fixture statement failed: %s: %s",
+                        script.getStatementSource(statements, index),
+                        sql.length() > MAX_SQL_LENGTH ? sql.substring(0, MAX_SQL_LENGTH) + "..." : sql),
+                cause.getSQLState(),
+                cause.getErrorCode(),
+                cause);
+    }
+
+    /**
+     * Check if a statement may return a result set, by its first keyword or a clause such as
+     * {@code RETURNING}.
+     *
+     * Columns or tables named like a result clause keyword make a statement unbatched too, which
+     * costs a round trip but does not change the result.
+     */
+    static boolean mayReturnResults(final String sql) {
+        int index = SqlRunner.statementOffset(sql, 0, sql.length());
+        final int start = index;
+
+        while (index < sql.length() && Character.isLetter(sql.charAt(index))) {
+            index += 1;
+        }
+
+        // Statements that do not start with a keyword, such as "(SELECT ...)", are not batched
+        return start == index
+                || QUERY_KEYWORDS.contains(sql.substring(start, index).toUpperCase(Locale.ROOT))
+                || hasResultClause(sql, index);
+    }
+
+    private static boolean hasResultClause(final String sql, final int startIndex) {
+        int index = startIndex;
+
+        while (index < sql.length()) {
+            final char c = sql.charAt(index);
+
+            if (c == '\'' || c == '"' || c == '`') {
+                final int quoteEnd = sql.indexOf(c, index + 1);
+                index = quoteEnd < 0 ? sql.length() : quoteEnd + 1;
+            } else if (sql.startsWith("--", index)) {
+                final int lineEnd = sql.indexOf('\n', index);
+                index = lineEnd < 0 ? sql.length() : lineEnd + 1;
+            } else if (sql.startsWith("/*", index)) {
+                final int commentEnd = sql.indexOf("*/", index + 2);
+                index = commentEnd < 0 ? sql.length() : commentEnd + 2;
+            } else if (Character.isLetter(c)) {
+                final int wordStart = index;
+
+                while (index < sql.length() && isWordChar(sql.charAt(index))) {
+                    index += 1;
+                }
+
+                if (RESULT_CLAUSE_KEYWORDS.contains(sql.substring(wordStart, index).toUpperCase(Locale.ROOT))) {
+                    return true;
+                }
+            } else if (isWordChar(c)) {
+                // Rest of a word that starts with a digit or underscore, such as "_output"
+                while (index < sql.length() && isWordChar(sql.charAt(index))) {
+                    index += 1;
+                }
+            } else {
+                index += 1;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean isWordChar(final char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+}
@@ -0,0 +1,143 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.io.PrintStream;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static java.lang.String.format;
+
+/**
+ * Time spent executing each fixture statement, by the resource and line the statement came from.
+ *
+ * The profile is collected for the whole test run and the statements that took the most time in
+ * total are printed when the run ends. Enable with the {@code jupiterdb.fixtureProfile} system
+ * property. The number of statements printed is set by {@code jupiterdb.fixtureProfile.top}.
+ */
+final class FixtureProfile implements ExtensionContext.Store.CloseableResource {
+    static final int DEFAULT_TOP = 20;
+
+    private static final int MAX_SQL_LENGTH = 80;
+
+    private final int top;
+    private final PrintStream output;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    FixtureProfile(final int top, final PrintStream output) {
+        this.top = top;
+        this.output = output;
+    }
+
+    /**
+     * True if the {@code jupiterdb.fixtureProfile} system property is {@code true}.
+     */
+    static boolean isEnabled() {
+        return Boolean.getBoolean("jupiterdb.fixtureProfile");
+    }
+
+    /**
+     * Create a profile that prints to standard output.
+     */
+    static FixtureProfile readSystemProperties() {
+        return new FixtureProfile(Integer.getInteger("jupiterdb.fixtureProfile.top", DEFAULT_TOP), System.out);
+    }
+
+    /**
+     * Record an execution of a fixture statement.
+     *
+     * @param source       Resource name and line of the statement.
+     * @param sql          Statement that was executed.
+     * @param elapsedNanos Time to execute the statement.
+     */
+    void record(final String source, final String sql, final long elapsedNanos) {
+        entries.computeIfAbsent(source, k -> new Entry(source, sql)).add(elapsedNanos);
+    }
+
+    /**
+     * Statements that took the most time in total, slowest first.
+     */
+    List<Entry> getHottest() {
+        return entries.values().stream()
+                .sorted(Comparator.comparingLong(Entry::getTotalNanos).reversed())
+                .limit(top)
+                .collect(Collectors.toList());
+    }
+
+    String describe() {
+        final List<Entry> hottest = getHottest();
+        final long totalNanos = entries.values().stream().mapToLong(Entry::getTotalNanos).sum();
+        final StringBuilder description = new StringBuilder(format(
+                "Fixture statements: %d ms in %d statements, top %d:",
+                TimeUnit.NANOSECONDS.toMillis(totalNanos),
+                entries.size(),
+                hottest.size()));
+
+        for (final Entry entry : hottest) {
+            description.append(System.lineSeparator()).append("  ").append(entry.describe());
+        }
+
+        return description.toString();
+    }
+
+    /**
+     * Print the hottest statements at the end of the test run.
+     */
+    @Override
+    public void close() {
+        if (!entries.isEmpty()) {
+            output.println(describe());
+            entries.clear();
+        }
+    }
+
+    /**
+     * Executions of a single fixture statement.
+     */
+    static final class Entry {
+        private final String source;
+        private final String sql;
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+
+        Entry(final String source, final String sql) {
+            this.source = source;
+            this.sql = sql;
+        }
+
+        synchronized void add(final long elapsedNanos) {
+            count += 1;
+            totalNanos += elapsedNanos;
+            maxNanos = Math.max(maxNanos, elapsedNanos);
+        }
+
+        String getSource() {
+            return source;
+        }
+
+        synchronized long getCount() {
+            return count;
+        }
+
+        synchronized long getTotalNanos() {
+            return totalNanos;
+        }
+
+        synchronized String describe() {
+            final String text = sql.trim().replaceAll("\\s+", " ");
+
+            return format(
+                    "%d ms total, %d executions, %d ms max: %s %s",
+                    TimeUnit.NANOSECONDS.toMillis(totalNanos),
+                    count,
+                    TimeUnit.NANOSECONDS.toMillis(maxNanos),
+                    source,
+                    text.length() > MAX_SQL_LENGTH ? text.substring(0, MAX_SQL_LENGTH) + "..." : text);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.util.List;
+
+/**
+ * Plugin that rewrites {@link InitializeSql} and {@link FinalizeSql} statements before they are
+ * executed, for example to translate them to the SQL dialect of the connection.
+ *
+ * The translators are loaded via {@link java.util.ServiceLoader} by the {@link DatabaseTestExtension}.
+ * To create a translator, implement this interface and then add the full implementation class
+ * name to a file named {@code META-INF/services/com.mostlycertain.jupiter.db.FixtureSqlTranslator}.
+ * When there are multiple translators, each one is given the output of the previous one.
+ */
+public interface FixtureSqlTranslator {
+    /**
+     * Translate the statements of a fixture script.
+     *
+     * @param extensionContext Context for the {@link DatabaseTestExtension}.
+     * @param connection       Connection the statements are executed on.
+     * @param script           Text of the script the statements were read from.
+     * @param statements       Statements to execute, as split by {@link SqlRunner#splitStatements}.
+     * @return Statements to execute, which may be {@code statements} unchanged.
+     */
+    List<String> translate(
+            ExtensionContext extensionContext,
+            DatabaseTestConnection connection,
+            String script,
+            List<String> statements);
+}
@@ -0,0 +1,45 @@
+package com.mostlycertain.jupiter.db;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Insert generated rows into a table before a test runs.
+ *
+ * The columns are read from {@link java.sql.DatabaseMetaData}. Auto increment and generated
+ * columns are left to the database. Nullable columns are sometimes {@code NULL}, primary key and
+ * single column unique keys get distinct values, and foreign key columns reference rows that are
+ * already in the parent table. The same seed generates the same rows for the same schema.
+ *
+ * Rows are inserted with batched prepared statements after the {@link InitializeSql} and before
+ * the {@link FinalizeSql} statements, in the test transaction. Tables of the test class are
+ * filled before tables of the test method, in the order of the annotations, so parent tables must
+ * be listed first.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Repeatable(GenerateRowsList.class)
+public @interface GenerateRows {
+    /**
+     * Table to insert the rows into. Can be qualified with the schema name.
+     */
+    String table();
+
+    /**
+     * Number of rows to insert.
+     */
+    long count();
+
+    /**
+     * Seed of the random values.
+     */
+    long seed() default 0;
+
+    /**
+     * Maximum number of rows to send in one JDBC batch.
+     */
+    int batchSize() default 1000;
+}
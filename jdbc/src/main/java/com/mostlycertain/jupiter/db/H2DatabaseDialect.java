@@ -0,0 +1,137 @@
+package com.mostlycertain.jupiter.db;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.lang.String.format;
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Dialect for the H2 database.
+ */
+public class H2DatabaseDialect implements DatabaseDialect {
+    /**
+     * H2 marks a full table scan with a comment like {@code /* PUBLIC.ORDERS.tableScan *}{@code /}.
+     */
+    private static final Pattern TABLE_SCAN = Pattern.compile("/\\*\\s*(\\S+)\\.tableScan\\b");
+
+    private static final Pattern EXPLAINABLE = Pattern.compile(
+            "^\\s*\\(*\\s*(SELECT|WITH|INSERT|UPDATE|DELETE|MERGE|TABLE|VALUES)\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    @Override
+    public boolean supports(final DatabaseMetaData metaData) throws SQLException {
+        return "H2".equalsIgnoreCase(metaData.getDatabaseProductName());
+    }
+
+    @Override
+    public Optional<QueryPlan> explain(
+            final Connection connection,
+            final String sql,
+            final List<Object> bindValues
+    ) throws SQLException {
+        if (!EXPLAINABLE.matcher(sql).find()) {
+            return Optional.empty();
+        }
+
+        final StringBuilder plan = new StringBuilder();
+
+        try (final PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < bindValues.size(); i += 1) {
+                statement.setObject(i + 1, bindValues.get(i));
+            }
+
+            try (final ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1));
+                }
+            }
+        }
+
+        return Optional.of(new QueryPlan(plan.toString(), fullScanTables(plan)));
+    }
+
+    /**
+     * Sessions and locks from {@code INFORMATION_SCHEMA}. All columns are selected because the
+     * columns differ between H2 versions.
+     */
+    @Override
+    public Optional<String> lockSnapshot(final Connection connection) throws SQLException {
+        final StringBuilder snapshot = new StringBuilder();
+
+        try (final Statement statement = connection.createStatement()) {
+            appendRows(snapshot, "Sessions", statement, "SELECT * FROM INFORMATION_SCHEMA.SESSIONS");
+            appendRows(snapshot, "Locks", statement, "SELECT * FROM INFORMATION_SCHEMA.LOCKS");
+        }
+
+        return Optional.of(snapshot.toString());
+    }
+
+    /**
+     * Sum of {@code ORA_HASH} of the row text. Each value is prefixed with its length, so values
+     * that contain the separator can not be confused.
+     */
+    @Override
+    public Optional<String> checksumQuery(final String query, final List<String> columns) {
+        final String rowText = columns.stream()
+                .map(c -> format("COALESCE(LENGTH(CAST(%1$s AS VARCHAR)) || ':' || CAST(%1$s AS VARCHAR), 'NULL')", c))
+                .collect(joining(" || ',' || "));
+
+        return Optional.of(format(
+                "SELECT COUNT(*), COALESCE(SUM(ORA_HASH(%s)), 0) FROM (%s) data_set",
+                rowText,
+                query));
+    }
+
+    private static void appendRows(
+            final StringBuilder output,
+            final String title,
+            final Statement statement,
+            final String sql
+    ) throws SQLException {
+        output.append(title).append(':').append(System.lineSeparator());
+
+        try (final ResultSet resultSet = statement.executeQuery(sql)) {
+            final ResultSetMetaData metaData = resultSet.getMetaData();
+
+            while (resultSet.next()) {
+                output.append("  ");
+
+                for (int i = 1; i <= metaData.getColumnCount(); i += 1) {
+                    output.append(i > 1 ? ", " : "")
+                            .append(metaData.getColumnLabel(i))
+                            .append('=')
+                            .append(resultSet.getString(i));
+                }
+
+                output.append(System.lineSeparator());
+            }
+        }
+    }
+
+    private static Set<String> fullScanTables(final CharSequence plan) {
+        final Set<String> tables = new LinkedHashSet<>();
+        final Matcher matcher = TABLE_SCAN.matcher(plan);
+
+        while (matcher.find()) {
+            final String qualifiedName = matcher.group(1);
+            final String tableName = qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+
+            tables.add(tableName.replace("\"", "").toUpperCase(Locale.ROOT));
+        }
+
+        return tables;
+    }
+}
@@ -0,0 +1,263 @@
+package com.mostlycertain.jupiter.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wraps a JDBC connection in a lightweight proxy that reports every statement sent to the
+ * database to a {@link StatementListener}.
+ *
+ * Statements and result sets created by the connection are wrapped as well, so the time spent
+ * executing statements and reading result sets can be measured. All other calls are passed
+ * through to the wrapped connection unchanged.
+ */
+final class InstrumentedConnection extends DelegatingHandler {
+    private final Connection connection;
+    private final String connectionName;
+    private final boolean fixture;
+    private final StatementListener listener;
+    private final Connection proxy;
+    private final Set<InstrumentedStatement> openStatements = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    private InstrumentedConnection(
+            final Connection connection,
+            final String connectionName,
+            final boolean fixture,
+            final StatementListener listener
+    ) {
+        super(connection);
+        this.connection = connection;
+        this.connectionName = connectionName;
+        this.fixture = fixture;
+        this.listener = listener;
+        this.proxy = newProxy(Connection.class, this);
+    }
+
+    /**
+     * Wrap a connection.
+     *
+     * @param connection     Connection to wrap.
+     * @param connectionName Name of the connection, used in Flight Recorder events.
+     * @param fixture        True if the connection is used to execute fixture SQL.
+     * @param listener       Listener to notify when statements are executed.
+     * @return Instrumented connection.
+     */
+    static Connection wrap(
+            final Connection connection,
+            final String connectionName,
+            final boolean fixture,
+            final StatementListener listener
+    ) {
+        return new InstrumentedConnection(connection, connectionName, fixture, listener).proxy;
+    }
+
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "createStatement":
+                return new InstrumentedStatement((Statement) invokeDelegate(method, args), null)
+                        .newProxy(Statement.class);
+            case "prepareStatement":
+                return new InstrumentedStatement((Statement) invokeDelegate(method, args), (String) args[0])
+                        .newProxy(PreparedStatement.class);
+            case "prepareCall":
+                return new InstrumentedStatement((Statement) invokeDelegate(method, args), (String) args[0])
+                        .newProxy(CallableStatement.class);
+            case "close":
+                // Closing the connection closes the statements the test did not close
+                openStatements.forEach(InstrumentedStatement::completeLastExecution);
+                openStatements.clear();
+                return invokeDelegate(method, args);
+            default:
+                return super.invoke(proxy, method, args);
+        }
+    }
+
+    private static <T> T newProxy(final Class<T> type, final InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(
+                InstrumentedConnection.class.getClassLoader(),
+                new Class<?>[]{type},
+                handler));
+    }
+
+    private final class InstrumentedStatement extends DelegatingHandler {
+        private final Statement statement;
+        private final String preparedSql;
+        private final List<String> batch = new ArrayList<>();
+        private final Map<Object, Object> bindValues = new LinkedHashMap<>();
+        private Object proxy;
+        private StatementExecution lastExecution;
+
+        InstrumentedStatement(final Statement statement, final String preparedSql) {
+            super(statement);
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+        }
+
+        <T extends Statement> T newProxy(final Class<T> type) {
+            final T statement = InstrumentedConnection.newProxy(type, this);
+            this.proxy = statement;
+            openStatements.add(this);
+            return statement;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "getConnection":
+                    return InstrumentedConnection.this.proxy;
+                case "addBatch":
+                    batch.add(args == null ? preparedSql : (String) args[0]);
+                    return invokeDelegate(method, args);
+                case "clearBatch":
+                    batch.clear();
+                    return invokeDelegate(method, args);
+                case "clearParameters":
+                    bindValues.clear();
+                    return invokeDelegate(method, args);
+                case "executeBatch":
+                case "executeLargeBatch": {
+                    final StatementExecution execution = StatementExecution.batch(connection, batch);
+                    batch.clear();
+                    return execute(execution, method, args);
+                }
+                case "execute":
+                case "executeQuery":
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                    return execute(
+                            args == null
+                                    ? StatementExecution.single(connection, preparedSql, snapshotBindValues())
+                                    : StatementExecution.single(connection, (String) args[0]),
+                            method,
+                            args);
+                case "getResultSet":
+                    return wrapResultSet((ResultSet) invokeDelegate(method, args), lastExecution);
+                case "close":
+                    // Closing the statement closes the last result set
+                    completeLastExecution();
+                    openStatements.remove(this);
+                    return invokeDelegate(method, args);
+                default:
+                    if (preparedSql != null && args != null && args.length >= 2 && method.getName().startsWith("set")) {
+                        // setXxx(parameterIndexOrName, value, ...) on a prepared or callable statement
+                        bindValues.put(args[0], method.getName().equals("setNull") ? null : args[1]);
+                    }
+
+                    return super.invoke(proxy, method, args);
+            }
+        }
+
+        private Map<Object, Object> snapshotBindValues() {
+            return bindValues.isEmpty()
+                    ? Collections.emptyMap()
+                    : Collections.unmodifiableMap(new LinkedHashMap<>(bindValues));
+        }
+
+        private Object execute(
+                final StatementExecution execution,
+                final Method method,
+                final Object[] args
+        ) throws Throwable {
+            final Object event = DatabaseEvents.beginStatement();
+            final long start = System.nanoTime();
+            final Object result;
+
+            // Executing the statement again closes the last result set
+            completeLastExecution();
+            lastExecution = execution;
+            listener.statementStarting(execution, statement);
+
+            try {
+                result = invokeDelegate(method, args);
+            } finally {
+                execution.setExecuteNanos(System.nanoTime() - start);
+                DatabaseEvents.endStatement(event, connectionName, execution, fixture);
+                listener.statementExecuted(execution);
+            }
+
+            if (result instanceof ResultSet) {
+                return wrapResultSet((ResultSet) result, execution);
+            }
+
+            if (!Boolean.TRUE.equals(result)) {
+                // execute() returns true if there is a result set to read
+                execution.complete();
+            }
+
+            return result;
+        }
+
+        private void completeLastExecution() {
+            if (lastExecution != null) {
+                lastExecution.complete();
+            }
+        }
+
+        private ResultSet wrapResultSet(final ResultSet resultSet, final StatementExecution execution) {
+            if (resultSet == null || execution == null) {
+                return resultSet;
+            }
+
+            return InstrumentedConnection.newProxy(
+                    ResultSet.class,
+                    new InstrumentedResultSet(resultSet, proxy, execution));
+        }
+    }
+
+    private static final class InstrumentedResultSet extends DelegatingHandler {
+        private final Object statement;
+        private final StatementExecution execution;
+
+        InstrumentedResultSet(
+                final ResultSet resultSet,
+                final Object statement,
+                final StatementExecution execution
+        ) {
+            super(resultSet);
+            this.statement = statement;
+            this.execution = execution;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "getStatement":
+                    return statement;
+                case "next": {
+                    final long start = System.nanoTime();
+                    boolean hasNext = true;
+
+                    try {
+                        hasNext = (Boolean) invokeDelegate(method, args);
+                        return hasNext;
+                    } finally {
+                        execution.addFetchNanos(System.nanoTime() - start);
+
+                        if (!hasNext) {
+                            execution.complete();
+                        }
+                    }
+                }
+                case "close":
+                    execution.complete();
+                    return invokeDelegate(method, args);
+                default:
+                    return super.invoke(proxy, method, args);
+            }
+        }
+    }
+}
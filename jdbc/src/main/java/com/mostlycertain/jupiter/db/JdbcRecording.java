@@ -0,0 +1,223 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.opentest4j.AssertionFailedError;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+import static java.lang.String.format;
+
+/**
+ * Recording of the statements executed by a {@link DatabaseRecording} test.
+ */
+final class JdbcRecording {
+    private static final String HEADER = "# Database recording, see @DatabaseRecording";
+
+    private final Path file;
+    private final Mode mode;
+    private final List<RecordedStatement> statements;
+    private int replayIndex;
+
+    JdbcRecording(final Path file, final Mode mode) {
+        this.file = file;
+        this.mode = mode;
+        this.statements = mode == Mode.REPLAY ? load(file) : new ArrayList<>();
+    }
+
+    /**
+     * Read the {@link DatabaseRecording} annotation and system properties that apply to a test.
+     *
+     * @param context Context of the test.
+     * @return Recording or {@link Optional#empty() empty} if the test is not recorded.
+     */
+    static Optional<JdbcRecording> readAnnotations(final ExtensionContext context) {
+        final Method testMethod = context.getRequiredTestMethod();
+        final boolean annotated = testMethod.isAnnotationPresent(DatabaseRecording.class)
+                || context.getRequiredTestClass().isAnnotationPresent(DatabaseRecording.class);
+        final Mode mode = Mode.valueOf(System.getProperty("jupiterdb.recording.mode", "auto")
+                .trim()
+                .toUpperCase(Locale.ROOT));
+
+        if (!annotated || mode == Mode.OFF) {
+            return Optional.empty();
+        }
+
+        final Path file = Paths.get(System.getProperty("jupiterdb.recording.dir", "src/test/db-recordings"))
+                .resolve(context.getRequiredTestClass().getName())
+                .resolve(BudgetBaselines.testKey(context).replaceAll("[^A-Za-z0-9._-]", "_") + ".txt");
+
+        if (mode == Mode.AUTO) {
+            return Optional.of(new JdbcRecording(file, Files.exists(file) ? Mode.REPLAY : Mode.RECORD));
+        }
+
+        return Optional.of(new JdbcRecording(file, mode));
+    }
+
+    Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Open the physical connection for a test.
+     *
+     * When replaying, this is a stand-in that accepts and ignores every call, so the fixture SQL
+     * and the test transaction do not need a database.
+     */
+    Connection openConnection(final DatabaseConnectionConfig configuration) throws SQLException {
+        return mode == Mode.REPLAY ? RecordingConnection.offline() : configuration.createConnection();
+    }
+
+    /**
+     * Wrap the physical connection before it is instrumented.
+     *
+     * Replayed statements are served here, so they are still seen by the statement listeners.
+     */
+    Connection wrapPhysicalConnection(final String connectionName, final Connection connection) {
+        return mode == Mode.REPLAY ? RecordingConnection.replay(connectionName, this) : connection;
+    }
+
+    /**
+     * Wrap the instrumented connection given to the test.
+     *
+     * Statements are recorded here so the statements executed by the listeners, for example to
+     * explain query plans, are not recorded.
+     */
+    Connection wrapTestConnection(final String connectionName, final Connection connection) {
+        return mode == Mode.REPLAY ? connection : RecordingConnection.record(connectionName, connection, this);
+    }
+
+    synchronized void add(final RecordedStatement statement) {
+        statements.add(statement);
+    }
+
+    /**
+     * Get the recorded outcome of the next statement.
+     *
+     * @param request Statement being executed.
+     * @return Recorded statement.
+     * @throws AssertionFailedError If the statement does not match the recording.
+     */
+    synchronized RecordedStatement replay(final RecordedStatement request) {
+        if (replayIndex >= statements.size()) {
+            throw new AssertionFailedError(format(
+                    "Statement %d was not recorded in %s:%n%s",
+                    replayIndex + 1,
+                    file,
+                    request.describe()));
+        }
+
+        final RecordedStatement recorded = statements.get(replayIndex);
+        replayIndex += 1;
+
+        if (!recorded.describe().equals(request.describe())) {
+            throw new AssertionFailedError(
+                    format("Statement %d does not match the recording in %s, re-record with -Djupiterdb.recording.mode=record",
+                            replayIndex,
+                            file),
+                    recorded.describe(),
+                    request.describe());
+        }
+
+        return recorded;
+    }
+
+    /**
+     * Complete the recording of a test that passed.
+     *
+     * @throws AssertionFailedError If the statements do not match the recording.
+     */
+    synchronized void finish() {
+        switch (mode) {
+            case RECORD:
+                write();
+                break;
+            case VERIFY:
+                verify();
+                break;
+            case REPLAY:
+                if (replayIndex < statements.size()) {
+                    throw new AssertionFailedError(format(
+                            "Test executed %d of the %d statements recorded in %s",
+                            replayIndex,
+                            statements.size(),
+                            file));
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private List<String> lines() {
+        final List<String> lines = new ArrayList<>();
+        lines.add(HEADER);
+        statements.forEach(s -> s.write(lines));
+        return lines;
+    }
+
+    private void write() {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Files.write(file, lines(), StandardCharsets.UTF_8);
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void verify() {
+        if (!Files.exists(file)) {
+            throw new AssertionFailedError("No recording to verify: " + file);
+        }
+
+        final List<String> expected = readLines(file);
+        final List<String> actual = lines();
+
+        for (int i = 0; i < Math.max(expected.size(), actual.size()); i += 1) {
+            final String expectedLine = i < expected.size() ? expected.get(i) : "<end of recording>";
+            final String actualLine = i < actual.size() ? actual.get(i) : "<end of recording>";
+
+            if (!expectedLine.equals(actualLine)) {
+                throw new AssertionFailedError(
+                        format("Database interaction differs from %s at line %d", file, i + 1),
+                        expectedLine,
+                        actualLine);
+            }
+        }
+    }
+
+    private static List<RecordedStatement> load(final Path file) {
+        if (!Files.exists(file)) {
+            throw new AssertionFailedError("No recording to replay, record it with -Djupiterdb.recording.mode=record: " + file);
+        }
+
+        return RecordedStatement.read(readLines(file));
+    }
+
+    private static List<String> readLines(final Path file) {
+        try {
+            return Files.readAllLines(file, StandardCharsets.UTF_8);
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    enum Mode {
+        AUTO,
+        RECORD,
+        REPLAY,
+        VERIFY,
+        OFF,
+    }
+}
@@ -0,0 +1,155 @@
+package com.mostlycertain.jupiter.db;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event types. Only use these through {@link DatabaseEvents}.
+ */
+final class JfrEvents {
+    private static final String CATEGORY = "Jupiter DB";
+
+    // Never committed, only used to check if an event type is enabled without allocating an event
+    private static final ConnectionAcquire CONNECTION_ACQUIRE = new ConnectionAcquire();
+    private static final Savepoint SAVEPOINT = new Savepoint();
+    private static final Rollback ROLLBACK = new Rollback();
+    private static final Close CLOSE = new Close();
+    private static final FixtureScript FIXTURE_SCRIPT = new FixtureScript();
+    private static final Statement STATEMENT = new Statement();
+
+    private JfrEvents() {
+        // Private so instances can not be created
+    }
+
+    static Object beginConnectionAcquire() {
+        return CONNECTION_ACQUIRE.isEnabled() ? begin(new ConnectionAcquire()) : null;
+    }
+
+    static Object beginSavepoint() {
+        return SAVEPOINT.isEnabled() ? begin(new Savepoint()) : null;
+    }
+
+    static Object beginRollback() {
+        return ROLLBACK.isEnabled() ? begin(new Rollback()) : null;
+    }
+
+    static Object beginClose() {
+        return CLOSE.isEnabled() ? begin(new Close()) : null;
+    }
+
+    static Object beginFixtureScript() {
+        return FIXTURE_SCRIPT.isEnabled() ? begin(new FixtureScript()) : null;
+    }
+
+    static Object beginStatement() {
+        return STATEMENT.isEnabled() ? begin(new Statement()) : null;
+    }
+
+    private static Object begin(final Event event) {
+        event.begin();
+        return event;
+    }
+
+    static void endConnectionAcquire(final Object event, final String connectionName, final String url) {
+        final ConnectionAcquire acquire = (ConnectionAcquire) event;
+        acquire.connection = connectionName;
+        acquire.url = url;
+        acquire.commit();
+    }
+
+    static void endConnectionEvent(final Object event, final String connectionName) {
+        final ConnectionEvent connectionEvent = (ConnectionEvent) event;
+        connectionEvent.connection = connectionName;
+        connectionEvent.commit();
+    }
+
+    static void endFixtureScript(final Object event, final String script, final int statementCount) {
+        final FixtureScript fixtureScript = (FixtureScript) event;
+        fixtureScript.script = script;
+        fixtureScript.statementCount = statementCount;
+        fixtureScript.commit();
+    }
+
+    static void endStatement(
+            final Object event,
+            final String connectionName,
+            final StatementExecution execution,
+            final boolean fixture
+    ) {
+        final Statement statement = (Statement) event;
+        statement.connection = connectionName;
+        statement.sql = execution.getSql().isEmpty() ? "" : execution.getSql().get(0);
+        statement.batchSize = execution.isBatch() ? execution.getStatementCount() : 0;
+        statement.fixture = fixture;
+        statement.commit();
+    }
+
+    @Category(CATEGORY)
+    abstract static class ConnectionEvent extends Event {
+        @Label("Connection")
+        @Description("Name of the test parameter the connection was injected into")
+        String connection;
+    }
+
+    @Name("com.mostlycertain.jupiterdb.ConnectionAcquire")
+    @Label("Connection Acquire")
+    @Description("Test database connection opened")
+    static final class ConnectionAcquire extends ConnectionEvent {
+        @Label("URL")
+        String url;
+    }
+
+    @Name("com.mostlycertain.jupiterdb.Savepoint")
+    @Label("Savepoint")
+    @Description("Savepoint the test is rolled back to")
+    static final class Savepoint extends ConnectionEvent {
+    }
+
+    @Name("com.mostlycertain.jupiterdb.Rollback")
+    @Label("Rollback")
+    @Description("Test changes rolled back")
+    static final class Rollback extends ConnectionEvent {
+    }
+
+    @Name("com.mostlycertain.jupiterdb.Close")
+    @Label("Close")
+    @Description("Test database connection closed")
+    static final class Close extends ConnectionEvent {
+    }
+
+    @Name("com.mostlycertain.jupiterdb.FixtureScript")
+    @Label("Fixture Script")
+    @Description("@InitializeSql or @FinalizeSql script executed")
+    @Category(CATEGORY)
+    static final class FixtureScript extends Event {
+        @Label("Script")
+        @Description("Resource name, or the annotated element for inline SQL")
+        String script;
+
+        @Label("Statement Count")
+        int statementCount;
+    }
+
+    @Name("com.mostlycertain.jupiterdb.Statement")
+    @Label("Statement")
+    @Description("Statement executed on a test database connection")
+    @Category(CATEGORY)
+    static final class Statement extends Event {
+        @Label("Connection")
+        String connection;
+
+        @Label("SQL")
+        String sql;
+
+        @Label("Batch Size")
+        @Description("Number of statements in the batch, or 0 if this was not a batch")
+        int batchSize;
+
+        @Label("Fixture")
+        @Description("True if the statement was executed by @InitializeSql or @FinalizeSql")
+        boolean fixture;
+    }
+}
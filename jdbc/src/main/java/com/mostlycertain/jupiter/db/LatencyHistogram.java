@@ -0,0 +1,117 @@
+package com.mostlycertain.jupiter.db;
+
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+
+/**
+ * Histogram of latencies with a fixed relative precision, in the style of HdrHistogram.
+ *
+ * Values below 128 have their own bucket. Larger values are grouped in buckets of 64 per power
+ * of two, so a value is reported within about 1.6% of what was recorded and the histogram has
+ * a fixed size no matter how many values are recorded. Not thread safe.
+ */
+final class LatencyHistogram {
+    private static final int SUB_BUCKETS = 64;
+    private static final int LINEAR_BUCKETS = SUB_BUCKETS * 2;
+
+    private final long[] counts = new long[LINEAR_BUCKETS + (Long.SIZE - 7) * SUB_BUCKETS];
+    private long totalCount;
+    private long maxValue;
+
+    /**
+     * Record a value.
+     *
+     * @param value Non-negative value, in nanoseconds.
+     */
+    void record(final long value) {
+        counts[index(Math.max(0, value))] += 1;
+        totalCount += 1;
+        maxValue = Math.max(maxValue, value);
+    }
+
+    /**
+     * Add the values recorded by another histogram.
+     */
+    void add(final LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i += 1) {
+            counts[i] += other.counts[i];
+        }
+
+        totalCount += other.totalCount;
+        maxValue = Math.max(maxValue, other.maxValue);
+    }
+
+    long getTotalCount() {
+        return totalCount;
+    }
+
+    long getMaxValue() {
+        return maxValue;
+    }
+
+    /**
+     * Get the value at a percentile.
+     *
+     * @param percentile Percentile, from 0 to 100.
+     * @return Highest value in the bucket that contains the percentile, or zero if nothing was
+     *         recorded.
+     */
+    long getValueAtPercentile(final double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+
+        final long target = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+        long count = 0;
+
+        for (int i = 0; i < counts.length; i += 1) {
+            count += counts[i];
+
+            if (count >= target) {
+                return Math.min(highestValue(i), maxValue);
+            }
+        }
+
+        return maxValue;
+    }
+
+    /**
+     * Describe the latency percentiles, in milliseconds.
+     */
+    String describe() {
+        return format(
+                "p50=%s p90=%s p99=%s p99.9=%s max=%s",
+                millis(getValueAtPercentile(50)),
+                millis(getValueAtPercentile(90)),
+                millis(getValueAtPercentile(99)),
+                millis(getValueAtPercentile(99.9)),
+                millis(maxValue));
+    }
+
+    private static String millis(final long nanos) {
+        return format("%.3fms", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    private static int index(final long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+
+        // Shift the value so the top seven bits remain, 64 to 127
+        final int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - 7;
+
+        return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    private static long highestValue(final int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+
+        final int shift = (index - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+        final long top = (index - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+
+        return ((top + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,51 @@
+package com.mostlycertain.jupiter.db;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Report statements and result sets that a test leaves open.
+ *
+ * Statements and result sets created through the injected connections are tracked along with the
+ * stack trace where they were created. Those that are still open after the test are reported and
+ * then forgotten, so each leak is only reported once.
+ *
+ * Tracking wraps every statement and result set in a proxy and captures a stack trace when each
+ * is created, so it is off by default.
+ *
+ * The annotation on the test method takes precedence over the annotation on the test class,
+ * which takes precedence over the {@code jupiterdb.leakDetection} system property
+ * ({@code fail}, {@code warn} or {@code off}, default {@code off}). Connections opened for the
+ * whole class, such as shared connections and {@code @BeforeAll} parameters, are tracked according
+ * to the class annotation or the system property. The annotation on a test method only selects
+ * how the leaks of those connections are reported for that test.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+public @interface LeakDetection {
+    /**
+     * What to do when a test leaves statements or result sets open.
+     */
+    Mode value();
+
+    enum Mode {
+        /**
+         * Fail the test. The creation stack traces are attached to the error.
+         */
+        FAIL,
+
+        /**
+         * Publish a report entry with the creation stack traces.
+         */
+        WARN,
+
+        /**
+         * Do not track statements and result sets.
+         */
+        OFF,
+    }
+}
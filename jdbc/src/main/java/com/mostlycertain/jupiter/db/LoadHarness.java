@@ -0,0 +1,429 @@
+package com.mostlycertain.jupiter.db;
+
+import org.opentest4j.AssertionFailedError;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+import static java.lang.String.format;
+
+/**
+ * Runs code concurrently on several test connections, to test locking and throughput.
+ *
+ * Inject a {@code LoadHarness} into a test method to get the number of connections set by
+ * {@link LoadTest}. Each connection is used by one thread, on virtual threads when the JVM
+ * supports them. The connections are managed like the other connections of the test, so every
+ * change is rolled back after the test.
+ *
+ * The connections have their own transactions, so they only see data that is committed. Fixture
+ * SQL is not applied to them. Each iteration runs in a savepoint that is rolled back when the
+ * iteration completes, so the locks taken by one iteration do not block the iterations on the
+ * other connections. An iteration that runs longer than {@link LoadTest#iterationTimeoutMillis()}
+ * has its statements cancelled and fails.
+ */
+public final class LoadHarness {
+    /**
+     * Number of iteration errors to attach to the failure.
+     */
+    private static final int MAX_REPORTED_ERRORS = 10;
+
+    /**
+     * Time to wait for a timed out iteration to return after its statements are cancelled, before
+     * the connection is aborted.
+     */
+    private static final long ABORT_GRACE_MILLIS = 5000;
+
+    private static final ScheduledThreadPoolExecutor SCHEDULER = createScheduler();
+
+    private final Map<Connection, RunningStatements> connections;
+    private final long iterations;
+    private final long durationNanos;
+    private final long iterationTimeoutNanos;
+    private final BiConsumer<String, String> reporter;
+
+    /**
+     * @param connections           Connections to run the iterations on, one thread each, with the
+     *                              listener that tracks the statements running on each.
+     * @param iterations            Total number of iterations, or zero to run for the duration.
+     * @param durationNanos         Maximum time to run, or zero for no limit.
+     * @param iterationTimeoutNanos Maximum time for one iteration, or zero for no limit.
+     * @param reporter              Publishes report entries.
+     */
+    LoadHarness(
+            final Map<Connection, RunningStatements> connections,
+            final long iterations,
+            final long durationNanos,
+            final long iterationTimeoutNanos,
+            final BiConsumer<String, String> reporter
+    ) {
+        if (iterations <= 0 && durationNanos <= 0) {
+            throw new IllegalArgumentException("@LoadTest must set the iterations or the duration");
+        }
+
+        this.connections = Collections.unmodifiableMap(new LinkedHashMap<>(connections));
+        this.iterations = iterations;
+        this.durationNanos = durationNanos;
+        this.iterationTimeoutNanos = iterationTimeoutNanos;
+        this.reporter = reporter;
+    }
+
+    /**
+     * Connections used by the threads, for example to insert data that the iterations share
+     * before {@link #run}. Changes made by the iterations are rolled back after each iteration.
+     */
+    public List<Connection> getConnections() {
+        return Collections.unmodifiableList(new ArrayList<>(connections.keySet()));
+    }
+
+    /**
+     * Run the body on every connection concurrently until the iterations are done or the
+     * duration is reached.
+     *
+     * The throughput and latency percentiles are published as the {@code load.throughput} and
+     * {@code load.latency} report entries.
+     *
+     * @param body Code to run for each iteration.
+     * @return Throughput and latency of the iterations.
+     * @throws AssertionFailedError If any iteration failed.
+     */
+    public Result run(final Body body) {
+        final AtomicLong started = new AtomicLong();
+        final AtomicLong errorCount = new AtomicLong();
+        final ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<LatencyHistogram>> workers = new ArrayList<>();
+        final ExecutorService executor = newExecutor(connections.size());
+        final long startNanos;
+
+        try {
+            for (final Map.Entry<Connection, RunningStatements> entry : connections.entrySet()) {
+                final Connection connection = entry.getKey();
+                final RunningStatements running = entry.getValue();
+
+                workers.add(executor.submit(() -> {
+                    final LatencyHistogram histogram = new LatencyHistogram();
+
+                    start.await();
+
+                    final long deadline = System.nanoTime() + durationNanos;
+
+                    while ((iterations <= 0 || started.getAndIncrement() < iterations)
+                            && (durationNanos <= 0 || System.nanoTime() - deadline < 0)) {
+                        final Iteration iteration = new Iteration(connection, running);
+
+                        try {
+                            iteration.execute(body);
+                            histogram.record(iteration.getElapsedNanos());
+                        } catch (final Exception | AssertionError ex) {
+                            if (errorCount.incrementAndGet() <= MAX_REPORTED_ERRORS) {
+                                errors.add(iteration.error(ex));
+                            }
+                        }
+
+                        if (!iteration.rollback()) {
+                            // The connection can not be used for more iterations
+                            break;
+                        }
+                    }
+
+                    return histogram;
+                }));
+            }
+
+            startNanos = System.nanoTime();
+            start.countDown();
+
+            final LatencyHistogram histogram = new LatencyHistogram();
+
+            for (final Future<LatencyHistogram> worker : workers) {
+                histogram.add(worker.get());
+            }
+
+            final Result result = new Result(histogram, errorCount.get(), System.nanoTime() - startNanos);
+
+            reporter.accept("load.throughput", format(
+                    "%.1f/s iterations=%d errors=%d connections=%d",
+                    result.getThroughput(),
+                    result.getIterations(),
+                    result.getErrors(),
+                    connections.size()));
+            reporter.accept("load.latency", histogram.describe());
+
+            if (result.getErrors() > 0) {
+                final AssertionFailedError error = new AssertionFailedError(format(
+                        "%d of %d load test iterations failed",
+                        result.getErrors(),
+                        result.getIterations() + result.getErrors()));
+
+                errors.forEach(error::addSuppressed);
+
+                throw error;
+            }
+
+            return result;
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for the load test", ex);
+        } catch (final ExecutionException ex) {
+            throw new RuntimeException("Error running the load test", ex.getCause());
+        } finally {
+            start.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Use a virtual thread per connection if the JVM supports them (Java 21), otherwise a
+     * platform thread per connection.
+     */
+    private static ExecutorService newExecutor(final int threads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (final ReflectiveOperationException ex) {
+            return Executors.newFixedThreadPool(threads, r -> {
+                final Thread thread = new Thread(r, "jupiter-db-load");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor createScheduler() {
+        final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            final Thread thread = new Thread(runnable, "jupiter-db-load-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Most timers are cancelled when the iteration completes
+        scheduler.setRemoveOnCancelPolicy(true);
+
+        return scheduler;
+    }
+
+    /**
+     * One iteration of the body, in its own savepoint.
+     */
+    private final class Iteration {
+        private final Connection connection;
+        private final RunningStatements running;
+        private final Thread thread = Thread.currentThread();
+        private final long startNanos = System.nanoTime();
+        private boolean complete;
+        private volatile boolean timedOut;
+        private Savepoint savepoint;
+        private ScheduledFuture<?> timer;
+        private long elapsedNanos;
+
+        Iteration(final Connection connection, final RunningStatements running) {
+            this.connection = connection;
+            this.running = running;
+        }
+
+        void execute(final Body body) throws Exception {
+            savepoint = connection.setSavepoint();
+
+            if (iterationTimeoutNanos > 0) {
+                timer = SCHEDULER.schedule(this::timeout, iterationTimeoutNanos, TimeUnit.NANOSECONDS);
+            }
+
+            try {
+                body.execute(connection);
+            } finally {
+                elapsedNanos = System.nanoTime() - startNanos;
+
+                // Waits for a timeout that is cancelling the statements, so it can not cancel the
+                // statements of the next iteration on the connection
+                synchronized (this) {
+                    complete = true;
+                }
+
+                if (timer != null) {
+                    timer.cancel(false);
+                }
+            }
+        }
+
+        long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Error to report for an iteration that failed, naming the timeout if it was cancelled.
+         */
+        Throwable error(final Throwable cause) {
+            if (!timedOut) {
+                return cause;
+            }
+
+            return new AssertionFailedError(
+                    format("Load test iteration timed out after %d ms", TimeUnit.NANOSECONDS.toMillis(iterationTimeoutNanos)),
+                    cause);
+        }
+
+        /**
+         * Roll back the changes of the iteration, releasing its locks.
+         *
+         * @return False if the connection can not be used for more iterations.
+         */
+        boolean rollback() {
+            if (savepoint == null) {
+                // The savepoint could not be created
+                return false;
+            }
+
+            try {
+                connection.rollback(savepoint);
+                connection.releaseSavepoint(savepoint);
+                return true;
+            } catch (final SQLException ex) {
+                // For example the connection was aborted by the timeout
+                return false;
+            }
+        }
+
+        private synchronized void timeout() {
+            if (complete) {
+                // The timer fired as the iteration completed
+                return;
+            }
+
+            timedOut = true;
+            running.cancel();
+
+            SCHEDULER.schedule(this::abort, ABORT_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        private synchronized void abort() {
+            if (complete) {
+                return;
+            }
+
+            try {
+                connection.abort(Runnable::run);
+            } catch (final SQLException ex) {
+                // Nothing more can be done for the statements
+            }
+
+            // Wake an iteration that is not waiting on the database
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Tracks the statements running on a connection, so they can be cancelled when an iteration
+     * times out.
+     */
+    static final class RunningStatements implements StatementListener {
+        private final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public void statementStarting(final StatementExecution execution, final Statement statement) {
+            statements.add(statement);
+        }
+
+        @Override
+        public void statementExecuted(final StatementExecution execution) {
+            // Only the thread of the connection executes statements, one at a time
+            statements.clear();
+        }
+
+        void cancel() {
+            for (final Statement statement : statements) {
+                try {
+                    statement.cancel();
+                } catch (final SQLException ex) {
+                    // The connection is aborted if the statement does not return
+                }
+            }
+        }
+    }
+
+    /**
+     * Code to run for each iteration of a load test.
+     */
+    @FunctionalInterface
+    public interface Body {
+        /**
+         * Run one iteration.
+         *
+         * @param connection Connection of the thread running the iteration.
+         * @throws Exception If the iteration fails.
+         */
+        void execute(Connection connection) throws Exception;
+    }
+
+    /**
+     * Throughput and latency of a load test.
+     */
+    public static final class Result {
+        private final LatencyHistogram histogram;
+        private final long errors;
+        private final long elapsedNanos;
+
+        Result(final LatencyHistogram histogram, final long errors, final long elapsedNanos) {
+            this.histogram = histogram;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Number of iterations that completed without an error.
+         */
+        public long getIterations() {
+            return histogram.getTotalCount();
+        }
+
+        /**
+         * Number of iterations that failed.
+         */
+        public long getErrors() {
+            return errors;
+        }
+
+        /**
+         * Time from the start of the first iteration until the last one completed.
+         */
+        public long getElapsed(final TimeUnit unit) {
+            return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Completed iterations per second.
+         */
+        public double getThroughput() {
+            return elapsedNanos == 0 ? 0 : getIterations() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        }
+
+        /**
+         * Latency of the completed iterations at a percentile.
+         *
+         * @param percentile Percentile, from 0 to 100.
+         * @param unit       Unit of the result.
+         * @return Latency, within about 1.6%.
+         */
+        public long getLatency(final double percentile, final TimeUnit unit) {
+            return unit.convert(histogram.getValueAtPercentile(percentile), TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.mostlycertain.jupiter.db;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Settings of the {@link LoadHarness} injected into a test.
+ *
+ * The annotation on the test method takes precedence over the annotation on the test class.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+public @interface LoadTest {
+    /**
+     * Number of connections, each used by one thread.
+     */
+    int connections() default 4;
+
+    /**
+     * Total number of iterations to run across all connections. Zero to run for
+     * {@link #durationMillis()}.
+     */
+    long iterations() default 0;
+
+    /**
+     * Maximum time, in milliseconds, to run iterations. Zero for no limit.
+     */
+    long durationMillis() default 1000;
+
+    /**
+     * Maximum time, in milliseconds, for one iteration. The statements of an iteration that takes
+     * longer are cancelled and the iteration fails. Zero for no limit.
+     */
+    long iterationTimeoutMillis() default 10000;
+}
@@ -0,0 +1,235 @@
+package com.mostlycertain.jupiter.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Database connection that is owned by the {@link DatabaseTestExtension}.
+ *
+ * The connection is opened with a transaction and a save point. All changes are rolled back
+ * when the connection is closed. Connections for a {@link ReadOnlyDatabaseTest} do not set a save
+ * point and roll back the whole transaction.
+ */
+final class ManagedDatabaseConnection implements DatabaseTestConnection {
+    final String name;
+    final DatabaseConnectionConfig configuration;
+    final Connection physicalConnection;
+    final Connection uninstrumentedConnection;
+    final Connection connection;
+    final Connection fixtureConnection;
+    final Savepoint savePoint;
+    final boolean readOnly;
+    private final Optional<ResourceTracker> resourceTracker;
+    private final Deque<Savepoint> fixtureSavepoints = new ArrayDeque<>();
+    private volatile boolean aborted;
+    SQLException closeError;
+
+    /**
+     * Open a connection.
+     *
+     * @param name            Name of the connection.
+     * @param configuration   Configuration to open the connection with.
+     * @param listener        Listener that is notified of statements executed on the
+     *                        {@link #getConnection() connection} given to the test.
+     * @param fixtureListener Listener that is notified of statements executed on the
+     *                        {@link #getFixtureConnection() fixture connection}.
+     * @param recording       Recording to record the test statements to or replay them from.
+     * @param readOnly        Read only settings if the test does not write to the database.
+     * @param resourceTracker Tracker for the statements and result sets opened on the
+     *                        {@link #getConnection() connection} given to the test.
+     * @throws SQLException If a database access error occurs.
+     */
+    ManagedDatabaseConnection(
+            final String name,
+            final DatabaseConnectionConfig configuration,
+            final Optional<StatementListener> listener,
+            final Optional<StatementListener> fixtureListener,
+            final Optional<JdbcRecording> recording,
+            final Optional<ReadOnlyDatabaseTest> readOnly,
+            final Optional<ResourceTracker> resourceTracker
+    ) throws SQLException {
+        this.name = name;
+        this.configuration = configuration;
+        this.readOnly = readOnly.isPresent();
+        this.resourceTracker = resourceTracker;
+
+        final Object acquireEvent = DatabaseEvents.beginConnectionAcquire();
+        this.physicalConnection = recording.isPresent()
+                ? recording.get().openConnection(configuration)
+                : configuration.createConnection();
+        DatabaseEvents.endConnectionAcquire(acquireEvent, name, configuration.getUrl());
+
+        this.uninstrumentedConnection = recording
+                .map(r -> r.wrapPhysicalConnection(name, physicalConnection))
+                .orElse(physicalConnection);
+        final Connection instrumentedConnection = listener
+                .map(l -> InstrumentedConnection.wrap(uninstrumentedConnection, name, false, l))
+                .orElse(uninstrumentedConnection);
+
+        final Connection recordingConnection = recording
+                .map(r -> r.wrapTestConnection(name, instrumentedConnection))
+                .orElse(instrumentedConnection);
+
+        final Connection readOnlyConnection = readOnly.filter(ReadOnlyDatabaseTest::rejectWrites).isPresent()
+                ? ReadOnlyConnection.wrap(recordingConnection, name)
+                : recordingConnection;
+
+        this.connection = resourceTracker
+                .map(t -> t.wrap(readOnlyConnection))
+                .orElse(readOnlyConnection);
+        this.fixtureConnection = fixtureListener
+                .map(l -> InstrumentedConnection.wrap(physicalConnection, name, true, l))
+                .orElse(physicalConnection);
+
+        physicalConnection.setAutoCommit(false);
+
+        if (this.readOnly) {
+            // The transaction is rolled back on close, so there is nothing for a save point to do
+            this.savePoint = null;
+            return;
+        }
+
+        final Object savepointEvent = DatabaseEvents.beginSavepoint();
+        this.savePoint = physicalConnection.setSavepoint("test" + UUID.randomUUID().toString().replace("-", ""));
+        DatabaseEvents.endConnectionEvent(savepointEvent, name);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public DatabaseConnectionConfig getConfig() {
+        return configuration;
+    }
+
+    @Override
+    public Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Connection used to execute fixture SQL.
+     *
+     * This shares the transaction with the {@link #getConnection() connection} given to the test,
+     * but statements are reported to a separate listener so they are not attributed to the test.
+     */
+    Connection getFixtureConnection() {
+        return fixtureConnection;
+    }
+
+    /**
+     * Get the statements and result sets the test left open, if they are tracked.
+     *
+     * @return Where each open statement or result set was created.
+     */
+    List<Throwable> takeOpenResources() {
+        return resourceTracker
+                .map(ResourceTracker::takeOpenResources)
+                .orElse(Collections.emptyList());
+    }
+
+    /**
+     * Mark a {@link ReadOnlyDatabaseTest read only} connection read only, once the fixtures are
+     * applied.
+     *
+     * Some drivers do not allow the read only mode to change in a transaction. Those connections
+     * are left as they are and only the statements are checked.
+     */
+    void enterReadOnly() {
+        if (!readOnly) {
+            return;
+        }
+
+        try {
+            physicalConnection.setReadOnly(true);
+        } catch (final SQLException ex) {
+            // Not supported in a transaction by this driver
+        }
+    }
+
+    /**
+     * Set a save point on top of the fixtures applied so far.
+     *
+     * A connection that is shared by tests keeps a stack of save points, one for each level of
+     * fixtures, so a test only rolls back its own changes and the next group of tests only
+     * rolls back the fixtures it does not share.
+     */
+    void pushSavepoint() throws SQLException {
+        final Object savepointEvent = DatabaseEvents.beginSavepoint();
+        fixtureSavepoints.push(physicalConnection.setSavepoint());
+        DatabaseEvents.endConnectionEvent(savepointEvent, name);
+    }
+
+    /**
+     * Roll back to the newest save point, which stays set.
+     */
+    void rollbackToSavepoint() throws SQLException {
+        final Object rollbackEvent = DatabaseEvents.beginRollback();
+        physicalConnection.rollback(fixtureSavepoints.element());
+        DatabaseEvents.endConnectionEvent(rollbackEvent, name);
+    }
+
+    /**
+     * Roll back to and remove the newest save point.
+     */
+    void popSavepoint() throws SQLException {
+        rollbackToSavepoint();
+        physicalConnection.releaseSavepoint(fixtureSavepoints.pop());
+    }
+
+    /**
+     * Mark the connection as aborted if it is one of the given connections, as seen by the
+     * statement listeners. Closing an aborted connection skips the rollback, since the database
+     * already ended the transaction.
+     *
+     * @param abortedConnections Connections that were aborted.
+     */
+    void markAborted(final Set<Connection> abortedConnections) {
+        if (abortedConnections.contains(physicalConnection) || abortedConnections.contains(uninstrumentedConnection)) {
+            aborted = true;
+        }
+    }
+
+    boolean isAborted() {
+        return aborted;
+    }
+
+    boolean close() {
+        if (aborted) {
+            return true;
+        }
+
+        try {
+            try {
+                final Object rollbackEvent = DatabaseEvents.beginRollback();
+
+                if (savePoint != null) {
+                    physicalConnection.rollback(savePoint);
+                    physicalConnection.releaseSavepoint(savePoint);
+                } else {
+                    physicalConnection.rollback();
+                }
+
+                DatabaseEvents.endConnectionEvent(rollbackEvent, name);
+            } finally {
+                final Object closeEvent = DatabaseEvents.beginClose();
+                physicalConnection.close();
+                DatabaseEvents.endConnectionEvent(closeEvent, name);
+            }
+        } catch (final SQLException ex) {
+            this.closeError = ex;
+        }
+
+        return this.closeError == null;
+    }
+}
@@ -0,0 +1,26 @@
+package com.mostlycertain.jupiter.db;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fail the test if the test body executes more than the given number of SQL statements.
+ *
+ * Statements executed on injected connections are counted. Each statement in a batch counts
+ * separately. Statements executed by {@link InitializeSql} and {@link FinalizeSql} and in
+ * {@code @BeforeEach} methods are not counted.
+ *
+ * The annotation on the test method takes precedence over the annotation on the test class.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+public @interface MaxQueries {
+    /**
+     * Maximum number of statements the test may execute.
+     */
+    int value();
+}
@@ -0,0 +1,26 @@
+package com.mostlycertain.jupiter.db;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fail the test if the test body sends SQL to the database more than the given number of times.
+ *
+ * Unlike {@link MaxQueries}, a batch execution counts as a single round trip. Statements
+ * executed by {@link InitializeSql} and {@link FinalizeSql} and in {@code @BeforeEach} methods
+ * are not counted.
+ *
+ * The annotation on the test method takes precedence over the annotation on the test class.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+public @interface MaxRoundTrips {
+    /**
+     * Maximum number of round trips the test may make.
+     */
+    int value();
+}
@@ -0,0 +1,264 @@
+package com.mostlycertain.jupiter.db;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link DataSource} that hands out views of a single test connection.
+ *
+ * Code under test can open and close connections as it would with a pool, but every connection
+ * shares the test transaction, so all changes are rolled back with the test. The views emulate a
+ * pooled connection:
+ * <ul>
+ *     <li>{@code close} only closes the view.</li>
+ *     <li>{@code commit} never commits the test transaction.</li>
+ *     <li>With auto-commit disabled, a save point is set before the first statement of each
+ *     transaction, and {@code rollback} rolls back to it.</li>
+ *     <li>Statements, result sets and metadata return the view from {@code getConnection}.</li>
+ * </ul>
+ *
+ * The transactions of the views are nested in the order they started. A committed transaction
+ * keeps its save point until the transactions started before it complete, since releasing a save
+ * point also releases the later ones. Rolling back a transaction also rolls back the transactions
+ * of other views that started after it, and their {@code commit} then fails.
+ */
+final class PinnedDataSource implements InvocationHandler {
+    private final Connection connection;
+
+    /**
+     * Open transactions of the views, in the order they started.
+     */
+    private final List<Transaction> transactions = new ArrayList<>();
+
+    private PinnedDataSource(final Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Create a data source.
+     *
+     * @param connection Test connection to share.
+     * @return Data source.
+     */
+    static DataSource create(final Connection connection) {
+        return newProxy(DataSource.class, new PinnedDataSource(connection));
+    }
+
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "PinnedDataSource[" + connection + "]";
+            case "getConnection":
+                return new ConnectionView().proxy;
+            case "getLoginTimeout":
+                return 0;
+            case "getLogWriter":
+            case "setLogWriter":
+            case "setLoginTimeout":
+                return null;
+            case "isWrapperFor":
+                return false;
+            default:
+                throw new SQLFeatureNotSupportedException(method.getName());
+        }
+    }
+
+    private static <T> T newProxy(final Class<T> type, final InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(
+                PinnedDataSource.class.getClassLoader(),
+                new Class<?>[]{type},
+                handler));
+    }
+
+    /**
+     * Release the save points of committed transactions that are not nested in an open one.
+     */
+    private void releaseCommitted() throws SQLException {
+        while (!transactions.isEmpty() && transactions.get(transactions.size() - 1).committed) {
+            releaseSavepoint(transactions.remove(transactions.size() - 1).savepoint);
+        }
+    }
+
+    private void releaseSavepoint(final Savepoint savepoint) throws SQLException {
+        try {
+            connection.releaseSavepoint(savepoint);
+        } catch (final SQLFeatureNotSupportedException ex) {
+            // The save point is released with the test transaction
+        }
+    }
+
+    /**
+     * Transaction of a view, from its save point until it is committed or rolled back.
+     */
+    private static final class Transaction {
+        final ConnectionView view;
+        final Savepoint savepoint;
+        boolean committed;
+
+        Transaction(final ConnectionView view, final Savepoint savepoint) {
+            this.view = view;
+            this.savepoint = savepoint;
+        }
+    }
+
+    private final class ConnectionView extends DelegatingHandler {
+        final Connection proxy = newProxy(Connection.class, this);
+        private boolean closed;
+        private boolean autoCommit = true;
+        private Transaction transaction;
+
+        /**
+         * True if the transaction of the view was rolled back by a view that started before it.
+         */
+        private boolean rolledBack;
+
+        ConnectionView() {
+            super(connection);
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                case "hashCode":
+                    return super.invoke(proxy, method, args);
+                case "toString":
+                    return "ConnectionView[" + connection + "]";
+                case "isClosed":
+                    return closed;
+                case "close":
+                    if (!closed) {
+                        // Like a pool, discard the work of an open transaction
+                        rollback();
+                        closed = true;
+                    }
+                    return null;
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("Connection is closed");
+            }
+
+            synchronized (PinnedDataSource.this) {
+                switch (method.getName()) {
+                    case "getAutoCommit":
+                        return autoCommit;
+                    case "setAutoCommit":
+                        // Changing the auto-commit mode commits the current transaction
+                        commit();
+                        autoCommit = (Boolean) args[0];
+                        return null;
+                    case "commit":
+                        commit();
+                        return null;
+                    case "rollback":
+                        if (args == null) {
+                            rollback();
+                            return null;
+                        }
+                        return invokeDelegate(method, args);
+                    case "createStatement":
+                    case "prepareStatement":
+                    case "prepareCall":
+                        if (!autoCommit && transaction == null) {
+                            transaction = new Transaction(this, connection.setSavepoint());
+                            transactions.add(transaction);
+                            rolledBack = false;
+                        }
+                        return wrap(method.getReturnType(), invokeDelegate(method, args));
+                    case "getMetaData":
+                        return wrap(method.getReturnType(), invokeDelegate(method, args));
+                    default:
+                        return invokeDelegate(method, args);
+                }
+            }
+        }
+
+        private void commit() throws SQLException {
+            if (rolledBack) {
+                rolledBack = false;
+                throw new SQLException("Transaction was rolled back by another connection of the data source");
+            }
+
+            if (transaction != null) {
+                transaction.committed = true;
+                transaction = null;
+                releaseCommitted();
+            }
+        }
+
+        private void rollback() throws SQLException {
+            synchronized (PinnedDataSource.this) {
+                rolledBack = false;
+
+                if (transaction == null) {
+                    return;
+                }
+
+                final int index = transactions.indexOf(transaction);
+                final Savepoint savepoint = transaction.savepoint;
+
+                connection.rollback(savepoint);
+
+                // The transactions started after this one are rolled back with it
+                for (final Transaction later : transactions.subList(index + 1, transactions.size())) {
+                    if (!later.committed) {
+                        later.view.transaction = null;
+                        later.view.rolledBack = true;
+                    }
+                }
+
+                transactions.subList(index, transactions.size()).clear();
+                transaction = null;
+                releaseSavepoint(savepoint);
+            }
+        }
+
+        /**
+         * Wrap an object returned by the connection, so its {@code getConnection} returns the view.
+         */
+        private Object wrap(final Class<?> type, final Object value) {
+            if (value == null
+                    || !(Statement.class.isAssignableFrom(type)
+                    || ResultSet.class.isAssignableFrom(type)
+                    || DatabaseMetaData.class.isAssignableFrom(type))) {
+                return value;
+            }
+
+            return newProxy(type, new DelegatingHandler(value) {
+                @Override
+                public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+                    if (method.getReturnType() == Connection.class) {
+                        return ConnectionView.this.proxy;
+                    }
+
+                    switch (method.getName()) {
+                        case "equals":
+                        case "hashCode":
+                            return super.invoke(proxy, method, args);
+                        default:
+                            return wrap(method.getReturnType(), invokeDelegate(method, args));
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.mostlycertain.jupiter.db;
+
+import org.opentest4j.AssertionFailedError;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.lang.String.format;
+
+/**
+ * Counts the statements executed by a test body and enforces the {@link MaxQueries} and
+ * {@link MaxRoundTrips} limits.
+ */
+final class QueryCounter implements StatementListener {
+    private static final int UNLIMITED = -1;
+
+    private final int maxQueries;
+    private final int maxRoundTrips;
+    private final Map<String, Integer> statementCounts = new LinkedHashMap<>();
+    private int queries;
+    private int roundTrips;
+
+    QueryCounter(final int maxQueries, final int maxRoundTrips) {
+        this.maxQueries = maxQueries;
+        this.maxRoundTrips = maxRoundTrips;
+    }
+
+    /**
+     * Read the {@link MaxQueries} and {@link MaxRoundTrips} annotations that apply to a test
+     * method.
+     *
+     * @param testClass  Unit test class, which may be a subclass of the class that declares the
+     *                   test method.
+     * @param testMethod Unit test method.
+     * @return Query counter or {@link Optional#empty() empty} if the test has no limits.
+     */
+    static Optional<QueryCounter> readAnnotations(final Class<?> testClass, final Method testMethod) {
+        final int maxQueries = limit(
+                testMethod.getAnnotation(MaxQueries.class),
+                testClass.getAnnotation(MaxQueries.class));
+        final int maxRoundTrips = limit(
+                testMethod.getAnnotation(MaxRoundTrips.class),
+                testClass.getAnnotation(MaxRoundTrips.class));
+
+        if (maxQueries == UNLIMITED && maxRoundTrips == UNLIMITED) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new QueryCounter(maxQueries, maxRoundTrips));
+    }
+
+    private static int limit(final MaxQueries methodLimit, final MaxQueries classLimit) {
+        return methodLimit != null ? methodLimit.value() : classLimit != null ? classLimit.value() : UNLIMITED;
+    }
+
+    private static int limit(final MaxRoundTrips methodLimit, final MaxRoundTrips classLimit) {
+        return methodLimit != null ? methodLimit.value() : classLimit != null ? classLimit.value() : UNLIMITED;
+    }
+
+    @Override
+    public synchronized void statementExecuted(final StatementExecution execution) {
+        roundTrips += 1;
+        queries += execution.getStatementCount();
+
+        for (final String sql : execution.getSql()) {
+            statementCounts.merge(sql.trim(), 1, Integer::sum);
+        }
+    }
+
+    synchronized int getQueries() {
+        return queries;
+    }
+
+    synchronized int getRoundTrips() {
+        return roundTrips;
+    }
+
+    /**
+     * Verify the number of statements executed is within the limits.
+     *
+     * @throws AssertionFailedError If a limit was exceeded.
+     */
+    synchronized void verify() {
+        final List<String> violations = new ArrayList<>();
+
+        if (maxQueries != UNLIMITED && queries > maxQueries) {
+            violations.add(format("executed %d queries, expected at most %d", queries, maxQueries));
+        }
+
+        if (maxRoundTrips != UNLIMITED && roundTrips > maxRoundTrips) {
+            violations.add(format("made %d round trips, expected at most %d", roundTrips, maxRoundTrips));
+        }
+
+        if (violations.isEmpty()) {
+            return;
+        }
+
+        final StringBuilder message = new StringBuilder("Test ")
+                .append(String.join(" and ", violations))
+                .append(':');
+
+        statementCounts.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .forEach(e -> message.append(format("%n  %4d x %s", e.getValue(), e.getKey())));
+
+        throw new AssertionFailedError(message.toString());
+    }
+}
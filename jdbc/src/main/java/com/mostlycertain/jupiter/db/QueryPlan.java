@@ -0,0 +1,45 @@
+package com.mostlycertain.jupiter.db;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Execution plan of a statement, as reported by a {@link DatabaseDialect}.
+ */
+public final class QueryPlan {
+    private final String text;
+    private final Set<String> fullScanTables;
+
+    /**
+     * @param text           Plan as reported by the database.
+     * @param fullScanTables Names of the tables the plan reads with a full table scan.
+     */
+    public QueryPlan(final String text, final Set<String> fullScanTables) {
+        this.text = requireNonNull(text);
+        this.fullScanTables = Collections.unmodifiableSet(new LinkedHashSet<>(fullScanTables));
+    }
+
+    /**
+     * Plan as reported by the database.
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Names of the tables the plan reads with a full table scan.
+     *
+     * The names are not qualified with the schema name.
+     */
+    public Set<String> getFullScanTables() {
+        return fullScanTables;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -0,0 +1,195 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.opentest4j.AssertionFailedError;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static java.lang.String.format;
+
+/**
+ * Captures the execution plan of each distinct statement executed by a test.
+ */
+final class QueryPlanCapture implements StatementListener {
+    private final Optional<Set<String>> indexedTables;
+    private final Map<String, String> plans = new LinkedHashMap<>();
+    private final Map<String, Set<String>> fullScans = new LinkedHashMap<>();
+    private final Map<Connection, Optional<DatabaseDialect>> dialects = new IdentityHashMap<>();
+
+    /**
+     * @param indexedTables Tables that must not be scanned, empty set for all tables, or
+     *                      {@link Optional#empty() empty} to not check the plans.
+     */
+    QueryPlanCapture(final Optional<Set<String>> indexedTables) {
+        this.indexedTables = indexedTables.map(tables -> tables.stream()
+                .map(t -> t.toUpperCase(Locale.ROOT))
+                .collect(Collectors.toSet()));
+    }
+
+    /**
+     * Read the {@link CaptureQueryPlans} and {@link ExpectIndexUsage} annotations that apply to a
+     * test method.
+     *
+     * @param testClass  Unit test class, which may be a subclass of the class that declares the
+     *                   test method.
+     * @param testMethod Unit test method.
+     * @return Plan capture or {@link Optional#empty() empty} if plan capture is not enabled.
+     */
+    static Optional<QueryPlanCapture> readAnnotations(final Class<?> testClass, final Method testMethod) {
+        ExpectIndexUsage expectIndexUsage = testMethod.getAnnotation(ExpectIndexUsage.class);
+
+        if (expectIndexUsage == null) {
+            expectIndexUsage = testClass.getAnnotation(ExpectIndexUsage.class);
+        }
+
+        if (expectIndexUsage != null) {
+            return Optional.of(new QueryPlanCapture(Optional.of(
+                    Arrays.stream(expectIndexUsage.tables()).collect(Collectors.toSet()))));
+        }
+
+        if (testMethod.isAnnotationPresent(CaptureQueryPlans.class)
+                || testClass.isAnnotationPresent(CaptureQueryPlans.class)
+                || Boolean.getBoolean("jupiterdb.queryPlans")) {
+            return Optional.of(new QueryPlanCapture(Optional.empty()));
+        }
+
+        return Optional.empty();
+    }
+
+    @Override
+    public synchronized void statementExecuted(final StatementExecution execution) {
+        if (execution.isBatch() || execution.getConnection() == null) {
+            return;
+        }
+
+        final String sql = execution.getSql().get(0);
+
+        if (plans.containsKey(sql)) {
+            return;
+        }
+
+        final Optional<List<Object>> bindValues = positionalBindValues(execution.getBindValues());
+
+        if (!bindValues.isPresent()) {
+            return;
+        }
+
+        try {
+            final Optional<QueryPlan> plan = dialect(execution.getConnection())
+                    .flatMap(d -> explain(d, execution.getConnection(), sql, bindValues.get()));
+
+            if (plan.isPresent()) {
+                plans.put(sql, plan.get().getText());
+                fullScans.put(sql, plan.get().getFullScanTables());
+            }
+        } catch (final SQLException ex) {
+            plans.put(sql, "Error explaining statement: " + ex);
+        }
+    }
+
+    private Optional<DatabaseDialect> dialect(final Connection connection) throws SQLException {
+        Optional<DatabaseDialect> dialect = dialects.get(connection);
+
+        if (dialect == null) {
+            dialect = DatabaseDialects.forConnection(connection);
+            dialects.put(connection, dialect);
+        }
+
+        return dialect;
+    }
+
+    private static Optional<QueryPlan> explain(
+            final DatabaseDialect dialect,
+            final Connection connection,
+            final String sql,
+            final List<Object> bindValues
+    ) {
+        try {
+            return dialect.explain(connection, sql, bindValues);
+        } catch (final SQLException ex) {
+            return Optional.of(new QueryPlan("Error explaining statement: " + ex, Collections.emptySet()));
+        }
+    }
+
+    /**
+     * Convert bind values keyed by parameter index to a list.
+     *
+     * Returns empty if any parameter was bound by name, since the statement can not be
+     * explained in that case.
+     */
+    private static Optional<List<Object>> positionalBindValues(final Map<Object, Object> bindValues) {
+        final List<Object> values = new ArrayList<>();
+
+        for (final Map.Entry<Object, Object> entry : bindValues.entrySet()) {
+            if (!(entry.getKey() instanceof Integer)) {
+                return Optional.empty();
+            }
+
+            final int index = (Integer) entry.getKey();
+
+            while (values.size() < index) {
+                values.add(null);
+            }
+
+            values.set(index - 1, entry.getValue());
+        }
+
+        return Optional.of(values);
+    }
+
+    /**
+     * Publish the captured plans as test report entries.
+     *
+     * @param context Context to publish the report entries to.
+     */
+    synchronized void publish(final ExtensionContext context) {
+        int index = 1;
+
+        for (final Map.Entry<String, String> plan : plans.entrySet()) {
+            context.publishReportEntry(
+                    "queryPlan." + index,
+                    format("%s%n%s", plan.getKey().trim(), plan.getValue()));
+            index += 1;
+        }
+    }
+
+    /**
+     * Verify no statement scanned a table listed in {@link ExpectIndexUsage}.
+     *
+     * @throws AssertionFailedError If a statement scanned a table.
+     */
+    synchronized void verify() {
+        if (!indexedTables.isPresent()) {
+            return;
+        }
+
+        final StringBuilder message = new StringBuilder();
+
+        fullScans.forEach((sql, tables) -> {
+            final List<String> scanned = tables.stream()
+                    .filter(t -> indexedTables.get().isEmpty() || indexedTables.get().contains(t))
+                    .collect(Collectors.toList());
+
+            if (!scanned.isEmpty()) {
+                message.append(format("%n  %s scanned %s%n    plan: %s", sql.trim(), scanned, plans.get(sql)));
+            }
+        });
+
+        if (message.length() > 0) {
+            throw new AssertionFailedError("Statements read tables without using an index:" + message);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.mostlycertain.jupiter.db;
+
+import org.opentest4j.AssertionFailedError;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import static java.lang.String.format;
+
+/**
+ * Connection proxy for {@link ReadOnlyDatabaseTest} that rejects statements that write to the
+ * database before they are sent.
+ */
+final class ReadOnlyConnection extends DelegatingHandler {
+    private static final Set<String> WRITE_KEYWORDS = new HashSet<>(Arrays.asList(
+            "INSERT", "UPDATE", "DELETE", "MERGE", "UPSERT", "REPLACE", "TRUNCATE",
+            "CREATE", "ALTER", "DROP", "RENAME", "GRANT", "REVOKE", "COMMENT", "COPY",
+            "CALL", "EXEC", "EXECUTE"));
+
+    private final String connectionName;
+    private final Connection proxy;
+
+    private ReadOnlyConnection(final Connection connection, final String connectionName) {
+        super(connection);
+        this.connectionName = connectionName;
+        this.proxy = newProxy(Connection.class, this);
+    }
+
+    /**
+     * Wrap a connection.
+     *
+     * @param connection     Connection to wrap.
+     * @param connectionName Name of the connection, used in error messages.
+     * @return Connection that rejects writes.
+     */
+    static Connection wrap(final Connection connection, final String connectionName) {
+        return new ReadOnlyConnection(connection, connectionName).proxy;
+    }
+
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "createStatement":
+                return newProxy(Statement.class, new ReadOnlyStatement((Statement) invokeDelegate(method, args)));
+            case "prepareStatement":
+            case "prepareCall":
+            case "nativeSQL":
+                checkStatement((String) args[0]);
+                return invokeDelegate(method, args);
+            case "commit":
+            case "setAutoCommit":
+                throw new AssertionFailedError(format(
+                        "%s called in a @ReadOnlyDatabaseTest: connection=%s",
+                        method.getName(),
+                        connectionName));
+            case "rollback":
+                if (args == null) {
+                    throw new AssertionFailedError(format(
+                            "rollback called in a @ReadOnlyDatabaseTest: connection=%s",
+                            connectionName));
+                }
+                return invokeDelegate(method, args);
+            default:
+                return super.invoke(proxy, method, args);
+        }
+    }
+
+    private void checkStatement(final String sql) {
+        if (isWrite(sql)) {
+            throw new AssertionFailedError(format(
+                    "Write statement executed in a @ReadOnlyDatabaseTest: connection=%s sql=%s",
+                    connectionName,
+                    sql));
+        }
+    }
+
+    /**
+     * Check if a statement writes to the database, based on its leading keyword.
+     *
+     * Common table expressions are writes if they contain a data modifying statement, and queries
+     * are writes if they select {@code INTO} a table, file or variable. Procedure calls are
+     * treated as writes, since what they do is not known. Functions called by a query that
+     * write to the database are not detected.
+     */
+    static boolean isWrite(final String sql) {
+        final String[] words = sql
+                .replaceAll("(?s)/\\*.*?\\*/|--[^\n]*|'(?:[^']|'')*'|\"[^\"]*\"", " ")
+                .toUpperCase(Locale.ROOT)
+                .split("[^A-Z_]+");
+        String first = "";
+        String previous = "";
+
+        for (final String word : words) {
+            if (word.isEmpty()) {
+                continue;
+            }
+
+            if (first.isEmpty()) {
+                first = word;
+
+                if (!word.equals("WITH") && !word.equals("SELECT")) {
+                    return WRITE_KEYWORDS.contains(word);
+                }
+            } else if (word.equals("INTO")) {
+                return true;
+            } else if (first.equals("WITH")
+                    && (word.equals("INSERT") || word.equals("DELETE") || word.equals("MERGE")
+                    || (word.equals("UPDATE") && !previous.equals("FOR") && !previous.equals("KEY")))) {
+                return true;
+            }
+
+            previous = word;
+        }
+
+        return false;
+    }
+
+    private static <T> T newProxy(final Class<T> type, final InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(
+                ReadOnlyConnection.class.getClassLoader(),
+                new Class<?>[]{type},
+                handler));
+    }
+
+    private final class ReadOnlyStatement extends DelegatingHandler {
+        ReadOnlyStatement(final Statement statement) {
+            super(statement);
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "getConnection":
+                    return ReadOnlyConnection.this.proxy;
+                case "addBatch":
+                case "execute":
+                case "executeQuery":
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                    checkStatement((String) args[0]);
+                    return invokeDelegate(method, args);
+                default:
+                    return super.invoke(proxy, method, args);
+            }
+        }
+    }
+}
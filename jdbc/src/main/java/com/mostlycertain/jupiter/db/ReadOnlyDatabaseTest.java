@@ -0,0 +1,37 @@
+package com.mostlycertain.jupiter.db;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Tests that only read the fixture data.
+ *
+ * The connection is marked {@link java.sql.Connection#setReadOnly(boolean) read only} after the
+ * fixtures are applied, and no save point is set for the test unless {@link #rejectWrites()} is
+ * false.
+ *
+ * On the test class, each connection is opened and the class fixtures are applied once, then the
+ * connection is shared by the tests in the class and rolled back after the last test. With
+ * {@link #rejectWrites()} false, the changes of each test are also rolled back to a save point
+ * after the test, so writes do not leak into the next test. A test that
+ * has its own {@link InitializeSql} or {@link FinalizeSql}, its own {@code @ReadOnlyDatabaseTest},
+ * or a {@link DatabaseRecording}, gets a connection of its own. A shared connection is discarded
+ * when a test fails.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+public @interface ReadOnlyDatabaseTest {
+    /**
+     * Fail the test as soon as it executes a statement that writes to the database.
+     *
+     * Statements are rejected by their leading keyword before they are sent to the database.
+     * Queries that select {@code INTO} a table and procedure calls are rejected, but a function
+     * called by a query that writes to the database is not detected. Transaction control ({@code commit}, {@code rollback} and {@code setAutoCommit}) is rejected
+     * too, since it would change or discard the shared fixture data.
+     */
+    boolean rejectWrites() default true;
+}
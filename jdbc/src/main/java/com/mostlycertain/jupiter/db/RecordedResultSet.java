@@ -0,0 +1,253 @@
+package com.mostlycertain.jupiter.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * In-memory, forward only {@link ResultSet} over the rows of a {@link RecordedStatement.ResultTable}.
+ *
+ * Values are converted to the type requested by the getter, so a value read with
+ * {@code getObject} while recording can be read back with {@code getLong}, {@code getString} and
+ * so on. Calls that are not supported by a recording throw {@link SQLFeatureNotSupportedException}.
+ */
+final class RecordedResultSet implements InvocationHandler {
+    private final RecordedStatement.ResultTable table;
+    private final Object statement;
+    private int row = -1;
+    private boolean wasNull;
+    private boolean closed;
+
+    private RecordedResultSet(final RecordedStatement.ResultTable table, final Object statement) {
+        this.table = table;
+        this.statement = statement;
+    }
+
+    /**
+     * Create a result set.
+     *
+     * @param table     Rows to return.
+     * @param statement Statement returned by {@link ResultSet#getStatement()}.
+     * @return Result set.
+     */
+    static ResultSet create(final RecordedStatement.ResultTable table, final Object statement) {
+        return (ResultSet) Proxy.newProxyInstance(
+                RecordedResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                new RecordedResultSet(table, statement));
+    }
+
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        final String name = method.getName();
+
+        switch (name) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "RecordedResultSet";
+            case "next":
+                row += 1;
+                return row < table.rows.size();
+            case "close":
+                closed = true;
+                return null;
+            case "isClosed":
+                return closed;
+            case "wasNull":
+                return wasNull;
+            case "getStatement":
+                return statement;
+            case "getMetaData":
+                return metaData();
+            case "findColumn":
+                return findColumn((String) args[0]);
+            case "getRow":
+                return row < table.rows.size() ? row + 1 : 0;
+            case "isBeforeFirst":
+                return row < 0 && !table.rows.isEmpty();
+            case "isAfterLast":
+                return row >= table.rows.size() && !table.rows.isEmpty();
+            case "getType":
+                return ResultSet.TYPE_FORWARD_ONLY;
+            case "getConcurrency":
+                return ResultSet.CONCUR_READ_ONLY;
+            case "getWarnings":
+                return null;
+            case "clearWarnings":
+            case "setFetchSize":
+            case "setFetchDirection":
+                return null;
+            case "getFetchSize":
+                return 0;
+            case "getFetchDirection":
+                return ResultSet.FETCH_FORWARD;
+            case "unwrap":
+                throw new SQLException("Not a wrapper for " + args[0]);
+            case "isWrapperFor":
+                return false;
+            default:
+                if (name.startsWith("get") && args != null && args.length >= 1) {
+                    final Object value = value(args[0]);
+                    wasNull = value == null;
+
+                    final Class<?> type = name.equals("getObject") && args.length == 2 && args[1] instanceof Class
+                            ? (Class<?>) args[1]
+                            : method.getReturnType();
+
+                    return convert(value, type);
+                }
+
+                throw new SQLFeatureNotSupportedException("Not supported by a recorded result set: " + name);
+        }
+    }
+
+    private Object value(final Object column) throws SQLException {
+        if (row < 0 || row >= table.rows.size()) {
+            throw new SQLException("Result set is not positioned on a row");
+        }
+
+        final int index = column instanceof String ? findColumn((String) column) : (Integer) column;
+
+        if (index < 1 || index > table.columns.size()) {
+            throw new SQLException("Invalid column index: " + index);
+        }
+
+        return table.rows.get(row)[index - 1];
+    }
+
+    private int findColumn(final String label) throws SQLException {
+        for (int i = 0; i < table.columns.size(); i += 1) {
+            if (table.columns.get(i).label.equalsIgnoreCase(label)) {
+                return i + 1;
+            }
+        }
+
+        throw new SQLException("Column not found: " + label);
+    }
+
+    private static Object convert(final Object value, final Class<?> type) throws SQLException {
+        if (type.isPrimitive() && value == null) {
+            return type == boolean.class ? (Object) false : convert(0, type);
+        } else if (value == null || type == Object.class || type.isInstance(value)) {
+            return value;
+        } else if (type == String.class) {
+            return value.toString();
+        } else if (type == boolean.class || type == Boolean.class) {
+            return value instanceof Number ? ((Number) value).intValue() != 0 : Boolean.valueOf(value.toString());
+        } else if (type == int.class || type == Integer.class) {
+            return number(value).intValue();
+        } else if (type == long.class || type == Long.class) {
+            return number(value).longValue();
+        } else if (type == short.class || type == Short.class) {
+            return number(value).shortValue();
+        } else if (type == byte.class || type == Byte.class) {
+            return number(value).byteValue();
+        } else if (type == double.class || type == Double.class) {
+            return number(value).doubleValue();
+        } else if (type == float.class || type == Float.class) {
+            return number(value).floatValue();
+        } else if (type == BigDecimal.class) {
+            return number(value);
+        } else if (type == BigInteger.class) {
+            return number(value).toBigInteger();
+        } else if (type == Timestamp.class) {
+            return value instanceof LocalDateTime ? Timestamp.valueOf((LocalDateTime) value) : Timestamp.valueOf(value.toString());
+        } else if (type == Date.class) {
+            return value instanceof LocalDate ? Date.valueOf((LocalDate) value) : Date.valueOf(value.toString());
+        } else if (type == Time.class) {
+            return value instanceof LocalTime ? Time.valueOf((LocalTime) value) : Time.valueOf(value.toString());
+        } else if (type == LocalDateTime.class) {
+            return value instanceof Timestamp ? ((Timestamp) value).toLocalDateTime() : LocalDateTime.parse(value.toString());
+        } else if (type == LocalDate.class) {
+            return value instanceof Date ? ((Date) value).toLocalDate() : LocalDate.parse(value.toString());
+        } else if (type == LocalTime.class) {
+            return value instanceof Time ? ((Time) value).toLocalTime() : LocalTime.parse(value.toString());
+        } else if (type == OffsetDateTime.class) {
+            return OffsetDateTime.parse(value.toString());
+        } else if (type == UUID.class) {
+            return UUID.fromString(value.toString());
+        }
+
+        throw new SQLFeatureNotSupportedException(
+                "Can not convert recorded " + value.getClass().getName() + " to " + type.getName());
+    }
+
+    private static BigDecimal number(final Object value) {
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        } else if (value instanceof BigInteger) {
+            return new BigDecimal((BigInteger) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            return BigDecimal.valueOf(((Number) value).doubleValue());
+        } else if (value instanceof Number) {
+            return BigDecimal.valueOf(((Number) value).longValue());
+        } else if (value instanceof Boolean) {
+            return (Boolean) value ? BigDecimal.ONE : BigDecimal.ZERO;
+        }
+
+        return new BigDecimal(value.toString().trim());
+    }
+
+    private ResultSetMetaData metaData() {
+        return (ResultSetMetaData) Proxy.newProxyInstance(
+                RecordedResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSetMetaData.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getColumnCount")) {
+                        return table.columns.size();
+                    }
+
+                    if (args == null || !(args[0] instanceof Integer)) {
+                        throw new SQLFeatureNotSupportedException("Not supported by a recorded result set: " + method.getName());
+                    }
+
+                    final RecordedStatement.Column column = table.columns.get((Integer) args[0] - 1);
+
+                    switch (method.getName()) {
+                        case "getColumnLabel":
+                        case "getColumnName":
+                            return column.label;
+                        case "getColumnType":
+                            return column.type;
+                        case "getColumnTypeName":
+                            return column.typeName;
+                        case "getPrecision":
+                        case "getColumnDisplaySize":
+                            return column.precision;
+                        case "getScale":
+                            return column.scale;
+                        case "getTableName":
+                        case "getSchemaName":
+                        case "getCatalogName":
+                            return "";
+                        case "getColumnClassName":
+                            return Object.class.getName();
+                        case "isNullable":
+                            return ResultSetMetaData.columnNullableUnknown;
+                        case "isSigned":
+                            return true;
+                        case "isReadOnly":
+                            return true;
+                        default:
+                            return method.getReturnType() == boolean.class ? (Object) false : null;
+                    }
+                });
+    }
+}
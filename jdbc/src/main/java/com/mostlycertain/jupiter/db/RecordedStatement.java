@@ -0,0 +1,501 @@
+package com.mostlycertain.jupiter.db;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+import static java.lang.String.format;
+
+/**
+ * Statement executed by a test and its outcome, as stored by {@link JdbcRecording}.
+ *
+ * Recordings are line based text so they can be reviewed and diffed:
+ * <pre>
+ * statement connection
+ * sql SELECT name FROM users WHERE id = ?
+ * bind i:1	i:5
+ * result
+ * column NAME	12	VARCHAR	255	0
+ * row s:bob
+ * end
+ * </pre>
+ */
+final class RecordedStatement {
+    private final String connectionName;
+    private final List<Entry> entries;
+    private boolean batch;
+    private Long updateCount;
+    private long[] batchCounts;
+    private ResultTable result;
+    private ResultTable generatedKeys;
+    private SQLException error;
+
+    RecordedStatement(final String connectionName, final boolean batch, final List<Entry> entries) {
+        this.connectionName = connectionName;
+        this.batch = batch;
+        this.entries = entries;
+    }
+
+    String getConnectionName() {
+        return connectionName;
+    }
+
+    boolean isBatch() {
+        return batch;
+    }
+
+    List<Entry> getEntries() {
+        return entries;
+    }
+
+    Long getUpdateCount() {
+        return updateCount;
+    }
+
+    void setUpdateCount(final long updateCount) {
+        this.updateCount = updateCount;
+    }
+
+    long[] getBatchCounts() {
+        return batchCounts;
+    }
+
+    void setBatchCounts(final long[] batchCounts) {
+        this.batchCounts = batchCounts;
+    }
+
+    ResultTable getResult() {
+        return result;
+    }
+
+    void setResult(final ResultTable result) {
+        this.result = result;
+    }
+
+    ResultTable getGeneratedKeys() {
+        return generatedKeys;
+    }
+
+    void setGeneratedKeys(final ResultTable generatedKeys) {
+        this.generatedKeys = generatedKeys;
+    }
+
+    SQLException getError() {
+        return error;
+    }
+
+    void setError(final SQLException error) {
+        this.error = error;
+    }
+
+    /**
+     * Describe the statement that was executed, without the outcome.
+     */
+    String describe() {
+        final List<String> lines = new ArrayList<>();
+        writeRequest(lines);
+        return String.join(System.lineSeparator(), lines);
+    }
+
+    void write(final List<String> lines) {
+        writeRequest(lines);
+
+        if (error != null) {
+            lines.add(format("error %s\t%d\t%s",
+                    escape(Objects.toString(error.getSQLState(), "")),
+                    error.getErrorCode(),
+                    escape(Objects.toString(error.getMessage(), ""))));
+        }
+
+        if (updateCount != null) {
+            lines.add("update " + updateCount);
+        }
+
+        if (batchCounts != null) {
+            final StringBuilder counts = new StringBuilder("counts");
+
+            for (final long count : batchCounts) {
+                counts.append(' ').append(count);
+            }
+
+            lines.add(counts.toString());
+        }
+
+        if (result != null) {
+            lines.add("result");
+            result.write(lines);
+        }
+
+        if (generatedKeys != null) {
+            lines.add("keys");
+            generatedKeys.write(lines);
+        }
+    }
+
+    private void writeRequest(final List<String> lines) {
+        lines.add("statement " + escape(connectionName));
+
+        if (batch) {
+            lines.add("batch");
+        }
+
+        for (final Entry entry : entries) {
+            lines.add("sql " + escape(entry.sql));
+
+            for (final Map.Entry<Object, Object> bind : entry.bindValues.entrySet()) {
+                lines.add("bind " + encode(bind.getKey()) + "\t" + encode(bind.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Parse the statements in a recording.
+     *
+     * @param lines Lines of the recording file.
+     * @return Recorded statements in execution order.
+     */
+    static List<RecordedStatement> read(final List<String> lines) {
+        final List<RecordedStatement> statements = new ArrayList<>();
+        RecordedStatement statement = null;
+        ResultTable table = null;
+
+        for (int i = 0; i < lines.size(); i += 1) {
+            final String line = lines.get(i);
+            final int space = line.indexOf(' ');
+            final String keyword = space < 0 ? line : line.substring(0, space);
+            final String value = space < 0 ? "" : line.substring(space + 1);
+
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            if (keyword.equals("statement")) {
+                statement = new RecordedStatement(unescape(value), false, new ArrayList<>());
+                statements.add(statement);
+                continue;
+            }
+
+            if (statement == null) {
+                throw new IllegalArgumentException(format("Line %d: expected statement, found: %s", i + 1, line));
+            }
+
+            switch (keyword) {
+                case "batch":
+                    statement.batch = true;
+                    break;
+                case "sql":
+                    statement.entries.add(new Entry(unescape(value), new LinkedHashMap<>()));
+                    break;
+                case "bind": {
+                    final String[] parts = value.split("\t", -1);
+                    statement.entries.get(statement.entries.size() - 1).bindValues.put(decode(parts[0]), decode(parts[1]));
+                    break;
+                }
+                case "error": {
+                    final String[] parts = value.split("\t", -1);
+                    statement.error = new SQLException(
+                            unescape(parts[2]),
+                            parts[0].isEmpty() ? null : unescape(parts[0]),
+                            Integer.parseInt(parts[1]));
+                    break;
+                }
+                case "update":
+                    statement.updateCount = Long.parseLong(value);
+                    break;
+                case "counts":
+                    statement.batchCounts = value.isEmpty()
+                            ? new long[0]
+                            : Arrays.stream(value.split(" ")).mapToLong(Long::parseLong).toArray();
+                    break;
+                case "result":
+                    table = new ResultTable();
+                    statement.result = table;
+                    break;
+                case "keys":
+                    table = new ResultTable();
+                    statement.generatedKeys = table;
+                    break;
+                case "column": {
+                    final String[] parts = value.split("\t", -1);
+                    table.columns.add(new Column(
+                            unescape(parts[0]),
+                            Integer.parseInt(parts[1]),
+                            unescape(parts[2]),
+                            Integer.parseInt(parts[3]),
+                            Integer.parseInt(parts[4])));
+                    break;
+                }
+                case "row": {
+                    final String[] parts = value.isEmpty() ? new String[0] : value.split("\t", -1);
+                    final Object[] row = new Object[parts.length];
+
+                    for (int c = 0; c < parts.length; c += 1) {
+                        row[c] = decode(parts[c]);
+                    }
+
+                    table.rows.add(row);
+                    break;
+                }
+                case "end":
+                    table = null;
+                    break;
+                default:
+                    throw new IllegalArgumentException(format("Line %d: unknown entry: %s", i + 1, line));
+            }
+        }
+
+        return statements;
+    }
+
+    /**
+     * Encode a value with its type so it can be read back as the same type.
+     *
+     * Values of types that can not be stored are encoded by class name only.
+     */
+    static String encode(final Object value) {
+        if (value == null) {
+            return "\\N";
+        } else if (value instanceof String || value instanceof Character) {
+            return "s:" + escape(value.toString());
+        } else if (value instanceof Integer) {
+            return "i:" + value;
+        } else if (value instanceof Long) {
+            return "l:" + value;
+        } else if (value instanceof Short) {
+            return "h:" + value;
+        } else if (value instanceof Byte) {
+            return "y:" + value;
+        } else if (value instanceof BigDecimal) {
+            return "n:" + ((BigDecimal) value).toPlainString();
+        } else if (value instanceof BigInteger) {
+            return "bi:" + value;
+        } else if (value instanceof Double) {
+            return "d:" + value;
+        } else if (value instanceof Float) {
+            return "f:" + value;
+        } else if (value instanceof Boolean) {
+            return "b:" + value;
+        } else if (value instanceof Timestamp) {
+            return "ts:" + value;
+        } else if (value instanceof Date) {
+            return "dt:" + value;
+        } else if (value instanceof Time) {
+            return "tm:" + value;
+        } else if (value instanceof LocalDate) {
+            return "ld:" + value;
+        } else if (value instanceof LocalTime) {
+            return "lt:" + value;
+        } else if (value instanceof LocalDateTime) {
+            return "ldt:" + value;
+        } else if (value instanceof OffsetDateTime) {
+            return "odt:" + value;
+        } else if (value instanceof UUID) {
+            return "u:" + value;
+        } else if (value instanceof byte[]) {
+            final StringBuilder hex = new StringBuilder("x:");
+
+            for (final byte b : (byte[]) value) {
+                hex.append(format("%02x", b));
+            }
+
+            return hex.toString();
+        } else {
+            return "o:" + value.getClass().getName();
+        }
+    }
+
+    static Object decode(final String encoded) {
+        if (encoded.equals("\\N")) {
+            return null;
+        }
+
+        final int colon = encoded.indexOf(':');
+        final String type = encoded.substring(0, colon);
+        final String value = encoded.substring(colon + 1);
+
+        switch (type) {
+            case "s":
+                return unescape(value);
+            case "i":
+                return Integer.valueOf(value);
+            case "l":
+                return Long.valueOf(value);
+            case "h":
+                return Short.valueOf(value);
+            case "y":
+                return Byte.valueOf(value);
+            case "n":
+                return new BigDecimal(value);
+            case "bi":
+                return new BigInteger(value);
+            case "d":
+                return Double.valueOf(value);
+            case "f":
+                return Float.valueOf(value);
+            case "b":
+                return Boolean.valueOf(value);
+            case "ts":
+                return Timestamp.valueOf(value);
+            case "dt":
+                return Date.valueOf(value);
+            case "tm":
+                return Time.valueOf(value);
+            case "ld":
+                return LocalDate.parse(value);
+            case "lt":
+                return LocalTime.parse(value);
+            case "ldt":
+                return LocalDateTime.parse(value);
+            case "odt":
+                return OffsetDateTime.parse(value);
+            case "u":
+                return UUID.fromString(value);
+            case "x": {
+                final byte[] bytes = new byte[value.length() / 2];
+
+                for (int i = 0; i < bytes.length; i += 1) {
+                    bytes[i] = (byte) Integer.parseInt(value.substring(i * 2, i * 2 + 2), 16);
+                }
+
+                return bytes;
+            }
+            default:
+                return encoded;
+        }
+    }
+
+    private static String escape(final String value) {
+        final StringBuilder escaped = new StringBuilder(value.length());
+
+        for (int i = 0; i < value.length(); i += 1) {
+            final char ch = value.charAt(i);
+
+            switch (ch) {
+                case '\\':
+                    escaped.append("\\\\");
+                    break;
+                case '\t':
+                    escaped.append("\\t");
+                    break;
+                case '\n':
+                    escaped.append("\\n");
+                    break;
+                case '\r':
+                    escaped.append("\\r");
+                    break;
+                default:
+                    escaped.append(ch);
+            }
+        }
+
+        return escaped.toString();
+    }
+
+    private static String unescape(final String value) {
+        final StringBuilder unescaped = new StringBuilder(value.length());
+
+        for (int i = 0; i < value.length(); i += 1) {
+            final char ch = value.charAt(i);
+
+            if (ch != '\\' || i == value.length() - 1) {
+                unescaped.append(ch);
+                continue;
+            }
+
+            i += 1;
+
+            switch (value.charAt(i)) {
+                case 't':
+                    unescaped.append('\t');
+                    break;
+                case 'n':
+                    unescaped.append('\n');
+                    break;
+                case 'r':
+                    unescaped.append('\r');
+                    break;
+                default:
+                    unescaped.append(value.charAt(i));
+            }
+        }
+
+        return unescaped.toString();
+    }
+
+    /**
+     * SQL text and bind values of a statement, or of one entry in a batch.
+     */
+    static final class Entry {
+        final String sql;
+        final Map<Object, Object> bindValues;
+
+        Entry(final String sql, final Map<Object, Object> bindValues) {
+            this.sql = sql;
+            this.bindValues = bindValues;
+        }
+    }
+
+    /**
+     * Rows of a result set.
+     */
+    static final class ResultTable {
+        final List<Column> columns = new ArrayList<>();
+        final List<Object[]> rows = new ArrayList<>();
+
+        private void write(final List<String> lines) {
+            for (final Column column : columns) {
+                lines.add(format("column %s\t%d\t%s\t%d\t%d",
+                        escape(column.label),
+                        column.type,
+                        escape(column.typeName),
+                        column.precision,
+                        column.scale));
+            }
+
+            for (final Object[] row : rows) {
+                final List<String> values = new ArrayList<>(row.length);
+
+                for (final Object value : row) {
+                    values.add(encode(value));
+                }
+
+                lines.add("row " + String.join("\t", values));
+            }
+
+            lines.add("end");
+        }
+    }
+
+    /**
+     * Result set column metadata.
+     */
+    static final class Column {
+        final String label;
+        final int type;
+        final String typeName;
+        final int precision;
+        final int scale;
+
+        Column(final String label, final int type, final String typeName, final int precision, final int scale) {
+            this.label = label;
+            this.type = type;
+            this.typeName = typeName;
+            this.precision = precision;
+            this.scale = scale;
+        }
+    }
+}
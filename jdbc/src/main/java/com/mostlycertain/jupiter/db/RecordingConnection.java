@@ -0,0 +1,410 @@
+package com.mostlycertain.jupiter.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Blob;
+import java.sql.CallableStatement;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Connection proxy used by {@link JdbcRecording}.
+ *
+ * There are three variants:
+ * <ul>
+ *     <li>record - passes statements through to a real connection and records them along with
+ *     their results</li>
+ *     <li>replay - serves statements from a recording without a database</li>
+ *     <li>offline - accepts every statement and returns no results, for the fixture SQL and the
+ *     test transaction while replaying</li>
+ * </ul>
+ *
+ * Result sets are always read into memory and returned as {@link RecordedResultSet}s, so a test
+ * sees the same result sets when recording and replaying.
+ */
+final class RecordingConnection implements InvocationHandler {
+    private final String connectionName;
+    private final Connection delegate;
+    private final JdbcRecording recording;
+    private final Connection proxy;
+
+    private RecordingConnection(
+            final String connectionName,
+            final Connection delegate,
+            final JdbcRecording recording
+    ) {
+        this.connectionName = connectionName;
+        this.delegate = delegate;
+        this.recording = recording;
+        this.proxy = newProxy(Connection.class, this);
+    }
+
+    static Connection record(final String connectionName, final Connection delegate, final JdbcRecording recording) {
+        return new RecordingConnection(connectionName, delegate, recording).proxy;
+    }
+
+    static Connection replay(final String connectionName, final JdbcRecording recording) {
+        return new RecordingConnection(connectionName, null, recording).proxy;
+    }
+
+    static Connection offline() {
+        return new RecordingConnection("offline", null, null).proxy;
+    }
+
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "RecordingConnection[" + connectionName + "]";
+            case "createStatement":
+                return new RecordingStatement((Statement) invokeDelegate(delegate, method, args), null, false)
+                        .newProxy(Statement.class);
+            case "prepareStatement":
+                return new RecordingStatement((Statement) invokeDelegate(delegate, method, args), (String) args[0], returnsGeneratedKeys(args))
+                        .newProxy(PreparedStatement.class);
+            case "prepareCall":
+                return new RecordingStatement((Statement) invokeDelegate(delegate, method, args), (String) args[0], false)
+                        .newProxy(CallableStatement.class);
+            default:
+                if (delegate != null) {
+                    return invokeDelegate(delegate, method, args);
+                }
+
+                return offlineCall(method);
+        }
+    }
+
+    private static Object offlineCall(final Method method) throws SQLException {
+        switch (method.getName()) {
+            case "getMetaData":
+            case "unwrap":
+                throw new SQLFeatureNotSupportedException("Not supported while replaying a recording: " + method.getName());
+            case "isValid":
+                return true;
+            default:
+                return defaultValue(method.getReturnType());
+        }
+    }
+
+    /**
+     * True if the arguments of {@code prepareStatement}, {@code execute} or {@code executeUpdate}
+     * ask for generated keys.
+     */
+    private static boolean returnsGeneratedKeys(final Object[] args) {
+        return args != null
+                && args.length == 2
+                && (Integer.valueOf(Statement.RETURN_GENERATED_KEYS).equals(args[1])
+                || args[1] instanceof int[]
+                || args[1] instanceof String[]);
+    }
+
+    private static Object defaultValue(final Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == short.class) {
+            return (short) 0;
+        } else if (type == byte.class) {
+            return (byte) 0;
+        } else if (type == double.class) {
+            return 0.0;
+        } else if (type == float.class) {
+            return 0.0f;
+        } else if (type == char.class) {
+            return (char) 0;
+        }
+
+        return null;
+    }
+
+    private static Object invokeDelegate(final Object delegate, final Method method, final Object[] args) throws Throwable {
+        if (delegate == null) {
+            return null;
+        }
+
+        try {
+            return method.invoke(delegate, args);
+        } catch (final InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private static <T> T newProxy(final Class<T> type, final InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(
+                RecordingConnection.class.getClassLoader(),
+                new Class<?>[]{type},
+                handler));
+    }
+
+    /**
+     * Read a result set into memory and close it.
+     */
+    private static RecordedStatement.ResultTable readResultSet(final ResultSet resultSet) throws SQLException {
+        final RecordedStatement.ResultTable table = new RecordedStatement.ResultTable();
+
+        if (resultSet == null) {
+            return table;
+        }
+
+        try {
+            final ResultSetMetaData metaData = resultSet.getMetaData();
+            final int columnCount = metaData.getColumnCount();
+
+            for (int i = 1; i <= columnCount; i += 1) {
+                table.columns.add(new RecordedStatement.Column(
+                        metaData.getColumnLabel(i),
+                        metaData.getColumnType(i),
+                        metaData.getColumnTypeName(i),
+                        metaData.getPrecision(i),
+                        metaData.getScale(i)));
+            }
+
+            while (resultSet.next()) {
+                final Object[] row = new Object[columnCount];
+
+                for (int i = 1; i <= columnCount; i += 1) {
+                    final Object value = resultSet.getObject(i);
+
+                    if (value instanceof Clob) {
+                        row[i - 1] = ((Clob) value).getSubString(1, (int) ((Clob) value).length());
+                    } else if (value instanceof Blob) {
+                        row[i - 1] = ((Blob) value).getBytes(1, (int) ((Blob) value).length());
+                    } else {
+                        row[i - 1] = value;
+                    }
+                }
+
+                table.rows.add(row);
+            }
+        } finally {
+            resultSet.close();
+        }
+
+        return table;
+    }
+
+    private final class RecordingStatement implements InvocationHandler {
+        private final Statement delegate;
+        private final String preparedSql;
+        private final boolean preparedForGeneratedKeys;
+        private final Map<Object, Object> bindValues = new LinkedHashMap<>();
+        private final List<RecordedStatement.Entry> batch = new ArrayList<>();
+        private Object proxy;
+        private RecordedStatement last;
+        private boolean closed;
+
+        RecordingStatement(final Statement delegate, final String preparedSql, final boolean preparedForGeneratedKeys) {
+            this.delegate = delegate;
+            this.preparedSql = preparedSql;
+            this.preparedForGeneratedKeys = preparedForGeneratedKeys;
+        }
+
+        <T extends Statement> T newProxy(final Class<T> type) {
+            final T statement = RecordingConnection.newProxy(type, this);
+            this.proxy = statement;
+            return statement;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "RecordingStatement[" + connectionName + "]";
+                case "getConnection":
+                    return RecordingConnection.this.proxy;
+                case "addBatch":
+                    batch.add(args == null
+                            ? new RecordedStatement.Entry(preparedSql, snapshotBindValues())
+                            : new RecordedStatement.Entry((String) args[0], Collections.emptyMap()));
+                    return invokeDelegate(delegate, method, args);
+                case "clearBatch":
+                    batch.clear();
+                    return invokeDelegate(delegate, method, args);
+                case "clearParameters":
+                    bindValues.clear();
+                    return invokeDelegate(delegate, method, args);
+                case "executeBatch":
+                case "executeLargeBatch": {
+                    final RecordedStatement request = new RecordedStatement(connectionName, true, new ArrayList<>(batch));
+                    batch.clear();
+                    execute(request, method, args, false);
+
+                    final long[] counts = last.getBatchCounts() == null ? new long[0] : last.getBatchCounts();
+
+                    if (method.getName().equals("executeLargeBatch")) {
+                        return counts;
+                    }
+
+                    final int[] intCounts = new int[counts.length];
+
+                    for (int i = 0; i < counts.length; i += 1) {
+                        intCounts[i] = (int) counts[i];
+                    }
+
+                    return intCounts;
+                }
+                case "execute":
+                case "executeQuery":
+                case "executeUpdate":
+                case "executeLargeUpdate": {
+                    final RecordedStatement.Entry entry = args == null
+                            ? new RecordedStatement.Entry(preparedSql, snapshotBindValues())
+                            : new RecordedStatement.Entry((String) args[0], Collections.emptyMap());
+                    final RecordedStatement request = new RecordedStatement(
+                            connectionName,
+                            false,
+                            Collections.singletonList(entry));
+
+                    execute(request, method, args, preparedForGeneratedKeys || returnsGeneratedKeys(args));
+
+                    switch (method.getName()) {
+                        case "executeQuery":
+                            return RecordedResultSet.create(
+                                    last.getResult() == null ? new RecordedStatement.ResultTable() : last.getResult(),
+                                    this.proxy);
+                        case "executeUpdate":
+                            return (int) updateCount();
+                        case "executeLargeUpdate":
+                            return updateCount();
+                        default:
+                            return last.getResult() != null;
+                    }
+                }
+                case "getResultSet":
+                    return last == null || last.getResult() == null
+                            ? null
+                            : RecordedResultSet.create(last.getResult(), this.proxy);
+                case "getUpdateCount":
+                    return (int) (last == null || last.getResult() != null ? -1 : updateCount());
+                case "getLargeUpdateCount":
+                    return last == null || last.getResult() != null ? -1L : updateCount();
+                case "getMoreResults":
+                    // Only the first result of a statement is recorded
+                    last = null;
+                    return false;
+                case "getGeneratedKeys":
+                    return RecordedResultSet.create(
+                            last == null || last.getGeneratedKeys() == null
+                                    ? new RecordedStatement.ResultTable()
+                                    : last.getGeneratedKeys(),
+                            this.proxy);
+                case "close":
+                    closed = true;
+                    return invokeDelegate(delegate, method, args);
+                case "isClosed":
+                    return closed;
+                default:
+                    if (preparedSql != null && args != null && args.length >= 2 && method.getName().startsWith("set")) {
+                        // setXxx(parameterIndexOrName, value, ...) on a prepared or callable statement
+                        bindValues.put(args[0], method.getName().equals("setNull") ? null : args[1]);
+                    }
+
+                    if (delegate != null) {
+                        return invokeDelegate(delegate, method, args);
+                    }
+
+                    return offlineCall(method);
+            }
+        }
+
+        private Map<Object, Object> snapshotBindValues() {
+            return bindValues.isEmpty()
+                    ? Collections.emptyMap()
+                    : Collections.unmodifiableMap(new LinkedHashMap<>(bindValues));
+        }
+
+        private long updateCount() {
+            return last.getUpdateCount() == null ? 0 : last.getUpdateCount();
+        }
+
+        private void execute(
+                final RecordedStatement request,
+                final Method method,
+                final Object[] args,
+                final boolean generatedKeys
+        ) throws Throwable {
+            last = null;
+
+            if (recording == null) {
+                // Offline, nothing to return
+                request.setUpdateCount(0);
+                request.setBatchCounts(new long[request.isBatch() ? request.getEntries().size() : 0]);
+                last = request;
+            } else if (delegate == null) {
+                last = recording.replay(request);
+
+                if (last.getError() != null) {
+                    throw new SQLException(
+                            last.getError().getMessage(),
+                            last.getError().getSQLState(),
+                            last.getError().getErrorCode());
+                }
+            } else {
+                record(request, method, args, generatedKeys);
+                last = request;
+            }
+        }
+
+        private void record(
+                final RecordedStatement request,
+                final Method method,
+                final Object[] args,
+                final boolean generatedKeys
+        ) throws Throwable {
+            final Object result;
+
+            try {
+                result = invokeDelegate(delegate, method, args);
+            } catch (final SQLException ex) {
+                request.setError(ex);
+                recording.add(request);
+                throw ex;
+            }
+
+            if (result instanceof int[]) {
+                request.setBatchCounts(Arrays.stream((int[]) result).asLongStream().toArray());
+            } else if (result instanceof long[]) {
+                request.setBatchCounts((long[]) result);
+            } else if (result instanceof ResultSet) {
+                request.setResult(readResultSet((ResultSet) result));
+            } else if (result instanceof Number) {
+                request.setUpdateCount(((Number) result).longValue());
+            } else if (Boolean.TRUE.equals(result)) {
+                request.setResult(readResultSet(delegate.getResultSet()));
+            } else {
+                request.setUpdateCount(delegate.getUpdateCount());
+            }
+
+            if (generatedKeys) {
+                request.setGeneratedKeys(readResultSet(delegate.getGeneratedKeys()));
+            }
+
+            recording.add(request);
+        }
+    }
+}
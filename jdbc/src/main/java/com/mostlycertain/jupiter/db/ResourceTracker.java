@@ -0,0 +1,240 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.lang.String.format;
+
+/**
+ * Tracks the statements and result sets opened through a connection, for {@link LeakDetection}.
+ *
+ * The connection, statements and result sets are wrapped in proxies that record where each
+ * statement and result set was created and forget it when it is closed. Closing a statement
+ * closes its result sets.
+ */
+final class ResourceTracker {
+    private final String connectionName;
+    private final Map<Object, OpenedHere> open = new IdentityHashMap<>();
+
+    /**
+     * Create a tracker.
+     *
+     * @param connectionName Name of the connection, to include in the reports.
+     */
+    ResourceTracker(final String connectionName) {
+        this.connectionName = connectionName;
+    }
+
+    /**
+     * Read the leak detection mode of a test.
+     *
+     * @param context Test or test class context.
+     * @return Mode from the {@link LeakDetection} annotation of the test method or class, or the
+     *         {@code jupiterdb.leakDetection} system property.
+     */
+    static LeakDetection.Mode readMode(final ExtensionContext context) {
+        final Optional<LeakDetection> methodAnnotation = context.getTestMethod()
+                .map(m -> m.getAnnotation(LeakDetection.class));
+        final Optional<LeakDetection> annotation = methodAnnotation.isPresent()
+                ? methodAnnotation
+                : context.getTestClass().map(c -> c.getAnnotation(LeakDetection.class));
+
+        return annotation
+                .map(LeakDetection::value)
+                .orElseGet(() -> LeakDetection.Mode.valueOf(System.getProperty("jupiterdb.leakDetection", "off")
+                        .trim()
+                        .toUpperCase(Locale.ROOT)));
+    }
+
+    /**
+     * Wrap a connection so the statements it creates are tracked.
+     *
+     * @param connection Connection to wrap.
+     * @return Tracked connection.
+     */
+    Connection wrap(final Connection connection) {
+        return newProxy(Connection.class, new TrackedConnection(connection));
+    }
+
+    /**
+     * Get the statements and result sets that are still open and stop tracking them.
+     *
+     * @return Where each open statement or result set was created.
+     */
+    synchronized List<Throwable> takeOpenResources() {
+        final List<Throwable> resources = new ArrayList<>(open.values());
+        open.clear();
+        return resources;
+    }
+
+    /**
+     * Describe where a statement or result set was opened, for a report entry.
+     *
+     * @param openResource Open resource from {@link #takeOpenResources()}.
+     * @return Message and stack trace.
+     */
+    static String describe(final Throwable openResource) {
+        final StringWriter writer = new StringWriter();
+
+        openResource.printStackTrace(new PrintWriter(writer));
+
+        return writer.toString();
+    }
+
+    private synchronized void opened(final Object resource, final OpenedHere openedHere) {
+        open.put(resource, openedHere);
+    }
+
+    private synchronized void closed(final Object resource) {
+        open.remove(resource);
+    }
+
+    private static <T> T newProxy(final Class<T> type, final InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(
+                ResourceTracker.class.getClassLoader(),
+                new Class<?>[]{type},
+                handler));
+    }
+
+    private final class TrackedConnection extends DelegatingHandler {
+        TrackedConnection(final Connection connection) {
+            super(connection);
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "createStatement":
+                    return trackStatement(Statement.class, proxy, (Statement) invokeDelegate(method, args), null);
+                case "prepareStatement":
+                    return trackStatement(PreparedStatement.class, proxy, (Statement) invokeDelegate(method, args), (String) args[0]);
+                case "prepareCall":
+                    return trackStatement(CallableStatement.class, proxy, (Statement) invokeDelegate(method, args), (String) args[0]);
+                default:
+                    return super.invoke(proxy, method, args);
+            }
+        }
+
+        private <T extends Statement> T trackStatement(
+                final Class<T> type,
+                final Object connection,
+                final Statement statement,
+                final String sql
+        ) {
+            final TrackedStatement handler = new TrackedStatement(statement, connection);
+            final T proxy = newProxy(type, handler);
+
+            opened(proxy, new OpenedHere("Statement", sql == null ? "" : ": " + sql));
+
+            return proxy;
+        }
+    }
+
+    private final class TrackedStatement extends DelegatingHandler {
+        private final Object connection;
+        private final Map<Object, ResultSet> resultSets = new IdentityHashMap<>();
+
+        TrackedStatement(final Statement statement, final Object connection) {
+            super(statement);
+            this.connection = connection;
+        }
+
+        private void closeResultSets() {
+            resultSets.values().forEach(ResourceTracker.this::closed);
+            resultSets.clear();
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "getConnection":
+                    return connection;
+                case "close":
+                    closed(proxy);
+                    closeResultSets();
+                    return invokeDelegate(method, args);
+                default:
+                    if (method.getName().startsWith("execute") || method.getName().equals("getMoreResults")) {
+                        // Executing again or moving to the next result closes the current result set
+                        closeResultSets();
+                    }
+
+                    final Object result = super.invoke(proxy, method, args);
+
+                    if (result instanceof ResultSet) {
+                        return resultSets.computeIfAbsent(result, r -> {
+                            final ResultSet resultSet = newProxy(ResultSet.class, new TrackedResultSet((ResultSet) r, proxy));
+                            opened(resultSet, new OpenedHere("Result set", " by " + method.getName()));
+                            return resultSet;
+                        });
+                    }
+
+                    return result;
+            }
+        }
+    }
+
+    private final class TrackedResultSet extends DelegatingHandler {
+        private final Object statement;
+
+        TrackedResultSet(final ResultSet resultSet, final Object statement) {
+            super(resultSet);
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "getStatement":
+                    return statement;
+                case "close":
+                    closed(proxy);
+                    return invokeDelegate(method, args);
+                default:
+                    return super.invoke(proxy, method, args);
+            }
+        }
+    }
+
+    /**
+     * Stack trace of where a statement or result set was created.
+     */
+    private final class OpenedHere extends Throwable {
+        OpenedHere(final String resource, final String detail) {
+            super(format("%s opened here on connection %s%s", resource, connectionName, detail));
+
+            // Start the stack trace at the code that opened the resource
+            final StackTraceElement[] stackTrace = getStackTrace();
+            int start = 0;
+
+            while (start < stackTrace.length - 1 && isTrackerFrame(stackTrace[start])) {
+                start += 1;
+            }
+
+            setStackTrace(Arrays.copyOfRange(stackTrace, start, stackTrace.length));
+        }
+
+        private boolean isTrackerFrame(final StackTraceElement element) {
+            return element.getClassName().equals(ResourceTracker.class.getName())
+                    || element.getClassName().startsWith(ResourceTracker.class.getName() + "$")
+                    || element.getClassName().contains("$Proxy");
+        }
+    }
+}
@@ -4,10 +4,19 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 final class ResourceUtil {
+    /**
+     * Resource text by resource URL. Resources do not change during a test run, so each one is
+     * only read once.
+     */
+    private static final ConcurrentMap<String, String> TEXT_RESOURCES = new ConcurrentHashMap<>();
+
     private ResourceUtil() {
         // Private so instances can not be created
     }
@@ -23,13 +32,18 @@ final class ResourceUtil {
             final Class<?> testClass,
             final String resourceName
     ) {
-        final InputStream resource = testClass.getResourceAsStream(resourceName);
+        final URL resource = testClass.getResource(resourceName);
 
         if (resource == null) {
             return Optional.empty();
         }
 
-        try (final Reader stream = new InputStreamReader(resource, StandardCharsets.UTF_8)) {
+        return Optional.of(TEXT_RESOURCES.computeIfAbsent(resource.toString(), k -> readText(resource)));
+    }
+
+    private static String readText(final URL resource) {
+        try (final InputStream input = resource.openStream();
+             final Reader stream = new InputStreamReader(input, StandardCharsets.UTF_8)) {
             final char[] readBuffer = new char[1024];
             final StringBuilder output = new StringBuilder();
             int readLen;
@@ -38,7 +52,7 @@ final class ResourceUtil {
                 output.append(readBuffer, 0, readLen);
             }
 
-            return Optional.of(output.toString());
+            return output.toString();
         } catch (IOException ex) {
             throw new RuntimeException(ex);
         }
@@ -0,0 +1,673 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import static com.mostlycertain.jupiter.db.AnnotationUtil.getAnnotations;
+import static java.lang.String.format;
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Inserts the rows of {@link GenerateRows} annotations.
+ *
+ * Rows are generated one at a time and sent in batches, so memory does not grow with the number
+ * of rows. Foreign key values are drawn from a bounded number of parent keys for the same reason.
+ */
+public class RowGenerator implements DatabaseFixtureLoader {
+    /**
+     * Foreign key values are drawn from at most this many keys of the parent table.
+     */
+    private static final int MAX_PARENT_KEYS = 10_000;
+
+    private static final int NULL_PERCENT = 10;
+    private static final int MAX_TEXT_LENGTH = 32;
+    private static final int MAX_BINARY_LENGTH = 16;
+    private static final char[] TEXT_CHARS = "abcdefghijklmnopqrstuvwxyz0123456789".toCharArray();
+    private static final long FIRST_DAY = LocalDate.of(2000, 1, 1).toEpochDay();
+    private static final int DAY_RANGE = 365 * 30;
+
+    @Override
+    public void load(
+            final ExtensionContext extensionContext,
+            final DatabaseTestConnection connection,
+            final Connection fixtureConnection
+    ) throws SQLException {
+        insertRows(fixtureConnection, getAnnotations(extensionContext.getRequiredTestClass(), GenerateRows.class));
+
+        final Optional<Method> testMethod = extensionContext.getTestMethod();
+
+        if (testMethod.isPresent()) {
+            insertRows(fixtureConnection, getAnnotations(testMethod.get(), GenerateRows.class));
+        }
+    }
+
+    private static void insertRows(final Connection connection, final Stream<GenerateRows> annotations) throws SQLException {
+        for (final GenerateRows annotation : (Iterable<GenerateRows>) annotations::iterator) {
+            insertRows(connection, annotation.table(), annotation.count(), annotation.seed(), Math.max(1, annotation.batchSize()));
+        }
+    }
+
+    /**
+     * Insert generated rows into a table.
+     *
+     * @param connection Connection to insert the rows with.
+     * @param table      Table name, optionally qualified with the schema name.
+     * @param count      Number of rows to insert.
+     * @param seed       Seed of the random values.
+     * @param batchSize  Maximum number of rows to send in one JDBC batch.
+     * @throws SQLException If a database access error occurs or a column can not be generated.
+     */
+    static void insertRows(
+            final Connection connection,
+            final String table,
+            final long count,
+            final long seed,
+            final int batchSize
+    ) throws SQLException {
+        final TableSchema schema = TableSchema.read(connection, table);
+        final SplittableRandom random = new SplittableRandom(seed);
+        final String uniquePrefix = text(random, 4, 4);
+        final List<ValueGenerator> generators = new ArrayList<>();
+
+        for (final Column column : schema.columns) {
+            generators.add(valueGenerator(connection, schema, column, uniquePrefix, count));
+        }
+
+        for (final ForeignKey foreignKey : schema.foreignKeys) {
+            foreignKey.loadParentKeys(connection);
+        }
+
+        // Walk the parent keys of a unique key made of foreign keys in order, like the digits of
+        // a number, so each row gets a different combination
+        long stride = 1;
+
+        for (final ForeignKey foreignKey : schema.enumeratedForeignKeys) {
+            foreignKey.stride = stride;
+            stride *= Math.max(1, foreignKey.parentKeys.size());
+        }
+
+        final Object[] values = new Object[schema.columns.size()];
+        final String sql = format(
+                "INSERT INTO %s (%s) VALUES (%s)",
+                schema.qualifiedName,
+                schema.columns.stream().map(c -> c.quotedName).collect(joining(", ")),
+                String.join(", ", Collections.nCopies(schema.columns.size(), "?")));
+
+        try (final PreparedStatement statement = connection.prepareStatement(sql)) {
+            int batched = 0;
+
+            for (long row = 0; row < count; row += 1) {
+                for (int i = 0; i < values.length; i += 1) {
+                    values[i] = generators.get(i).next(random, row);
+                }
+
+                for (final ForeignKey foreignKey : schema.foreignKeys) {
+                    foreignKey.fill(random, row, values);
+                }
+
+                for (int i = 0; i < values.length; i += 1) {
+                    if (values[i] == null) {
+                        statement.setNull(i + 1, schema.columns.get(i).type);
+                    } else {
+                        statement.setObject(i + 1, values[i]);
+                    }
+                }
+
+                statement.addBatch();
+                batched += 1;
+
+                if (batched == batchSize) {
+                    statement.executeBatch();
+                    batched = 0;
+                }
+            }
+
+            if (batched > 0) {
+                statement.executeBatch();
+            }
+        }
+    }
+
+    private static ValueGenerator valueGenerator(
+            final Connection connection,
+            final TableSchema schema,
+            final Column column,
+            final String uniquePrefix,
+            final long count
+    ) throws SQLException {
+        if (schema.isForeignKey(column)) {
+            // Filled in by the foreign key
+            return (random, row) -> null;
+        }
+
+        if (schema.uniqueColumns.contains(column)) {
+            if (isText(column.type)) {
+                return uniqueText(schema, column, uniquePrefix, count);
+            } else if (isInteger(column.type)) {
+                final long start = maxValue(connection, schema, column) + 1;
+
+                return column.type == Types.DECIMAL || column.type == Types.NUMERIC
+                        ? (random, row) -> BigDecimal.valueOf(start + row)
+                        : (random, row) -> start + row;
+            } else if (column.nullable) {
+                // Unique keys allow any number of nulls in most databases
+                return (random, row) -> null;
+            }
+
+            throw new SQLException(format(
+                    "@GenerateRows can not generate unique values for the column type: table=%s column=%s type=%s",
+                    schema.qualifiedName,
+                    column.quotedName,
+                    column.typeName));
+        }
+
+        final ValueGenerator generator = randomValue(schema, column);
+
+        return column.nullable
+                ? (random, row) -> random.nextInt(100) < NULL_PERCENT ? null : generator.next(random, row)
+                : generator;
+    }
+
+    /**
+     * Unique text for each row: the row number in base 36 after a prefix that differs between
+     * seeds, so rows generated with another seed do not collide. The prefix is shortened to fit
+     * the column.
+     */
+    private static ValueGenerator uniqueText(
+            final TableSchema schema,
+            final Column column,
+            final String uniquePrefix,
+            final long count
+    ) throws SQLException {
+        final int digits = Long.toString(Math.max(0, count - 1), 36).length();
+
+        if (column.size > 0 && column.size < digits) {
+            throw new SQLException(format(
+                    "@GenerateRows can not generate unique values that fit the column: table=%s column=%s size=%d count=%d",
+                    schema.qualifiedName,
+                    column.quotedName,
+                    column.size,
+                    count));
+        }
+
+        final String prefix = column.size > 0 && column.size < uniquePrefix.length() + digits
+                ? uniquePrefix.substring(0, column.size - digits)
+                : uniquePrefix;
+
+        return (random, row) -> prefix + Long.toString(row, 36);
+    }
+
+    private static ValueGenerator randomValue(final TableSchema schema, final Column column) throws SQLException {
+        switch (column.type) {
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return (random, row) -> random.nextBoolean();
+            case Types.TINYINT:
+                return (random, row) -> random.nextInt(Byte.MAX_VALUE + 1);
+            case Types.SMALLINT:
+                return (random, row) -> random.nextInt(Short.MAX_VALUE + 1);
+            case Types.INTEGER:
+                return (random, row) -> random.nextInt(Integer.MAX_VALUE);
+            case Types.BIGINT:
+                return (random, row) -> random.nextLong(Long.MAX_VALUE);
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                final long bound = pow10(Math.min(18, Math.max(1, column.size)));
+                final int scale = Math.max(0, column.scale);
+
+                return (random, row) -> BigDecimal.valueOf(random.nextLong(bound), scale);
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return (random, row) -> random.nextDouble() * 1000;
+            case Types.CHAR:
+            case Types.NCHAR:
+                final int charLength = textLength(column);
+
+                return (random, row) -> text(random, charLength, charLength);
+            case Types.VARCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.LONGNVARCHAR:
+            case Types.CLOB:
+            case Types.NCLOB:
+                final int maxLength = textLength(column);
+
+                return (random, row) -> text(random, 1, maxLength);
+            case Types.DATE:
+                return (random, row) -> Date.valueOf(randomDay(random));
+            case Types.TIME:
+                return (random, row) -> Time.valueOf(randomTime(random));
+            case Types.TIMESTAMP:
+                return (random, row) -> Timestamp.valueOf(LocalDateTime.of(randomDay(random), randomTime(random)));
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+                return (random, row) -> OffsetDateTime.of(randomDay(random), randomTime(random), ZoneOffset.UTC);
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                final int binaryLength = column.size > 0 ? Math.min(column.size, MAX_BINARY_LENGTH) : MAX_BINARY_LENGTH;
+
+                return (random, row) -> {
+                    final byte[] bytes = new byte[binaryLength];
+
+                    for (int i = 0; i < bytes.length; i += 1) {
+                        bytes[i] = (byte) random.nextInt(256);
+                    }
+
+                    return bytes;
+                };
+            default:
+                if (column.nullable) {
+                    return (random, row) -> null;
+                }
+
+                throw new SQLException(format(
+                        "@GenerateRows does not support the column type: table=%s column=%s type=%s",
+                        schema.qualifiedName,
+                        column.quotedName,
+                        column.typeName));
+        }
+    }
+
+    private static long maxValue(final Connection connection, final TableSchema schema, final Column column) throws SQLException {
+        try (final Statement statement = connection.createStatement();
+             final ResultSet resultSet = statement.executeQuery(format(
+                     "SELECT MAX(%s) FROM %s",
+                     column.quotedName,
+                     schema.qualifiedName))) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private static boolean isText(final int type) {
+        return type == Types.CHAR || type == Types.NCHAR || type == Types.VARCHAR || type == Types.NVARCHAR
+                || type == Types.LONGVARCHAR || type == Types.LONGNVARCHAR || type == Types.CLOB || type == Types.NCLOB;
+    }
+
+    private static boolean isInteger(final int type) {
+        return type == Types.TINYINT || type == Types.SMALLINT || type == Types.INTEGER || type == Types.BIGINT
+                || type == Types.DECIMAL || type == Types.NUMERIC;
+    }
+
+    private static int textLength(final Column column) {
+        return column.size > 0 ? Math.min(column.size, MAX_TEXT_LENGTH) : MAX_TEXT_LENGTH;
+    }
+
+    private static String text(final SplittableRandom random, final int minLength, final int maxLength) {
+        final char[] text = new char[random.nextInt(minLength, maxLength + 1)];
+
+        for (int i = 0; i < text.length; i += 1) {
+            text[i] = TEXT_CHARS[random.nextInt(TEXT_CHARS.length)];
+        }
+
+        return new String(text);
+    }
+
+    private static LocalDate randomDay(final SplittableRandom random) {
+        return LocalDate.ofEpochDay(FIRST_DAY + random.nextInt(DAY_RANGE));
+    }
+
+    private static LocalTime randomTime(final SplittableRandom random) {
+        return LocalTime.ofSecondOfDay(random.nextInt(24 * 60 * 60));
+    }
+
+    private static long pow10(final int exponent) {
+        long value = 1;
+
+        for (int i = 0; i < exponent; i += 1) {
+            value *= 10;
+        }
+
+        return value;
+    }
+
+    @FunctionalInterface
+    private interface ValueGenerator {
+        Object next(SplittableRandom random, long row);
+    }
+
+    private static final class Column {
+        final int index;
+        final String quotedName;
+        final int type;
+        final String typeName;
+        final int size;
+        final int scale;
+        final boolean nullable;
+
+        Column(
+                final int index,
+                final String quotedName,
+                final int type,
+                final String typeName,
+                final int size,
+                final int scale,
+                final boolean nullable
+        ) {
+            this.index = index;
+            this.quotedName = quotedName;
+            this.type = type;
+            this.typeName = typeName;
+            this.size = size;
+            this.scale = scale;
+            this.nullable = nullable;
+        }
+    }
+
+    /**
+     * Foreign key from the generated table to a parent table.
+     */
+    private static final class ForeignKey {
+        final String parentTable;
+        final List<String> parentColumns = new ArrayList<>();
+        final List<Column> columns = new ArrayList<>();
+        List<Object[]> parentKeys = Collections.emptyList();
+
+        /**
+         * Number of rows that share a parent key before moving to the next one, if the parent
+         * keys are enumerated in order to keep a key made of foreign keys unique.
+         */
+        long stride;
+
+        ForeignKey(final String parentTable) {
+            this.parentTable = parentTable;
+        }
+
+        void loadParentKeys(final Connection connection) throws SQLException {
+            parentKeys = new ArrayList<>();
+
+            try (final Statement statement = connection.createStatement()) {
+                statement.setMaxRows(MAX_PARENT_KEYS);
+
+                final String sql = format(
+                        "SELECT DISTINCT %s FROM %s WHERE %s ORDER BY %s",
+                        String.join(", ", parentColumns),
+                        parentTable,
+                        parentColumns.stream().map(c -> c + " IS NOT NULL").collect(joining(" AND ")),
+                        String.join(", ", parentColumns));
+
+                try (final ResultSet resultSet = statement.executeQuery(sql)) {
+                    while (resultSet.next()) {
+                        final Object[] key = new Object[parentColumns.size()];
+
+                        for (int i = 0; i < key.length; i += 1) {
+                            key[i] = resultSet.getObject(i + 1);
+                        }
+
+                        parentKeys.add(key);
+                    }
+                }
+            }
+        }
+
+        void fill(final SplittableRandom random, final long row, final Object[] values) throws SQLException {
+            final boolean nullable = columns.stream().allMatch(c -> c.nullable);
+
+            if (parentKeys.isEmpty() || (nullable && stride == 0 && random.nextInt(100) < NULL_PERCENT)) {
+                if (!nullable) {
+                    throw new SQLException("@GenerateRows parent table has no rows: table=" + parentTable);
+                }
+
+                return;
+            }
+
+            final Object[] key = stride > 0
+                    ? parentKeys.get((int) ((row / stride) % parentKeys.size()))
+                    : parentKeys.get(random.nextInt(parentKeys.size()));
+
+            for (int i = 0; i < columns.size(); i += 1) {
+                values[columns.get(i).index] = key[i];
+            }
+        }
+    }
+
+    private static final class TableSchema {
+        final String qualifiedName;
+        final List<Column> columns = new ArrayList<>();
+        final List<ForeignKey> foreignKeys = new ArrayList<>();
+        final List<ForeignKey> enumeratedForeignKeys = new ArrayList<>();
+        final Set<Column> uniqueColumns = new HashSet<>();
+
+        private TableSchema(final String qualifiedName) {
+            this.qualifiedName = qualifiedName;
+        }
+
+        boolean isForeignKey(final Column column) {
+            return foreignKeys.stream().anyMatch(k -> k.columns.contains(column));
+        }
+
+        static TableSchema read(final Connection connection, final String table) throws SQLException {
+            final DatabaseMetaData metaData = connection.getMetaData();
+            final String[] name = findTable(connection, metaData, table);
+            final TableSchema schema = new TableSchema(name[1] == null
+                    ? quote(metaData, name[2])
+                    : quote(metaData, name[1]) + "." + quote(metaData, name[2]));
+            final Map<String, Column> columnsByName = new LinkedHashMap<>();
+
+            try (final ResultSet resultSet = metaData.getColumns(name[0], name[1], name[2], null)) {
+                while (resultSet.next()) {
+                    // Leave auto increment and generated columns to the database
+                    if ("YES".equals(resultSet.getString("IS_AUTOINCREMENT"))
+                            || "YES".equals(resultSet.getString("IS_GENERATEDCOLUMN"))) {
+                        continue;
+                    }
+
+                    final Column column = new Column(
+                            columnsByName.size(),
+                            quote(metaData, resultSet.getString("COLUMN_NAME")),
+                            resultSet.getInt("DATA_TYPE"),
+                            resultSet.getString("TYPE_NAME"),
+                            resultSet.getInt("COLUMN_SIZE"),
+                            resultSet.getInt("DECIMAL_DIGITS"),
+                            resultSet.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls);
+
+                    columnsByName.put(resultSet.getString("COLUMN_NAME"), column);
+                }
+            }
+
+            schema.columns.addAll(columnsByName.values());
+
+            readForeignKeys(metaData, name, columnsByName, schema);
+
+            final List<List<Column>> uniqueKeys = readUniqueKeys(metaData, name, columnsByName);
+
+            for (final List<Column> key : uniqueKeys) {
+                // Prefer a column that unique values can be generated for
+                final Optional<Column> generated = key.stream()
+                        .filter(c -> !schema.isForeignKey(c))
+                        .sorted(Comparator.comparing(c -> !isText(c.type) && !isInteger(c.type)))
+                        .findFirst();
+
+                if (generated.isPresent()) {
+                    schema.uniqueColumns.add(generated.get());
+                } else {
+                    schema.enumerateForeignKeys(key);
+                }
+            }
+
+            return schema;
+        }
+
+        /**
+         * Enumerate the parent keys of the foreign keys in a unique key, instead of picking them
+         * at random. Only one key can be enumerated.
+         */
+        private void enumerateForeignKeys(final List<Column> key) {
+            if (!enumeratedForeignKeys.isEmpty()) {
+                return;
+            }
+
+            for (final ForeignKey foreignKey : foreignKeys) {
+                if (!Collections.disjoint(foreignKey.columns, key)) {
+                    enumeratedForeignKeys.add(foreignKey);
+                }
+            }
+        }
+
+        private static void readForeignKeys(
+                final DatabaseMetaData metaData,
+                final String[] name,
+                final Map<String, Column> columnsByName,
+                final TableSchema schema
+        ) throws SQLException {
+            final Map<String, ForeignKey> foreignKeys = new LinkedHashMap<>();
+
+            try (final ResultSet resultSet = metaData.getImportedKeys(name[0], name[1], name[2])) {
+                while (resultSet.next()) {
+                    final Column column = columnsByName.get(resultSet.getString("FKCOLUMN_NAME"));
+
+                    if (column == null) {
+                        continue;
+                    }
+
+                    final String parentSchema = resultSet.getString("PKTABLE_SCHEM");
+                    final String parentTable = parentSchema == null
+                            ? quote(metaData, resultSet.getString("PKTABLE_NAME"))
+                            : quote(metaData, parentSchema) + "." + quote(metaData, resultSet.getString("PKTABLE_NAME"));
+                    final String keyName = Optional.ofNullable(resultSet.getString("FK_NAME")).orElse(parentTable);
+                    final ForeignKey foreignKey = foreignKeys.computeIfAbsent(keyName, k -> new ForeignKey(parentTable));
+
+                    foreignKey.parentColumns.add(quote(metaData, resultSet.getString("PKCOLUMN_NAME")));
+                    foreignKey.columns.add(column);
+                }
+            }
+
+            schema.foreignKeys.addAll(foreignKeys.values());
+        }
+
+        private static List<List<Column>> readUniqueKeys(
+                final DatabaseMetaData metaData,
+                final String[] name,
+                final Map<String, Column> columnsByName
+        ) throws SQLException {
+            final Map<String, List<Column>> keys = new LinkedHashMap<>();
+
+            try (final ResultSet resultSet = metaData.getPrimaryKeys(name[0], name[1], name[2])) {
+                while (resultSet.next()) {
+                    final Column column = columnsByName.get(resultSet.getString("COLUMN_NAME"));
+
+                    if (column != null) {
+                        keys.computeIfAbsent("", k -> new ArrayList<>()).add(column);
+                    }
+                }
+            }
+
+            try (final ResultSet resultSet = metaData.getIndexInfo(name[0], name[1], name[2], true, true)) {
+                while (resultSet.next()) {
+                    final String indexName = resultSet.getString("INDEX_NAME");
+                    final Column column = columnsByName.get(resultSet.getString("COLUMN_NAME"));
+
+                    if (indexName != null && column != null) {
+                        keys.computeIfAbsent("index " + indexName, k -> new ArrayList<>()).add(column);
+                    }
+                }
+            }
+
+            return new ArrayList<>(keys.values());
+        }
+
+        /**
+         * Find the catalog, schema and name of a table, as stored by the database.
+         */
+        private static String[] findTable(
+                final Connection connection,
+                final DatabaseMetaData metaData,
+                final String table
+        ) throws SQLException {
+            final int dot = table.lastIndexOf('.');
+            final String schemaName = dot < 0 ? null : table.substring(0, dot);
+            final String tableName = table.substring(dot + 1);
+            final String currentSchema = currentSchema(connection);
+
+            for (final String candidate : Arrays.asList(
+                    tableName,
+                    tableName.toUpperCase(Locale.ROOT),
+                    tableName.toLowerCase(Locale.ROOT))) {
+                final String schemaPattern = schemaName == null ? null : caseLike(schemaName, candidate, tableName);
+                final List<String[]> matches = new ArrayList<>();
+
+                try (final ResultSet resultSet = metaData.getTables(null, schemaPattern, candidate, null)) {
+                    while (resultSet.next()) {
+                        matches.add(new String[]{
+                                resultSet.getString("TABLE_CAT"),
+                                resultSet.getString("TABLE_SCHEM"),
+                                resultSet.getString("TABLE_NAME")});
+                    }
+                }
+
+                if (!matches.isEmpty()) {
+                    return matches.stream()
+                            .filter(m -> m[1] != null && m[1].equals(currentSchema))
+                            .findFirst()
+                            .orElse(matches.get(0));
+                }
+            }
+
+            throw new SQLException("@GenerateRows table not found: table=" + table);
+        }
+
+        /**
+         * Change the case of a schema name the same way as the table name candidate.
+         */
+        private static String caseLike(final String schemaName, final String candidate, final String tableName) {
+            if (candidate.equals(tableName)) {
+                return schemaName;
+            }
+
+            return candidate.equals(tableName.toUpperCase(Locale.ROOT))
+                    ? schemaName.toUpperCase(Locale.ROOT)
+                    : schemaName.toLowerCase(Locale.ROOT);
+        }
+
+        private static String currentSchema(final Connection connection) {
+            try {
+                return connection.getSchema();
+            } catch (final SQLException | AbstractMethodError ex) {
+                // Not supported by this driver
+                return null;
+            }
+        }
+
+        private static String quote(final DatabaseMetaData metaData, final String identifier) throws SQLException {
+            final String quote = metaData.getIdentifierQuoteString();
+
+            if (quote == null || quote.trim().isEmpty()) {
+                return identifier;
+            }
+
+            return quote + identifier.replace(quote, quote + quote) + quote;
+        }
+    }
+}
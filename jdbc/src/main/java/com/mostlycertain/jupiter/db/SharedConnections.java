@@ -0,0 +1,178 @@
+package com.mostlycertain.jupiter.db;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Connections of a {@link ReadOnlyDatabaseTest} or {@link SharedFixtures} class that are shared
+ * by the tests in the class.
+ *
+ * Statement listeners are bound when a connection is opened, so the shared connections report to
+ * the listeners of the test that is currently running.
+ */
+final class SharedConnections {
+    private final boolean readOnly;
+    private final boolean rejectWrites;
+    private final boolean sharedFixtures;
+    private final Map<String, SharedConnection> connections = new LinkedHashMap<>();
+    private volatile StatementListeners testListeners = new StatementListeners(Collections.emptyList(), false);
+    private volatile StatementListeners fixtureListeners = new StatementListeners(Collections.emptyList(), false);
+
+    /**
+     * @param readOnly       Read only annotation of the class, if the tests in the class are read
+     *                       only.
+     * @param sharedFixtures True if tests with different method fixtures share connections.
+     */
+    SharedConnections(final Optional<ReadOnlyDatabaseTest> readOnly, final boolean sharedFixtures) {
+        this.readOnly = readOnly.isPresent();
+        this.rejectWrites = readOnly.map(ReadOnlyDatabaseTest::rejectWrites).orElse(false);
+        this.sharedFixtures = sharedFixtures;
+    }
+
+    /**
+     * Check if a test can use the shared connections.
+     *
+     * @param methodSql Fixture SQL of the test method.
+     */
+    boolean canShare(final SqlRunner methodSql) {
+        // A read only connection can not apply method fixtures
+        return methodSql.isEmpty() || (sharedFixtures && !readOnly);
+    }
+
+    /**
+     * True if each fixture level and the test changes are rolled back to save points.
+     *
+     * Read only tests that reject writes can not change the data, so they do not need save points.
+     * Read only tests that allow writes are rolled back like other tests, so their writes do not
+     * leak into the next test.
+     */
+    boolean usesSavepoints() {
+        return !rejectWrites;
+    }
+
+    /**
+     * Set the listeners of the test that is about to run.
+     */
+    void setListeners(final StatementListeners testListeners, final StatementListeners fixtureListeners) {
+        this.testListeners = testListeners;
+        this.fixtureListeners = fixtureListeners;
+    }
+
+    StatementListener getTestListener() {
+        return new CurrentListener(false);
+    }
+
+    StatementListener getFixtureListener() {
+        return new CurrentListener(true);
+    }
+
+    Optional<SharedConnection> get(final String name) {
+        return Optional.ofNullable(connections.get(name));
+    }
+
+    SharedConnection put(final ManagedDatabaseConnection connection) {
+        final SharedConnection sharedConnection = new SharedConnection(connection);
+        connections.put(connection.name, sharedConnection);
+        return sharedConnection;
+    }
+
+    /**
+     * Get the connections used by the current test.
+     */
+    List<ManagedDatabaseConnection> getUsed() {
+        return connections.values().stream()
+                .filter(c -> c.used)
+                .map(c -> c.connection)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Roll back the changes of the test that just ran.
+     *
+     * @return Connections that failed to roll back. They are closed and removed.
+     */
+    List<ManagedDatabaseConnection> rollbackTest() {
+        final List<ManagedDatabaseConnection> failed = new ArrayList<>();
+
+        for (final SharedConnection connection : new ArrayList<>(connections.values())) {
+            if (!connection.used) {
+                continue;
+            }
+
+            connection.used = false;
+
+            if (connection.connection.isAborted()) {
+                // The next test opens a new connection
+                connections.remove(connection.connection.name);
+            } else if (usesSavepoints()) {
+                try {
+                    connection.connection.rollbackToSavepoint();
+                } catch (final SQLException ex) {
+                    connection.connection.close();
+                    connection.connection.closeError = ex;
+                    connections.remove(connection.connection.name);
+                    failed.add(connection.connection);
+                }
+            }
+        }
+
+        return failed;
+    }
+
+    /**
+     * Roll back and close all the connections.
+     *
+     * @return Connections that failed to close.
+     */
+    List<ManagedDatabaseConnection> close() {
+        final List<ManagedDatabaseConnection> failedToClose = new ArrayList<>();
+
+        for (final SharedConnection connection : connections.values()) {
+            if (!connection.connection.close()) {
+                failedToClose.add(connection.connection);
+            }
+        }
+
+        connections.clear();
+
+        return failedToClose;
+    }
+
+    private final class CurrentListener implements StatementListener {
+        private final boolean fixture;
+
+        CurrentListener(final boolean fixture) {
+            this.fixture = fixture;
+        }
+
+        @Override
+        public void statementStarting(final StatementExecution execution, final Statement statement) {
+            (fixture ? fixtureListeners : testListeners).statementStarting(execution, statement);
+        }
+
+        @Override
+        public void statementExecuted(final StatementExecution execution) {
+            (fixture ? fixtureListeners : testListeners).statementExecuted(execution);
+        }
+    }
+
+    /**
+     * Shared connection and the method fixtures that are currently applied to it.
+     */
+    static final class SharedConnection {
+        final ManagedDatabaseConnection connection;
+        Optional<String> fixtureKey = Optional.empty();
+        boolean used;
+
+        SharedConnection(final ManagedDatabaseConnection connection) {
+            this.connection = connection;
+        }
+    }
+}
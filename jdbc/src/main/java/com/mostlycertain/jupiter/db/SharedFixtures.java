@@ -0,0 +1,29 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.TestMethodOrder;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Apply each fixture once for a group of tests instead of once for every test.
+ *
+ * The tests in the class are ordered by {@link FixtureMethodOrderer} so tests with the same method
+ * {@link InitializeSql} and {@link FinalizeSql} run one after the other. Each connection is opened
+ * once for the class, with a save point after the class fixtures and another after the method
+ * fixtures of the current group. A test only rolls back its own changes. When the next group
+ * starts, its method fixtures are applied on top of the class fixtures.
+ *
+ * Tests with a {@link DatabaseRecording} get a connection of their own. Fixtures applied by
+ * plugins, such as jOOQ {@code @InsertRecords}, are only applied from the test class. A
+ * {@code @Nested} class is ordered and shares connections only if it has the annotation itself.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+@TestMethodOrder(FixtureMethodOrderer.class)
+public @interface SharedFixtures {
+}
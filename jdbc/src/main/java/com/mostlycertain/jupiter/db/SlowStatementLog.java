@@ -0,0 +1,122 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Records statements that take longer than a threshold to execute.
+ *
+ * The time to read the result set is not known until the test has read it, so executions are
+ * kept until they are complete. Completed executions that are faster than the threshold are
+ * discarded periodically to keep memory use flat for tests that execute many statements.
+ */
+final class SlowStatementLog implements StatementListener {
+    static final long DEFAULT_THRESHOLD_MILLIS = 500;
+    static final int DEFAULT_TOP = 5;
+
+    private static final int COMPACT_SIZE = 1024;
+
+    private final long thresholdNanos;
+    private final int top;
+    private final List<StatementExecution> executions = new ArrayList<>();
+    private int compactAt = COMPACT_SIZE;
+
+    SlowStatementLog(final long thresholdMillis, final int top) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.top = top;
+    }
+
+    /**
+     * Read the slow statement configuration for the statements of a test method.
+     *
+     * @param testClass  Unit test class, which may be a subclass of the class that declares the
+     *                   test method.
+     * @param testMethod Unit test method.
+     * @return Slow statement log or {@link Optional#empty() empty} if the report is disabled.
+     */
+    static Optional<SlowStatementLog> readAnnotations(final Class<?> testClass, final Method testMethod) {
+        return readAnnotations(testClass, testMethod, false);
+    }
+
+    /**
+     * Read the slow statement configuration for the fixture statements of a test method.
+     *
+     * @param testClass  Unit test class, which may be a subclass of the class that declares the
+     *                   test method.
+     * @param testMethod Unit test method.
+     * @return Slow statement log or {@link Optional#empty() empty} if the report is disabled.
+     */
+    static Optional<SlowStatementLog> readFixtureAnnotations(final Class<?> testClass, final Method testMethod) {
+        return readAnnotations(testClass, testMethod, true);
+    }
+
+    private static Optional<SlowStatementLog> readAnnotations(
+            final Class<?> testClass,
+            final Method testMethod,
+            final boolean fixture
+    ) {
+        SlowStatements annotation = testMethod.getAnnotation(SlowStatements.class);
+
+        if (annotation == null) {
+            annotation = testClass.getAnnotation(SlowStatements.class);
+        }
+
+        final long thresholdMillis = annotation != null
+                ? annotation.thresholdMillis()
+                : Long.getLong("jupiterdb.slowStatements.thresholdMillis", DEFAULT_THRESHOLD_MILLIS);
+        final long fixtureThresholdMillis = annotation != null
+                ? annotation.fixtureThresholdMillis()
+                : Long.getLong("jupiterdb.slowStatements.fixtureThresholdMillis", -1);
+        final int top = annotation != null
+                ? annotation.top()
+                : Integer.getInteger("jupiterdb.slowStatements.top", DEFAULT_TOP);
+
+        return top > 0
+                ? Optional.of(new SlowStatementLog(
+                        fixture && fixtureThresholdMillis >= 0 ? fixtureThresholdMillis : thresholdMillis,
+                        top))
+                : Optional.empty();
+    }
+
+    @Override
+    public synchronized void statementExecuted(final StatementExecution execution) {
+        executions.add(execution);
+
+        if (executions.size() >= compactAt) {
+            executions.removeIf(e -> e.isComplete() && e.getElapsedNanos() < thresholdNanos);
+            compactAt = Math.max(COMPACT_SIZE, executions.size() * 2);
+        }
+    }
+
+    /**
+     * Slowest statements that reached the threshold, slowest first.
+     */
+    synchronized List<StatementExecution> getSlowStatements() {
+        return executions.stream()
+                .filter(e -> e.getElapsedNanos() >= thresholdNanos)
+                .sorted(Comparator.comparingLong(StatementExecution::getElapsedNanos).reversed())
+                .limit(top)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Publish the slowest statements as test report entries.
+     *
+     * @param context   Context to publish the report entries to.
+     * @param keyPrefix Prefix for the report entry keys.
+     */
+    void publish(final ExtensionContext context, final String keyPrefix) {
+        final List<StatementExecution> slowStatements = getSlowStatements();
+
+        for (int i = 0; i < slowStatements.size(); i += 1) {
+            context.publishReportEntry(keyPrefix + "." + (i + 1), slowStatements.get(i).describe());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.mostlycertain.jupiter.db;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Configure the slow statement report for a test.
+ *
+ * Statements that take at least {@link #thresholdMillis()} to execute and read are published as
+ * test report entries. The slowest {@link #top()} statements of the test body and of the fixture
+ * SQL are reported separately. Fixture statements can have their own
+ * {@link #fixtureThresholdMillis() threshold}.
+ *
+ * The annotation on the test method takes precedence over the annotation on the test class,
+ * which takes precedence over the {@code jupiterdb.slowStatements.thresholdMillis},
+ * {@code jupiterdb.slowStatements.fixtureThresholdMillis} and {@code jupiterdb.slowStatements.top}
+ * system properties.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+public @interface SlowStatements {
+    /**
+     * Minimum execution time, in milliseconds, for a statement to be reported.
+     */
+    long thresholdMillis() default SlowStatementLog.DEFAULT_THRESHOLD_MILLIS;
+
+    /**
+     * Minimum execution time, in milliseconds, for a fixture statement to be reported. Negative
+     * uses {@link #thresholdMillis()}.
+     */
+    long fixtureThresholdMillis() default -1;
+
+    /**
+     * Maximum number of statements to report. Zero disables the report.
+     */
+    int top() default SlowStatementLog.DEFAULT_TOP;
+}
@@ -10,6 +10,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -18,34 +22,181 @@ import static com.mostlycertain.jupiter.db.ResourceUtil.loadTextResource;
 import static java.lang.String.format;
 
 public final class SqlRunner {
-    private final List<String> initializeSql;
-    private final List<String> finalizeSql;
+    private static final String INLINE_SCRIPT_NAME = "inline";
+
+    /**
+     * Runners read from the annotations of test classes and methods, shared by every test of the
+     * run and by {@link DatabaseTestBootstrap}.
+     */
+    private static final ConcurrentMap<AnnotatedElement, SqlRunner> ANNOTATION_RUNNERS = new ConcurrentHashMap<>();
+
+    private final List<SqlScript> initializeSql;
+    private final List<SqlScript> finalizeSql;
 
     public SqlRunner(final List<String> initializeSql, final List<String> finalizeSql) {
-        this.initializeSql = new ArrayList<>(initializeSql);
-        this.finalizeSql = new ArrayList<>(finalizeSql);
+        this(
+                initializeSql.stream().map(sql -> new SqlScript(INLINE_SCRIPT_NAME, sql)),
+                finalizeSql.stream().map(sql -> new SqlScript(INLINE_SCRIPT_NAME, sql)));
+    }
+
+    private SqlRunner(final Stream<SqlScript> initializeSql, final Stream<SqlScript> finalizeSql) {
+        this.initializeSql = initializeSql.collect(Collectors.toList());
+        this.finalizeSql = finalizeSql.collect(Collectors.toList());
+    }
+
+    /**
+     * True if there is no initialize or finalize SQL to execute.
+     */
+    public boolean isEmpty() {
+        return initializeSql.isEmpty() && finalizeSql.isEmpty();
+    }
+
+    /**
+     * Split the scripts into statements ahead of the first execution.
+     */
+    void prepare() {
+        initializeSql.forEach(SqlScript::getStatements);
+        finalizeSql.forEach(SqlScript::getStatements);
+    }
+
+    /**
+     * Key that is equal for runners that execute the same SQL.
+     */
+    String getFixtureKey() {
+        return initializeSql.stream().map(SqlScript::getSql).collect(Collectors.joining("\u0000"))
+                + "\u0000\u0000"
+                + finalizeSql.stream().map(SqlScript::getSql).collect(Collectors.joining("\u0000"));
     }
 
     public void executeInitializeSql(final Connection connection) throws SQLException {
-        executeSql(connection, initializeSql);
+        executeSql(connection, initializeSql, (script, statements) -> statements, Optional.empty());
     }
 
     public void executeFinalizeSql(final Connection connection) throws SQLException {
-        executeSql(connection, finalizeSql);
+        executeSql(connection, finalizeSql, (script, statements) -> statements, Optional.empty());
+    }
+
+    /**
+     * Execute the initialize SQL with the statements of each script passed through a translator.
+     *
+     * @param connection Connection to execute the statements on.
+     * @param translator Function from script text and split statements to the statements to execute.
+     * @param profile    Profile to record the time of each statement in.
+     */
+    void executeInitializeSql(
+            final Connection connection,
+            final BiFunction<String, List<String>, List<String>> translator,
+            final Optional<FixtureProfile> profile
+    ) throws SQLException {
+        executeSql(connection, initializeSql, translator, profile);
+    }
+
+    /**
+     * Execute the finalize SQL with the statements of each script passed through a translator.
+     *
+     * @param connection Connection to execute the statements on.
+     * @param translator Function from script text and split statements to the statements to execute.
+     * @param profile    Profile to record the time of each statement in.
+     */
+    void executeFinalizeSql(
+            final Connection connection,
+            final BiFunction<String, List<String>, List<String>> translator,
+            final Optional<FixtureProfile> profile
+    ) throws SQLException {
+        executeSql(connection, finalizeSql, translator, profile);
     }
 
-    private static void executeSql(final Connection connection, final List<String> sqlScripts) throws SQLException {
+    private static void executeSql(
+            final Connection connection,
+            final List<SqlScript> sqlScripts,
+            final BiFunction<String, List<String>, List<String>> translator,
+            final Optional<FixtureProfile> profile
+    ) throws SQLException {
+        if (sqlScripts.isEmpty()) {
+            return;
+        }
+
+        // Profiling times each statement, so the statements are not batched
+        final int batchSize = profile.isPresent() ? 0 : FixturePipeline.batchSize(connection);
+
         try (final Statement statement = connection.createStatement()) {
-            for (final String sqlScript : sqlScripts) {
-                for (final String statementSql : splitStatements(sqlScript)) {
-                    statement.execute(statementSql);
+            for (final SqlScript sqlScript : sqlScripts) {
+                final Object event = DatabaseEvents.beginFixtureScript();
+                final List<String> statements = translator.apply(
+                        sqlScript.getSql(),
+                        sqlScript.getStatements());
+
+                if (profile.isPresent()) {
+                    executeProfiled(statement, sqlScript, statements, profile.get());
+                } else if (batchSize > 0) {
+                    FixturePipeline.execute(statement, sqlScript, statements, batchSize);
+                } else {
+                    for (final String statementSql : statements) {
+                        statement.execute(statementSql);
+                    }
                 }
+
+                DatabaseEvents.endFixtureScript(event, sqlScript.getName(), statements.size());
             }
         }
     }
 
+    private static void executeProfiled(
+            final Statement statement,
+            final SqlScript sqlScript,
+            final List<String> statements,
+            final FixtureProfile profile
+    ) throws SQLException {
+        for (int i = 0; i < statements.size(); i += 1) {
+            final String statementSql = statements.get(i);
+            final long start = System.nanoTime();
+
+            statement.execute(statementSql);
+
+            profile.record(sqlScript.getStatementSource(statements, i), statementSql, System.nanoTime() - start);
+        }
+    }
+
     public static List<String> splitStatements(final String sqlScript) {
         final List<String> statements = new ArrayList<>();
+        splitStatements(sqlScript, statements, null);
+        return statements;
+    }
+
+    /**
+     * Line numbers where the statements returned by {@link #splitStatements(String)} start.
+     *
+     * @param sqlScript SQL script.
+     * @return Line number, starting at 1, of the first character of each statement that is not
+     *         white space.
+     */
+    static List<Integer> statementLines(final String sqlScript) {
+        final List<Integer> offsets = new ArrayList<>();
+
+        splitStatements(sqlScript, new ArrayList<>(), offsets);
+
+        final List<Integer> lines = new ArrayList<>(offsets.size());
+        int line = 1;
+        int index = 0;
+
+        for (final int offset : offsets) {
+            for (; index < offset; index += 1) {
+                if (sqlScript.charAt(index) == '\n') {
+                    line += 1;
+                }
+            }
+
+            lines.add(line);
+        }
+
+        return lines;
+    }
+
+    private static void splitStatements(
+            final String sqlScript,
+            final List<String> statements,
+            final List<Integer> offsets
+    ) {
         int statementStartIndex = 0;
         int statementEndIndex = 0;
         SqlParseState state = SqlParseState.NONE;
@@ -77,7 +228,7 @@ public final class SqlRunner {
                             break;
                         case ';':
                             // Strip the delimiter and start a new statement after the delimiter
-                            addStatement(sqlScript.substring(statementStartIndex, statementEndIndex), statements);
+                            addStatement(sqlScript, statementStartIndex, statementEndIndex, statements, offsets);
                             statementStartIndex = statementEndIndex + 1;
                             break;
                     }
@@ -108,19 +259,29 @@ public final class SqlRunner {
 
         // Add any final statement that does not end with a delimiter
         if (statementStartIndex < statementEndIndex) {
-            addStatement(sqlScript.substring(statementStartIndex, statementEndIndex), statements);
+            addStatement(sqlScript, statementStartIndex, statementEndIndex, statements, offsets);
         }
-
-        return statements;
     }
 
     private static boolean isNextChar(final String str, final int index, final char nextChar) {
         return index < str.length() - 1 && str.charAt(index + 1) == nextChar;
     }
 
-    private static void addStatement(final String sqlStatement, final List<String> output) {
+    private static void addStatement(
+            final String sqlScript,
+            final int startIndex,
+            final int endIndex,
+            final List<String> output,
+            final List<Integer> offsets
+    ) {
+        final String sqlStatement = sqlScript.substring(startIndex, endIndex);
+
         if (sqlStatement.trim().length() > 0) {
             output.add(sqlStatement);
+
+            if (offsets != null) {
+                offsets.add(statementOffset(sqlScript, startIndex, endIndex));
+            }
         }
     }
 
@@ -150,34 +311,94 @@ public final class SqlRunner {
             final Class<?> testClass,
             final AnnotatedElement element
     ) {
-        final List<String> initializeSql = getAnnotations(element, InitializeSql.class)
+        return ANNOTATION_RUNNERS.computeIfAbsent(element, e -> readElementAnnotations(testClass, e));
+    }
+
+    private static SqlRunner readElementAnnotations(
+            final Class<?> testClass,
+            final AnnotatedElement element
+    ) {
+        final Optional<FixtureIndex.Element> indexed = FixtureIndex.find(testClass, element);
+
+        if (indexed.isPresent()) {
+            return new SqlRunner(
+                    indexed.get().initializeSql.stream().map(FixtureIndex.Script::toSqlScript),
+                    indexed.get().finalizeSql.stream().map(FixtureIndex.Script::toSqlScript));
+        }
+
+        final Stream<SqlScript> initializeSql = getAnnotations(element, InitializeSql.class)
                 .flatMap(a -> Stream.concat(
-                        Arrays.stream(a.value()),
+                        Arrays.stream(a.value()).map(s -> inlineScript(element, a, s)),
                         Arrays.stream(a.resource()).map(s -> loadSqlResource(testClass, a, s))))
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+                .filter(Objects::nonNull);
 
-        final List<String> finalizeSql = getAnnotations(element, FinalizeSql.class)
+        final Stream<SqlScript> finalizeSql = getAnnotations(element, FinalizeSql.class)
                 .flatMap(a -> Stream.concat(
-                        Arrays.stream(a.value()),
+                        Arrays.stream(a.value()).map(s -> inlineScript(element, a, s)),
                         Arrays.stream(a.resource()).map(s -> loadSqlResource(testClass, a, s))))
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+                .filter(Objects::nonNull);
 
         return new SqlRunner(initializeSql, finalizeSql);
     }
 
-    private static String loadSqlResource(
+    private static SqlScript inlineScript(
+            final AnnotatedElement element,
+            final Annotation annotation,
+            final String sql
+    ) {
+        final String elementName = element instanceof Method
+                ? ((Method) element).getDeclaringClass().getSimpleName() + "." + ((Method) element).getName()
+                : ((Class<?>) element).getSimpleName();
+
+        return new SqlScript(
+                format("@%s on %s", annotation.annotationType().getSimpleName(), elementName),
+                sql);
+    }
+
+    private static SqlScript loadSqlResource(
             final Class<?> testClass,
             final Annotation annotation,
             final String resourceName
     ) {
-        return loadTextResource(testClass, resourceName)
+        final String sql = loadTextResource(testClass, resourceName)
                 .orElseThrow(() -> new RuntimeException(format(
                         "@%s resource not found: resource=%s test=%s",
                         annotation.annotationType().getSimpleName(),
                         resourceName,
                         testClass.getName())));
+
+        return new SqlScript(resourceName, sql);
+    }
+
+    /**
+     * Find where a statement starts, skipping leading white space and comments.
+     */
+    static int statementOffset(final String sqlScript, final int startIndex, final int endIndex) {
+        int offset = startIndex;
+
+        while (offset < endIndex) {
+            if (sqlScript.charAt(offset) <= ' ') {
+                // Same white space as String.trim
+                offset += 1;
+            } else if (sqlScript.startsWith("--", offset)) {
+                final int lineEnd = sqlScript.indexOf('\n', offset);
+                offset = lineEnd < 0 ? endIndex : lineEnd + 1;
+            } else if (sqlScript.startsWith("/*", offset)) {
+                final int commentEnd = sqlScript.indexOf("*/", offset + 2);
+                offset = commentEnd < 0 ? endIndex : commentEnd + 2;
+            } else {
+                return offset;
+            }
+        }
+
+        // Only comments, use the first character that is not white space
+        offset = startIndex;
+
+        while (offset < endIndex && sqlScript.charAt(offset) <= ' ') {
+            offset += 1;
+        }
+
+        return offset;
     }
 
     private enum SqlParseState {
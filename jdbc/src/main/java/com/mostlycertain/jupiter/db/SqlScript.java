@@ -0,0 +1,85 @@
+package com.mostlycertain.jupiter.db;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SQL script along with where it came from.
+ */
+final class SqlScript {
+    private final String name;
+    private final String sql;
+    private List<String> statements;
+    private List<Integer> statementLines;
+
+    /**
+     * @param name Resource name of the script, or a description of where inline SQL was declared.
+     * @param sql  SQL statements, separated by semicolons.
+     */
+    SqlScript(final String name, final String sql) {
+        this.name = name;
+        this.sql = sql;
+    }
+
+    /**
+     * @param name       Resource name of the script, or a description of where inline SQL was
+     *                   declared.
+     * @param sql        SQL statements, separated by semicolons.
+     * @param statements Statements of the script, already split.
+     */
+    SqlScript(final String name, final String sql, final List<String> statements) {
+        this.name = name;
+        this.sql = sql;
+        this.statements = Collections.unmodifiableList(statements);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getSql() {
+        return sql;
+    }
+
+    /**
+     * Statements of the script, split the first time they are needed.
+     */
+    synchronized List<String> getStatements() {
+        if (statements == null) {
+            statements = Collections.unmodifiableList(SqlRunner.splitStatements(sql));
+        }
+
+        return statements;
+    }
+
+    /**
+     * Line numbers where the {@link #getStatements() statements} start in the script, found the
+     * first time they are needed.
+     */
+    synchronized List<Integer> getStatementLines() {
+        if (statementLines == null) {
+            statementLines = Collections.unmodifiableList(SqlRunner.statementLines(sql));
+        }
+
+        return statementLines;
+    }
+
+    /**
+     * Name and line of a statement of the script.
+     *
+     * @param statements Statements executed for the script, after any translation.
+     * @param index      Index of the statement.
+     * @return {@code name:line}, or the name if the statements are not the statements of this
+     *         script, since the lines are not known.
+     */
+    String getStatementSource(final List<String> statements, final int index) {
+        return statements.size() == getStatements().size()
+                ? name + ":" + getStatementLines().get(index)
+                : name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
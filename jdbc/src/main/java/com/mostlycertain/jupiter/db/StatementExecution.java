@@ -0,0 +1,192 @@
+package com.mostlycertain.jupiter.db;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.joining;
+
+/**
+ * A single call that sent SQL to the database.
+ *
+ * A batch execution is a single round trip that contains multiple SQL statements.
+ *
+ * The execution time is set once the call returns. If the statement produced a result set, the
+ * time spent reading rows from the result set is added as the rows are read.
+ */
+final class StatementExecution {
+    private static final int MAX_BIND_VALUE_LENGTH = 100;
+
+    private final Connection connection;
+    private final List<String> sql;
+    private final boolean batch;
+    private final Map<Object, Object> bindValues;
+    private long executeNanos;
+    private long fetchNanos;
+    private volatile boolean complete;
+
+    private StatementExecution(
+            final Connection connection,
+            final List<String> sql,
+            final boolean batch,
+            final Map<Object, Object> bindValues
+    ) {
+        this.connection = connection;
+        this.sql = sql;
+        this.batch = batch;
+        this.bindValues = bindValues;
+    }
+
+    static StatementExecution single(final Connection connection, final String sql) {
+        return single(connection, sql, Collections.emptyMap());
+    }
+
+    static StatementExecution single(
+            final Connection connection,
+            final String sql,
+            final Map<Object, Object> bindValues
+    ) {
+        return new StatementExecution(connection, Collections.singletonList(sql), false, bindValues);
+    }
+
+    static StatementExecution batch(final Connection connection, final List<String> sql) {
+        return new StatementExecution(
+                connection,
+                Collections.unmodifiableList(new ArrayList<>(sql)),
+                true,
+                Collections.emptyMap());
+    }
+
+    /**
+     * Connection the statement was executed on, without any instrumentation.
+     */
+    Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * SQL statements sent to the database.
+     *
+     * Contains exactly one statement unless this is a {@link #isBatch() batch}.
+     */
+    List<String> getSql() {
+        return sql;
+    }
+
+    /**
+     * True if this was an {@link java.sql.Statement#executeBatch() executeBatch} call.
+     */
+    boolean isBatch() {
+        return batch;
+    }
+
+    /**
+     * Number of SQL statements executed by the database.
+     */
+    int getStatementCount() {
+        return sql.size();
+    }
+
+    /**
+     * Values bound to the parameters of a prepared statement, keyed by parameter index or name,
+     * in the order they were set.
+     *
+     * Empty for batches and plain statements.
+     */
+    Map<Object, Object> getBindValues() {
+        return bindValues;
+    }
+
+    /**
+     * Time spent in the execute call.
+     */
+    long getExecuteNanos() {
+        return executeNanos;
+    }
+
+    void setExecuteNanos(final long executeNanos) {
+        this.executeNanos = executeNanos;
+    }
+
+    /**
+     * Time spent reading rows from the result set produced by this execution.
+     */
+    long getFetchNanos() {
+        return fetchNanos;
+    }
+
+    void addFetchNanos(final long nanos) {
+        this.fetchNanos += nanos;
+    }
+
+    /**
+     * Total time spent executing the statement and reading the results.
+     */
+    long getElapsedNanos() {
+        return executeNanos + fetchNanos;
+    }
+
+    /**
+     * True once all time for this execution has been recorded.
+     *
+     * This is the case once the result set has been read to the end or closed, or the statement
+     * or connection has been closed. An execution without a result set is complete once the
+     * execute call returns.
+     */
+    boolean isComplete() {
+        return complete;
+    }
+
+    void complete() {
+        this.complete = true;
+    }
+
+    /**
+     * Describe the execution time, SQL and bind values.
+     */
+    String describe() {
+        final StringBuilder description = new StringBuilder()
+                .append(TimeUnit.NANOSECONDS.toMillis(getElapsedNanos()))
+                .append(" ms (execute ")
+                .append(TimeUnit.NANOSECONDS.toMillis(executeNanos))
+                .append(" ms, fetch ")
+                .append(TimeUnit.NANOSECONDS.toMillis(fetchNanos))
+                .append(" ms) ");
+
+        if (batch) {
+            description.append("batch of ").append(sql.size());
+        }
+
+        if (!sql.isEmpty()) {
+            description.append(batch ? ": " : "").append(sql.get(0).trim());
+        }
+
+        if (!bindValues.isEmpty()) {
+            description.append(bindValues.entrySet().stream()
+                    .map(e -> e.getKey() + "=" + formatBindValue(e.getValue()))
+                    .collect(joining(", ", " [", "]")));
+        }
+
+        return description.toString();
+    }
+
+    private static String formatBindValue(final Object value) {
+        if (value == null) {
+            return "NULL";
+        }
+
+        final String text = value instanceof CharSequence ? "'" + value + "'" : String.valueOf(value);
+
+        return text.length() > MAX_BIND_VALUE_LENGTH
+                ? text.substring(0, MAX_BIND_VALUE_LENGTH) + "..."
+                : text;
+    }
+
+    @Override
+    public String toString() {
+        return batch ? "batch" + sql : sql.get(0);
+    }
+}
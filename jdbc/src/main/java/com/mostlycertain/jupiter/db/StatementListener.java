@@ -0,0 +1,27 @@
+package com.mostlycertain.jupiter.db;
+
+import java.sql.Statement;
+
+/**
+ * Receives notifications about statements executed on an
+ * {@link InstrumentedConnection instrumented connection}.
+ */
+interface StatementListener {
+    /**
+     * Called before a statement is sent to the database.
+     *
+     * @param execution Statement that is about to be executed.
+     * @param statement JDBC statement that executes it.
+     */
+    default void statementStarting(final StatementExecution execution, final Statement statement) {
+    }
+
+    /**
+     * Called after a statement has been sent to the database.
+     *
+     * This is called whether or not the execution succeeded.
+     *
+     * @param execution Statement that was executed.
+     */
+    void statementExecuted(StatementExecution execution);
+}
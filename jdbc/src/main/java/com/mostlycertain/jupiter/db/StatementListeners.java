@@ -0,0 +1,55 @@
+package com.mostlycertain.jupiter.db;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Group of listeners that are notified while the group is enabled.
+ *
+ * This is used to separate statements executed by the test body from statements executed in
+ * other phases of the test, such as {@code @BeforeEach} methods.
+ */
+final class StatementListeners implements StatementListener {
+    private final List<StatementListener> listeners;
+    private volatile boolean enabled;
+
+    StatementListeners(final List<StatementListener> listeners, final boolean enabled) {
+        this.listeners = new ArrayList<>(listeners);
+        this.enabled = enabled;
+    }
+
+    void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * This group as a listener or {@link Optional#empty() empty} if the group has no listeners.
+     */
+    Optional<StatementListener> asListener() {
+        return listeners.isEmpty() ? Optional.empty() : Optional.of(this);
+    }
+
+    @Override
+    public void statementStarting(final StatementExecution execution, final Statement statement) {
+        if (!enabled) {
+            return;
+        }
+
+        for (final StatementListener listener : listeners) {
+            listener.statementStarting(execution, statement);
+        }
+    }
+
+    @Override
+    public void statementExecuted(final StatementExecution execution) {
+        if (!enabled) {
+            return;
+        }
+
+        for (final StatementListener listener : listeners) {
+            listener.statementExecuted(execution);
+        }
+    }
+}
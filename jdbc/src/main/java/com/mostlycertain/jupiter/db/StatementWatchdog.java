@@ -0,0 +1,291 @@
+package com.mostlycertain.jupiter.db;
+
+import org.opentest4j.AssertionFailedError;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+
+/**
+ * Cancels statements that run past the {@link DatabaseTimeout} of a test.
+ *
+ * Each statement gets a driver side query timeout, as a backstop, and a timer on a shared watchdog
+ * thread. When a timer fires, a lock snapshot is captured, the statements are cancelled, and the
+ * connections of statements that are still running after a grace period are aborted. Nothing is
+ * cancelled or aborted once the watchdog is {@link #stop() stopped}.
+ */
+final class StatementWatchdog implements StatementListener {
+    private static final long ABORT_GRACE_MILLIS = 5000;
+
+    private static final ScheduledThreadPoolExecutor SCHEDULER = createScheduler();
+
+    /**
+     * Runs the timeouts, which block on the lock snapshot and the driver, off the scheduler thread
+     * and out of the common pool the tests may use.
+     */
+    private static final ExecutorService WORKERS = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "jupiterdb-watchdog-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final long testMillis;
+    private final long statementMillis;
+    private final DatabaseConnectionConfig config;
+    private final Map<StatementExecution, RunningStatement> running = new ConcurrentHashMap<>();
+    private final Set<Connection> abortedConnections = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private ScheduledFuture<?> testTimer;
+    private String timeout;
+    private String lockSnapshot;
+    private boolean stopped;
+
+    StatementWatchdog(final long testMillis, final long statementMillis, final DatabaseConnectionConfig config) {
+        this.testMillis = testMillis;
+        this.statementMillis = statementMillis;
+        this.config = config;
+    }
+
+    /**
+     * Read the timeout configuration for a test method.
+     *
+     * @param testClass  Unit test class, which may be a subclass of the class that declares the
+     *                   test method.
+     * @param testMethod Unit test method.
+     * @param config     Configuration used to open a connection for the lock snapshot.
+     * @return Watchdog or {@link Optional#empty() empty} if the test has no timeouts.
+     */
+    static Optional<StatementWatchdog> readAnnotations(
+            final Class<?> testClass,
+            final Method testMethod,
+            final DatabaseConnectionConfig config
+    ) {
+        DatabaseTimeout annotation = testMethod.getAnnotation(DatabaseTimeout.class);
+
+        if (annotation == null) {
+            annotation = testClass.getAnnotation(DatabaseTimeout.class);
+        }
+
+        final long testMillis = annotation != null
+                ? annotation.testMillis()
+                : Long.getLong("jupiterdb.timeout.testMillis", 0);
+        final long statementMillis = annotation != null
+                ? annotation.statementMillis()
+                : Long.getLong("jupiterdb.timeout.statementMillis", 0);
+
+        return testMillis > 0 || statementMillis > 0
+                ? Optional.of(new StatementWatchdog(testMillis, statementMillis, config))
+                : Optional.empty();
+    }
+
+    /**
+     * Start the test timer.
+     */
+    synchronized void start() {
+        if (testMillis > 0) {
+            testTimer = schedule(
+                    () -> timeout(format("test exceeded %d ms", testMillis), running.values()),
+                    testMillis);
+        }
+    }
+
+    /**
+     * Stop all timers.
+     */
+    synchronized void stop() {
+        stopped = true;
+
+        if (testTimer != null) {
+            testTimer.cancel(false);
+            testTimer = null;
+        }
+
+        running.values().forEach(RunningStatement::cancelTimer);
+        running.clear();
+    }
+
+    /**
+     * Connections that were aborted because a statement did not stop after it was cancelled.
+     *
+     * These are the connections the statements were executed on, without instrumentation. The
+     * database already ended their transactions.
+     */
+    Set<Connection> getAbortedConnections() {
+        return Collections.unmodifiableSet(abortedConnections);
+    }
+
+    /**
+     * Error describing the timeout, or {@link Optional#empty() empty} if no timer fired.
+     */
+    synchronized Optional<AssertionFailedError> getTimeoutError() {
+        if (timeout == null) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new AssertionFailedError(format(
+                "Database timeout, %s%nLock snapshot:%n%s",
+                timeout,
+                lockSnapshot)));
+    }
+
+    @Override
+    public void statementStarting(final StatementExecution execution, final Statement statement) {
+        final RunningStatement runningStatement = new RunningStatement(statement, execution.getConnection());
+
+        if (statementMillis > 0) {
+            try {
+                // Backstop in case the watchdog can not cancel the statement. A shorter timeout set
+                // by the test is kept.
+                final int timeoutSeconds = (int) Math.max(1, (statementMillis + ABORT_GRACE_MILLIS + 999) / 1000);
+                final int currentSeconds = statement.getQueryTimeout();
+
+                if (currentSeconds == 0 || currentSeconds > timeoutSeconds) {
+                    statement.setQueryTimeout(timeoutSeconds);
+                }
+            } catch (final SQLException ex) {
+                // The watchdog still cancels the statement
+            }
+
+            runningStatement.timer = schedule(
+                    () -> timeout(
+                            format("statement exceeded %d ms: %s", statementMillis, String.join("; ", execution.getSql())),
+                            Collections.singletonList(runningStatement)),
+                    statementMillis);
+        }
+
+        running.put(execution, runningStatement);
+    }
+
+    @Override
+    public void statementExecuted(final StatementExecution execution) {
+        final RunningStatement runningStatement = running.remove(execution);
+
+        if (runningStatement != null) {
+            runningStatement.cancelTimer();
+            runningStatement.complete = true;
+        }
+    }
+
+    private void timeout(final String description, final Collection<RunningStatement> statements) {
+        final List<RunningStatement> cancelled = new ArrayList<>(statements);
+
+        synchronized (this) {
+            if (stopped || timeout != null) {
+                return;
+            }
+
+            timeout = description;
+        }
+
+        // Capture the locks before the cancel releases the blocked statement
+        final String snapshot = captureLockSnapshot();
+
+        synchronized (this) {
+            lockSnapshot = snapshot;
+
+            if (stopped) {
+                // The statements completed and the connections are used by the next test
+                return;
+            }
+        }
+
+        for (final RunningStatement statement : cancelled) {
+            try {
+                statement.statement.cancel();
+            } catch (final SQLException ex) {
+                // Aborted below if it is still running
+            }
+        }
+
+        schedule(() -> abort(cancelled), ABORT_GRACE_MILLIS);
+    }
+
+    /**
+     * Run a task after a delay. The task runs on a worker thread, so a slow lock snapshot does not
+     * hold up the timers of other tests.
+     */
+    private static ScheduledFuture<?> schedule(final Runnable task, final long delayMillis) {
+        return SCHEDULER.schedule(() -> WORKERS.execute(task), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void abort(final List<RunningStatement> statements) {
+        if (stopped) {
+            return;
+        }
+
+        for (final RunningStatement statement : statements) {
+            if (statement.complete) {
+                continue;
+            }
+
+            abortedConnections.add(statement.connection);
+
+            try {
+                statement.connection.abort(WORKERS);
+            } catch (final SQLException ex) {
+                // Nothing more can be done; the test reports the timeout
+            }
+        }
+    }
+
+    private String captureLockSnapshot() {
+        try (final Connection connection = config.createConnection()) {
+            final Optional<DatabaseDialect> dialect = DatabaseDialects.forConnection(connection);
+
+            if (!dialect.isPresent()) {
+                return "No dialect supports lock snapshots for " + connection.getMetaData().getDatabaseProductName();
+            }
+
+            return dialect.get().lockSnapshot(connection)
+                    .orElse("Lock snapshots are not supported by " + dialect.get().getClass().getName());
+        } catch (final SQLException | RuntimeException ex) {
+            return "Error capturing lock snapshot: " + ex;
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor createScheduler() {
+        final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            final Thread thread = new Thread(runnable, "jupiterdb-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Most timers are cancelled when the statement completes
+        scheduler.setRemoveOnCancelPolicy(true);
+
+        return scheduler;
+    }
+
+    private static final class RunningStatement {
+        final Statement statement;
+        final Connection connection;
+        ScheduledFuture<?> timer;
+        volatile boolean complete;
+
+        RunningStatement(final Statement statement, final Connection connection) {
+            this.statement = statement;
+            this.connection = connection;
+        }
+
+        void cancelTimer() {
+            if (timer != null) {
+                timer.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * History of how long each test class takes, used by {@link TimingShardFilter} to balance
+ * test shards.
+ *
+ * Timings are collected while the tests run and merged into the history file once all tests
+ * have completed. The history file is locked while it is updated, so forked test JVMs can share
+ * it. Each entry is {@code <class>=<total ms>,<database ms>,<fixture ms>}, where the total is the
+ * time from the start to the end of the class. A class that has run before is averaged with its
+ * previous timings to smooth out noise.
+ */
+final class TestTimings implements ExtensionContext.Store.CloseableResource {
+    private static volatile boolean shardFilterApplied;
+
+    private final Path file;
+    private final Map<String, long[]> timings = new HashMap<>();
+
+    TestTimings(final Path file) {
+        this.file = file;
+    }
+
+    /**
+     * History file from the {@code jupiterdb.timings.file} system property.
+     */
+    static Path historyFile() {
+        return Paths.get(System.getProperty("jupiterdb.timings.file", "build/db-timings.properties"));
+    }
+
+    /**
+     * True unless the {@code jupiterdb.timings.record} system property is {@code false}.
+     */
+    static boolean isRecording() {
+        return !System.getProperty("jupiterdb.timings.record", "true").trim().equalsIgnoreCase("false");
+    }
+
+    /**
+     * Record that {@link TimingShardFilter} filtered the discovered tests.
+     */
+    static void markShardFilterApplied() {
+        shardFilterApplied = true;
+    }
+
+    /**
+     * Fail if a shard is requested with the {@code jupiterdb.shard.count} system property, but
+     * {@link TimingShardFilter} did not filter the tests. Every machine would run all the tests.
+     */
+    static void verifyShardFilterApplied() {
+        final int shardCount = Integer.getInteger("jupiterdb.shard.count", 1);
+
+        if (shardCount > 1 && !shardFilterApplied) {
+            throw new IllegalStateException(String.format(
+                    "jupiterdb.shard.count is %d, but TimingShardFilter is not registered with the JUnit "
+                            + "Platform launcher. Use JUnit Platform 1.7 or later, which loads the filter "
+                            + "with ServiceLoader, or add the filter to the LauncherDiscoveryRequest.",
+                    shardCount));
+        }
+    }
+
+    /**
+     * Record the timings of a test class.
+     *
+     * @param testClass     Name of the test class.
+     * @param elapsedNanos  Time from the start to the end of the class.
+     * @param databaseNanos Time the tests spent in the database.
+     * @param fixtureNanos  Time spent executing fixture SQL.
+     */
+    synchronized void add(
+            final String testClass,
+            final long elapsedNanos,
+            final long databaseNanos,
+            final long fixtureNanos
+    ) {
+        timings.merge(
+                testClass,
+                new long[]{
+                        TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                        TimeUnit.NANOSECONDS.toMillis(databaseNanos),
+                        TimeUnit.NANOSECONDS.toMillis(fixtureNanos)},
+                TestTimings::sum);
+    }
+
+    /**
+     * Read the cost of each test class, in milliseconds.
+     *
+     * @param file History file.
+     * @return Total time of each class. Empty if the file does not exist.
+     */
+    static Map<String, Long> readCosts(final Path file) {
+        if (!Files.exists(file)) {
+            return new HashMap<>();
+        }
+
+        try (final InputStream input = Files.newInputStream(file)) {
+            final Properties properties = new Properties();
+            properties.load(input);
+
+            return properties.stringPropertyNames().stream()
+                    .collect(Collectors.toMap(name -> name, name -> parse(properties.getProperty(name))[0]));
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Merge the recorded timings into the history file.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (timings.isEmpty()) {
+            return;
+        }
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+
+        try (final FileChannel channel = FileChannel.open(
+                file,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+             final FileLock ignored = channel.lock()) {
+            final ByteBuffer content = ByteBuffer.allocate((int) channel.size());
+
+            while (content.hasRemaining() && channel.read(content) >= 0) {
+                // Read the whole file
+            }
+
+            final Properties properties = new Properties();
+            properties.load(new StringReader(new String(content.array(), StandardCharsets.ISO_8859_1)));
+
+            for (final Map.Entry<String, long[]> timing : timings.entrySet()) {
+                final String previous = properties.getProperty(timing.getKey());
+                final long[] value = previous == null ? timing.getValue() : average(parse(previous), timing.getValue());
+
+                properties.setProperty(
+                        timing.getKey(),
+                        Arrays.stream(value).mapToObj(Long::toString).collect(Collectors.joining(",")));
+            }
+
+            channel.truncate(0);
+            channel.position(0);
+
+            // Do not close the stream, it would close the channel and release the lock
+            final OutputStream output = Channels.newOutputStream(channel);
+            output.write(format(properties).getBytes(StandardCharsets.ISO_8859_1));
+            output.flush();
+        }
+
+        timings.clear();
+    }
+
+    /**
+     * Write sorted and without the timestamp comment so the file diffs cleanly.
+     */
+    private static String format(final Properties properties) throws IOException {
+        final StringWriter content = new StringWriter();
+        properties.store(content, null);
+
+        return Arrays.stream(content.toString().split("\\R"))
+                .filter(line -> !line.startsWith("#") && !line.isEmpty())
+                .sorted()
+                .collect(Collectors.joining(
+                        System.lineSeparator(),
+                        "# Test class timings in milliseconds: total,database,fixture" + System.lineSeparator(),
+                        System.lineSeparator()));
+    }
+
+    private static long[] parse(final String value) {
+        final long[] result = new long[3];
+        final String[] parts = value.split(",");
+
+        for (int i = 0; i < result.length && i < parts.length; i += 1) {
+            result[i] = Long.parseLong(parts[i].trim());
+        }
+
+        return result;
+    }
+
+    private static long[] sum(final long[] a, final long[] b) {
+        return new long[]{a[0] + b[0], a[1] + b[1], a[2] + b[2]};
+    }
+
+    private static long[] average(final long[] a, final long[] b) {
+        return new long[]{(a[0] + b[0]) / 2, (a[1] + b[1]) / 2, (a[2] + b[2]) / 2};
+    }
+
+    /**
+     * Timings of a test class while it runs.
+     */
+    static final class ClassTiming {
+        final long startNanos = System.nanoTime();
+        final DatabaseTimer database = new DatabaseTimer();
+        final DatabaseTimer fixture = new DatabaseTimer();
+    }
+}
@@ -0,0 +1,165 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.platform.engine.FilterResult;
+import org.junit.platform.engine.TestDescriptor;
+import org.junit.platform.engine.TestSource;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+import org.junit.platform.launcher.PostDiscoveryFilter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+
+import static java.lang.String.format;
+
+/**
+ * Runs one shard of the test classes, with the shards balanced using the {@link TestTimings}
+ * history.
+ *
+ * Enabled by the {@code jupiterdb.shard.index} (zero based) and {@code jupiterdb.shard.count}
+ * system properties. Classes with a recorded time are assigned by greedy bin packing, longest
+ * first, to the shard with the least time. Classes without history are assigned by the hash of
+ * their name, and count as the average recorded time. Every shard must discover the same classes
+ * and read the same history file, so they agree on the assignment.
+ */
+public class TimingShardFilter implements PostDiscoveryFilter {
+    private final int shardIndex;
+    private final int shardCount;
+    private TestDescriptor root;
+    private Map<String, Integer> shards;
+
+    public TimingShardFilter() {
+        this(Integer.getInteger("jupiterdb.shard.index", 0), Integer.getInteger("jupiterdb.shard.count", 1));
+    }
+
+    public TimingShardFilter(final int shardIndex, final int shardCount) {
+        if (shardCount < 1 || shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException(format(
+                    "Invalid test shard: shardIndex=%d shardCount=%d",
+                    shardIndex,
+                    shardCount));
+        }
+
+        this.shardIndex = shardIndex;
+        this.shardCount = shardCount;
+    }
+
+    @Override
+    public synchronized FilterResult apply(final TestDescriptor descriptor) {
+        TestTimings.markShardFilterApplied();
+
+        final Optional<String> testClass = topLevelClass(descriptor);
+
+        if (shardCount == 1 || !testClass.isPresent()) {
+            return FilterResult.included("not sharded");
+        }
+
+        final TestDescriptor descriptorRoot = root(descriptor);
+
+        if (descriptorRoot != root) {
+            root = descriptorRoot;
+            shards = assignShards(findClasses(descriptorRoot), TestTimings.readCosts(TestTimings.historyFile()), shardCount);
+        }
+
+        final int shard = shards.getOrDefault(testClass.get(), hashShard(testClass.get(), shardCount));
+
+        return shard == shardIndex
+                ? FilterResult.included(format("in shard %d of %d", shardIndex, shardCount))
+                : FilterResult.excluded(format("in shard %d, not %d of %d", shard, shardIndex, shardCount));
+    }
+
+    /**
+     * Assign classes to shards.
+     *
+     * @param classes    Names of the classes to assign.
+     * @param costs      Recorded cost of classes.
+     * @param shardCount Number of shards.
+     * @return Shard index of each class.
+     */
+    static Map<String, Integer> assignShards(
+            final Collection<String> classes,
+            final Map<String, Long> costs,
+            final int shardCount
+    ) {
+        final Map<String, Integer> shards = new HashMap<>();
+        final long[] load = new long[shardCount];
+        final List<String> known = new ArrayList<>();
+        final long averageCost = Math.max(1, (long) costs.values().stream().mapToLong(Long::longValue).average().orElse(1));
+
+        for (final String testClass : new TreeSet<>(classes)) {
+            if (costs.containsKey(testClass)) {
+                known.add(testClass);
+            } else {
+                final int shard = hashShard(testClass, shardCount);
+                shards.put(testClass, shard);
+                load[shard] += averageCost;
+            }
+        }
+
+        known.sort(Comparator.<String>comparingLong(costs::get).reversed().thenComparing(Comparator.naturalOrder()));
+
+        for (final String testClass : known) {
+            int shard = 0;
+
+            for (int i = 1; i < shardCount; i += 1) {
+                if (load[i] < load[shard]) {
+                    shard = i;
+                }
+            }
+
+            shards.put(testClass, shard);
+            load[shard] += costs.get(testClass);
+        }
+
+        return shards;
+    }
+
+    private static int hashShard(final String testClass, final int shardCount) {
+        return Math.floorMod(testClass.hashCode(), shardCount);
+    }
+
+    private static Collection<String> findClasses(final TestDescriptor root) {
+        final List<String> classes = new ArrayList<>();
+
+        for (final TestDescriptor descriptor : root.getDescendants()) {
+            topLevelClass(descriptor).ifPresent(classes::add);
+        }
+
+        return classes;
+    }
+
+    /**
+     * Name of the class if the descriptor is a top level test class.
+     */
+    private static Optional<String> topLevelClass(final TestDescriptor descriptor) {
+        final Optional<TestSource> source = descriptor.getSource();
+
+        if (!source.isPresent() || !(source.get() instanceof ClassSource)) {
+            return Optional.empty();
+        }
+
+        // Nested classes are filtered with their enclosing class
+        for (Optional<TestDescriptor> parent = descriptor.getParent(); parent.isPresent(); parent = parent.get().getParent()) {
+            if (parent.get().getSource().filter(s -> s instanceof ClassSource).isPresent()) {
+                return Optional.empty();
+            }
+        }
+
+        return Optional.of(((ClassSource) source.get()).getClassName());
+    }
+
+    private static TestDescriptor root(final TestDescriptor descriptor) {
+        TestDescriptor root = descriptor;
+
+        while (root.getParent().isPresent()) {
+            root = root.getParent().get();
+        }
+
+        return root;
+    }
+}
@@ -0,0 +1,99 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.opentest4j.AssertionFailedError;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.mostlycertain.jupiter.db.TestProxies.stub;
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BudgetBaselinesTest {
+    private final List<String> reportEntries = new ArrayList<>();
+
+    @Test
+    void testKey() {
+        assertEquals("find()", BudgetBaselines.testKey(
+                context("[engine:junit-jupiter]/[class:a.FooTest]/[method:find()]")));
+        assertEquals("find(int)/#2", BudgetBaselines.testKey(
+                context("[engine:junit-jupiter]/[class:a.FooTest]/[test-template:find(int)]/[test-template-invocation:#2]")));
+        assertEquals("find()", BudgetBaselines.testKey(
+                context("[engine:junit-jupiter]/[class:a.FooTest]/[nested-class:Inner]/[method:find()]")));
+    }
+
+    @Test
+    void recordAndCheck() throws IOException {
+        final Path directory = Files.createTempDirectory("budgets");
+        final ExtensionContext context = context("[engine:junit-jupiter]/[class:a.FooTest]/[method:find()]");
+
+        final BudgetBaselines recording = new BudgetBaselines(directory, BudgetBaselines.Mode.RECORD);
+        recording.check(context, budget(DatabaseBudget.Action.FAIL), TimeUnit.MILLISECONDS.toNanos(100));
+        recording.close();
+
+        assertEquals(
+                asList("# Database time baselines in milliseconds, see @DatabaseBudget", "find()=100"),
+                Files.readAllLines(directory.resolve(BudgetBaselinesTest.class.getName() + ".properties"), StandardCharsets.UTF_8));
+
+        final BudgetBaselines checking = new BudgetBaselines(directory, BudgetBaselines.Mode.CHECK);
+        checking.check(context, budget(DatabaseBudget.Action.FAIL), TimeUnit.MILLISECONDS.toNanos(160));
+
+        final AssertionFailedError error = assertThrows(
+                AssertionFailedError.class,
+                () -> checking.check(context, budget(DatabaseBudget.Action.FAIL), TimeUnit.MILLISECONDS.toNanos(161)));
+        assertTrue(error.getMessage().contains("baseline of 100 ms (limit 160 ms)"), error.getMessage());
+
+        checking.check(context, budget(DatabaseBudget.Action.WARN), TimeUnit.MILLISECONDS.toNanos(161));
+        assertTrue(reportEntries.get(reportEntries.size() - 1).startsWith("databaseBudget=Test spent 161 ms"));
+    }
+
+    private ExtensionContext context(final String uniqueId) {
+        return stub(ExtensionContext.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getUniqueId":
+                    return uniqueId;
+                case "getRequiredTestClass":
+                    return BudgetBaselinesTest.class;
+                case "publishReportEntry":
+                    reportEntries.add(args[0] + "=" + args[1]);
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private static DatabaseBudget budget(final DatabaseBudget.Action action) {
+        return new DatabaseBudget() {
+            @Override
+            public double tolerance() {
+                return 0.5;
+            }
+
+            @Override
+            public long slackMillis() {
+                return 10;
+            }
+
+            @Override
+            public Action onRegression() {
+                return action;
+            }
+
+            @Override
+            public Class<? extends Annotation> annotationType() {
+                return DatabaseBudget.class;
+            }
+        };
+    }
+}
@@ -0,0 +1,259 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+import static com.mostlycertain.jupiter.db.TestProxies.stub;
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ConnectionFactoriesTest {
+    /**
+     * Connections opened by the test drivers and data sources, which are created by class name.
+     */
+    private static final List<String> CONNECTIONS = new ArrayList<>();
+
+    @BeforeEach
+    void clearConnections() {
+        CONNECTIONS.clear();
+    }
+
+    @Test
+    void driverForUrl() throws SQLException {
+        final Driver driver = new TestDriver();
+        DriverManager.registerDriver(driver);
+
+        try {
+            final DatabaseConnectionConfig config = DatabaseConnectionConfig.builder()
+                    .url("jdbc:driver-class:registered")
+                    .user("u")
+                    .password("p")
+                    .property("ssl", "true")
+                    .build();
+
+            assertNotNull(ConnectionFactories.connect(config));
+            assertNotNull(ConnectionFactories.connect(config));
+            assertEquals(asList(
+                    "jdbc:driver-class:registered {password=p, ssl=true, user=u}",
+                    "jdbc:driver-class:registered {password=p, ssl=true, user=u}"), CONNECTIONS);
+        } finally {
+            DriverManager.deregisterDriver(driver);
+        }
+    }
+
+    @Test
+    void driverClass() throws SQLException {
+        final DatabaseConnectionConfig config = DatabaseConnectionConfig.builder()
+                .url("jdbc:driver-class:db")
+                .driver(TestDriver.class.getName())
+                .property("timeout", "5")
+                .build();
+
+        assertNotNull(ConnectionFactories.connect(config));
+        assertEquals(asList("jdbc:driver-class:db {password=, timeout=5, user=}"), CONNECTIONS);
+    }
+
+    @Test
+    void driverRejectsUrl() {
+        final DatabaseConnectionConfig config = DatabaseConnectionConfig.builder()
+                .url("jdbc:other:db")
+                .driver(TestDriver.class.getName())
+                .build();
+
+        final SQLException ex = assertThrows(SQLException.class, () -> ConnectionFactories.connect(config));
+        assertEquals("Driver " + TestDriver.class.getName() + " does not accept url: jdbc:other:db", ex.getMessage());
+    }
+
+    @Test
+    void dataSourceClass() throws SQLException {
+        final DatabaseConnectionConfig config = DatabaseConnectionConfig.builder()
+                .url("jdbc:data-source:db")
+                .user("u")
+                .password("p")
+                .driver(TestDataSource.class.getName())
+                .property("port", "5432")
+                .property("timeout", "30s")
+                .property("ssl", "true")
+                .property("applicationName", "tests")
+                .build();
+
+        assertNotNull(ConnectionFactories.connect(config));
+        assertEquals(
+                asList("jdbc:data-source:db port=5432 timeout=30s ssl=true applicationName=tests u/p"),
+                CONNECTIONS);
+    }
+
+    @Test
+    void dataSourcePropertyErrors() {
+        assertEquals(
+                "Invalid data source property value, expected a number: property=port value=x",
+                dataSourceError("port", "x"));
+        assertEquals(
+                "Data source property type is not supported, expected String, int, long or boolean: "
+                        + "property=ratio type=double dataSource=" + TestDataSource.class.getName(),
+                dataSourceError("ratio", "0.5"));
+        assertEquals(
+                "Data source does not have a property: property=missing dataSource=" + TestDataSource.class.getName(),
+                dataSourceError("missing", "1"));
+    }
+
+    @Test
+    void notADriver() {
+        final DatabaseConnectionConfig config = DatabaseConnectionConfig.builder()
+                .driver(String.class.getName())
+                .build();
+
+        final SQLException ex = assertThrows(SQLException.class, () -> ConnectionFactories.connect(config));
+        assertEquals(
+                "Database driver must implement java.sql.Driver or javax.sql.DataSource: java.lang.String",
+                ex.getMessage());
+    }
+
+    private static String dataSourceError(final String property, final String value) {
+        final DatabaseConnectionConfig config = DatabaseConnectionConfig.builder()
+                .driver(TestDataSource.class.getName())
+                .property(property, value)
+                .build();
+
+        return assertThrows(SQLException.class, () -> ConnectionFactories.connect(config)).getMessage();
+    }
+
+    public static final class TestDriver implements Driver {
+        @Override
+        public Connection connect(final String url, final Properties info) {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+
+            CONNECTIONS.add(url + " " + new TreeMap<>(info));
+            return stub(Connection.class);
+        }
+
+        @Override
+        public boolean acceptsURL(final String url) {
+            return url.startsWith("jdbc:driver-class:");
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(final String url, final Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() {
+            return Logger.getGlobal();
+        }
+    }
+
+    public static final class TestDataSource implements DataSource {
+        private String url;
+        private int port;
+        private String timeout;
+        private boolean ssl;
+        private String applicationName;
+
+        public void setURL(final String url) {
+            this.url = url;
+        }
+
+        public void setPort(final int port) {
+            this.port = port;
+        }
+
+        // Overloads that take a number and text, such as a number of seconds or "30s"
+        public void setTimeout(final long timeout) {
+            this.timeout = Long.toString(timeout);
+        }
+
+        public void setTimeout(final String timeout) {
+            this.timeout = timeout;
+        }
+
+        public void setSsl(final boolean ssl) {
+            this.ssl = ssl;
+        }
+
+        public void setApplicationName(final String applicationName) {
+            this.applicationName = applicationName;
+        }
+
+        public void setRatio(final double ratio) {
+        }
+
+        @Override
+        public Connection getConnection() {
+            return getConnection("", "");
+        }
+
+        @Override
+        public Connection getConnection(final String username, final String password) {
+            CONNECTIONS.add(String.format(
+                    "%s port=%d timeout=%s ssl=%s applicationName=%s %s/%s",
+                    url, port, timeout, ssl, applicationName, username, password));
+            return stub(Connection.class);
+        }
+
+        @Override
+        public PrintWriter getLogWriter() {
+            return null;
+        }
+
+        @Override
+        public void setLogWriter(final PrintWriter out) {
+        }
+
+        @Override
+        public void setLoginTimeout(final int seconds) {
+        }
+
+        @Override
+        public int getLoginTimeout() {
+            return 0;
+        }
+
+        @Override
+        public Logger getParentLogger() {
+            return Logger.getGlobal();
+        }
+
+        @Override
+        public <T> T unwrap(final Class<T> iface) throws SQLException {
+            throw new SQLException("Not a wrapper");
+        }
+
+        @Override
+        public boolean isWrapperFor(final Class<?> iface) {
+            return false;
+        }
+    }
+}
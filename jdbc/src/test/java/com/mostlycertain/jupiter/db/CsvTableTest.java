@@ -0,0 +1,36 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.Test;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvTableTest {
+    @Test
+    void parse() {
+        final CsvTable table = CsvTable.parse("id,name,note\r\n1,bob,\n\n2,\"a, \"\"b\"\"\nc\",\"\"");
+
+        assertEquals(asList("id", "name", "note"), table.getColumns());
+        assertEquals(asList(
+                asList("1", "bob", null),
+                asList("2", "a, \"b\"\nc", "")), table.getRows());
+    }
+
+    @Test
+    void headerOnly() {
+        final CsvTable table = CsvTable.parse("id\n");
+
+        assertEquals(singletonList("id"), table.getColumns());
+        assertEquals(0, table.getRows().size());
+    }
+
+    @Test
+    void invalid() {
+        assertThrows(IllegalArgumentException.class, () -> CsvTable.parse(""));
+        assertThrows(IllegalArgumentException.class, () -> CsvTable.parse("id,name\n1\n"));
+        assertThrows(IllegalArgumentException.class, () -> CsvTable.parse("id\n\"1"));
+        assertThrows(IllegalArgumentException.class, () -> CsvTable.parse("id\n\"1\"2"));
+    }
+}
@@ -0,0 +1,99 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DataSetAssertionsTest {
+    private final List<String> executed = new ArrayList<>();
+    private Connection physicalConnection;
+    private Connection connection;
+
+    @BeforeEach
+    void createTable() throws SQLException {
+        physicalConnection = DriverManager.getConnection("jdbc:h2:mem:");
+        connection = InstrumentedConnection.wrap(
+                physicalConnection,
+                "test",
+                false,
+                execution -> executed.addAll(execution.getSql()));
+
+        try (final Statement statement = physicalConnection.createStatement()) {
+            statement.execute("CREATE TABLE users (id INT, name VARCHAR(20), balance DECIMAL(10, 2))");
+            statement.execute("INSERT INTO users VALUES (2, 'bob', 5.50), (1, 'alice', NULL), (3, '', 0)");
+        }
+    }
+
+    @AfterEach
+    void closeConnection() throws SQLException {
+        physicalConnection.close();
+    }
+
+    @Test
+    void matchingRowsAreOnlyChecksummed() throws SQLException {
+        DataSetAssertions.assertTableEquals(connection, "users", "id,name,balance\n1,alice,\n3,\"\",0\n2,bob,5.5");
+
+        // The table rows are not read when the checksums match
+        assertFalse(executed.contains("SELECT id, name, balance FROM users"), executed.toString());
+        assertTrue(executed.stream().anyMatch(sql -> sql.contains("ORA_HASH")), executed.toString());
+    }
+
+    @Test
+    void differentRows() {
+        final AssertionFailedError error = assertThrows(
+                AssertionFailedError.class,
+                () -> DataSetAssertions.assertTableEquals(connection, "users", "id,name\n1,alice\n2,bob\n2,bob\n3,"));
+
+        assertTrue(error.getMessage().startsWith(
+                "Table users does not match data set: expectedRows=4 actualRows=3 columns=[id, name]"),
+                error.getMessage());
+        assertTrue(error.getMessage().contains("Missing rows (2):"), error.getMessage());
+        assertTrue(error.getMessage().contains("[2, bob]"), error.getMessage());
+        assertTrue(error.getMessage().contains("[3, null]"), error.getMessage());
+        assertTrue(error.getMessage().contains("Unexpected rows (1):" + System.lineSeparator() + "  [3, ]"),
+                error.getMessage());
+        assertTrue(executed.contains("SELECT id, name FROM users"), executed.toString());
+    }
+
+    @Test
+    void separatorInValues() throws SQLException {
+        try (final Statement statement = physicalConnection.createStatement()) {
+            statement.execute("CREATE TABLE pairs (a VARCHAR(10), b VARCHAR(10))");
+            statement.execute("INSERT INTO pairs VALUES ('x,y', 'z')");
+        }
+
+        // Same text when the values are joined, but different rows
+        assertThrows(
+                AssertionFailedError.class,
+                () -> DataSetAssertions.assertTableEquals(connection, "pairs", "a,b\nx,\"y,z\""));
+        DataSetAssertions.assertTableEquals(connection, "pairs", "a,b\n\"x,y\",z");
+    }
+
+    @Test
+    void emptyTable() throws SQLException {
+        try (final Statement statement = physicalConnection.createStatement()) {
+            statement.execute("DELETE FROM users");
+        }
+
+        DataSetAssertions.assertTableEquals(connection, "users", "id,name");
+        assertEquals(
+                "Table users does not match data set: expectedRows=1 actualRows=0 columns=[id]",
+                assertThrows(
+                        AssertionFailedError.class,
+                        () -> DataSetAssertions.assertTableEquals(connection, "users", "id\n1"))
+                        .getMessage().split("\\R")[0]);
+    }
+}
@@ -0,0 +1,71 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class DatabaseConnectionConfigTest {
+    private static final String[] SYSTEM_PROPERTIES = {
+            "jupiterdb.database.url",
+            "jupiterdb.database.driver",
+            "jupiterdb.database.properties.ssl",
+            "jupterdb.database.url",
+            "jupterdb.database.user",
+            "jupterdb.database.properties.ssl",
+            "jupterdb.database.properties.timeout",
+    };
+
+    @AfterEach
+    void clearSystemProperties() {
+        for (final String name : SYSTEM_PROPERTIES) {
+            System.clearProperty(name);
+        }
+    }
+
+    @Test
+    void merge() {
+        final DatabaseConnectionConfig base = DatabaseConnectionConfig.builder()
+                .url("jdbc:base")
+                .user("base")
+                .password("secret")
+                .driver("base.Driver")
+                .property("ssl", "false")
+                .property("timeout", "5")
+                .build();
+        final DatabaseConnectionConfig override = DatabaseConnectionConfig.builder()
+                .user("override")
+                .driver("override.DataSource")
+                .property("ssl", "true")
+                .build();
+
+        assertEquals(
+                "url=jdbc:base user=override password=secret driver=override.DataSource properties={ssl=true, timeout=5}",
+                base.merge(override).toString());
+        assertSame(base, base.merge(DatabaseConnectionConfig.getDefault()));
+        assertSame(override, DatabaseConnectionConfig.getDefault().merge(override));
+    }
+
+    @Test
+    void readSystemProperties() {
+        System.setProperty("jupiterdb.database.url", " jdbc:new ");
+        System.setProperty("jupiterdb.database.driver", "new.Driver");
+        System.setProperty("jupiterdb.database.properties.ssl", "true");
+
+        // Earlier versions misspelled the prefix, the correct spelling takes precedence
+        System.setProperty("jupterdb.database.url", "jdbc:old");
+        System.setProperty("jupterdb.database.user", "old");
+        System.setProperty("jupterdb.database.properties.ssl", "false");
+        System.setProperty("jupterdb.database.properties.timeout", "5");
+
+        assertEquals(
+                "url=jdbc:new user=old password= driver=new.Driver properties={ssl=true, timeout=5}",
+                DatabaseConnectionConfig.readSystemProperties().toString());
+    }
+
+    @Test
+    void noSystemProperties() {
+        assertSame(DatabaseConnectionConfig.getDefault(), DatabaseConnectionConfig.readSystemProperties());
+    }
+}
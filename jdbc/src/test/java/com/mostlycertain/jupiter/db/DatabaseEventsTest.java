@@ -0,0 +1,194 @@
+package com.mostlycertain.jupiter.db;
+
+import com.sun.management.ThreadMXBean;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.mostlycertain.jupiter.db.TestProxies.stub;
+import static java.lang.String.format;
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class DatabaseEventsTest {
+    private static final String STATEMENT_EVENT = "com.mostlycertain.jupiterdb.Statement";
+
+    private static final List<String> EVENTS = asList(
+            "com.mostlycertain.jupiterdb.ConnectionAcquire",
+            "com.mostlycertain.jupiterdb.Savepoint",
+            "com.mostlycertain.jupiterdb.Rollback",
+            "com.mostlycertain.jupiterdb.Close",
+            "com.mostlycertain.jupiterdb.FixtureScript",
+            STATEMENT_EVENT);
+
+    @Test
+    void statementEventsRecorded() throws IOException, SQLException {
+        final Connection connection = InstrumentedConnection.wrap(stubConnection(), "connection", true, e -> {
+        });
+
+        final List<RecordedEvent> events = record(asList(STATEMENT_EVENT), () -> {
+            try (final Statement statement = connection.createStatement()) {
+                statement.execute("S 1");
+                statement.addBatch("S 2");
+                statement.addBatch("S 3");
+                statement.executeBatch();
+            }
+        });
+
+        assertEquals(2, events.size());
+
+        assertEquals(STATEMENT_EVENT, events.get(0).getEventType().getName());
+        assertEquals("connection", events.get(0).getString("connection"));
+        assertEquals("S 1", events.get(0).getString("sql"));
+        assertEquals(0, events.get(0).getInt("batchSize"));
+        assertTrue(events.get(0).getBoolean("fixture"));
+
+        assertEquals("S 2", events.get(1).getString("sql"));
+        assertEquals(2, events.get(1).getInt("batchSize"));
+    }
+
+    @Test
+    void connectionAndFixtureEventsRecorded() throws IOException, SQLException {
+        final List<RecordedEvent> events = record(
+                asList(
+                        "com.mostlycertain.jupiterdb.ConnectionAcquire",
+                        "com.mostlycertain.jupiterdb.Savepoint",
+                        "com.mostlycertain.jupiterdb.Rollback",
+                        "com.mostlycertain.jupiterdb.Close",
+                        "com.mostlycertain.jupiterdb.FixtureScript"),
+                () -> {
+                    DatabaseEvents.endConnectionAcquire(DatabaseEvents.beginConnectionAcquire(), "db", "jdbc:test:");
+                    DatabaseEvents.endConnectionEvent(DatabaseEvents.beginSavepoint(), "db");
+                    DatabaseEvents.endFixtureScript(DatabaseEvents.beginFixtureScript(), "init.sql", 3);
+                    DatabaseEvents.endConnectionEvent(DatabaseEvents.beginRollback(), "db");
+                    DatabaseEvents.endConnectionEvent(DatabaseEvents.beginClose(), "db");
+
+                    // Not enabled in the recording
+                    assertNull(DatabaseEvents.beginStatement());
+                });
+
+        assertEquals(
+                asList(
+                        "com.mostlycertain.jupiterdb.ConnectionAcquire",
+                        "com.mostlycertain.jupiterdb.Savepoint",
+                        "com.mostlycertain.jupiterdb.FixtureScript",
+                        "com.mostlycertain.jupiterdb.Rollback",
+                        "com.mostlycertain.jupiterdb.Close"),
+                events.stream().map(e -> e.getEventType().getName()).collect(Collectors.toList()));
+
+        assertEquals("db", events.get(0).getString("connection"));
+        assertEquals("jdbc:test:", events.get(0).getString("url"));
+        assertEquals("db", events.get(1).getString("connection"));
+        assertEquals("init.sql", events.get(2).getString("script"));
+        assertEquals(3, events.get(2).getInt("statementCount"));
+    }
+
+    @Test
+    void notRecordedWithoutRecording() {
+        assertNull(DatabaseEvents.beginConnectionAcquire());
+        assertNull(DatabaseEvents.beginSavepoint());
+        assertNull(DatabaseEvents.beginRollback());
+        assertNull(DatabaseEvents.beginClose());
+        assertNull(DatabaseEvents.beginFixtureScript());
+        assertNull(DatabaseEvents.beginStatement());
+    }
+
+    @Test
+    void nothingAllocatedWithoutRecording() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof ThreadMXBean);
+
+        final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long threadId = Thread.currentThread().getId();
+        final StatementExecution execution = StatementExecution.single(null, "S 1");
+        final int iterations = 100_000;
+
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        emitEvents(1_000, execution);
+
+        final long before = threads.getThreadAllocatedBytes(threadId);
+        emitEvents(iterations, execution);
+        final long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        // Any event allocated per call would be at least a few bytes each
+        assertTrue(
+                allocated < iterations,
+                format("Events should not allocate without a recording: allocated=%d iterations=%d", allocated, iterations));
+    }
+
+    private static void emitEvents(final int iterations, final StatementExecution execution) {
+        for (int i = 0; i < iterations; i += 1) {
+            DatabaseEvents.endConnectionAcquire(DatabaseEvents.beginConnectionAcquire(), "db", "jdbc:test:");
+            DatabaseEvents.endConnectionEvent(DatabaseEvents.beginSavepoint(), "db");
+            DatabaseEvents.endConnectionEvent(DatabaseEvents.beginRollback(), "db");
+            DatabaseEvents.endConnectionEvent(DatabaseEvents.beginClose(), "db");
+            DatabaseEvents.endFixtureScript(DatabaseEvents.beginFixtureScript(), "init.sql", 1);
+            DatabaseEvents.endStatement(DatabaseEvents.beginStatement(), "db", execution, false);
+        }
+    }
+
+    /**
+     * Run the work with a recording of the events, and read the events back from the recording file.
+     * The other events are disabled, events are enabled by default.
+     */
+    private static List<RecordedEvent> record(final List<String> eventNames, final Work work)
+            throws IOException, SQLException {
+        final Path file = Files.createTempFile("jupiterdb-events", ".jfr");
+
+        try {
+            try (final Recording recording = new Recording()) {
+                EVENTS.forEach(name -> {
+                    if (eventNames.contains(name)) {
+                        recording.enable(name).withoutThreshold();
+                    } else {
+                        recording.disable(name);
+                    }
+                });
+                recording.start();
+                work.run();
+                recording.stop();
+                recording.dump(file);
+            }
+
+            final List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            assertNotNull(events);
+            assertFalse(events.isEmpty(), "No events recorded");
+
+            return events.stream()
+                    .filter(e -> e.getEventType().getName().startsWith("com.mostlycertain.jupiterdb."))
+                    .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+                    .collect(Collectors.toList());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static Connection stubConnection() {
+        return stub(Connection.class, (proxy, method, args) -> {
+            if (method.getName().equals("createStatement")) {
+                return stub(Statement.class, (p, m, a) -> m.getName().equals("executeBatch") ? new int[2] : null);
+            }
+            return null;
+        });
+    }
+
+    private interface Work {
+        void run() throws SQLException;
+    }
+}
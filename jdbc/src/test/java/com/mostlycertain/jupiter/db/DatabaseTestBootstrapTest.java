@@ -0,0 +1,228 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.engine.TestDescriptor;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.engine.support.descriptor.AbstractTestDescriptor;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+import org.junit.platform.engine.support.descriptor.EngineDescriptor;
+import org.junit.platform.launcher.TestPlan;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static com.mostlycertain.jupiter.db.TestProxies.stub;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DatabaseTestBootstrapTest {
+    /**
+     * Connections opened by the test driver, which is created by class name.
+     */
+    private static final List<Connection> OPENED = new CopyOnWriteArrayList<>();
+
+    /**
+     * Opened connections that were closed.
+     */
+    private static final Set<Connection> CLOSED = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    @BeforeEach
+    void clearConnections() {
+        ConnectionFactories.closeWarmConnections();
+        OPENED.clear();
+        CLOSED.clear();
+    }
+
+    @Test
+    void warmConnectionHandedToTest() throws Exception {
+        final DatabaseTestBootstrap bootstrap = new DatabaseTestBootstrap();
+        final TestPlan testPlan = testPlan(WarmedTest.class, NotADatabaseTest.class);
+
+        final DatabaseConnectionConfig config = DatabaseConnectionConfig.readAnnotation(WarmedTest.class);
+
+        bootstrap.testPlanExecutionStarted(testPlan);
+        awaitWarmConnection(config);
+
+        final Connection first = ConnectionFactories.connect(config);
+        final Connection second = ConnectionFactories.connect(config);
+
+        assertSame(OPENED.get(0), first);
+        assertNotSame(first, second);
+        assertEquals(2, OPENED.size());
+
+        bootstrap.testPlanExecutionFinished(testPlan);
+
+        assertEquals(Collections.emptySet(), CLOSED);
+    }
+
+    @Test
+    void unusedWarmConnectionClosed() throws Exception {
+        final DatabaseTestBootstrap bootstrap = new DatabaseTestBootstrap();
+        final TestPlan testPlan = testPlan(UnusedTest.class);
+
+        final DatabaseConnectionConfig config = DatabaseConnectionConfig.readAnnotation(UnusedTest.class);
+
+        bootstrap.testPlanExecutionStarted(testPlan);
+        awaitWarmConnection(config);
+        bootstrap.testPlanExecutionFinished(testPlan);
+
+        assertEquals(Collections.singleton(OPENED.get(0)), CLOSED);
+        assertFalse(ConnectionFactories.hasWarmConnection(config));
+        assertNotSame(OPENED.get(0), ConnectionFactories.connect(config));
+    }
+
+    @Test
+    void noDatabaseTests() {
+        final DatabaseTestBootstrap bootstrap = new DatabaseTestBootstrap();
+        final TestPlan testPlan = testPlan(NotADatabaseTest.class);
+
+        bootstrap.testPlanExecutionStarted(testPlan);
+        bootstrap.testPlanExecutionFinished(testPlan);
+
+        assertEquals(Collections.emptyList(), OPENED);
+    }
+
+    @Test
+    void disabled() {
+        final DatabaseTestBootstrap bootstrap = new DatabaseTestBootstrap();
+        final TestPlan testPlan = testPlan(UnusedTest.class);
+
+        System.setProperty("jupiterdb.bootstrap", "false");
+
+        try {
+            bootstrap.testPlanExecutionStarted(testPlan);
+            bootstrap.testPlanExecutionFinished(testPlan);
+        } finally {
+            System.clearProperty("jupiterdb.bootstrap");
+        }
+
+        assertEquals(Collections.emptyList(), OPENED);
+    }
+
+    @Test
+    void warmUpKeepsFirstConnection() throws SQLException {
+        final DatabaseConnectionConfig config = DatabaseConnectionConfig.readAnnotation(WarmedTest.class);
+
+        ConnectionFactories.warmUp(config);
+        ConnectionFactories.warmUp(config);
+
+        // The second warm connection is closed right away, the first is handed out
+        assertEquals(2, OPENED.size());
+        assertEquals(Collections.singleton(OPENED.get(1)), CLOSED);
+        assertSame(OPENED.get(0), ConnectionFactories.connect(config));
+
+        ConnectionFactories.closeWarmConnections();
+
+        assertFalse(CLOSED.contains(OPENED.get(0)));
+    }
+
+    private static TestPlan testPlan(final Class<?>... testClasses) {
+        final UniqueId engineId = UniqueId.forEngine("bootstrap-test");
+        final EngineDescriptor engine = new EngineDescriptor(engineId, "Bootstrap test");
+
+        for (final Class<?> testClass : testClasses) {
+            engine.addChild(new AbstractTestDescriptor(
+                    engineId.append("class", testClass.getName()),
+                    testClass.getSimpleName(),
+                    ClassSource.from(testClass)) {
+                @Override
+                public Type getType() {
+                    return Type.CONTAINER;
+                }
+            });
+        }
+
+        return TestPlan.from(Collections.<TestDescriptor>singletonList(engine));
+    }
+
+    private static void awaitWarmConnection(final DatabaseConnectionConfig config) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+        while (!ConnectionFactories.hasWarmConnection(config) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertTrue(ConnectionFactories.hasWarmConnection(config), "Bootstrap did not open a warm connection");
+    }
+
+    @DatabaseTest(url = "jdbc:bootstrap-test:warmed", driver = BootstrapDriver.NAME)
+    static final class WarmedTest {
+    }
+
+    @DatabaseTest(url = "jdbc:bootstrap-test:unused", driver = BootstrapDriver.NAME)
+    static final class UnusedTest {
+    }
+
+    static final class NotADatabaseTest {
+    }
+
+    public static final class BootstrapDriver implements Driver {
+        static final String NAME = "com.mostlycertain.jupiter.db.DatabaseTestBootstrapTest$BootstrapDriver";
+
+        @Override
+        public Connection connect(final String url, final Properties info) {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+
+            final Connection connection = stub(Connection.class, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "close":
+                        CLOSED.add((Connection) proxy);
+                        return null;
+                    case "isClosed":
+                        return CLOSED.contains(proxy);
+                    default:
+                        return null;
+                }
+            });
+
+            OPENED.add(connection);
+            return connection;
+        }
+
+        @Override
+        public boolean acceptsURL(final String url) {
+            return url.startsWith("jdbc:bootstrap-test:");
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(final String url, final Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() {
+            return Logger.getGlobal();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmbeddedDatabasesTest {
+    @Test
+    void startH2WithSchema() throws SQLException {
+        final DatabaseConnectionConfig config = EmbeddedDatabases.readAnnotations(SchemaTest.class).get();
+
+        assertEquals("org.h2.Driver", config.getDriver());
+        assertEquals("", config.getUser());
+        assertTrue(config.getUrl().startsWith("jdbc:h2:mem:jupiterdb_"), config.getUrl());
+
+        try (final Connection connection = config.createConnection();
+             final Statement statement = connection.createStatement();
+             final ResultSet resultSet = statement.executeQuery("SELECT name FROM embedded_users")) {
+            assertTrue(resultSet.next());
+            assertEquals("alice", resultSet.getString(1));
+        }
+
+        // The same resource referenced with a different name shares the database
+        assertSame(config, EmbeddedDatabases.readAnnotations(SameSchemaTest.class).get());
+        assertNotEquals(config.getUrl(), EmbeddedDatabases.readAnnotations(NoSchemaTest.class).get().getUrl());
+    }
+
+    @Test
+    void notEnabled() {
+        assertEquals(Optional.empty(), EmbeddedDatabases.readAnnotations(EmbeddedDatabasesTest.class));
+    }
+
+    @Test
+    void missingSchema() {
+        final RuntimeException ex = assertThrows(
+                RuntimeException.class,
+                () -> EmbeddedDatabases.readAnnotations(MissingSchemaTest.class));
+
+        assertEquals(
+                "@EmbeddedDatabase resource not found: resource=missing.sql test=" + MissingSchemaTest.class.getName(),
+                ex.getMessage());
+    }
+
+    @EmbeddedDatabase(schema = "embedded_schema.sql")
+    static class SchemaTest {
+    }
+
+    @EmbeddedDatabase(schema = "/com/mostlycertain/jupiter/db/embedded_schema.sql")
+    static class SameSchemaTest {
+    }
+
+    @EmbeddedDatabase
+    static class NoSchemaTest {
+    }
+
+    @EmbeddedDatabase(schema = "missing.sql")
+    static class MissingSchemaTest {
+    }
+}
@@ -0,0 +1,72 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.MethodDescriptor;
+import org.junit.jupiter.api.MethodOrdererContext;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FixtureMethodOrdererTest {
+    @Test
+    void groupByMethodFixtures() throws NoSuchMethodException {
+        final List<MethodDescriptor> methods = new ArrayList<>();
+
+        for (final String name : asList("a1", "none1", "b1", "a2", "none2", "b2", "a3")) {
+            methods.add(descriptor(Fixtures.class.getDeclaredMethod(name)));
+        }
+
+        new FixtureMethodOrderer().orderMethods(stub(MethodOrdererContext.class, "getMethodDescriptors", methods));
+
+        assertEquals(
+                asList("a1", "a2", "a3", "none1", "none2", "b1", "b2"),
+                methods.stream().map(m -> m.getMethod().getName()).collect(Collectors.toList()));
+    }
+
+    private static MethodDescriptor descriptor(final Method method) {
+        return stub(MethodDescriptor.class, "getMethod", method);
+    }
+
+    private static <T> T stub(final Class<T> type, final String methodName, final Object result) {
+        return TestProxies.stub(type, (proxy, method, args) -> {
+            if (method.getName().equals(methodName)) {
+                return result;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    @InitializeSql("CREATE TABLE users (id INT)")
+    static class Fixtures {
+        @InitializeSql("INSERT INTO users VALUES (1)")
+        void a1() {
+        }
+
+        void none1() {
+        }
+
+        @InitializeSql("INSERT INTO users VALUES (2)")
+        void b1() {
+        }
+
+        @InitializeSql("INSERT INTO users VALUES (1)")
+        void a2() {
+        }
+
+        void none2() {
+        }
+
+        @InitializeSql("INSERT INTO users VALUES (2)")
+        void b2() {
+        }
+
+        @InitializeSql("INSERT INTO users VALUES (1)")
+        void a3() {
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.mostlycertain.jupiter.db.TestProxies.stub;
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FixturePipelineTest {
+    private final List<String> calls = new ArrayList<>();
+    private final List<String> batch = new ArrayList<>();
+    private String failingSql;
+
+    @Test
+    void batches() throws SQLException {
+        final SqlScript script = new SqlScript(
+                "seed.sql",
+                "insert a; insert b; insert c;\ninsert d; select 1; insert e; /* x */ CALL f(); insert g");
+
+        FixturePipeline.execute(stubStatement(), script, script.getStatements(), 3);
+
+        assertEquals(asList(
+                "batch[insert a,  insert b,  insert c]",
+                "batch[\ninsert d]",
+                "execute:  select 1",
+                "batch[ insert e]",
+                "execute:  /* x */ CALL f()",
+                "batch[ insert g]"), calls);
+    }
+
+    @Test
+    void failedStatement() {
+        final SqlScript script = new SqlScript("seed.sql", "insert a;\ninsert b;\n\ninsert c;\ninsert d");
+        failingSql = "\n\ninsert c";
+
+        final SQLException ex = assertThrows(
+                SQLException.class,
+                () -> FixturePipeline.execute(stubStatement(), script, script.getStatements(), 10));
+
+        assertEquals("Fixture statement failed: seed.sql:4: insert c", ex.getMessage());
+        assertEquals("42000", ex.getSQLState());
+        assertTrue(ex.getCause() instanceof BatchUpdateException);
+    }
+
+    @Test
+    void executeOnH2() throws SQLException {
+        final SqlScript script = new SqlScript(
+                "seed.sql",
+                "CREATE TABLE items (id INT PRIMARY KEY);\n"
+                        + "INSERT INTO items VALUES (1);\n"
+                        + "INSERT INTO items VALUES (2);\n"
+                        + "SELECT COUNT(*) FROM items;\n"
+                        + "INSERT INTO items SELECT MAX(id) + 1 FROM items;\n"
+                        + "INSERT INTO items VALUES (1);\n"
+                        + "INSERT INTO items VALUES (5)");
+
+        try (final Connection connection = DriverManager.getConnection("jdbc:h2:mem:");
+             final Statement statement = connection.createStatement()) {
+            final SQLException ex = assertThrows(
+                    SQLException.class,
+                    () -> FixturePipeline.execute(statement, script, script.getStatements(), 2));
+
+            assertEquals("Fixture statement failed: seed.sql:6: INSERT INTO items VALUES (1)", ex.getMessage());
+
+            // Statements run in order, so the insert after the query sees the rows before it
+            try (final ResultSet rows = statement.executeQuery("SELECT id FROM items ORDER BY id")) {
+                final List<Integer> ids = new ArrayList<>();
+
+                while (rows.next()) {
+                    ids.add(rows.getInt(1));
+                }
+
+                assertEquals(asList(1, 2, 3), ids);
+            }
+        }
+    }
+
+    @Test
+    void failedIndex() {
+        assertEquals(2, FixturePipeline.failedIndex(new int[]{1, 1}, 5));
+        assertEquals(1, FixturePipeline.failedIndex(new int[]{1, Statement.EXECUTE_FAILED, 1}, 3));
+        assertEquals(0, FixturePipeline.failedIndex(null, 3));
+        assertEquals(2, FixturePipeline.failedIndex(new int[]{1, 1, 1}, 3));
+    }
+
+    @Test
+    void mayReturnResults() {
+        assertTrue(FixturePipeline.mayReturnResults("select 1"));
+        assertTrue(FixturePipeline.mayReturnResults("\n-- comment\nWITH x AS (select 1) select * from x"));
+        assertTrue(FixturePipeline.mayReturnResults("(select 1)"));
+        assertFalse(FixturePipeline.mayReturnResults("insert into a select * from b"));
+        assertFalse(FixturePipeline.mayReturnResults(" /* select */ update a set b = 1"));
+        assertFalse(FixturePipeline.mayReturnResults("create table selection (id int)"));
+    }
+
+    @Test
+    void resultClauses() {
+        assertTrue(FixturePipeline.mayReturnResults("insert into a values (1) returning id"));
+        assertTrue(FixturePipeline.mayReturnResults("UPDATE a SET b = 1\nRETURNING *"));
+        assertTrue(FixturePipeline.mayReturnResults("insert into a output inserted.id values (1)"));
+        assertTrue(FixturePipeline.mayReturnResults("do $$ begin perform 1; end $$"));
+        assertFalse(FixturePipeline.mayReturnResults("insert into a values ('returning')"));
+        assertFalse(FixturePipeline.mayReturnResults("insert into a -- returning\nvalues (1)"));
+        assertFalse(FixturePipeline.mayReturnResults("insert into a (returning_id, _output) values (1, 2)"));
+        assertFalse(FixturePipeline.mayReturnResults("insert into \"Returning\" values (1)"));
+    }
+
+    private Statement stubStatement() {
+        return stub(Statement.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "addBatch":
+                    batch.add((String) args[0]);
+                    return null;
+                case "clearBatch":
+                    batch.clear();
+                    return null;
+                case "executeBatch":
+                    calls.add("batch" + batch);
+
+                    final int failed = batch.indexOf(failingSql);
+                    batch.clear();
+
+                    if (failed >= 0) {
+                        throw new BatchUpdateException("syntax error", "42000", 1, new int[failed]);
+                    }
+
+                    return new int[0];
+                case "execute":
+                    calls.add("execute: " + args[0]);
+                    return true;
+                default:
+                    return null;
+            }
+        });
+    }
+}
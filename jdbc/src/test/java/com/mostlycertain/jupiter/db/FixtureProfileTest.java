@@ -0,0 +1,79 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.mostlycertain.jupiter.db.TestProxies.stub;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FixtureProfileTest {
+    @Test
+    void hottestStatements() {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final FixtureProfile profile = new FixtureProfile(2, new PrintStream(output, true));
+
+        profile.record("seed.sql:1", "insert into a values (1)", TimeUnit.MILLISECONDS.toNanos(5));
+        profile.record("seed.sql:2", "insert into b values (1)", TimeUnit.MILLISECONDS.toNanos(30));
+        profile.record("seed.sql:3", "insert into c values (1)", TimeUnit.MILLISECONDS.toNanos(12));
+        profile.record("seed.sql:1", "insert into a values (1)", TimeUnit.MILLISECONDS.toNanos(5));
+
+        assertEquals(
+                asList("seed.sql:2", "seed.sql:3"),
+                profile.getHottest().stream().map(FixtureProfile.Entry::getSource).collect(Collectors.toList()));
+
+        profile.close();
+
+        final String report = new String(output.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(report.startsWith("Fixture statements: 52 ms in 3 statements, top 2:"), report);
+        assertTrue(report.contains("30 ms total, 1 executions, 30 ms max: seed.sql:2 insert into b values (1)"), report);
+
+        // Printed once
+        output.reset();
+        profile.close();
+        assertEquals(0, output.size());
+    }
+
+    @Test
+    void statementLines() throws SQLException {
+        final List<String> executed = new ArrayList<>();
+        final Statement statement = stub(Statement.class, (proxy, method, args) -> {
+            if (method.getName().equals("execute")) {
+                executed.add((String) args[0]);
+                return false;
+            }
+            return null;
+        });
+        final Connection connection = stub(
+                Connection.class,
+                (proxy, method, args) -> method.getName().equals("createStatement") ? statement : null);
+        final FixtureProfile profile = new FixtureProfile(10, System.out);
+
+        new SqlRunner(singletonList("S A;\n\nS B;\nS C"), singletonList("S D"))
+                .executeInitializeSql(connection, (script, statements) -> statements, Optional.of(profile));
+
+        assertEquals(asList("S A", "\n\nS B", "\nS C"), executed);
+        assertEquals(
+                asList("inline:1", "inline:3", "inline:4"),
+                profile.getHottest().stream().map(FixtureProfile.Entry::getSource).sorted().collect(Collectors.toList()));
+
+        // Lines are unknown when the translator changes the statements
+        new SqlRunner(singletonList("S A;\n\nS B"), singletonList("S D"))
+                .executeInitializeSql(connection, (script, statements) -> singletonList(script), Optional.of(profile));
+
+        assertTrue(profile.getHottest().stream().anyMatch(e -> e.getSource().equals("inline") && e.getCount() == 1));
+    }
+}
@@ -0,0 +1,91 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.mostlycertain.jupiter.db.TestProxies.stub;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class H2DatabaseDialectTest {
+    private final H2DatabaseDialect dialect = new H2DatabaseDialect();
+    private final List<String> preparedSql = new ArrayList<>();
+
+    @Test
+    void explainFullScan() throws SQLException {
+        final Optional<QueryPlan> plan = dialect.explain(
+                planConnection("SELECT \"ID\" FROM \"PUBLIC\".\"ORDERS\" /* PUBLIC.ORDERS.tableScan */ WHERE \"CUSTOMER\" = ?1"),
+                "SELECT id FROM orders WHERE customer = ?",
+                singletonList(5));
+
+        assertEquals(singletonList("EXPLAIN SELECT id FROM orders WHERE customer = ?"), preparedSql);
+        assertEquals(singletonList("ORDERS"), new ArrayList<>(plan.get().getFullScanTables()));
+    }
+
+    @Test
+    void explainIndexLookup() throws SQLException {
+        final Optional<QueryPlan> plan = dialect.explain(
+                planConnection("SELECT \"ID\" FROM \"PUBLIC\".\"ORDERS\" /* PUBLIC.ORDERS_CUSTOMER_IDX: CUSTOMER = ?1 */ "
+                        + "INNER JOIN \"PUBLIC\".\"ITEMS\" /* PUBLIC.ITEMS.tableScan */"),
+                "SELECT id FROM orders JOIN items ON TRUE WHERE customer = ?",
+                singletonList(5));
+
+        assertEquals(singletonList("ITEMS"), new ArrayList<>(plan.get().getFullScanTables()));
+    }
+
+    @Test
+    void explainIgnoresOtherStatements() throws SQLException {
+        assertFalse(dialect.explain(planConnection(""), "CREATE TABLE foo (id INT)", emptyList()).isPresent());
+        assertEquals(emptyList(), preparedSql);
+    }
+
+    @Test
+    void checksumQuery() {
+        assertEquals(
+                "SELECT COUNT(*), COALESCE(SUM(ORA_HASH("
+                        + "COALESCE(LENGTH(CAST(id AS VARCHAR)) || ':' || CAST(id AS VARCHAR), 'NULL') || ',' || "
+                        + "COALESCE(LENGTH(CAST(name AS VARCHAR)) || ':' || CAST(name AS VARCHAR), 'NULL'))), 0) "
+                        + "FROM (SELECT id, name FROM users) data_set",
+                dialect.checksumQuery("SELECT id, name FROM users", asList("id", "name")).get());
+    }
+
+    private Connection planConnection(final String plan) {
+        return stub(Connection.class, (proxy, method, args) -> {
+            if (method.getName().equals("prepareStatement")) {
+                preparedSql.add((String) args[0]);
+                return stub(PreparedStatement.class, (p, m, a) -> m.getName().equals("executeQuery")
+                        ? resultSet(plan)
+                        : null);
+            }
+
+            return null;
+        });
+    }
+
+    private static ResultSet resultSet(final String value) {
+        final boolean[] read = {false};
+
+        return stub(ResultSet.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "next":
+                    final boolean hasNext = !read[0];
+                    read[0] = true;
+                    return hasNext;
+                case "getString":
+                    return value;
+                default:
+                    return null;
+            }
+        });
+    }
+}
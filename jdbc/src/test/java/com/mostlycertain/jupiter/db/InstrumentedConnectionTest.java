@@ -0,0 +1,199 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.mostlycertain.jupiter.db.TestProxies.stub;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InstrumentedConnectionTest {
+    private final List<StatementExecution> executions = new ArrayList<>();
+    private final Connection connection = InstrumentedConnection.wrap(stubConnection(), "connection", false, executions::add);
+
+    @Test
+    void statement() throws SQLException {
+        try (final Statement statement = connection.createStatement()) {
+            statement.execute("S 1");
+            statement.executeUpdate("S 2");
+            statement.executeQuery("S 3");
+            assertSame(connection, statement.getConnection());
+        }
+
+        assertEquals(asList("S 1", "S 2", "S 3"), sql());
+    }
+
+    @Test
+    void preparedStatement() throws SQLException {
+        try (final PreparedStatement statement = connection.prepareStatement("S ?")) {
+            statement.execute();
+            statement.executeUpdate();
+            statement.executeQuery();
+        }
+
+        assertEquals(asList("S ?", "S ?", "S ?"), sql());
+    }
+
+    @Test
+    void batch() throws SQLException {
+        try (final Statement statement = connection.createStatement()) {
+            statement.addBatch("S 1");
+            statement.addBatch("S 2");
+            statement.executeBatch();
+        }
+
+        assertEquals(1, executions.size());
+        assertTrue(executions.get(0).isBatch());
+        assertEquals(asList("S 1", "S 2"), executions.get(0).getSql());
+    }
+
+    @Test
+    void disabledListenersIgnoreStatements() throws SQLException {
+        final QueryCounter counter = new QueryCounter(1, 1);
+        final StatementListeners listeners = new StatementListeners(singletonList(counter), false);
+        final Connection counted = InstrumentedConnection.wrap(stubConnection(), "connection", false, listeners);
+
+        try (final Statement statement = counted.createStatement()) {
+            statement.execute("S 1");
+            listeners.setEnabled(true);
+            statement.execute("S 2");
+            listeners.setEnabled(false);
+            statement.execute("S 3");
+        }
+
+        assertEquals(1, counter.getQueries());
+        counter.verify();
+    }
+
+    @Test
+    void bindValuesAndTiming() throws SQLException {
+        try (final PreparedStatement statement = connection.prepareStatement("S ?, ?")) {
+            statement.setString(1, "a");
+            statement.setNull(2, 0);
+            statement.execute();
+            statement.clearParameters();
+            statement.setInt(1, 5);
+            statement.executeQuery().close();
+        }
+
+        assertEquals(2, executions.size());
+        assertEquals("[1, 2]", executions.get(0).getBindValues().keySet().toString());
+        assertTrue(executions.get(0).describe().endsWith("S ?, ? [1='a', 2=NULL]"), executions.get(0).describe());
+        assertTrue(executions.get(0).isComplete());
+        assertTrue(executions.get(1).describe().endsWith("S ?, ? [1=5]"), executions.get(1).describe());
+        assertTrue(executions.get(1).isComplete());
+    }
+
+    @Test
+    void unreadResultSetCompletesOnClose() throws SQLException {
+        final Statement closed = connection.createStatement();
+        final Statement leaked = connection.createStatement();
+
+        closed.executeQuery("S 1");
+        leaked.executeQuery("S 2");
+        assertFalse(executions.get(0).isComplete());
+
+        closed.close();
+        assertTrue(executions.get(0).isComplete());
+        assertFalse(executions.get(1).isComplete());
+
+        connection.close();
+        assertTrue(executions.get(1).isComplete());
+    }
+
+    @Test
+    void slowStatementLog() {
+        final SlowStatementLog log = new SlowStatementLog(10, 2);
+
+        log.statementExecuted(execution("fast", 5));
+        log.statementExecuted(execution("slow", 20));
+        log.statementExecuted(execution("slower", 30));
+        log.statementExecuted(execution("slowest", 40));
+
+        assertEquals(asList("slowest", "slower"), log.getSlowStatements().stream()
+                .map(StatementExecution::toString)
+                .collect(Collectors.toList()));
+    }
+
+    private static StatementExecution execution(final String sql, final long millis) {
+        final StatementExecution execution = StatementExecution.single(null, sql);
+        execution.setExecuteNanos(TimeUnit.MILLISECONDS.toNanos(millis));
+        execution.complete();
+        return execution;
+    }
+
+    @Test
+    void queryCounterLimits() throws SQLException {
+        final QueryCounter counter = new QueryCounter(2, 1);
+        final Connection counted = InstrumentedConnection.wrap(stubConnection(), "connection", false, counter);
+
+        try (final PreparedStatement statement = counted.prepareStatement("S ?")) {
+            statement.addBatch();
+            statement.addBatch();
+            statement.executeBatch();
+        }
+
+        assertEquals(2, counter.getQueries());
+        assertEquals(1, counter.getRoundTrips());
+        counter.verify();
+
+        try (final Statement statement = counted.createStatement()) {
+            statement.execute("S 1");
+        }
+
+        final AssertionFailedError error = assertThrows(AssertionFailedError.class, counter::verify);
+        assertTrue(error.getMessage().contains("3 queries"), error.getMessage());
+        assertTrue(error.getMessage().contains("2 round trips"), error.getMessage());
+        assertTrue(error.getMessage().contains("2 x S ?"), error.getMessage());
+    }
+
+    private List<String> sql() {
+        final List<String> sql = new ArrayList<>();
+        executions.forEach(e -> sql.addAll(e.getSql()));
+        return sql;
+    }
+
+    /**
+     * Connection that creates statements that do nothing.
+     */
+    static Connection stubConnection() {
+        return stub(Connection.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "createStatement":
+                    return statement(Statement.class);
+                case "prepareStatement":
+                    return statement(PreparedStatement.class);
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private static <T extends Statement> T statement(final Class<T> type) {
+        return stub(type, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "executeBatch":
+                    return new int[0];
+                case "executeQuery":
+                    return stub(ResultSet.class);
+                default:
+                    return null;
+            }
+        });
+    }
+}
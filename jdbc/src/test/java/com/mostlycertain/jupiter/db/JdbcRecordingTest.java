@@ -0,0 +1,175 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+import static com.mostlycertain.jupiter.db.TestProxies.stub;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JdbcRecordingTest {
+    @Test
+    void encodeDecode() {
+        final Object[] values = {
+                null,
+                "a\tb\\c\nd",
+                5,
+                6L,
+                new BigDecimal("1.50"),
+                true,
+                Timestamp.valueOf("2020-01-02 03:04:05.6"),
+                new byte[]{1, (byte) 0xff},
+        };
+
+        for (final Object value : values) {
+            final Object decoded = RecordedStatement.decode(RecordedStatement.encode(value));
+
+            if (value instanceof byte[]) {
+                assertArrayEquals((byte[]) value, (byte[]) decoded);
+            } else {
+                assertEquals(value, decoded);
+            }
+        }
+    }
+
+    @Test
+    void recordAndReplay() throws IOException, SQLException {
+        final Path file = Files.createTempDirectory("recordings").resolve("find.txt");
+
+        final JdbcRecording recording = new JdbcRecording(file, JdbcRecording.Mode.RECORD);
+        final Connection recordingConnection = recording.wrapTestConnection("db", stubConnection());
+        assertEquals("bob", findName(recordingConnection, 5));
+        assertEquals(1, update(recordingConnection));
+        recording.finish();
+
+        final JdbcRecording replay = new JdbcRecording(file, JdbcRecording.Mode.REPLAY);
+        final Connection replayConnection = replay.wrapPhysicalConnection("db", RecordingConnection.offline());
+        assertEquals("bob", findName(replayConnection, 5));
+        assertEquals(1, update(replayConnection));
+        replay.finish();
+    }
+
+    @Test
+    void replayMismatch() throws IOException, SQLException {
+        final Path file = Files.createTempDirectory("recordings").resolve("find.txt");
+
+        final JdbcRecording recording = new JdbcRecording(file, JdbcRecording.Mode.RECORD);
+        findName(recording.wrapTestConnection("db", stubConnection()), 5);
+        recording.finish();
+
+        final JdbcRecording replay = new JdbcRecording(file, JdbcRecording.Mode.REPLAY);
+        final Connection replayConnection = replay.wrapPhysicalConnection("db", RecordingConnection.offline());
+        final AssertionFailedError error = assertThrows(AssertionFailedError.class, () -> findName(replayConnection, 6));
+        assertTrue(error.getMessage().startsWith("Statement 1 does not match the recording"), error.getMessage());
+    }
+
+    @Test
+    void replayUnusedStatements() throws IOException, SQLException {
+        final Path file = Files.createTempDirectory("recordings").resolve("find.txt");
+
+        final JdbcRecording recording = new JdbcRecording(file, JdbcRecording.Mode.RECORD);
+        findName(recording.wrapTestConnection("db", stubConnection()), 5);
+        recording.finish();
+
+        final JdbcRecording replay = new JdbcRecording(file, JdbcRecording.Mode.REPLAY);
+        assertThrows(AssertionFailedError.class, replay::finish);
+    }
+
+    @Test
+    void offlineConnection() throws SQLException {
+        try (final Statement statement = RecordingConnection.offline().createStatement()) {
+            assertFalse(statement.execute("CREATE TABLE foo (id INT)"));
+            assertFalse(statement.executeQuery("SELECT id FROM foo").next());
+        }
+    }
+
+    private static String findName(final Connection connection, final int id) throws SQLException {
+        try (final PreparedStatement statement = connection.prepareStatement("SELECT name, age FROM users WHERE id = ?")) {
+            statement.setInt(1, id);
+
+            try (final ResultSet resultSet = statement.executeQuery()) {
+                assertTrue(resultSet.next());
+                assertEquals(42L, resultSet.getLong("age"));
+                final String name = resultSet.getString(1);
+                assertFalse(resultSet.next());
+                return name;
+            }
+        }
+    }
+
+    private static int update(final Connection connection) throws SQLException {
+        try (final Statement statement = connection.createStatement()) {
+            return statement.executeUpdate("UPDATE users SET age = 43");
+        }
+    }
+
+    private static Connection stubConnection() {
+        return stub(Connection.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "createStatement":
+                case "prepareStatement":
+                    return stub(PreparedStatement.class, (p, m, a) -> {
+                        switch (m.getName()) {
+                            case "executeQuery":
+                                return resultSet();
+                            case "executeUpdate":
+                                return 1;
+                            default:
+                                return null;
+                        }
+                    });
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private static ResultSet resultSet() {
+        final boolean[] read = {false};
+        final ResultSetMetaData metaData = stub(ResultSetMetaData.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getColumnCount":
+                    return 2;
+                case "getColumnLabel":
+                    return (Integer) args[0] == 1 ? "NAME" : "AGE";
+                case "getColumnType":
+                    return (Integer) args[0] == 1 ? Types.VARCHAR : Types.INTEGER;
+                case "getColumnTypeName":
+                    return (Integer) args[0] == 1 ? "VARCHAR" : "INTEGER";
+                default:
+                    return 0;
+            }
+        });
+
+        return stub(ResultSet.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getMetaData":
+                    return metaData;
+                case "next":
+                    final boolean hasNext = !read[0];
+                    read[0] = true;
+                    return hasNext;
+                case "getObject":
+                    return (Integer) args[0] == 1 ? "bob" : (Object) 42;
+                default:
+                    return null;
+            }
+        });
+    }
+}
@@ -0,0 +1,52 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+    @Test
+    void percentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        for (long value = 1; value <= 100_000; value += 1) {
+            histogram.record(value * 1000);
+        }
+
+        assertEquals(100_000, histogram.getTotalCount());
+        assertEquals(100_000_000L, histogram.getMaxValue());
+        assertWithin(50_000_000L, histogram.getValueAtPercentile(50));
+        assertWithin(99_000_000L, histogram.getValueAtPercentile(99));
+        assertEquals(100_000_000L, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    void smallValuesAreExact() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        histogram.record(3);
+        histogram.record(100);
+
+        assertEquals(3, histogram.getValueAtPercentile(50));
+        assertEquals(100, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    void add() {
+        final LatencyHistogram first = new LatencyHistogram();
+        final LatencyHistogram second = new LatencyHistogram();
+
+        first.record(10);
+        second.record(Long.MAX_VALUE);
+        first.add(second);
+
+        assertEquals(2, first.getTotalCount());
+        assertEquals(Long.MAX_VALUE, first.getValueAtPercentile(100));
+        assertEquals(0, new LatencyHistogram().getValueAtPercentile(50));
+    }
+
+    private static void assertWithin(final long expected, final long actual) {
+        assertTrue(actual >= expected && actual <= expected * 1.016, expected + " ~ " + actual);
+    }
+}
@@ -0,0 +1,218 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.mostlycertain.jupiter.db.TestProxies.stub;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoadHarnessTest {
+    private final Map<String, String> reports = new LinkedHashMap<>();
+    private final List<String> savepointCalls = new ArrayList<>();
+
+    @Test
+    void iterations() {
+        final Map<Connection, LoadHarness.RunningStatements> connections = connections(3);
+        final Set<Connection> used = ConcurrentHashMap.newKeySet();
+        final AtomicInteger count = new AtomicInteger();
+
+        final LoadHarness.Result result = new LoadHarness(connections, 300, 0, 0, reports::put).run(connection -> {
+            used.add(connection);
+            count.incrementAndGet();
+            Thread.sleep(1);
+        });
+
+        assertEquals(300, count.get());
+        assertEquals(300, result.getIterations());
+        assertEquals(0, result.getErrors());
+        assertEquals(3, used.size());
+        assertTrue(result.getThroughput() > 0);
+        assertTrue(result.getLatency(50, TimeUnit.MICROSECONDS) >= 1000);
+        assertEquals(new ArrayList<>(Arrays.asList("load.throughput", "load.latency")), new ArrayList<>(reports.keySet()));
+    }
+
+    @Test
+    void iterationSavepoints() {
+        new LoadHarness(connections(1), 2, 0, 0, reports::put).run(connection -> {
+            synchronized (savepointCalls) {
+                savepointCalls.add("execute");
+            }
+        });
+
+        assertEquals(
+                Arrays.asList(
+                        "setSavepoint", "execute", "rollback", "releaseSavepoint",
+                        "setSavepoint", "execute", "rollback", "releaseSavepoint"),
+                savepointCalls);
+    }
+
+    @Test
+    void iterationTimeout() {
+        final Map<Connection, LoadHarness.RunningStatements> connections = connections(1);
+        final LoadHarness.RunningStatements running = connections.values().iterator().next();
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        final Statement statement = stub(Statement.class, (proxy, method, args) -> {
+            if (method.getName().equals("cancel")) {
+                cancelled.countDown();
+            }
+            return null;
+        });
+        final LoadHarness harness = new LoadHarness(connections, 1, 0, TimeUnit.MILLISECONDS.toNanos(50), reports::put);
+
+        final AssertionFailedError error = assertThrows(AssertionFailedError.class, () -> harness.run(connection -> {
+            // Blocks like a statement waiting on a lock until it is cancelled
+            running.statementStarting(null, statement);
+            cancelled.await();
+            running.statementExecuted(null);
+            throw new SQLException("cancelled");
+        }));
+
+        assertEquals("1 of 1 load test iterations failed", error.getMessage());
+        assertEquals("Load test iteration timed out after 50 ms", error.getSuppressed()[0].getMessage());
+        assertEquals("cancelled", error.getSuppressed()[0].getCause().getMessage());
+    }
+
+    @Test
+    void timeoutOnlyCancelsItsIteration() {
+        final Map<Connection, LoadHarness.RunningStatements> connections = connections(1);
+        final LoadHarness.RunningStatements running = connections.values().iterator().next();
+        final long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(2);
+        final AtomicLong previousEndNanos = new AtomicLong(System.nanoTime());
+        final List<Long> cancelledAfterNanos = new ArrayList<>();
+
+        // Iterations take about as long as the timeout, so some timers fire as an iteration
+        // completes, while the next iteration is starting its statement. The timer of an
+        // iteration is started after the previous one ends, so it can not cancel a statement
+        // sooner than the timeout after that.
+        new LoadHarness(connections, 200, 0, timeoutNanos, reports::put).run(connection -> {
+            final long previousEnd = previousEndNanos.get();
+
+            running.statementStarting(null, stub(Statement.class, (proxy, method, args) -> {
+                if (method.getName().equals("cancel")) {
+                    synchronized (cancelledAfterNanos) {
+                        cancelledAfterNanos.add(System.nanoTime() - previousEnd);
+                    }
+                }
+                return null;
+            }));
+            Thread.sleep(2);
+            running.statementExecuted(null);
+            previousEndNanos.set(System.nanoTime());
+        });
+
+        synchronized (cancelledAfterNanos) {
+            for (final long cancelledAfter : cancelledAfterNanos) {
+                assertTrue(cancelledAfter >= timeoutNanos, "Statement cancelled by the timeout of another iteration");
+            }
+        }
+    }
+
+    @Test
+    void sameRowOnTwoConnections() throws SQLException {
+        final String url = "jdbc:h2:mem:load_harness_same_row;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=2000";
+
+        try (final Connection setup = DriverManager.getConnection(url);
+             final Connection first = DriverManager.getConnection(url);
+             final Connection second = DriverManager.getConnection(url)) {
+            setup.createStatement().execute("CREATE TABLE counters (id INT PRIMARY KEY, total INT)");
+            setup.createStatement().execute("INSERT INTO counters VALUES (1, 0)");
+            first.setAutoCommit(false);
+            second.setAutoCommit(false);
+
+            final Map<Connection, LoadHarness.RunningStatements> connections = new LinkedHashMap<>();
+            connections.put(first, new LoadHarness.RunningStatements());
+            connections.put(second, new LoadHarness.RunningStatements());
+
+            // Each iteration locks the row, so the other connection waits for the iteration to
+            // be rolled back instead of the end of the test
+            final LoadHarness.Result result = new LoadHarness(connections, 200, 0, TimeUnit.SECONDS.toNanos(10), reports::put)
+                    .run(connection -> {
+                        try (final Statement statement = connection.createStatement()) {
+                            assertEquals(1, statement.executeUpdate("UPDATE counters SET total = total + 1 WHERE id = 1"));
+                        }
+                    });
+
+            assertEquals(200, result.getIterations());
+
+            try (final ResultSet rows = setup.createStatement().executeQuery("SELECT total FROM counters")) {
+                rows.next();
+                assertEquals(0, rows.getInt(1));
+            }
+        }
+    }
+
+    @Test
+    void duration() {
+        final long start = System.nanoTime();
+
+        new LoadHarness(connections(1), 0, TimeUnit.MILLISECONDS.toNanos(50), 0, reports::put)
+                .run(connection -> Thread.sleep(1));
+
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    void errors() {
+        final AtomicInteger count = new AtomicInteger();
+        final LoadHarness harness = new LoadHarness(connections(2), 20, 0, 0, reports::put);
+
+        final AssertionFailedError error = assertThrows(AssertionFailedError.class, () -> harness.run(connection -> {
+            if (count.incrementAndGet() % 2 == 0) {
+                throw new SQLException("deadlock");
+            }
+        }));
+
+        assertEquals("10 of 20 load test iterations failed", error.getMessage());
+        assertEquals(10, error.getSuppressed().length);
+        assertTrue(reports.get("load.throughput").contains("errors=10"));
+    }
+
+    private Map<Connection, LoadHarness.RunningStatements> connections(final int count) {
+        final Map<Connection, LoadHarness.RunningStatements> connections = new LinkedHashMap<>();
+
+        for (int i = 0; i < count; i += 1) {
+            connections.put(stubConnection(), new LoadHarness.RunningStatements());
+        }
+
+        return connections;
+    }
+
+    private Connection stubConnection() {
+        final Savepoint savepoint = stub(Savepoint.class);
+
+        return stub(Connection.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "setSavepoint":
+                case "rollback":
+                case "releaseSavepoint":
+                    synchronized (savepointCalls) {
+                        savepointCalls.add(method.getName());
+                    }
+
+                    return savepoint;
+                default:
+                    return null;
+            }
+        });
+    }
+}
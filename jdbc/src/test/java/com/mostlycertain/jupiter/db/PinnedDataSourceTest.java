@@ -0,0 +1,174 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.mostlycertain.jupiter.db.TestProxies.stub;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PinnedDataSourceTest {
+    private final List<String> calls = new ArrayList<>();
+    private final DataSource dataSource = PinnedDataSource.create(stubConnection());
+    private int savepoints;
+
+    @Test
+    void closeDoesNotCloseTestConnection() throws SQLException {
+        final Connection connection = dataSource.getConnection();
+        connection.createStatement();
+        connection.commit();
+        connection.close();
+
+        assertTrue(connection.isClosed());
+        assertThrows(SQLException.class, connection::createStatement);
+        assertEquals(asList("createStatement"), calls);
+    }
+
+    @Test
+    void rollbackToTransactionSavepoint() throws SQLException {
+        try (final Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            connection.createStatement();
+            connection.prepareStatement("S 1");
+            connection.rollback();
+            connection.rollback();
+        }
+
+        assertEquals(asList("setSavepoint sp1", "createStatement", "prepareStatement", "rollback sp1", "releaseSavepoint sp1"), calls);
+    }
+
+    @Test
+    void commitReleasesSavepoint() throws SQLException {
+        try (final Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            connection.createStatement();
+            connection.commit();
+        }
+
+        assertEquals(asList("setSavepoint sp1", "createStatement", "releaseSavepoint sp1"), calls);
+    }
+
+    @Test
+    void autoCommitDoesNotSetSavepoint() throws SQLException {
+        try (final Connection connection = dataSource.getConnection()) {
+            connection.rollback();
+        }
+
+        assertEquals(emptyList(), calls);
+    }
+
+    @Test
+    void outerCommitKeepsSavepointUntilInnerCompletes() throws SQLException {
+        final Connection outer = begin();
+        final Connection inner = begin();
+
+        // Releasing the outer save point would also release the inner one
+        outer.commit();
+        assertEquals(asList("setSavepoint sp1", "setSavepoint sp2"), calls);
+
+        inner.commit();
+        assertEquals(asList("setSavepoint sp1", "setSavepoint sp2", "releaseSavepoint sp2", "releaseSavepoint sp1"), calls);
+    }
+
+    @Test
+    void outerRollbackRollsBackInterleavedView() throws SQLException {
+        final Connection outer = begin();
+        final Connection inner = begin();
+
+        outer.rollback();
+        assertEquals(asList("setSavepoint sp1", "setSavepoint sp2", "rollback sp1", "releaseSavepoint sp1"), calls);
+
+        final SQLException error = assertThrows(SQLException.class, inner::commit);
+        assertEquals("Transaction was rolled back by another connection of the data source", error.getMessage());
+
+        // The next transaction of the view starts over
+        inner.createStatement();
+        inner.commit();
+        assertEquals("releaseSavepoint sp3", calls.get(calls.size() - 1));
+    }
+
+    @Test
+    void innerRollbackKeepsOuterTransaction() throws SQLException {
+        final Connection outer = begin();
+        final Connection inner = begin();
+
+        inner.rollback();
+        outer.commit();
+
+        assertEquals(
+                asList("setSavepoint sp1", "setSavepoint sp2", "rollback sp2", "releaseSavepoint sp2", "releaseSavepoint sp1"),
+                calls);
+    }
+
+    @Test
+    void statementConnectionIsView() throws SQLException {
+        try (final Connection connection = dataSource.getConnection()) {
+            final Statement statement = connection.createStatement();
+            final DatabaseMetaData metaData = connection.getMetaData();
+
+            assertSame(connection, statement.getConnection());
+            assertSame(connection, metaData.getConnection());
+        }
+    }
+
+    private Connection begin() throws SQLException {
+        final Connection connection = dataSource.getConnection();
+        connection.setAutoCommit(false);
+        connection.createStatement();
+        calls.remove("createStatement");
+        return connection;
+    }
+
+    private Connection stubConnection() {
+        final List<Connection> self = new ArrayList<>();
+
+        self.add(stub(Connection.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "setSavepoint":
+                    savepoints += 1;
+                    final String name = "sp" + savepoints;
+                    calls.add("setSavepoint " + name);
+                    return named(Savepoint.class, name, null);
+                case "rollback":
+                case "releaseSavepoint":
+                    calls.add(method.getName() + " " + args[0]);
+                    return null;
+                case "createStatement":
+                    calls.add(method.getName());
+                    return named(Statement.class, "statement", self.get(0));
+                case "getMetaData":
+                    return named(DatabaseMetaData.class, "metaData", self.get(0));
+                default:
+                    calls.add(method.getName());
+                    return null;
+            }
+        }));
+
+        return self.get(0);
+    }
+
+    private static <T> T named(final Class<T> type, final String name, final Connection connection) {
+        return stub(type, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "toString":
+                    return name;
+                case "getConnection":
+                    return connection;
+                default:
+                    return null;
+            }
+        });
+    }
+}
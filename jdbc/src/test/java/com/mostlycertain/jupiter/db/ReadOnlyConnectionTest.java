@@ -0,0 +1,89 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.opentest4j.AssertionFailedError;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.mostlycertain.jupiter.db.TestProxies.stub;
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadOnlyConnectionTest {
+    private final List<String> calls = new ArrayList<>();
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "SELECT * FROM users",
+            "  /* insert */ select 1",
+            "-- delete\nSELECT 1",
+            "SELECT * FROM users FOR UPDATE",
+            "WITH u AS (SELECT 1) SELECT * FROM u",
+            "SELECT 'DELETE' FROM dual",
+            "VALUES (1)",
+            "EXPLAIN SELECT 1",
+            "SELECT 'a INTO b' FROM dual",
+            "SELECT \"into\" FROM t",
+            "WITH u AS (SELECT 1) SELECT * FROM u FOR NO KEY UPDATE",
+    })
+    void readStatements(final String sql) {
+        assertFalse(ReadOnlyConnection.isWrite(sql));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "INSERT INTO users VALUES (1)",
+            " update users set name = 'a'",
+            "/* select */ DELETE FROM users",
+            "WITH u AS (DELETE FROM users RETURNING id) SELECT * FROM u",
+            "TRUNCATE users",
+            "CREATE TABLE foo (id INT)",
+            "SELECT * INTO users_copy FROM users",
+            "select id into @last_id from users",
+            "WITH u AS (SELECT 1) SELECT * INTO copy FROM u",
+            "CALL archive_users()",
+            "{call archive_users(?)}",
+            "{? = call next_id()}",
+            "EXEC archive_users",
+            "EXECUTE archive_users",
+    })
+    void writeStatements(final String sql) {
+        assertTrue(ReadOnlyConnection.isWrite(sql));
+    }
+
+    @Test
+    void rejectWrites() throws SQLException {
+        final Connection connection = ReadOnlyConnection.wrap(stubConnection(), "db");
+
+        connection.prepareStatement("SELECT 1");
+        connection.createStatement().executeQuery("SELECT 2");
+
+        assertThrows(AssertionFailedError.class, () -> connection.prepareStatement("DELETE FROM users"));
+        assertThrows(AssertionFailedError.class, () -> connection.createStatement().execute("UPDATE users SET id = 1"));
+        assertThrows(AssertionFailedError.class, () -> connection.prepareCall("{call archive_users()}"));
+        assertThrows(AssertionFailedError.class, connection::commit);
+        assertThrows(AssertionFailedError.class, connection::rollback);
+        assertEquals(asList("prepareStatement", "createStatement", "executeQuery", "createStatement"), calls);
+    }
+
+    private Connection stubConnection() {
+        final Statement statement = stub(Statement.class, (proxy, method, args) -> {
+            calls.add(method.getName());
+            return null;
+        });
+
+        return stub(Connection.class, (proxy, method, args) -> {
+            calls.add(method.getName());
+            return method.getName().equals("createStatement") ? statement : null;
+        });
+    }
+}
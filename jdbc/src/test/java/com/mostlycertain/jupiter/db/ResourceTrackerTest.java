@@ -0,0 +1,107 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static com.mostlycertain.jupiter.db.TestProxies.stub;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResourceTrackerTest {
+    private final ResourceTracker tracker = new ResourceTracker("db");
+    private final Connection connection = tracker.wrap(stubConnection());
+
+    @Test
+    void closedResources() throws SQLException {
+        try (final PreparedStatement statement = connection.prepareStatement("SELECT 1")) {
+            try (final ResultSet resultSet = statement.executeQuery()) {
+                assertSame(statement, resultSet.getStatement());
+            }
+        }
+
+        assertEquals(0, tracker.takeOpenResources().size());
+    }
+
+    @Test
+    void openStatement() throws SQLException {
+        connection.prepareStatement("SELECT 1");
+
+        final List<Throwable> openResources = tracker.takeOpenResources();
+
+        assertEquals(1, openResources.size());
+        assertEquals("Statement opened here on connection db: SELECT 1", openResources.get(0).getMessage());
+        assertEquals(ResourceTrackerTest.class.getName(), openResources.get(0).getStackTrace()[0].getClassName());
+        assertTrue(ResourceTracker.describe(openResources.get(0)).contains("openStatement"));
+
+        // Each leak is only reported once
+        assertEquals(0, tracker.takeOpenResources().size());
+    }
+
+    @Test
+    void openResultSet() throws SQLException {
+        try (final Statement statement = connection.createStatement()) {
+            statement.executeQuery("SELECT 1");
+
+            final List<Throwable> openResources = tracker.takeOpenResources();
+
+            assertEquals(2, openResources.size());
+        }
+    }
+
+    @Test
+    void closingStatementClosesResultSets() throws SQLException {
+        final Statement statement = connection.createStatement();
+
+        statement.executeQuery("SELECT 1");
+        statement.executeQuery("SELECT 2");
+        statement.close();
+
+        assertEquals(0, tracker.takeOpenResources().size());
+    }
+
+    @Test
+    void sameResultSet() throws SQLException {
+        try (final Statement statement = connection.createStatement()) {
+            statement.execute("SELECT 1");
+
+            final ResultSet resultSet = statement.getResultSet();
+            assertSame(resultSet, statement.getResultSet());
+            resultSet.close();
+
+            // Only the statement is still open
+            assertEquals(1, tracker.takeOpenResources().size());
+        }
+    }
+
+    private static Connection stubConnection() {
+        return stub(Connection.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "createStatement":
+                case "prepareStatement":
+                    final ResultSet resultSet = stub(ResultSet.class, (p, m, a) -> null);
+
+                    return stub(PreparedStatement.class, (p, m, a) -> {
+                        switch (m.getName()) {
+                            case "executeQuery":
+                                return stub(ResultSet.class, (rp, rm, ra) -> null);
+                            case "getResultSet":
+                                return resultSet;
+                            case "execute":
+                                return true;
+                            default:
+                                return null;
+                        }
+                    });
+                default:
+                    return null;
+            }
+        });
+    }
+}
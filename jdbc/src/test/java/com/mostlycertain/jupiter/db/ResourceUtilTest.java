@@ -1,11 +1,13 @@
 package com.mostlycertain.jupiter.db;
 
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 class ResourceUtilTest {
     @ParameterizedTest
@@ -20,4 +22,12 @@ class ResourceUtilTest {
                 Optional.ofNullable(expected),
                 ResourceUtil.loadTextResource(ResourceUtilTest.class, resourceName));
     }
+
+    @Test
+    void resourceReadOnce() {
+        // Relative and absolute names of the same resource share the text
+        assertSame(
+                ResourceUtil.loadTextResource(ResourceUtilTest.class, "test_resource.txt").get(),
+                ResourceUtil.loadTextResource(ResourceUtilTest.class, "/com/mostlycertain/jupiter/db/test_resource.txt").get());
+    }
 }
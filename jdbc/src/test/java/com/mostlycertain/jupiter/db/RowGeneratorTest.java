@@ -0,0 +1,235 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.mostlycertain.jupiter.db.TestProxies.stub;
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RowGeneratorTest {
+    private final List<String> sql = new ArrayList<>();
+    private final List<List<Object>> rows = new ArrayList<>();
+    private int batches;
+
+    /**
+     * Column added to the end of the table, with a unique index on it.
+     */
+    private List<Object> uniqueColumn;
+
+    @Test
+    void insertRows() throws SQLException {
+        RowGenerator.insertRows(stubConnection(), "users", 25, 7, 10);
+
+        assertEquals(asList(
+                "SELECT MAX(\"ID\") FROM \"PUBLIC\".\"USERS\"",
+                "SELECT DISTINCT \"ID\" FROM \"PUBLIC\".\"TEAMS\" WHERE \"ID\" IS NOT NULL ORDER BY \"ID\"",
+                "INSERT INTO \"PUBLIC\".\"USERS\" (\"ID\", \"NAME\", \"NOTE\", \"TEAM_ID\") VALUES (?, ?, ?, ?)"), sql);
+        assertEquals(25, rows.size());
+        assertEquals(3, batches);
+
+        for (int i = 0; i < rows.size(); i += 1) {
+            final List<Object> row = rows.get(i);
+
+            assertEquals(101L + i, row.get(0));
+            assertNotNull(row.get(1));
+            assertTrue(((String) row.get(1)).length() <= 10, (String) row.get(1));
+            assertTrue(asList(1, 2, 3).contains(row.get(3)), String.valueOf(row.get(3)));
+        }
+
+        assertTrue(rows.stream().anyMatch(r -> r.get(2) == null));
+    }
+
+    @Test
+    void sameSeedSameRows() throws SQLException {
+        RowGenerator.insertRows(stubConnection(), "users", 20, 7, 100);
+        final List<List<Object>> first = new ArrayList<>(rows);
+
+        rows.clear();
+        RowGenerator.insertRows(stubConnection(), "users", 20, 7, 100);
+        assertEquals(first, rows);
+
+        rows.clear();
+        RowGenerator.insertRows(stubConnection(), "users", 20, 8, 100);
+        assertTrue(!first.equals(rows));
+        assertEquals(20, new HashSet<>(rows).size());
+    }
+
+    @Test
+    void uniqueTextFitsColumn() throws SQLException {
+        uniqueColumn = asList("CODE", Types.VARCHAR, "VARCHAR", 3, 0, DatabaseMetaData.columnNoNulls, "NO", "NO");
+
+        RowGenerator.insertRows(stubConnection(), "users", 40, 7, 100);
+
+        assertEquals(40, rows.stream().map(r -> r.get(4)).distinct().count());
+
+        for (final List<Object> row : rows) {
+            assertTrue(((String) row.get(4)).length() <= 3, (String) row.get(4));
+        }
+    }
+
+    @Test
+    void uniqueTextTooLongForColumn() {
+        uniqueColumn = asList("CODE", Types.CHAR, "CHAR", 1, 0, DatabaseMetaData.columnNoNulls, "NO", "NO");
+
+        final SQLException ex = assertThrows(
+                SQLException.class,
+                () -> RowGenerator.insertRows(stubConnection(), "users", 40, 7, 100));
+
+        assertEquals(
+                "@GenerateRows can not generate unique values that fit the column: "
+                        + "table=\"PUBLIC\".\"USERS\" column=\"CODE\" size=1 count=40",
+                ex.getMessage());
+    }
+
+    @Test
+    void uniqueUnsupportedType() {
+        uniqueColumn = asList("BORN", Types.DATE, "DATE", 10, 0, DatabaseMetaData.columnNoNulls, "NO", "NO");
+
+        final SQLException ex = assertThrows(
+                SQLException.class,
+                () -> RowGenerator.insertRows(stubConnection(), "users", 5, 7, 100));
+
+        assertEquals(
+                "@GenerateRows can not generate unique values for the column type: "
+                        + "table=\"PUBLIC\".\"USERS\" column=\"BORN\" type=DATE",
+                ex.getMessage());
+    }
+
+    @Test
+    void uniqueUnsupportedTypeNullable() throws SQLException {
+        uniqueColumn = asList("BORN", Types.DATE, "DATE", 10, 0, DatabaseMetaData.columnNullable, "NO", "NO");
+
+        RowGenerator.insertRows(stubConnection(), "users", 5, 7, 100);
+
+        assertEquals(5, rows.size());
+        assertTrue(rows.stream().allMatch(r -> r.get(4) == null));
+    }
+
+    private Connection stubConnection() {
+        final DatabaseMetaData metaData = stub(DatabaseMetaData.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getIdentifierQuoteString":
+                    return "\"";
+                case "getTables":
+                    return "USERS".equals(args[2])
+                            ? resultSet(asList("TABLE_CAT", "TABLE_SCHEM", "TABLE_NAME"), asList("DB", "PUBLIC", "USERS"))
+                            : resultSet(asList("TABLE_CAT", "TABLE_SCHEM", "TABLE_NAME"));
+                case "getColumns":
+                    final List<String> columns = asList(
+                            "COLUMN_NAME", "DATA_TYPE", "TYPE_NAME", "COLUMN_SIZE", "DECIMAL_DIGITS", "NULLABLE",
+                            "IS_AUTOINCREMENT", "IS_GENERATEDCOLUMN");
+                    final List<List<Object>> columnRows = new ArrayList<>(asList(
+                            asList("ID", Types.INTEGER, "INTEGER", 10, 0, DatabaseMetaData.columnNoNulls, "NO", "NO"),
+                            asList("NAME", Types.VARCHAR, "VARCHAR", 10, 0, DatabaseMetaData.columnNoNulls, "NO", "NO"),
+                            asList("NOTE", Types.VARCHAR, "VARCHAR", 100, 0, DatabaseMetaData.columnNullable, "NO", "NO"),
+                            asList("TEAM_ID", Types.INTEGER, "INTEGER", 10, 0, DatabaseMetaData.columnNoNulls, "NO", "NO"),
+                            asList("CREATED", Types.TIMESTAMP, "TIMESTAMP", 26, 6, DatabaseMetaData.columnNoNulls, "NO", "YES")));
+                    if (uniqueColumn != null) {
+                        columnRows.add(uniqueColumn);
+                    }
+                    return resultSet(columns, columnRows);
+                case "getImportedKeys":
+                    return resultSet(
+                            asList("FKCOLUMN_NAME", "PKTABLE_SCHEM", "PKTABLE_NAME", "PKCOLUMN_NAME", "FK_NAME"),
+                            asList("TEAM_ID", "PUBLIC", "TEAMS", "ID", "USERS_TEAM_FK"));
+                case "getPrimaryKeys":
+                    return resultSet(asList("COLUMN_NAME"), asList("ID"));
+                case "getIndexInfo":
+                    return uniqueColumn == null
+                            ? resultSet(asList("INDEX_NAME", "COLUMN_NAME"))
+                            : resultSet(asList("INDEX_NAME", "COLUMN_NAME"), asList("USERS_UNIQUE", uniqueColumn.get(0)));
+                default:
+                    return null;
+            }
+        });
+
+        return stub(Connection.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getMetaData":
+                    return metaData;
+                case "getSchema":
+                    return "PUBLIC";
+                case "createStatement":
+                    return stub(Statement.class, (p, m, a) -> {
+                        if (m.getName().equals("executeQuery")) {
+                            sql.add((String) a[0]);
+                            return ((String) a[0]).startsWith("SELECT MAX")
+                                    ? resultSet(asList("MAX"), asList(100))
+                                    : resultSet(asList("ID"), asList(1), asList(2), asList(3));
+                        }
+                        return null;
+                    });
+                case "prepareStatement":
+                    sql.add((String) args[0]);
+                    final Map<Integer, Object> parameters = new TreeMap<>();
+
+                    return stub(PreparedStatement.class, (p, m, a) -> {
+                        switch (m.getName()) {
+                            case "setObject":
+                                parameters.put((Integer) a[0], a[1]);
+                                return null;
+                            case "setNull":
+                                parameters.put((Integer) a[0], null);
+                                return null;
+                            case "addBatch":
+                                rows.add(new ArrayList<>(parameters.values()));
+                                return null;
+                            case "executeBatch":
+                                batches += 1;
+                                return new int[0];
+                            default:
+                                return null;
+                        }
+                    });
+                default:
+                    return null;
+            }
+        });
+    }
+
+    @SafeVarargs
+    private static ResultSet resultSet(final List<String> columns, final List<Object>... rows) {
+        return resultSet(columns, asList(rows));
+    }
+
+    private static ResultSet resultSet(final List<String> columns, final List<List<Object>> rows) {
+        final int[] index = {-1};
+
+        return stub(ResultSet.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "next":
+                    index[0] += 1;
+                    return index[0] < rows.size();
+                case "getString":
+                case "getInt":
+                case "getLong":
+                case "getObject":
+                    final Object value = args[0] instanceof Integer
+                            ? rows.get(index[0]).get((Integer) args[0] - 1)
+                            : rows.get(index[0]).get(columns.indexOf(args[0]));
+                    if (method.getName().equals("getLong")) {
+                        return ((Number) value).longValue();
+                    }
+                    return method.getName().equals("getString") && value != null ? value.toString() : value;
+                default:
+                    return null;
+            }
+        });
+    }
+}
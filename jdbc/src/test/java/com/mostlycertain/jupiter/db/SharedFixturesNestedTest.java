@@ -0,0 +1,45 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+/**
+ * The tests of a {@code @Nested} class do not use the shared connections of the enclosing class,
+ * and the nested class does not close them.
+ */
+@DatabaseTest
+@EmbeddedDatabase
+@SharedFixtures
+class SharedFixturesNestedTest {
+    private static Connection outerConnection;
+
+    @AfterAll
+    static void outerConnectionOpenAfterNestedClass() throws SQLException {
+        // The extension closes the shared connections after this method
+        assertNotNull(outerConnection);
+        assertFalse(outerConnection.isClosed());
+    }
+
+    @Test
+    void outer(final Connection connection) {
+        outerConnection = connection;
+    }
+
+    @Nested
+    class Inner {
+        @Test
+        void inner(final Connection connection) throws SQLException {
+            // Test methods of the enclosing class run before the nested classes
+            assertNotSame(outerConnection, connection);
+            assertFalse(outerConnection.isClosed());
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.mostlycertain.jupiter.db;
 
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -66,4 +67,11 @@ class SqlRunnerTest {
     void splitStatements(final List<String> expected, final String sqlScript) {
         assertEquals(expected, SqlRunner.splitStatements(sqlScript));
     }
+
+    @Test
+    void statementLines() {
+        assertEquals(asList(1, 3, 4, 7, 10, 11), SqlRunner.statementLines(
+                "S V;\n\nS 'a\nb';S T;\n-- comment ;\n\n  S /* ;\n */ U;\n/* a\n b */ S W;\n-- only a comment"));
+        assertEquals(emptyList(), SqlRunner.statementLines(" ;\n; "));
+    }
 }
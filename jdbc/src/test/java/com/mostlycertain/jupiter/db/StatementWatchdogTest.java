@@ -0,0 +1,222 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static com.mostlycertain.jupiter.db.TestProxies.stub;
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatementWatchdogTest {
+    private final DatabaseConnectionConfig config = DatabaseConnectionConfig.builder()
+            .url("jdbc:jupiterdb-unknown:test")
+            .build();
+    private final CountDownLatch cancelled = new CountDownLatch(1);
+
+    @Test
+    void cancelSlowStatement() throws InterruptedException {
+        final StatementWatchdog watchdog = new StatementWatchdog(0, 50, config);
+        final StatementExecution execution = StatementExecution.single(null, "SELECT * FROM locked");
+
+        watchdog.start();
+        watchdog.statementStarting(execution, stubStatement());
+
+        assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+        watchdog.statementExecuted(execution);
+        watchdog.stop();
+
+        final Optional<AssertionFailedError> error = watchdog.getTimeoutError();
+        assertTrue(error.isPresent());
+        assertTrue(error.get().getMessage().startsWith(
+                "Database timeout, statement exceeded 50 ms: SELECT * FROM locked"), error.get().getMessage());
+    }
+
+    @Test
+    void fastStatement() {
+        final StatementWatchdog watchdog = new StatementWatchdog(60000, 60000, config);
+        final StatementExecution execution = StatementExecution.single(null, "SELECT 1");
+
+        watchdog.start();
+        watchdog.statementStarting(execution, stubStatement());
+        watchdog.statementExecuted(execution);
+        watchdog.stop();
+
+        assertFalse(watchdog.getTimeoutError().isPresent());
+        assertTrue(cancelled.getCount() > 0);
+    }
+
+    @Test
+    void keepShorterQueryTimeout() {
+        final StatementWatchdog watchdog = new StatementWatchdog(0, 60000, config);
+        final List<Integer> timeouts = new ArrayList<>();
+
+        watchdog.statementStarting(StatementExecution.single(null, "SELECT 1"), stubStatement(2, timeouts));
+        watchdog.statementStarting(StatementExecution.single(null, "SELECT 2"), stubStatement(0, timeouts));
+        watchdog.statementStarting(StatementExecution.single(null, "SELECT 3"), stubStatement(600, timeouts));
+        watchdog.stop();
+
+        assertEquals(asList(65, 65), timeouts);
+    }
+
+    @Test
+    void stoppedDuringTimeout() throws InterruptedException {
+        final StatementWatchdog watchdog = new StatementWatchdog(0, 50, DatabaseConnectionConfig.builder()
+                .url("jdbc:watchdog-snapshot:test")
+                .driver(SnapshotDriver.class.getName())
+                .build());
+        final StatementExecution execution = StatementExecution.single(null, "SELECT * FROM locked");
+
+        SnapshotDriver.connecting = new CountDownLatch(1);
+        SnapshotDriver.release = new CountDownLatch(1);
+
+        try {
+            watchdog.start();
+            watchdog.statementStarting(execution, stubStatement());
+
+            // The statement completes while the timeout is capturing the lock snapshot
+            assertTrue(SnapshotDriver.connecting.await(5, TimeUnit.SECONDS));
+            watchdog.statementExecuted(execution);
+            watchdog.stop();
+        } finally {
+            SnapshotDriver.release.countDown();
+        }
+
+        assertFalse(cancelled.await(200, TimeUnit.MILLISECONDS), "Statement cancelled after the watchdog stopped");
+        assertTrue(watchdog.getAbortedConnections().isEmpty());
+    }
+
+    @Test
+    void lockWaitOnH2() throws SQLException {
+        final String url = "jdbc:h2:mem:watchdog_lock_wait;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=30000";
+        final StatementWatchdog watchdog = new StatementWatchdog(
+                0,
+                200,
+                DatabaseConnectionConfig.builder().url(url).build());
+
+        try (final Connection setup = DriverManager.getConnection(url);
+             final Connection holder = DriverManager.getConnection(url);
+             final Connection waiter = DriverManager.getConnection(url)) {
+            setup.createStatement().execute("CREATE TABLE locked_rows (id INT PRIMARY KEY, total INT)");
+            setup.createStatement().execute("INSERT INTO locked_rows VALUES (1, 0)");
+            holder.setAutoCommit(false);
+            waiter.setAutoCommit(false);
+            holder.createStatement().executeUpdate("UPDATE locked_rows SET total = 1 WHERE id = 1");
+
+            final String sql = "UPDATE locked_rows SET total = 2 WHERE id = 1";
+            final StatementExecution execution = StatementExecution.single(waiter, sql);
+            final long start = System.nanoTime();
+
+            try (final Statement statement = waiter.createStatement()) {
+                watchdog.statementStarting(execution, statement);
+
+                // Blocks on the row lock of the holder until the watchdog cancels it
+                assertThrows(SQLException.class, () -> statement.executeUpdate(sql));
+            } finally {
+                watchdog.statementExecuted(execution);
+                watchdog.stop();
+            }
+
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+            assertTrue(watchdog.getAbortedConnections().isEmpty());
+
+            final String message = watchdog.getTimeoutError().map(Throwable::getMessage).orElse("");
+            assertTrue(message.startsWith("Database timeout, statement exceeded 200 ms: " + sql), message);
+            assertTrue(message.contains("Sessions:") && message.contains("Locks:"), message);
+        }
+    }
+
+    private Statement stubStatement() {
+        return stub(Statement.class, (proxy, method, args) -> {
+            if (method.getName().equals("cancel")) {
+                cancelled.countDown();
+            }
+            return null;
+        });
+    }
+
+    private static Statement stubStatement(final int queryTimeout, final List<Integer> timeouts) {
+        return stub(Statement.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getQueryTimeout":
+                    return queryTimeout;
+                case "setQueryTimeout":
+                    timeouts.add((Integer) args[0]);
+                    return null;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    /**
+     * Driver that blocks the lock snapshot until the test releases it.
+     */
+    public static final class SnapshotDriver implements Driver {
+        static volatile CountDownLatch connecting;
+        static volatile CountDownLatch release;
+
+        @Override
+        public Connection connect(final String url, final Properties info) throws SQLException {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+
+            connecting.countDown();
+
+            try {
+                release.await();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+
+            throw new SQLException("No lock snapshot");
+        }
+
+        @Override
+        public boolean acceptsURL(final String url) {
+            return url.startsWith("jdbc:watchdog-snapshot:");
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(final String url, final Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() {
+            return Logger.getGlobal();
+        }
+    }
+}
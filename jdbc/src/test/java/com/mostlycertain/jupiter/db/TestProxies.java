@@ -0,0 +1,84 @@
+package com.mostlycertain.jupiter.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Fake implementations of JDBC and JUnit interfaces for tests that do not need a database.
+ */
+final class TestProxies {
+    private TestProxies() {
+        // Private so instances can not be created
+    }
+
+    /**
+     * Create a fake that answers every method with the default value of its return type.
+     *
+     * @param type Interface to implement.
+     * @return Fake instance.
+     */
+    static <T> T stub(final Class<T> type) {
+        return stub(type, (proxy, method, args) -> null);
+    }
+
+    /**
+     * Create a fake that passes method calls to a handler.
+     *
+     * {@code equals} and {@code hashCode} compare identity, so fakes can be kept in sets and maps.
+     * A {@code null} result of a method that returns a primitive is replaced with the default value
+     * of the primitive.
+     *
+     * @param type    Interface to implement.
+     * @param handler Handler of the method calls.
+     * @return Fake instance.
+     */
+    static <T> T stub(final Class<T> type, final InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(
+                TestProxies.class.getClassLoader(),
+                new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            if (method.getParameterCount() == 1) {
+                                return proxy == args[0];
+                            }
+                            break;
+                        case "hashCode":
+                            if (method.getParameterCount() == 0) {
+                                return System.identityHashCode(proxy);
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+
+                    final Object result = handler.invoke(proxy, method, args);
+                    return result == null ? defaultValue(method) : result;
+                }));
+    }
+
+    private static Object defaultValue(final Method method) {
+        final Class<?> type = method.getReturnType();
+
+        if (type == boolean.class) {
+            return false;
+        } else if (type == char.class) {
+            return '\0';
+        } else if (type == byte.class) {
+            return (byte) 0;
+        } else if (type == short.class) {
+            return (short) 0;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == float.class) {
+            return 0f;
+        } else if (type == double.class) {
+            return 0d;
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,48 @@
+package com.mostlycertain.jupiter.db;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class TimingShardFilterTest {
+    @Test
+    void balanceRecordedCosts() {
+        final Map<String, Long> costs = new HashMap<>();
+        costs.put("A", 100L);
+        costs.put("B", 60L);
+        costs.put("C", 50L);
+        costs.put("D", 40L);
+
+        final Map<String, Integer> shards = TimingShardFilter.assignShards(asList("D", "C", "B", "A"), costs, 2);
+
+        // A alone on one shard and B+C+D would be unbalanced; LPT gives A+D=140 and B+C=110
+        assertEquals(shards.get("A"), shards.get("D"));
+        assertEquals(shards.get("B"), shards.get("C"));
+        assertNotEquals(shards.get("A"), shards.get("B"));
+    }
+
+    @Test
+    void hashClassesWithoutHistory() {
+        final Map<String, Integer> shards = TimingShardFilter.assignShards(asList("X", "Y"), new HashMap<>(), 3);
+
+        assertEquals(Math.floorMod("X".hashCode(), 3), (int) shards.get("X"));
+        assertEquals(Math.floorMod("Y".hashCode(), 3), (int) shards.get("Y"));
+    }
+
+    @Test
+    void sameAssignmentForAnyDiscoveryOrder() {
+        final Map<String, Long> costs = new HashMap<>();
+        costs.put("A", 10L);
+        costs.put("B", 10L);
+        costs.put("C", 10L);
+
+        assertEquals(
+                TimingShardFilter.assignShards(asList("A", "B", "C", "Z"), costs, 2),
+                TimingShardFilter.assignShards(asList("Z", "C", "B", "A"), costs, 2));
+    }
+}
@@ -0,0 +1,2 @@
+CREATE TABLE embedded_users (id INT PRIMARY KEY, name VARCHAR(20));
+INSERT INTO embedded_users VALUES (1, 'alice');
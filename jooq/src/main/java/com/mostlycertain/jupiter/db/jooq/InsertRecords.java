@@ -0,0 +1,30 @@
+package com.mostlycertain.jupiter.db.jooq;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Insert jOOQ records before a test runs.
+ *
+ * Each name refers to a static, no-argument method of the test class that returns the records
+ * to insert, as a {@link org.jooq.TableRecord}, an array, an {@link Iterable} or a
+ * {@link java.util.stream.Stream} of them. The records are inserted with
+ * {@link org.jooq.DSLContext#batchInsert}, after the {@link com.mostlycertain.jupiter.db.InitializeSql}
+ * and before the {@link com.mostlycertain.jupiter.db.FinalizeSql} statements. Records of the
+ * test class are inserted before records of the test method.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface InsertRecords {
+    /**
+     * Names of the static methods that supply the records.
+     */
+    String[] value();
+
+    /**
+     * Maximum number of records to send in one JDBC batch.
+     */
+    int batchSize() default 1000;
+}
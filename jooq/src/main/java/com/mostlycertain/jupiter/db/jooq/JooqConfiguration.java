@@ -0,0 +1,54 @@
+package com.mostlycertain.jupiter.db.jooq;
+
+import org.jooq.ExecuteListener;
+import org.jooq.SQLDialect;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Configure the {@link org.jooq.DSLContext} given to the tests in a class.
+ *
+ * The configuration is built once per test class and connection. Each test gets a
+ * {@link org.jooq.DSLContext} derived from it with only the connection replaced.
+ *
+ * Values that are not set on the annotation are read from the {@code jupiterdb.jooq.dialect},
+ * {@code jupiterdb.jooq.executeListeners} and {@code jupiterdb.jooq.fixtureDialect} system
+ * properties. jOOQ reads default settings
+ * from the {@code org.jooq.settings} system property.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface JooqConfiguration {
+    /**
+     * SQL dialect to render. {@link SQLDialect#DEFAULT} detects the dialect from the connection URL.
+     */
+    SQLDialect dialect() default SQLDialect.DEFAULT;
+
+    /**
+     * Name of a resource containing jOOQ {@link org.jooq.conf.Settings} XML.
+     *
+     * Resource names are resolved relative to the test class. Use a leading slash for an
+     * absolute resource name.
+     */
+    String settings() default "";
+
+    /**
+     * Listeners added to every {@link org.jooq.DSLContext}.
+     *
+     * The listeners are created once per test class and must have a public no-argument constructor.
+     */
+    Class<? extends ExecuteListener>[] executeListeners() default {};
+
+    /**
+     * Dialect the {@link com.mostlycertain.jupiter.db.InitializeSql} and
+     * {@link com.mostlycertain.jupiter.db.FinalizeSql} statements are written in.
+     *
+     * When set, each fixture statement is parsed with the jOOQ parser and rendered in the
+     * {@link #dialect()} of the connection. Statements the parser does not understand are executed
+     * unchanged. {@link SQLDialect#DEFAULT} disables the translation.
+     */
+    SQLDialect fixtureDialect() default SQLDialect.DEFAULT;
+}
@@ -0,0 +1,201 @@
+package com.mostlycertain.jupiter.db.jooq;
+
+import com.mostlycertain.jupiter.db.DatabaseConnectionConfig;
+import com.mostlycertain.jupiter.db.DatabaseTestConnection;
+import org.jooq.Configuration;
+import org.jooq.ExecuteListener;
+import org.jooq.SQLDialect;
+import org.jooq.conf.MiniJAXB;
+import org.jooq.conf.Settings;
+import org.jooq.conf.SettingsTools;
+import org.jooq.impl.DefaultConfiguration;
+import org.jooq.impl.DefaultExecuteListenerProvider;
+import org.jooq.tools.jdbc.JDBCUtils;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static java.lang.String.format;
+
+/**
+ * Builds the base jOOQ {@link Configuration} for a test class.
+ */
+final class JooqConfigurations {
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(JooqConfigurations.class);
+
+    private JooqConfigurations() {
+        // Private so instances can not be created
+    }
+
+    /**
+     * Get the configuration shared by all tests in the class that use the connection.
+     *
+     * The configuration is kept in the store of the test class, so it is discarded when the class
+     * completes. Each nested test class has its own.
+     *
+     * @param connection       Test connection.
+     * @param extensionContext Context of the test.
+     * @return Base configuration without a connection.
+     */
+    static Configuration getBaseConfiguration(
+            final DatabaseTestConnection connection,
+            final ExtensionContext extensionContext
+    ) {
+        final Class<?> testClass = extensionContext.getRequiredTestClass();
+
+        return classContext(extensionContext).getStore(NAMESPACE).getOrComputeIfAbsent(
+                testClass.getName() + "/" + connection.getName() + "/" + connection.getConfig().getUrl(),
+                k -> create(testClass, connection.getConfig()),
+                Configuration.class);
+    }
+
+    private static ExtensionContext classContext(final ExtensionContext extensionContext) {
+        ExtensionContext context = extensionContext;
+
+        while (context.getTestMethod().isPresent() && context.getParent().isPresent()) {
+            context = context.getParent().get();
+        }
+
+        return context;
+    }
+
+    /**
+     * Build the configuration for a test class.
+     *
+     * The returned configuration has no connection. Derive a configuration with the test
+     * connection from it.
+     *
+     * @param testClass        Test class, which may be annotated with {@link JooqConfiguration}.
+     * @param connectionConfig Configuration of the connection the tests use.
+     * @return Base configuration.
+     */
+    static Configuration create(final Class<?> testClass, final DatabaseConnectionConfig connectionConfig) {
+        final JooqConfiguration annotation = findAnnotation(testClass);
+
+        return new DefaultConfiguration()
+                .set(readDialect(annotation, connectionConfig))
+                .set(readSettings(testClass, annotation))
+                .set(DefaultExecuteListenerProvider.providers(readExecuteListeners(annotation)));
+    }
+
+    /**
+     * Read the dialect to render SQL in for a test class.
+     *
+     * @param testClass        Test class, which may be annotated with {@link JooqConfiguration}.
+     * @param connectionConfig Configuration of the connection the tests use.
+     * @return SQL dialect.
+     */
+    static SQLDialect readDialect(final Class<?> testClass, final DatabaseConnectionConfig connectionConfig) {
+        return readDialect(findAnnotation(testClass), connectionConfig);
+    }
+
+    /**
+     * Read the dialect fixture SQL is written in for a test class.
+     *
+     * @param testClass Test class, which may be annotated with {@link JooqConfiguration}.
+     * @return SQL dialect or {@link SQLDialect#DEFAULT} if fixture SQL is not translated.
+     */
+    static SQLDialect readFixtureDialect(final Class<?> testClass) {
+        final JooqConfiguration annotation = findAnnotation(testClass);
+
+        if (annotation != null && annotation.fixtureDialect() != SQLDialect.DEFAULT) {
+            return annotation.fixtureDialect();
+        }
+
+        return parseDialect(System.getProperty("jupiterdb.jooq.fixtureDialect", ""));
+    }
+
+    private static JooqConfiguration findAnnotation(final Class<?> testClass) {
+        // Nested test classes use the configuration of the enclosing class
+        for (Class<?> c = testClass; c != null; c = c.getEnclosingClass()) {
+            final JooqConfiguration annotation = c.getAnnotation(JooqConfiguration.class);
+
+            if (annotation != null) {
+                return annotation;
+            }
+        }
+
+        return null;
+    }
+
+    private static SQLDialect readDialect(
+            final JooqConfiguration annotation,
+            final DatabaseConnectionConfig connectionConfig
+    ) {
+        if (annotation != null && annotation.dialect() != SQLDialect.DEFAULT) {
+            return annotation.dialect();
+        }
+
+        final SQLDialect dialect = parseDialect(System.getProperty("jupiterdb.jooq.dialect", ""));
+
+        if (dialect != SQLDialect.DEFAULT) {
+            return dialect;
+        }
+
+        return JDBCUtils.dialect(connectionConfig.getUrl());
+    }
+
+    private static SQLDialect parseDialect(final String value) {
+        return value.trim().isEmpty()
+                ? SQLDialect.DEFAULT
+                : SQLDialect.valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    private static Settings readSettings(final Class<?> testClass, final JooqConfiguration annotation) {
+        if (annotation == null || annotation.settings().isEmpty()) {
+            return SettingsTools.defaultSettings();
+        }
+
+        try (final InputStream resource = testClass.getResourceAsStream(annotation.settings())) {
+            if (resource == null) {
+                throw new RuntimeException(format(
+                        "@JooqConfiguration settings resource not found: resource=%s test=%s",
+                        annotation.settings(),
+                        testClass.getName()));
+            }
+
+            return MiniJAXB.unmarshal(resource, Settings.class);
+        } catch (final IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private static ExecuteListener[] readExecuteListeners(final JooqConfiguration annotation) {
+        final List<Class<?>> listenerClasses = new ArrayList<>();
+
+        if (annotation != null && annotation.executeListeners().length > 0) {
+            listenerClasses.addAll(Arrays.asList(annotation.executeListeners()));
+        } else {
+            for (final String className : System.getProperty("jupiterdb.jooq.executeListeners", "").split(",")) {
+                if (!className.trim().isEmpty()) {
+                    listenerClasses.add(loadClass(className.trim()));
+                }
+            }
+        }
+
+        final ExecuteListener[] listeners = new ExecuteListener[listenerClasses.size()];
+
+        for (int i = 0; i < listeners.length; i += 1) {
+            try {
+                listeners[i] = (ExecuteListener) listenerClasses.get(i).getConstructor().newInstance();
+            } catch (final ReflectiveOperationException ex) {
+                throw new RuntimeException("Error creating jOOQ execute listener: " + listenerClasses.get(i).getName(), ex);
+            }
+        }
+
+        return listeners;
+    }
+
+    private static Class<?> loadClass(final String className) {
+        try {
+            return Class.forName(className, true, Thread.currentThread().getContextClassLoader());
+        } catch (final ClassNotFoundException ex) {
+            throw new RuntimeException("jOOQ execute listener not found: " + className, ex);
+        }
+    }
+}
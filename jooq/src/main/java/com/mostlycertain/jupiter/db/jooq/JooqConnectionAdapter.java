@@ -2,8 +2,8 @@ package com.mostlycertain.jupiter.db.jooq;
 
 import com.mostlycertain.jupiter.db.DatabaseConnectionAdapter;
 import com.mostlycertain.jupiter.db.DatabaseTestConnection;
+import org.jooq.Configuration;
 import org.jooq.DSLContext;
-import org.jooq.TransactionProvider;
 import org.jooq.impl.DSL;
 import org.junit.jupiter.api.extension.ExtensionContext;
 import org.junit.jupiter.api.extension.ParameterContext;
@@ -11,6 +11,8 @@ import org.junit.jupiter.api.extension.ParameterResolutionException;
 
 /**
  * Handles test parameters of type {@link DSLContext}.
+ *
+ * @see JooqConfiguration
  */
 public class JooqConnectionAdapter implements DatabaseConnectionAdapter {
     @Override
@@ -32,21 +34,24 @@ public class JooqConnectionAdapter implements DatabaseConnectionAdapter {
         final Class<?> parameterType = parameterContext.getParameter().getType();
 
         if (DSLContext.class.isAssignableFrom(parameterType)) {
-            return buildDslContext(connection);
+            return buildDslContext(connection, extensionContext);
         } else {
             throw new ParameterResolutionException("Unsupported parameter: " + parameterContext);
         }
     }
 
-    private DSLContext buildDslContext(final DatabaseTestConnection connection) {
-        final DefaultTransactionContext transactionContext = new DefaultTransactionContext(
-                DSL.using(connection.getConnection()));
-        final TransactionProvider transactionProvider = transactionContext
-                .configuration()
-                .transactionProvider();
-
-        transactionProvider.begin(transactionContext);
-
-        return transactionContext.dsl();
+    private DSLContext buildDslContext(
+            final DatabaseTestConnection connection,
+            final ExtensionContext extensionContext
+    ) {
+        final Configuration baseConfiguration = JooqConfigurations.getBaseConfiguration(connection, extensionContext);
+        final LazySavepointTransactionProvider transactionProvider = new LazySavepointTransactionProvider(
+                connection.getConnection());
+
+        // Transactions started by the code under test run inside the test transaction and
+        // never commit it
+        return DSL.using(baseConfiguration
+                .derive(transactionProvider.connectionProvider())
+                .derive(transactionProvider));
     }
 }
@@ -0,0 +1,157 @@
+package com.mostlycertain.jupiter.db.jooq;
+
+import com.mostlycertain.jupiter.db.DatabaseFixtureLoader;
+import com.mostlycertain.jupiter.db.DatabaseTestConnection;
+import org.jooq.DSLContext;
+import org.jooq.TableRecord;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DefaultConnectionProvider;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static java.lang.String.format;
+
+/**
+ * Inserts the records supplied by {@link InsertRecords} methods.
+ */
+public class JooqFixtureLoader implements DatabaseFixtureLoader {
+    @Override
+    public void load(
+            final ExtensionContext extensionContext,
+            final DatabaseTestConnection connection,
+            final Connection fixtureConnection
+    ) {
+        final Class<?> testClass = extensionContext.getRequiredTestClass();
+        final Optional<Method> testMethod = extensionContext.getTestMethod();
+        final InsertRecords classRecords = testClass.getAnnotation(InsertRecords.class);
+        final InsertRecords methodRecords = testMethod.map(m -> m.getAnnotation(InsertRecords.class)).orElse(null);
+
+        if (classRecords == null && methodRecords == null) {
+            return;
+        }
+
+        final DSLContext dsl = DSL.using(JooqConfigurations.getBaseConfiguration(connection, extensionContext)
+                .derive(new DefaultConnectionProvider(fixtureConnection)));
+
+        insertRecords(dsl, testClass, classRecords);
+        insertRecords(dsl, testClass, methodRecords);
+    }
+
+    private static void insertRecords(
+            final DSLContext dsl,
+            final Class<?> testClass,
+            final InsertRecords annotation
+    ) {
+        if (annotation == null) {
+            return;
+        }
+
+        final int batchSize = Math.max(1, annotation.batchSize());
+
+        for (final String methodName : annotation.value()) {
+            final Object value = invokeSupplier(testClass, methodName);
+
+            if (value instanceof Stream) {
+                try (final Stream<?> stream = (Stream<?>) value) {
+                    insertRecords(dsl, testClass, methodName, stream.iterator(), batchSize);
+                }
+            } else {
+                insertRecords(dsl, testClass, methodName, toIterator(testClass, methodName, value), batchSize);
+            }
+        }
+    }
+
+    private static void insertRecords(
+            final DSLContext dsl,
+            final Class<?> testClass,
+            final String methodName,
+            final Iterator<?> records,
+            final int batchSize
+    ) {
+        final List<TableRecord<?>> batch = new ArrayList<>(batchSize);
+
+        while (records.hasNext()) {
+            batch.add(toRecord(testClass, methodName, records.next()));
+
+            if (batch.size() == batchSize) {
+                dsl.batchInsert(batch).execute();
+                batch.clear();
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            dsl.batchInsert(batch).execute();
+        }
+    }
+
+    private static Object invokeSupplier(final Class<?> testClass, final String methodName) {
+        final Method method = findSupplier(testClass, methodName);
+
+        try {
+            method.setAccessible(true);
+            return method.invoke(null);
+        } catch (final InvocationTargetException ex) {
+            throw new RuntimeException(format(
+                    "@InsertRecords method failed: method=%s test=%s",
+                    methodName,
+                    testClass.getName()), ex.getCause());
+        } catch (final IllegalAccessException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private static Method findSupplier(final Class<?> testClass, final String methodName) {
+        for (Class<?> c = testClass; c != null; c = c.getSuperclass()) {
+            for (final Method method : c.getDeclaredMethods()) {
+                if (method.getName().equals(methodName)
+                        && method.getParameterCount() == 0
+                        && Modifier.isStatic(method.getModifiers())) {
+                    return method;
+                }
+            }
+        }
+
+        throw new RuntimeException(format(
+                "@InsertRecords method not found, it must be static and take no arguments: method=%s test=%s",
+                methodName,
+                testClass.getName()));
+    }
+
+    private static Iterator<?> toIterator(final Class<?> testClass, final String methodName, final Object value) {
+        if (value instanceof TableRecord) {
+            return Stream.of(value).iterator();
+        } else if (value instanceof Object[]) {
+            return Arrays.asList((Object[]) value).iterator();
+        } else if (value instanceof Iterable) {
+            return ((Iterable<?>) value).iterator();
+        }
+
+        throw new RuntimeException(format(
+                "@InsertRecords method returned an unsupported type: method=%s test=%s type=%s",
+                methodName,
+                testClass.getName(),
+                value == null ? null : value.getClass().getName()));
+    }
+
+    private static TableRecord<?> toRecord(final Class<?> testClass, final String methodName, final Object value) {
+        if (value instanceof TableRecord) {
+            return (TableRecord<?>) value;
+        }
+
+        throw new RuntimeException(format(
+                "@InsertRecords method returned a value that is not a TableRecord: method=%s test=%s type=%s",
+                methodName,
+                testClass.getName(),
+                value == null ? null : value.getClass().getName()));
+    }
+}
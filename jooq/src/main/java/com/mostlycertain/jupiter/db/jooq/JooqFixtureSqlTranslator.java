@@ -0,0 +1,117 @@
+package com.mostlycertain.jupiter.db.jooq;
+
+import com.mostlycertain.jupiter.db.DatabaseTestConnection;
+import com.mostlycertain.jupiter.db.FixtureSqlTranslator;
+import org.jooq.DSLContext;
+import org.jooq.Query;
+import org.jooq.SQLDialect;
+import org.jooq.conf.Settings;
+import org.jooq.impl.DSL;
+import org.jooq.impl.ParserException;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Translates fixture SQL to the dialect of the connection with the jOOQ parser.
+ *
+ * Translation is enabled with {@link JooqConfiguration#fixtureDialect()}. Translated scripts are
+ * cached for the life of the JVM, so each script is only parsed once per target dialect.
+ */
+public class JooqFixtureSqlTranslator implements FixtureSqlTranslator {
+    private static final ConcurrentMap<CacheKey, List<String>> CACHE = new ConcurrentHashMap<>();
+
+    @Override
+    public List<String> translate(
+            final ExtensionContext extensionContext,
+            final DatabaseTestConnection connection,
+            final String script,
+            final List<String> statements
+    ) {
+        final Class<?> testClass = extensionContext.getRequiredTestClass();
+        final SQLDialect fixtureDialect = JooqConfigurations.readFixtureDialect(testClass);
+
+        if (fixtureDialect == SQLDialect.DEFAULT) {
+            return statements;
+        }
+
+        final SQLDialect dialect = JooqConfigurations.readDialect(testClass, connection.getConfig());
+
+        if (dialect == fixtureDialect) {
+            return statements;
+        }
+
+        return CACHE.computeIfAbsent(
+                new CacheKey(script, statements, fixtureDialect, dialect),
+                k -> translate(statements, fixtureDialect, dialect));
+    }
+
+    private static List<String> translate(
+            final List<String> statements,
+            final SQLDialect fixtureDialect,
+            final SQLDialect dialect
+    ) {
+        final DSLContext dsl = DSL.using(dialect, new Settings().withParseDialect(fixtureDialect));
+        final List<String> translated = new ArrayList<>(statements.size());
+
+        for (final String statement : statements) {
+            try {
+                for (final Query query : dsl.parser().parse(statement)) {
+                    translated.add(dsl.render(query));
+                }
+            } catch (final ParserException ex) {
+                // Run statements the parser does not support as they were written
+                translated.add(statement);
+            }
+        }
+
+        return Collections.unmodifiableList(translated);
+    }
+
+    private static final class CacheKey {
+        private final String script;
+        private final List<String> statements;
+        private final SQLDialect fixtureDialect;
+        private final SQLDialect dialect;
+
+        CacheKey(
+                final String script,
+                final List<String> statements,
+                final SQLDialect fixtureDialect,
+                final SQLDialect dialect
+        ) {
+            this.script = script;
+            this.statements = statements;
+            this.fixtureDialect = fixtureDialect;
+            this.dialect = dialect;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+
+            final CacheKey other = (CacheKey) o;
+
+            return script.equals(other.script)
+                    && statements.equals(other.statements)
+                    && fixtureDialect == other.fixtureDialect
+                    && dialect == other.dialect;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(script, fixtureDialect, dialect);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.mostlycertain.jupiter.db.jooq;
+
+import org.jooq.ConnectionProvider;
+import org.jooq.TransactionContext;
+import org.jooq.TransactionProvider;
+import org.jooq.exception.DataAccessException;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Savepoint;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Transaction provider that runs jOOQ transactions inside the test transaction.
+ *
+ * Transactions never commit. Each transaction block only needs a save point if it uses the
+ * connection and is then rolled back, so save points are created lazily: beginning a transaction
+ * does not touch the database, and the {@link #connectionProvider() connection provider} creates
+ * a single save point, shared by all transactions that do not have one yet, the first time the
+ * connection is acquired in them. jOOQ acquires the connection for every statement it executes and
+ * for {@link org.jooq.DSLContext#connection}, so statements executed on the JDBC connection it
+ * hands out are rolled back with the transaction too. Rolling back a transaction that did not use
+ * the connection is a no-op.
+ *
+ * The transaction that created a save point releases it when it commits or rolls back, so a
+ * test that runs many transactions does not accumulate live save points. Transactions nested in
+ * it that share the save point leave it to the owner.
+ *
+ * Statements executed on a connection that was not acquired from the configuration, such as a
+ * {@link java.sql.Connection} test parameter, are only rolled back with the test.
+ */
+final class LazySavepointTransactionProvider implements TransactionProvider {
+    private final Connection connection;
+    private final Deque<Frame> frames = new ArrayDeque<>();
+
+    LazySavepointTransactionProvider(final Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Connection provider that must be used by the configuration using this provider.
+     */
+    ConnectionProvider connectionProvider() {
+        return new ConnectionProvider() {
+            @Override
+            public Connection acquire() {
+                createPendingSavepoints();
+                return connection;
+            }
+
+            @Override
+            public void release(final Connection released) {
+                // The connection is owned by the test
+            }
+        };
+    }
+
+    @Override
+    public synchronized void begin(final TransactionContext ctx) {
+        frames.push(new Frame());
+    }
+
+    @Override
+    public synchronized void commit(final TransactionContext ctx) {
+        final Frame frame = popFrame();
+
+        if (frame.ownsSavepoint) {
+            releaseSavepoint(frame.savepoint);
+        }
+    }
+
+    @Override
+    public synchronized void rollback(final TransactionContext ctx) {
+        final Frame frame = popFrame();
+
+        if (frame.savepoint == null) {
+            return;
+        }
+
+        try {
+            connection.rollback(frame.savepoint);
+        } catch (final SQLException ex) {
+            throw new DataAccessException("Cannot rollback transaction", ex);
+        }
+
+        if (frame.ownsSavepoint) {
+            releaseSavepoint(frame.savepoint);
+        }
+    }
+
+    private void releaseSavepoint(final Savepoint savepoint) {
+        try {
+            connection.releaseSavepoint(savepoint);
+        } catch (final SQLFeatureNotSupportedException ex) {
+            // Released with the test transaction instead
+        } catch (final SQLException ex) {
+            throw new DataAccessException("Cannot release savepoint", ex);
+        }
+    }
+
+    private Frame popFrame() {
+        if (frames.isEmpty()) {
+            throw new DataAccessException("No transaction in progress");
+        }
+
+        return frames.pop();
+    }
+
+    private synchronized void createPendingSavepoints() {
+        final Frame top = frames.peek();
+
+        if (top == null || top.savepoint != null) {
+            return;
+        }
+
+        final Savepoint savepoint;
+
+        try {
+            savepoint = connection.setSavepoint();
+        } catch (final SQLException ex) {
+            throw new DataAccessException("Cannot set savepoint", ex);
+        }
+
+        // Frames without a save point have not executed anything, so they can all share one.
+        // The outermost of them owns it, since it is the last to complete.
+        Frame owner = null;
+
+        for (final Frame frame : frames) {
+            if (frame.savepoint != null) {
+                break;
+            }
+
+            frame.savepoint = savepoint;
+            owner = frame;
+        }
+
+        owner.ownsSavepoint = true;
+    }
+
+    private static final class Frame {
+        Savepoint savepoint;
+        boolean ownsSavepoint;
+    }
+}
@@ -0,0 +1,232 @@
+package com.mostlycertain.jupiter.db.jooq;
+
+import com.mostlycertain.jupiter.db.DatabaseConnectionConfig;
+import com.mostlycertain.jupiter.db.DatabaseTestConnection;
+import org.jooq.Configuration;
+import org.jooq.ExecuteContext;
+import org.jooq.ExecuteListenerProvider;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DefaultConnectionProvider;
+import org.jooq.impl.DefaultExecuteListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.String.format;
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JooqConfigurationsTest {
+    private static final DatabaseConnectionConfig H2 = DatabaseConnectionConfig.builder()
+            .url("jdbc:h2:mem:")
+            .build();
+
+    @AfterEach
+    void clearSystemProperties() {
+        System.clearProperty("jupiterdb.jooq.dialect");
+        System.clearProperty("jupiterdb.jooq.executeListeners");
+        System.clearProperty("jupiterdb.jooq.fixtureDialect");
+    }
+
+    @Test
+    void dialectFromAnnotation() {
+        System.setProperty("jupiterdb.jooq.dialect", "hsqldb");
+
+        assertEquals(SQLDialect.POSTGRES, JooqConfigurations.readDialect(PostgresTest.class, H2));
+        assertEquals(SQLDialect.POSTGRES, JooqConfigurations.readDialect(PostgresTest.NestedTest.class, H2));
+    }
+
+    @Test
+    void dialectFromSystemProperty() {
+        System.setProperty("jupiterdb.jooq.dialect", " hsqldb ");
+
+        assertEquals(SQLDialect.HSQLDB, JooqConfigurations.readDialect(UnconfiguredTest.class, H2));
+        assertEquals(SQLDialect.HSQLDB, JooqConfigurations.readDialect(SettingsTest.class, H2));
+    }
+
+    @Test
+    void dialectFromUrl() {
+        assertEquals(SQLDialect.H2, JooqConfigurations.readDialect(UnconfiguredTest.class, H2));
+        assertEquals(SQLDialect.H2, JooqConfigurations.create(UnconfiguredTest.class, H2).dialect());
+    }
+
+    @Test
+    void fixtureDialect() {
+        assertEquals(SQLDialect.DEFAULT, JooqConfigurations.readFixtureDialect(UnconfiguredTest.class));
+        assertEquals(SQLDialect.MYSQL, JooqConfigurations.readFixtureDialect(PostgresTest.class));
+
+        System.setProperty("jupiterdb.jooq.fixtureDialect", "h2");
+
+        assertEquals(SQLDialect.H2, JooqConfigurations.readFixtureDialect(UnconfiguredTest.class));
+        assertEquals(SQLDialect.MYSQL, JooqConfigurations.readFixtureDialect(PostgresTest.class));
+    }
+
+    @Test
+    void settings() {
+        assertEquals(Boolean.FALSE, JooqConfigurations.create(SettingsTest.class, H2).settings().isRenderSchema());
+        assertEquals(Boolean.TRUE, JooqConfigurations.create(UnconfiguredTest.class, H2).settings().isRenderSchema());
+    }
+
+    @Test
+    void settingsNotFound() {
+        final RuntimeException ex = assertThrows(
+                RuntimeException.class,
+                () -> JooqConfigurations.create(MissingSettingsTest.class, H2));
+
+        assertEquals(
+                "@JooqConfiguration settings resource not found: resource=missing.xml test="
+                        + MissingSettingsTest.class.getName(),
+                ex.getMessage());
+    }
+
+    @Test
+    void listenersFromAnnotation() {
+        final ExecuteListenerProvider[] providers = JooqConfigurations.create(PostgresTest.class, H2)
+                .executeListenerProviders();
+
+        assertEquals(1, providers.length);
+        assertTrue(providers[0].provide() instanceof RecordingListener);
+
+        // Created once per configuration, not once per statement
+        assertSame(providers[0].provide(), providers[0].provide());
+    }
+
+    @Test
+    void listenersFromSystemProperty() {
+        System.setProperty(
+                "jupiterdb.jooq.executeListeners",
+                RecordingListener.class.getName() + " , " + OtherListener.class.getName() + ",");
+
+        final ExecuteListenerProvider[] providers = JooqConfigurations.create(UnconfiguredTest.class, H2)
+                .executeListenerProviders();
+
+        assertEquals(2, providers.length);
+        assertTrue(providers[0].provide() instanceof RecordingListener);
+        assertTrue(providers[1].provide() instanceof OtherListener);
+
+        // The annotation replaces the system property
+        assertEquals(1, JooqConfigurations.create(PostgresTest.class, H2).executeListenerProviders().length);
+    }
+
+    @Test
+    void listenerNotFound() {
+        System.setProperty("jupiterdb.jooq.executeListeners", "com.example.MissingListener");
+
+        final RuntimeException ex = assertThrows(
+                RuntimeException.class,
+                () -> JooqConfigurations.create(UnconfiguredTest.class, H2));
+
+        assertEquals("jOOQ execute listener not found: com.example.MissingListener", ex.getMessage());
+    }
+
+    @Test
+    void listenerCalledOnH2() throws SQLException {
+        final Configuration base = JooqConfigurations.create(ListenerTest.class, H2);
+
+        try (final Connection connection = DriverManager.getConnection(H2.getUrl())) {
+            DSL.using(base.derive(new DefaultConnectionProvider(connection))).execute("select 1");
+        }
+
+        final RecordingListener listener = (RecordingListener) base.executeListenerProviders()[0].provide();
+
+        assertEquals(asList("select 1"), listener.statements);
+    }
+
+    @Test
+    void baseConfigurationSharedByClass() {
+        final DatabaseTestConnection connection = TestContexts.connection("default", H2, null);
+        final DatabaseTestConnection otherConnection = TestContexts.connection("other", H2, null);
+        final ExtensionContext classContext = TestContexts.classContext(JooqConfigurationsTest.class);
+        final ExtensionContext otherClassContext = TestContexts.classContext(JooqConfigurationsTest.class);
+
+        final Configuration base = JooqConfigurations.getBaseConfiguration(
+                connection,
+                TestContexts.methodContext(classContext, "settings"));
+
+        assertSame(base, JooqConfigurations.getBaseConfiguration(connection, classContext));
+        assertSame(base, JooqConfigurations.getBaseConfiguration(
+                connection,
+                TestContexts.methodContext(classContext, "dialectFromUrl")));
+
+        assertNotSame(base, JooqConfigurations.getBaseConfiguration(otherConnection, classContext));
+        assertNotSame(base, JooqConfigurations.getBaseConfiguration(connection, otherClassContext));
+    }
+
+    @Test
+    void derivingIsCheaperThanCreating() {
+        final int iterations = 2_000;
+        final DefaultConnectionProvider connectionProvider = new DefaultConnectionProvider(null);
+        final Configuration base = JooqConfigurations.create(SettingsTest.class, H2);
+
+        final Runnable create = () -> DSL.using(JooqConfigurations.create(SettingsTest.class, H2).derive(connectionProvider));
+        final Runnable derive = () -> DSL.using(base.derive(connectionProvider));
+
+        // Warm up both paths before timing them
+        timeNanos(iterations, create);
+        timeNanos(iterations, derive);
+
+        final long created = timeNanos(iterations, create);
+        final long derived = timeNanos(iterations, derive);
+
+        assertTrue(
+                derived < created,
+                format("Deriving from the base configuration should be cheaper: derived=%dns created=%dns", derived, created));
+    }
+
+    private static long timeNanos(final int iterations, final Runnable task) {
+        final long start = System.nanoTime();
+
+        for (int i = 0; i < iterations; i += 1) {
+            task.run();
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    public static final class RecordingListener extends DefaultExecuteListener {
+        final List<String> statements = new ArrayList<>();
+
+        @Override
+        public void executeStart(final ExecuteContext ctx) {
+            statements.add(ctx.sql());
+        }
+    }
+
+    public static final class OtherListener extends DefaultExecuteListener {
+    }
+
+    static final class UnconfiguredTest {
+    }
+
+    @JooqConfiguration(
+            dialect = SQLDialect.POSTGRES,
+            fixtureDialect = SQLDialect.MYSQL,
+            executeListeners = RecordingListener.class)
+    static final class PostgresTest {
+        static final class NestedTest {
+        }
+    }
+
+    @JooqConfiguration(settings = "jooq_settings.xml")
+    static final class SettingsTest {
+    }
+
+    @JooqConfiguration(settings = "missing.xml")
+    static final class MissingSettingsTest {
+    }
+
+    @JooqConfiguration(executeListeners = RecordingListener.class)
+    static final class ListenerTest {
+    }
+}
@@ -0,0 +1,310 @@
+package com.mostlycertain.jupiter.db.jooq;
+
+import com.mostlycertain.jupiter.db.DatabaseConnectionConfig;
+import org.jooq.TableField;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+import org.jooq.impl.TableImpl;
+import org.jooq.impl.TableRecordImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JooqFixtureLoaderTest {
+    private static final DatabaseConnectionConfig H2 = DatabaseConnectionConfig.builder()
+            .url("jdbc:h2:mem:")
+            .build();
+
+    private static final AtomicInteger BATCHES = new AtomicInteger();
+    private static final AtomicBoolean STREAM_CLOSED = new AtomicBoolean();
+
+    private final JooqFixtureLoader loader = new JooqFixtureLoader();
+
+    @BeforeEach
+    void reset() {
+        BATCHES.set(0);
+        STREAM_CLOSED.set(false);
+    }
+
+    @Test
+    void classRecordsBeforeMethodRecords() throws SQLException {
+        try (final Connection connection = DriverManager.getConnection(H2.getUrl())) {
+            createTable(connection);
+            load(OrderedTest.class, "test", countingBatches(Connection.class, connection));
+
+            assertEquals(asList(1, 2, 3, 10, 11, 12, 13, 14), insertedIds(connection));
+
+            // One batch for the class records, three batches of at most two for the method records
+            assertEquals(4, BATCHES.get());
+        }
+    }
+
+    @Test
+    void streamClosed() throws SQLException {
+        try (final Connection connection = DriverManager.getConnection(H2.getUrl())) {
+            createTable(connection);
+            load(StreamTest.class, "test", connection);
+
+            assertEquals(asList(1, 2), insertedIds(connection));
+            assertTrue(STREAM_CLOSED.get());
+        }
+    }
+
+    @Test
+    void streamClosedOnError() {
+        assertThrows(RuntimeException.class, () -> load(StreamErrorTest.class, "test", null));
+        assertTrue(STREAM_CLOSED.get());
+    }
+
+    @Test
+    void noRecords() {
+        // The connection is not used when there is nothing to insert
+        load(NoRecordsTest.class, "test", null);
+    }
+
+    @Test
+    void supplierNotFound() {
+        assertEquals(
+                "@InsertRecords method not found, it must be static and take no arguments: method=rows test="
+                        + NotStaticTest.class.getName(),
+                loadError(NotStaticTest.class));
+        assertEquals(
+                "@InsertRecords method not found, it must be static and take no arguments: method=missing test="
+                        + MissingTest.class.getName(),
+                loadError(MissingTest.class));
+    }
+
+    @Test
+    void supplierReturnsWrongType() {
+        assertEquals(
+                "@InsertRecords method returned an unsupported type: method=rows test="
+                        + WrongTypeTest.class.getName() + " type=java.lang.String",
+                loadError(WrongTypeTest.class));
+        assertEquals(
+                "@InsertRecords method returned an unsupported type: method=rows test="
+                        + NullTest.class.getName() + " type=null",
+                loadError(NullTest.class));
+        assertEquals(
+                "@InsertRecords method returned a value that is not a TableRecord: method=rows test="
+                        + NotARecordTest.class.getName() + " type=java.lang.Integer",
+                loadError(NotARecordTest.class));
+    }
+
+    @Test
+    void supplierFails() {
+        final RuntimeException ex = assertThrows(RuntimeException.class, () -> load(FailingTest.class, "test", null));
+
+        assertEquals(
+                "@InsertRecords method failed: method=rows test=" + FailingTest.class.getName(),
+                ex.getMessage());
+        assertEquals("Supplier failed", ex.getCause().getMessage());
+    }
+
+    private void load(final Class<?> testClass, final String methodName, final Connection connection) {
+        final ExtensionContext classContext = TestContexts.classContext(testClass);
+
+        loader.load(
+                TestContexts.methodContext(classContext, methodName),
+                TestContexts.connection("default", H2, connection),
+                connection);
+    }
+
+    private String loadError(final Class<?> testClass) {
+        return assertThrows(RuntimeException.class, () -> load(testClass, "test", null)).getMessage();
+    }
+
+    private static void createTable(final Connection connection) throws SQLException {
+        try (final Statement statement = connection.createStatement()) {
+            statement.execute("create table \"fixture_row\" (\"seq\" identity, \"id\" int)");
+        }
+    }
+
+    private static List<Integer> insertedIds(final Connection connection) throws SQLException {
+        final List<Integer> ids = new ArrayList<>();
+
+        try (final Statement statement = connection.createStatement();
+             final ResultSet rs = statement.executeQuery("select \"id\" from \"fixture_row\" order by \"seq\"")) {
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        }
+
+        return ids;
+    }
+
+    /**
+     * Wrap a connection to count the JDBC batches executed on its statements.
+     */
+    private static <T> T countingBatches(final Class<T> type, final T target) {
+        return type.cast(Proxy.newProxyInstance(
+                JooqFixtureLoaderTest.class.getClassLoader(),
+                new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("executeBatch")) {
+                        BATCHES.incrementAndGet();
+                    }
+
+                    final Object result;
+
+                    try {
+                        result = method.invoke(target, args);
+                    } catch (final InvocationTargetException ex) {
+                        throw ex.getCause();
+                    }
+
+                    if (result instanceof PreparedStatement) {
+                        return countingBatches(PreparedStatement.class, (PreparedStatement) result);
+                    } else if (result instanceof Statement) {
+                        return countingBatches(Statement.class, (Statement) result);
+                    }
+
+                    return result;
+                }));
+    }
+
+    private static FixtureRowRecord row(final int id) {
+        final FixtureRowRecord record = new FixtureRowRecord();
+        record.set(FixtureRow.FIXTURE_ROW.ID, id);
+        return record;
+    }
+
+    @InsertRecords("rows")
+    static final class OrderedTest {
+        static FixtureRowRecord[] rows() {
+            return new FixtureRowRecord[]{row(1), row(2), row(3)};
+        }
+
+        static List<FixtureRowRecord> methodRows() {
+            return asList(row(10), row(11), row(12), row(13), row(14));
+        }
+
+        @InsertRecords(value = "methodRows", batchSize = 2)
+        void test() {
+        }
+    }
+
+    static final class StreamTest {
+        static Stream<FixtureRowRecord> rows() {
+            return Stream.of(row(1), row(2)).onClose(() -> STREAM_CLOSED.set(true));
+        }
+
+        @InsertRecords("rows")
+        void test() {
+        }
+    }
+
+    static final class StreamErrorTest {
+        static Stream<Object> rows() {
+            return IntStream.range(0, 2).boxed().map(i -> (Object) i).onClose(() -> STREAM_CLOSED.set(true));
+        }
+
+        @InsertRecords("rows")
+        void test() {
+        }
+    }
+
+    static final class NoRecordsTest {
+        void test() {
+        }
+    }
+
+    static final class NotStaticTest {
+        List<FixtureRowRecord> rows() {
+            return asList(row(1));
+        }
+
+        @InsertRecords("rows")
+        void test() {
+        }
+    }
+
+    static final class MissingTest {
+        @InsertRecords("missing")
+        void test() {
+        }
+    }
+
+    static final class WrongTypeTest {
+        static String rows() {
+            return "row";
+        }
+
+        @InsertRecords("rows")
+        void test() {
+        }
+    }
+
+    static final class NullTest {
+        static List<FixtureRowRecord> rows() {
+            return null;
+        }
+
+        @InsertRecords("rows")
+        void test() {
+        }
+    }
+
+    static final class NotARecordTest {
+        static List<Integer> rows() {
+            return asList(1, 2);
+        }
+
+        @InsertRecords("rows")
+        void test() {
+        }
+    }
+
+    static final class FailingTest {
+        static List<FixtureRowRecord> rows() {
+            throw new IllegalStateException("Supplier failed");
+        }
+
+        @InsertRecords("rows")
+        void test() {
+        }
+    }
+
+    /**
+     * Table of the records, as the jOOQ code generator would declare it.
+     */
+    public static final class FixtureRow extends TableImpl<FixtureRowRecord> {
+        static final FixtureRow FIXTURE_ROW = new FixtureRow();
+
+        final TableField<FixtureRowRecord, Integer> ID = createField(DSL.name("id"), SQLDataType.INTEGER, this, "");
+
+        private FixtureRow() {
+            super(DSL.name("fixture_row"));
+        }
+
+        @Override
+        public Class<FixtureRowRecord> getRecordType() {
+            return FixtureRowRecord.class;
+        }
+    }
+
+    public static final class FixtureRowRecord extends TableRecordImpl<FixtureRowRecord> {
+        public FixtureRowRecord() {
+            super(FixtureRow.FIXTURE_ROW);
+        }
+    }
+}
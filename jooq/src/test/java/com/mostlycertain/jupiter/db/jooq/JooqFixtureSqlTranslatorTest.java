@@ -0,0 +1,122 @@
+package com.mostlycertain.jupiter.db.jooq;
+
+import com.mostlycertain.jupiter.db.DatabaseConnectionConfig;
+import org.jooq.SQLDialect;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JooqFixtureSqlTranslatorTest {
+    private static final DatabaseConnectionConfig H2 = DatabaseConnectionConfig.builder()
+            .url("jdbc:h2:mem:")
+            .build();
+
+    private final JooqFixtureSqlTranslator translator = new JooqFixtureSqlTranslator();
+
+    @AfterEach
+    void clearSystemProperties() {
+        System.clearProperty("jupiterdb.jooq.dialect");
+    }
+
+    @Test
+    void translateToH2() throws SQLException {
+        final List<String> statements = asList("insert into `fixture_row` (`id`, `name`) values (1, 'one')");
+
+        try (final Connection connection = DriverManager.getConnection(H2.getUrl());
+             final Statement statement = connection.createStatement()) {
+            statement.execute("create table \"fixture_row\" (\"id\" int primary key, \"name\" varchar(10))");
+
+            // H2 reads MySQL quoted names as upper case, so the untranslated statement fails
+            assertThrows(SQLException.class, () -> statement.execute(statements.get(0)));
+
+            final List<String> translated = translate(MySqlFixturesTest.class, connection, "translate.sql", statements);
+
+            assertEquals(1, translated.size());
+            assertNotEquals(statements, translated);
+
+            statement.execute(translated.get(0));
+
+            try (final ResultSet rs = statement.executeQuery("select \"name\" from \"fixture_row\" where \"id\" = 1")) {
+                rs.next();
+                assertEquals("one", rs.getString(1));
+            }
+        }
+    }
+
+    @Test
+    void unparseableStatementUnchanged() {
+        final List<String> translated = translate(
+                MySqlFixturesTest.class,
+                null,
+                "unparseable.sql",
+                asList("this is not sql", "insert into `fixture_row` (`id`) values (1)"));
+
+        assertEquals("this is not sql", translated.get(0));
+        assertNotEquals("insert into `fixture_row` (`id`) values (1)", translated.get(1));
+    }
+
+    @Test
+    void notTranslated() {
+        final List<String> statements = asList("insert into `fixture_row` (`id`) values (1)");
+
+        assertSame(statements, translate(UntranslatedTest.class, null, "untranslated.sql", statements));
+        assertSame(statements, translate(H2FixturesTest.class, null, "untranslated.sql", statements));
+    }
+
+    @Test
+    void translatedOncePerScriptAndDialect() {
+        final List<String> statements = asList("insert into `fixture_row` (`id`) values (1)");
+        final List<String> translated = translate(MySqlFixturesTest.class, null, "cached.sql", statements);
+
+        assertSame(translated, translate(MySqlFixturesTest.class, null, "cached.sql", new ArrayList<>(statements)));
+        assertNotSame(translated, translate(MySqlFixturesTest.class, null, "other.sql", statements));
+
+        System.setProperty("jupiterdb.jooq.dialect", "hsqldb");
+
+        final List<String> hsqldb = translate(MySqlFixturesTest.class, null, "cached.sql", statements);
+
+        assertNotSame(translated, hsqldb);
+        assertSame(hsqldb, translate(MySqlFixturesTest.class, null, "cached.sql", statements));
+    }
+
+    private List<String> translate(
+            final Class<?> testClass,
+            final Connection connection,
+            final String script,
+            final List<String> statements
+    ) {
+        final ExtensionContext extensionContext = TestContexts.classContext(testClass);
+
+        return translator.translate(
+                extensionContext,
+                TestContexts.connection("default", H2, connection),
+                script,
+                statements);
+    }
+
+    @JooqConfiguration(fixtureDialect = SQLDialect.MYSQL)
+    static final class MySqlFixturesTest {
+    }
+
+    @JooqConfiguration(fixtureDialect = SQLDialect.H2)
+    static final class H2FixturesTest {
+    }
+
+    static final class UntranslatedTest {
+    }
+}
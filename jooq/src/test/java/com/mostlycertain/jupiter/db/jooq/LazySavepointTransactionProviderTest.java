@@ -0,0 +1,129 @@
+package com.mostlycertain.jupiter.db.jooq;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LazySavepointTransactionProviderTest {
+    private final List<String> calls = new ArrayList<>();
+    private final LazySavepointTransactionProvider provider = new LazySavepointTransactionProvider(stubConnection());
+
+    @Test
+    void noStatements() {
+        provider.begin(null);
+        provider.begin(null);
+        provider.rollback(null);
+        provider.commit(null);
+
+        assertEquals(emptyList(), calls);
+    }
+
+    @Test
+    void nestedCommit() {
+        provider.begin(null);
+        acquire();
+        provider.begin(null);
+        acquire();
+        provider.commit(null);
+        provider.commit(null);
+
+        assertEquals(asList("setSavepoint 1", "setSavepoint 2", "release 2", "release 1"), calls);
+    }
+
+    @Test
+    void nestedRollback() {
+        provider.begin(null);
+        acquire();
+        provider.begin(null);
+        acquire();
+        provider.rollback(null);
+        acquire();
+        provider.commit(null);
+
+        assertEquals(asList("setSavepoint 1", "setSavepoint 2", "rollback 2", "release 2", "release 1"), calls);
+    }
+
+    @Test
+    void rollbackAfterNestedCommit() {
+        provider.begin(null);
+        acquire();
+        provider.begin(null);
+        acquire();
+        provider.commit(null);
+        provider.rollback(null);
+
+        assertEquals(asList("setSavepoint 1", "setSavepoint 2", "release 2", "rollback 1", "release 1"), calls);
+    }
+
+    @Test
+    void sharedSavepoint() {
+        // Neither block executed a statement before the inner one, so they share a save point
+        // that only the outer block releases
+        provider.begin(null);
+        provider.begin(null);
+        acquire();
+        provider.commit(null);
+        provider.rollback(null);
+
+        assertEquals(asList("setSavepoint 1", "rollback 1", "release 1"), calls);
+    }
+
+    @Test
+    void connectionUsedOutsideStatements() throws SQLException {
+        // Code that uses the JDBC connection through DSLContext.connection acquires it too
+        provider.begin(null);
+        acquire().createStatement();
+        provider.rollback(null);
+
+        assertEquals(asList("setSavepoint 1", "createStatement", "rollback 1", "release 1"), calls);
+    }
+
+    private Connection acquire() {
+        final Connection connection = provider.connectionProvider().acquire();
+        provider.connectionProvider().release(connection);
+        return connection;
+    }
+
+    private Connection stubConnection() {
+        final int[] savepoints = {0};
+
+        return (Connection) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "setSavepoint":
+                            savepoints[0] += 1;
+                            calls.add("setSavepoint " + savepoints[0]);
+                            return savepoint(savepoints[0]);
+                        case "rollback":
+                            calls.add("rollback " + ((Savepoint) args[0]).getSavepointId());
+                            return null;
+                        case "releaseSavepoint":
+                            calls.add("release " + ((Savepoint) args[0]).getSavepointId());
+                            return null;
+                        case "createStatement":
+                            calls.add("createStatement");
+                            return null;
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private Savepoint savepoint(final int id) {
+        return (Savepoint) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[]{Savepoint.class},
+                (proxy, method, args) -> method.getName().equals("getSavepointId") ? id : null);
+    }
+}
@@ -0,0 +1,109 @@
+package com.mostlycertain.jupiter.db.jooq;
+
+import com.mostlycertain.jupiter.db.DatabaseConnectionConfig;
+import com.mostlycertain.jupiter.db.DatabaseTestConnection;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Fake JUnit contexts and test connections for tests that call the extension plugins directly.
+ */
+final class TestContexts {
+    private TestContexts() {
+        // Private so instances can not be created
+    }
+
+    /**
+     * Create the context of a test class, with a store that keeps its values for the life of the
+     * context.
+     */
+    static ExtensionContext classContext(final Class<?> testClass) {
+        return context(testClass, null, null);
+    }
+
+    /**
+     * Create the context of a test method in a class.
+     */
+    static ExtensionContext methodContext(final ExtensionContext classContext, final String methodName) {
+        final Class<?> testClass = classContext.getRequiredTestClass();
+
+        try {
+            return context(testClass, testClass.getDeclaredMethod(methodName), classContext);
+        } catch (final NoSuchMethodException ex) {
+            throw new IllegalArgumentException(ex);
+        }
+    }
+
+    static DatabaseTestConnection connection(
+            final String name,
+            final DatabaseConnectionConfig config,
+            final Connection connection
+    ) {
+        return stub(DatabaseTestConnection.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getName":
+                    return name;
+                case "getConfig":
+                    return config;
+                case "getConnection":
+                    return connection;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    static <T> T stub(final Class<T> type, final InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(TestContexts.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ExtensionContext context(
+            final Class<?> testClass,
+            final Method testMethod,
+            final ExtensionContext parent
+    ) {
+        final Map<Object, Object> values = new HashMap<>();
+        final ExtensionContext.Store store = stub(ExtensionContext.Store.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getOrComputeIfAbsent":
+                    return values.computeIfAbsent(args[0], k -> ((Function<Object, Object>) args[1]).apply(k));
+                case "get":
+                    return values.get(args[0]);
+                case "put":
+                    return values.put(args[0], args[1]);
+                case "remove":
+                    return values.remove(args[0]);
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+
+        return stub(ExtensionContext.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getRequiredTestClass":
+                    return testClass;
+                case "getTestClass":
+                    return Optional.of(testClass);
+                case "getTestMethod":
+                    return Optional.ofNullable(testMethod);
+                case "getParent":
+                    return Optional.ofNullable(parent);
+                case "getStore":
+                    return store;
+                case "toString":
+                    return testMethod == null ? testClass.getName() : testMethod.toString();
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+}
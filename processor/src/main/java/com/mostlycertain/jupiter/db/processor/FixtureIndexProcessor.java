@@ -0,0 +1,353 @@
+package com.mostlycertain.jupiter.db.processor;
+
+import com.mostlycertain.jupiter.db.DatabaseTest;
+import com.mostlycertain.jupiter.db.FinalizeSql;
+import com.mostlycertain.jupiter.db.FinalizeSqls;
+import com.mostlycertain.jupiter.db.FixtureIndexFormat;
+import com.mostlycertain.jupiter.db.InitializeSql;
+import com.mostlycertain.jupiter.db.InitializeSqls;
+import com.mostlycertain.jupiter.db.SqlRunner;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.lang.String.format;
+
+/**
+ * Annotation processor that writes the fixture index of the test classes being compiled, in the
+ * {@link FixtureIndexFormat} that the extension reads when the tests run.
+ *
+ * The {@link InitializeSql} and {@link FinalizeSql} resources of each test class are read at
+ * compile time. A resource that can not be found is a compile error if the
+ * {@code jupiterdb.resourceDirs} option is set, otherwise the class is left out of the index and
+ * its annotations are read when the tests run. The scripts are split into statements with
+ * {@link SqlRunner#splitStatements(String)}, so the tests do not split them again.
+ *
+ * The processor is published separately from the extension, so it only runs when it is added to
+ * the annotation processor path of the test compilation.
+ *
+ * Options:
+ * <ul>
+ *     <li>{@code jupiterdb.resourceDirs} - comma separated directories to search for resources,
+ *     for example {@code -Ajupiterdb.resourceDirs=src/test/resources}</li>
+ * </ul>
+ */
+public final class FixtureIndexProcessor extends AbstractProcessor {
+    static final String RESOURCE_DIRS_OPTION = "jupiterdb.resourceDirs";
+
+    private static final StandardLocation[] RESOURCE_LOCATIONS = {
+            StandardLocation.SOURCE_PATH,
+            StandardLocation.CLASS_OUTPUT,
+            StandardLocation.CLASS_PATH,
+    };
+
+    /**
+     * Elements by element key, by class name.
+     */
+    private final Map<String, Map<String, FixtureIndexFormat.Entry>> index = new LinkedHashMap<>();
+    private final Set<String> visitedClasses = new HashSet<>();
+    private final Set<Element> originatingElements = new LinkedHashSet<>();
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Stream.of(
+                InitializeSql.class,
+                InitializeSqls.class,
+                FinalizeSql.class,
+                FinalizeSqls.class,
+                DatabaseTest.class
+        ).map(Class::getCanonicalName).collect(Collectors.toSet());
+    }
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        return Collections.singleton(RESOURCE_DIRS_OPTION);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        for (final TypeElement annotation : annotations) {
+            for (final Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                final Element type = element.getKind() == ElementKind.METHOD ? element.getEnclosingElement() : element;
+
+                if (type instanceof TypeElement) {
+                    indexClass((TypeElement) type);
+                }
+            }
+        }
+
+        if (roundEnv.processingOver() && !index.isEmpty()) {
+            writeIndex();
+        }
+
+        // Other processors may also use the annotations
+        return false;
+    }
+
+    private void indexClass(final TypeElement type) {
+        final String className = processingEnv.getElementUtils().getBinaryName(type).toString();
+
+        if (!visitedClasses.add(className)) {
+            return;
+        }
+
+        final Map<String, FixtureIndexFormat.Entry> elements = new LinkedHashMap<>();
+
+        try {
+            addElement(elements, FixtureIndexFormat.CLASS_KEY, type, type);
+
+            for (final Element member : type.getEnclosedElements()) {
+                if (member.getKind() == ElementKind.METHOD) {
+                    addElement(elements, elementKey((ExecutableElement) member), type, member);
+                }
+            }
+        } catch (final MissingResourceException ex) {
+            final boolean required = processingEnv.getOptions().containsKey(RESOURCE_DIRS_OPTION);
+
+            processingEnv.getMessager().printMessage(
+                    required ? Diagnostic.Kind.ERROR : Diagnostic.Kind.NOTE,
+                    required ? ex.getMessage() : ex.getMessage() + "; the class is left out of the fixture index",
+                    ex.element);
+            return;
+        }
+
+        index.put(className, elements);
+        originatingElements.add(type);
+    }
+
+    private void addElement(
+            final Map<String, FixtureIndexFormat.Entry> elements,
+            final String elementKey,
+            final TypeElement type,
+            final Element element
+    ) {
+        final List<FixtureIndexFormat.Script> initializeSql = new ArrayList<>();
+        final List<FixtureIndexFormat.Script> finalizeSql = new ArrayList<>();
+
+        for (final InitializeSql a : annotations(element, InitializeSql.class, InitializeSqls.class, InitializeSqls::value)) {
+            addScripts(initializeSql, type, element, "InitializeSql", a.value(), a.resource());
+        }
+
+        for (final FinalizeSql a : annotations(element, FinalizeSql.class, FinalizeSqls.class, FinalizeSqls::value)) {
+            addScripts(finalizeSql, type, element, "FinalizeSql", a.value(), a.resource());
+        }
+
+        if (!initializeSql.isEmpty() || !finalizeSql.isEmpty()) {
+            elements.put(elementKey, new FixtureIndexFormat.Entry(initializeSql, finalizeSql));
+        }
+    }
+
+    /**
+     * Get the instances of a repeatable annotation the same way the extension does at runtime, so
+     * the scripts are in the same order.
+     */
+    private static <A extends Annotation, C extends Annotation> List<A> annotations(
+            final Element element,
+            final Class<A> annotationClass,
+            final Class<C> containerClass,
+            final Function<C, A[]> values
+    ) {
+        final C container = element.getAnnotation(containerClass);
+
+        if (container != null) {
+            return Arrays.asList(values.apply(container));
+        }
+
+        final A annotation = element.getAnnotation(annotationClass);
+
+        return annotation == null ? Collections.emptyList() : Collections.singletonList(annotation);
+    }
+
+    private void addScripts(
+            final List<FixtureIndexFormat.Script> output,
+            final TypeElement type,
+            final Element element,
+            final String annotationName,
+            final String[] inlineSql,
+            final String[] resourceNames
+    ) {
+        final String elementName = element == type
+                ? type.getSimpleName().toString()
+                : type.getSimpleName() + "." + element.getSimpleName();
+
+        for (final String sql : inlineSql) {
+            output.add(new FixtureIndexFormat.Script(
+                    false,
+                    format("@%s on %s", annotationName, elementName),
+                    sql,
+                    SqlRunner.splitStatements(sql)));
+        }
+
+        for (final String resourceName : resourceNames) {
+            final String sql = readResource(type, resourceName)
+                    .orElseThrow(() -> new MissingResourceException(element, format(
+                            "@%s resource not found: resource=%s test=%s",
+                            annotationName,
+                            resourceName,
+                            type.getQualifiedName())));
+
+            output.add(new FixtureIndexFormat.Script(true, resourceName, sql, SqlRunner.splitStatements(sql)));
+        }
+    }
+
+    /**
+     * Read a resource the way {@link Class#getResource(String)} resolves it: relative to the
+     * package of the class unless the name starts with {@code /}.
+     */
+    private Optional<String> readResource(final TypeElement type, final String resourceName) {
+        final String path;
+
+        if (resourceName.startsWith("/")) {
+            path = resourceName.substring(1);
+        } else {
+            final PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+
+            path = pkg.isUnnamed()
+                    ? resourceName
+                    : pkg.getQualifiedName().toString().replace('.', '/') + "/" + resourceName;
+        }
+
+        final String resourceDirs = processingEnv.getOptions().get(RESOURCE_DIRS_OPTION);
+
+        if (resourceDirs != null) {
+            for (final String dir : resourceDirs.split(",")) {
+                final Path file = Paths.get(dir.trim()).resolve(path);
+
+                if (!dir.trim().isEmpty() && Files.isRegularFile(file)) {
+                    try {
+                        return Optional.of(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+                    } catch (final IOException ex) {
+                        throw new RuntimeException("Error reading resource: " + file, ex);
+                    }
+                }
+            }
+        }
+
+        for (final StandardLocation location : RESOURCE_LOCATIONS) {
+            try {
+                final FileObject resource = processingEnv.getFiler().getResource(location, "", path);
+
+                try (final InputStream input = resource.openInputStream()) {
+                    return Optional.of(readText(input));
+                }
+            } catch (final IOException | IllegalArgumentException | IllegalStateException ex) {
+                // Not in this location, or the location is not set
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    private static String readText(final InputStream input) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[4096];
+        int readLen;
+
+        while ((readLen = input.read(buffer)) >= 0) {
+            output.write(buffer, 0, readLen);
+        }
+
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Same key as {@link FixtureIndexFormat#methodKey(java.lang.reflect.Method)} computes from the
+     * method at runtime.
+     */
+    private String elementKey(final ExecutableElement method) {
+        return FixtureIndexFormat.methodKey(method.getSimpleName().toString(), method.getParameters().stream()
+                .map(VariableElement::asType)
+                .map(this::typeName)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Same name as {@link FixtureIndexFormat#typeName(Class)} returns for the erased type at
+     * runtime. The name javac gives a type can not be used, since it has {@code ...} for a
+     * variable arity parameter and {@code .} before the name of a nested class.
+     */
+    private String typeName(final TypeMirror type) {
+        final TypeMirror erased = processingEnv.getTypeUtils().erasure(type);
+
+        switch (erased.getKind()) {
+            case ARRAY:
+                return FixtureIndexFormat.arrayTypeName(typeName(((ArrayType) erased).getComponentType()));
+            case DECLARED:
+                return processingEnv.getElementUtils()
+                        .getBinaryName((TypeElement) ((DeclaredType) erased).asElement())
+                        .toString();
+            default:
+                return erased.toString();
+        }
+    }
+
+    private void writeIndex() {
+        try {
+            final FileObject resource = processingEnv.getFiler().createResource(
+                    StandardLocation.CLASS_OUTPUT,
+                    "",
+                    FixtureIndexFormat.RESOURCE_NAME,
+                    originatingElements.toArray(new Element[0]));
+
+            try (final OutputStream stream = resource.openOutputStream();
+                 final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream))) {
+                FixtureIndexFormat.write(output, index);
+            }
+        } catch (final IOException ex) {
+            processingEnv.getMessager().printMessage(
+                    Diagnostic.Kind.ERROR,
+                    "Error writing fixture index: " + ex.getMessage());
+        }
+    }
+
+    private static final class MissingResourceException extends RuntimeException {
+        private final transient Element element;
+
+        MissingResourceException(final Element element, final String message) {
+            super(message);
+            this.element = element;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.mostlycertain.jupiter.db.processor;
+
+import com.mostlycertain.jupiter.db.FixtureIndexFormat;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FixtureIndexProcessorTest {
+    @Test
+    void indexFixtures() throws IOException, NoSuchMethodException {
+        final Path dir = Files.createTempDirectory("fixture-index");
+        write(dir.resolve("resources/example/users.sql"), "insert into users values (1); insert into users values (2)");
+        write(dir.resolve("src/example/UsersTest.java"), String.join("\n",
+                "package example;",
+                "import com.mostlycertain.jupiter.db.*;",
+                "@InitializeSql(\"create table users (id int)\")",
+                "@FinalizeSql(\"drop table users\")",
+                "class UsersTest {",
+                "    @InitializeSql(value = \"delete from users\", resource = \"users.sql\")",
+                "    @InitializeSql(resource = \"/example/users.sql\")",
+                "    void insert(java.sql.Connection connection, String[] names) {}",
+                "    void noFixtures() {}",
+                "}"));
+
+        assertTrue(compile(dir, true).isEmpty());
+
+        final Map<String, FixtureIndexFormat.Entry> elements = readIndex(dir).get("example.UsersTest");
+        assertEquals(asList("", "insert(java.sql.Connection,java.lang.String[])"), elements.keySet().stream().sorted().collect(Collectors.toList()));
+
+        final FixtureIndexFormat.Entry classElement = elements.get(FixtureIndexFormat.CLASS_KEY);
+        assertEquals("[@InitializeSql on UsersTest (1 statements)]", classElement.getInitializeSql().toString());
+        assertEquals("[@FinalizeSql on UsersTest (1 statements)]", classElement.getFinalizeSql().toString());
+
+        final FixtureIndexFormat.Entry methodElement = elements.get("insert(java.sql.Connection,java.lang.String[])");
+        assertEquals(
+                "[@InitializeSql on UsersTest.insert (1 statements), users.sql (2 statements), /example/users.sql (2 statements)]",
+                methodElement.getInitializeSql().toString());
+        assertEquals(
+                asList("insert into users values (1)", " insert into users values (2)"),
+                methodElement.getInitializeSql().get(1).getStatements());
+        assertEquals(
+                "insert into users values (1); insert into users values (2)",
+                methodElement.getInitializeSql().get(1).getSql());
+        assertTrue(methodElement.getInitializeSql().get(1).isResource());
+        assertFalse(methodElement.getInitializeSql().get(0).isResource());
+        assertEquals(Collections.emptyList(), methodElement.getFinalizeSql());
+
+        // Same key as the processor for a method with the same parameters
+        assertEquals(
+                "insert(java.sql.Connection,java.lang.String[])",
+                FixtureIndexFormat.methodKey(FixtureIndexProcessorTest.class.getDeclaredMethod("insert", Connection.class, String[].class)));
+    }
+
+    @Test
+    void methodKeys() throws IOException, ReflectiveOperationException {
+        final Path dir = Files.createTempDirectory("fixture-index");
+        Files.createDirectories(dir.resolve("resources"));
+        write(dir.resolve("src/example/KeysTest.java"), String.join("\n",
+                "package example;",
+                "import com.mostlycertain.jupiter.db.*;",
+                "import java.util.List;",
+                "import java.util.Map;",
+                "class KeysTest {",
+                "    @InitializeSql(\"select 1\")",
+                "    void varargs(String... names) {}",
+                "    @InitializeSql(\"select 2\")",
+                "    <T extends Number> void generic(List<T> values, T value, Map.Entry<String, T> entry, Nested nested) {}",
+                "    @InitializeSql(\"select 3\")",
+                "    void arrays(int[][] values, Nested[] nested, long count) {}",
+                "    static class Nested {}",
+                "}"));
+
+        assertTrue(compile(dir, false).isEmpty());
+
+        final Map<String, FixtureIndexFormat.Entry> elements = readIndex(dir).get("example.KeysTest");
+        assertEquals(3, elements.size(), elements.keySet().toString());
+        assertTrue(elements.containsKey("varargs(java.lang.String[])"), elements.keySet().toString());
+
+        // The keys of the compiled methods are the keys the processor wrote
+        try (final URLClassLoader classLoader = new URLClassLoader(new URL[]{dir.resolve("out").toUri().toURL()})) {
+            for (final Method method : classLoader.loadClass("example.KeysTest").getDeclaredMethods()) {
+                final String key = FixtureIndexFormat.methodKey(method);
+
+                assertTrue(elements.containsKey(key), key + " not in " + elements.keySet());
+            }
+        }
+    }
+
+    @Test
+    void missingResource() throws IOException {
+        final Path dir = Files.createTempDirectory("fixture-index");
+        Files.createDirectories(dir.resolve("resources"));
+        write(dir.resolve("src/example/MissingTest.java"), String.join("\n",
+                "package example;",
+                "import com.mostlycertain.jupiter.db.*;",
+                "class MissingTest {",
+                "    @FinalizeSql(resource = \"missing.sql\")",
+                "    void test() {}",
+                "}"));
+
+        final String errors = compile(dir, true);
+        assertTrue(errors.contains("@FinalizeSql resource not found: resource=missing.sql test=example.MissingTest"), errors);
+    }
+
+    @SuppressWarnings("unused")
+    private void insert(final Connection connection, final String[] names) {
+    }
+
+    private static Map<String, Map<String, FixtureIndexFormat.Entry>> readIndex(final Path dir) throws IOException {
+        try (final InputStream stream = Files.newInputStream(dir.resolve("out").resolve(FixtureIndexFormat.RESOURCE_NAME));
+             final DataInputStream input = new DataInputStream(stream)) {
+            return FixtureIndexFormat.read(input);
+        }
+    }
+
+    /**
+     * Run the processor on the sources in {@code dir/src}.
+     *
+     * @param procOnly True to only run the processor, false to also compile the classes.
+     * @return Compile errors.
+     */
+    private static String compile(final Path dir, final boolean procOnly) throws IOException {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        final Path out = Files.createDirectories(dir.resolve("out"));
+
+        try (final StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            final Iterable<? extends JavaFileObject> sources = fileManager.getJavaFileObjectsFromFiles(
+                    Files.walk(dir.resolve("src")).filter(Files::isRegularFile).map(Path::toFile).collect(Collectors.toList()));
+
+            final List<String> options = new ArrayList<>(Arrays.asList(
+                    "-processor", FixtureIndexProcessor.class.getName(),
+                    "-A" + FixtureIndexProcessor.RESOURCE_DIRS_OPTION + "=" + dir.resolve("resources"),
+                    "-classpath", System.getProperty("java.class.path"),
+                    "-d", out.toString()));
+
+            if (procOnly) {
+                options.add("-proc:only");
+            }
+
+            compiler.getTask(null, fileManager, diagnostics, options, null, sources).call();
+        }
+
+        return diagnostics.getDiagnostics().stream()
+                .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+                .map(d -> d.getMessage(null))
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static void write(final Path file, final String text) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+    }
+}